@@ -1,6 +1,9 @@
 package com.agentguard.agent.dto;
 
+import com.agentguard.agent.enums.AgentEnvironment;
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
@@ -33,4 +36,22 @@ public class AgentCreateDTO {
 
     @Schema(description = "默认模型", example = "gpt-3.5-turbo")
     private String llmModel;
+
+    @Schema(description = "是否启用请求对冲（非流式LLM调用和API代理GET请求）", example = "false")
+    private Boolean hedgingEnabled;
+
+    @Schema(description = "运行环境：TEST/STAGING/PRODUCTION", example = "PRODUCTION")
+    private AgentEnvironment environment;
+
+    @Schema(description = "调度权重，为空时按运行环境取默认权重", example = "4")
+    @Min(value = 1, message = "调度权重不能小于1")
+    @Max(value = 100, message = "调度权重不能超过100")
+    private Integer schedulingWeight;
+
+    @Schema(description = "同时进行的LLM调用上限（所有节点合计），为空时使用默认值", example = "20")
+    @Min(value = 1, message = "并发上限不能小于1")
+    private Integer maxConcurrency;
+
+    @Schema(description = "是否启用相似提示词响应缓存（非流式LLM调用）", example = "false")
+    private Boolean promptCacheEnabled;
 }
@@ -1,5 +1,6 @@
 package com.agentguard.agent.dto;
 
+import com.agentguard.agent.enums.AgentEnvironment;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Data;
@@ -40,6 +41,21 @@ public class AgentDTO {
     @Schema(description = "默认模型")
     private String llmModel;
 
+    @Schema(description = "是否启用请求对冲：主请求超过P95响应头时间未返回时向另一个端点重发，取先返回者")
+    private Boolean hedgingEnabled;
+
+    @Schema(description = "运行环境：TEST/STAGING/PRODUCTION，决定LLM调用的默认调度权重")
+    private AgentEnvironment environment;
+
+    @Schema(description = "调度权重，多个Agent排队时按权重分配LLM调用；为空时按运行环境取默认权重")
+    private Integer schedulingWeight;
+
+    @Schema(description = "同时进行的LLM调用上限（所有节点合计），为空时使用默认值")
+    private Integer maxConcurrency;
+
+    @Schema(description = "是否启用相似提示词响应缓存：与近期请求高度相似（模型和工具一致）时直接返回缓存的响应")
+    private Boolean promptCacheEnabled;
+
     @Schema(description = "Agent状态：0-禁用，1-启用")
     private Integer status;
 
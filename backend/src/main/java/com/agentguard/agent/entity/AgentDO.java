@@ -1,5 +1,6 @@
 package com.agentguard.agent.entity;
 
+import com.agentguard.agent.enums.AgentEnvironment;
 import com.baomidou.mybatisplus.annotation.*;
 import lombok.Data;
 
@@ -39,6 +40,21 @@ public class AgentDO {
     /** 默认模型 */
     private String llmModel;
 
+    /** 是否启用请求对冲 */
+    private Boolean hedgingEnabled;
+
+    /** 运行环境 */
+    private AgentEnvironment environment;
+
+    /** 调度权重，为空时按运行环境取默认权重 */
+    private Integer schedulingWeight;
+
+    /** 同时进行的 LLM 调用上限，为空时使用默认值 */
+    private Integer maxConcurrency;
+
+    /** 是否启用相似提示词响应缓存 */
+    private Boolean promptCacheEnabled;
+
     /** Agent状态：0-禁用，1-启用 */
     private Integer status;
 
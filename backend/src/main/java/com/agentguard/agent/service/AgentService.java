@@ -4,6 +4,7 @@ import com.agentguard.agent.dto.AgentCreateDTO;
 import com.agentguard.agent.dto.AgentDTO;
 import com.agentguard.agent.dto.AgentUpdateDTO;
 import com.agentguard.agent.dto.LlmTestConnectionDTO;
+import com.agentguard.agent.enums.AgentEnvironment;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 
@@ -36,6 +37,14 @@ public interface AgentService {
      */
     AgentDTO getByApiKeyForProxy(String apiKey);
 
+    /**
+     * 根据 API Key 查询 Agent 运行环境（只查询运行环境字段，用于网关过载时的优先级判断）
+     *
+     * @param apiKey Agent API Key
+     * @return 运行环境，Agent 不存在时返回 null
+     */
+    AgentEnvironment getEnvironmentByApiKey(String apiKey);
+
     /**
      * 测试 LLM 连接配置
      *
@@ -13,6 +13,7 @@ import com.agentguard.agent.dto.AgentUpdateDTO;
 import com.agentguard.agent.dto.LlmTestConnectionDTO;
 import com.agentguard.agent.entity.AgentDO;
 import com.agentguard.agent.entity.AgentPolicyBindingDO;
+import com.agentguard.agent.enums.AgentEnvironment;
 import com.agentguard.agent.mapper.AgentMapper;
 import com.agentguard.agent.mapper.AgentPolicyBindingMapper;
 import com.agentguard.agent.service.AgentService;
@@ -188,6 +189,16 @@ public class AgentServiceImpl implements AgentService {
         return toDTOWithoutMasking(agentDO);
     }
 
+    @Override
+    public AgentEnvironment getEnvironmentByApiKey(String apiKey) {
+        AgentDO agentDO = agentMapper.selectOne(
+                new LambdaQueryWrapper<AgentDO>()
+                        .select(AgentDO::getId, AgentDO::getEnvironment)
+                        .eq(AgentDO::getApiKey, apiKey)
+        );
+        return ObjectUtil.isNull(agentDO) ? null : agentDO.getEnvironment();
+    }
+
     /**
      * 转换为 DTO，包含策略信息
      */
@@ -20,6 +20,9 @@ public enum AlertType {
     /** 异常告警 */
     ERROR_RATE("ERROR_RATE", "异常告警"),
 
+    /** 延迟告警 */
+    LATENCY("LATENCY", "延迟告警"),
+
     /** 审批提醒 */
     APPROVAL("APPROVAL", "审批提醒"),
 
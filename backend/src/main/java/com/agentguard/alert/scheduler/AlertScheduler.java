@@ -41,6 +41,9 @@ public class AlertScheduler {
             // 检查错误率告警-默认参数
             alertService.checkErrorRateAlerts(30, 0.1);
 
+            // 检查延迟告警-默认参数
+            alertService.checkLatencyAlerts(15, 10000);
+
             // 发送审批提醒-默认参数
             alertService.sendApprovalReminders(30);
 
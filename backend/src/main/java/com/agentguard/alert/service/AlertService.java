@@ -32,6 +32,15 @@ public interface AlertService {
      */
     void checkErrorRateAlerts(int windowMinutes, double errorRateThreshold);
 
+    /**
+     * 检查延迟告警
+     * 按 Agent、模型统计时间窗口内的响应时间 P95，超过阈值则发送告警
+     *
+     * @param windowMinutes  时间窗口（分钟）
+     * @param p95ThresholdMs P95 阈值（毫秒）
+     */
+    void checkLatencyAlerts(int windowMinutes, long p95ThresholdMs);
+
     /**
      * 发送审批提醒
      * 检查即将过期的审批请求并发送提醒
@@ -26,6 +26,11 @@ import com.agentguard.settings.dto.AlertSettingsDTO;
 import com.agentguard.settings.dto.EmailSettingsDTO;
 import com.agentguard.settings.dto.WebhookSettingsDTO;
 import com.agentguard.settings.service.SystemSettingsService;
+import com.agentguard.stats.dto.LatencyPercentileDTO;
+import com.agentguard.stats.dto.LatencyQueryDTO;
+import com.agentguard.stats.enums.LatencyGroupBy;
+import com.agentguard.stats.enums.LatencyMetric;
+import com.agentguard.stats.service.LatencyStatsService;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.agentguard.alert.enums.NotificationChannelType;
 import lombok.RequiredArgsConstructor;
@@ -57,6 +62,7 @@ public class AlertServiceImpl implements AlertService {
     private final AgentMapper agentMapper;
     private final PolicyMapper policyMapper;
     private final SystemSettingsService systemSettingsService;
+    private final LatencyStatsService latencyStatsService;
 
     @Value("${alert.default-recipient:admin@agentguard.com}")
     private String defaultRecipient;
@@ -64,6 +70,13 @@ public class AlertServiceImpl implements AlertService {
     @Value("${app.frontend-url:http://localhost:3000}")
     private String frontendUrl;
 
+    /** 延迟告警最少样本数，样本过少时分位数不具代表性 */
+    @Value("${alert.latency.min-samples:20}")
+    private long latencyMinSamples;
+
+    /** 单条延迟告警最多列出的 Agent/模型 数 */
+    private static final int LATENCY_ALERT_MAX_ITEMS = 10;
+
     /** 时间格式化器 */
     private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
@@ -336,23 +349,22 @@ public class AlertServiceImpl implements AlertService {
         LocalDateTime endTime = LocalDateTime.now();
         LocalDateTime startTime = endTime.minusMinutes(effectiveWindowMinutes);
 
-        // 查询时间窗口内的所有日志
-        LambdaQueryWrapper<AgentLogDO> wrapper = new LambdaQueryWrapper<>();
-        wrapper.ge(AgentLogDO::getCreatedAt, startTime)
-               .le(AgentLogDO::getCreatedAt, endTime);
-
-        List<AgentLogDO> logs = agentLogMapper.selectList(wrapper);
+        // 统计时间窗口内的请求数，created_at 范围条件可命中分区裁剪，且只计数不加载日志内容
+        LambdaQueryWrapper<AgentLogDO> totalWrapper = new LambdaQueryWrapper<>();
+        totalWrapper.ge(AgentLogDO::getCreatedAt, startTime)
+                    .le(AgentLogDO::getCreatedAt, endTime);
+        long totalRequests = agentLogMapper.selectCount(totalWrapper);
 
-        if (logs.isEmpty()) {
+        if (totalRequests == 0) {
             log.debug("时间窗口内没有日志记录");
             return;
         }
 
-        // 计算总请求数和失败请求数
-        long totalRequests = logs.size();
-        long failedRequests = logs.stream()
-                .filter(log -> ResponseStatus.FAILED.equals(log.getResponseStatus()))
-                .count();
+        LambdaQueryWrapper<AgentLogDO> failedWrapper = new LambdaQueryWrapper<>();
+        failedWrapper.ge(AgentLogDO::getCreatedAt, startTime)
+                     .le(AgentLogDO::getCreatedAt, endTime)
+                     .eq(AgentLogDO::getResponseStatus, ResponseStatus.FAILED);
+        long failedRequests = agentLogMapper.selectCount(failedWrapper);
 
         // 计算错误率
         double errorRate = (double) failedRequests / totalRequests;
@@ -393,6 +405,90 @@ public class AlertServiceImpl implements AlertService {
     }
 
 
+    @Override
+    public void checkLatencyAlerts(int windowMinutes, long p95ThresholdMs) {
+        log.debug("开始检查延迟告警...");
+
+        // 从系统设置获取告警配置
+        AlertSettingsDTO alertSettings = systemSettingsService.getAlertSettings();
+
+        // 检查延迟告警是否启用
+        if (!Boolean.TRUE.equals(alertSettings.getLatencyAlertEnabled())) {
+            log.debug("延迟告警未启用");
+            return;
+        }
+
+        // 检查是否在冷却期内
+        if (isInCooldownPeriod(AlertType.LATENCY, alertSettings.getLatencyAlertCooldownMinutes())) {
+            log.debug("延迟告警在冷却期内，跳过本次通知");
+            return;
+        }
+
+        // 使用系统设置中的时间窗口和阈值
+        int effectiveWindowMinutes = alertSettings.getLatencyWindow() != null
+            ? alertSettings.getLatencyWindow()
+            : windowMinutes;
+
+        long effectiveThreshold = alertSettings.getLatencyP95Threshold() != null
+            ? alertSettings.getLatencyP95Threshold()
+            : p95ThresholdMs;
+        log.debug("延迟告警： windowMinutes={}, p95Threshold={}ms", effectiveWindowMinutes, effectiveThreshold);
+
+        // 按 Agent + 模型合并时间窗口内各节点的延迟直方图
+        LocalDateTime endTime = LocalDateTime.now();
+        LatencyQueryDTO query = LatencyQueryDTO.builder()
+                .metric(LatencyMetric.RESPONSE_TIME)
+                .startTime(endTime.minusMinutes(effectiveWindowMinutes))
+                .endTime(endTime)
+                .groupBy(LatencyGroupBy.AGENT_MODEL)
+                .build();
+        List<LatencyPercentileDTO> slowItems = latencyStatsService.getPercentiles(query).stream()
+                .filter(item -> item.getCount() >= latencyMinSamples && item.getP95() >= effectiveThreshold)
+                .toList();
+
+        if (slowItems.isEmpty()) {
+            log.debug("时间窗口内没有超过阈值的 Agent/模型");
+            return;
+        }
+
+        // 获取邮件配置中的默认收件人
+        EmailSettingsDTO emailSettings = systemSettingsService.getEmailSettings();
+        String recipient = emailSettings.getDefaultRecipients();
+        if (StrUtil.isBlank(recipient)) {
+            recipient = defaultRecipient;
+        }
+
+        LatencyPercentileDTO slowest = slowItems.get(0);
+        String title = StrUtil.format("【延迟告警】{} 个 Agent/模型响应时间 P95 超过 {}ms",
+                slowItems.size(), effectiveThreshold);
+
+        StringBuilder details = new StringBuilder();
+        for (LatencyPercentileDTO item : slowItems.subList(0, Math.min(slowItems.size(), LATENCY_ALERT_MAX_ITEMS))) {
+            details.append(StrUtil.format("- {} / {}：P95 {}ms，P99 {}ms，样本 {}\n",
+                    StrUtil.blankToDefault(item.getAgentName(), item.getAgentId()),
+                    StrUtil.blankToDefault(item.getModel(), "-"),
+                    item.getP95(), item.getP99(), item.getCount()));
+        }
+
+        String content = StrUtil.format(
+                "#### 🐢【AgentGuard】响应延迟告警\n\n" +
+                "**时间窗口：** 最近 {} 分钟\n\n" +
+                "**P95 阈值：** {}ms\n\n" +
+                "**最慢：** {}ms（P95）\n\n" +
+                "**超过阈值的 Agent/模型：**\n\n{}\n" +
+                "请及时排查上游服务或网络状况！",
+                effectiveWindowMinutes,
+                effectiveThreshold,
+                slowest.getP95(),
+                details);
+
+        // 发送告警到所有启用的通知渠道
+        sendAlertToAllChannels(AlertType.LATENCY, title, content, recipient);
+
+        log.debug("延迟告警检查完成");
+    }
+
+
     @Override
     public void sendApprovalReminders(int reminderMinutes) {
         log.debug("开始发送审批提醒...");
@@ -6,6 +6,7 @@ import com.agentguard.approval.dto.ApprovalReasonDTO;
 import com.agentguard.approval.dto.ApprovalStatusDTO;
 import com.agentguard.approval.enums.ApprovalStatus;
 import com.agentguard.approval.service.ApprovalService;
+import com.agentguard.approval.service.ApprovalStatusWatcher;
 import com.agentguard.common.response.Result;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
@@ -13,7 +14,10 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import jakarta.validation.Valid;
 
@@ -29,6 +33,7 @@ import jakarta.validation.Valid;
 public class ApprovalController {
 
     private final ApprovalService approvalService;
+    private final ApprovalStatusWatcher approvalStatusWatcher;
 
     @Operation(summary = "分页查询审批列表")
     @GetMapping
@@ -83,6 +88,26 @@ public class ApprovalController {
         return Result.success(approvalService.getStatus(id));
     }
 
+    @Operation(
+            summary = "长轮询等待审批结果",
+            description = "审批已有结果时立即返回，否则挂起请求直到审批状态变更或等待超时，超时返回当前状态"
+    )
+    @GetMapping("/{id}/status/wait")
+    public DeferredResult<Result<ApprovalStatusDTO>> waitStatus(
+            @PathVariable String id,
+            @Parameter(description = "最长等待时间（秒），默认30，最大60") @RequestParam(required = false) Integer timeout) {
+        return approvalStatusWatcher.await(id, timeout);
+    }
+
+    @Operation(
+            summary = "订阅审批状态变更",
+            description = "SSE 推送审批状态，连接后立即推送当前状态，审批有最终结果后关闭连接"
+    )
+    @GetMapping(value = "/{id}/status/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamStatus(@PathVariable String id) {
+        return approvalStatusWatcher.subscribe(id);
+    }
+
     @Operation(
             summary = "提交审批申请理由",
             description = "用户提交审批申请理由，帮助审批人员了解申请原因"
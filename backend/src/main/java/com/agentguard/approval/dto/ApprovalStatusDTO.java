@@ -1,6 +1,7 @@
 package com.agentguard.approval.dto;
 
 import com.agentguard.approval.enums.ApprovalStatus;
+import com.agentguard.approval.enums.ExecutionStatus;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
@@ -25,6 +26,9 @@ public class ApprovalStatusDTO {
     @Schema(description = "审批状态：PENDING/APPROVED/REJECTED/EXPIRED")
     private ApprovalStatus status;
 
+    @Schema(description = "执行状态（仅当status=APPROVED时返回）：NOT_EXECUTED/EXECUTING/SUCCESS/FAILED")
+    private ExecutionStatus executionStatus;
+
     @Schema(description = "执行结果（仅当status=APPROVED且已执行时返回）")
     private Object executionResult;
 
@@ -1,6 +1,7 @@
 package com.agentguard.approval.event;
 
 import com.agentguard.approval.service.ApprovalExecutor;
+import com.agentguard.approval.service.ApprovalStatusWatcher;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -19,6 +20,7 @@ import org.springframework.transaction.event.TransactionalEventListener;
 public class ApprovalEventListener {
 
     private final ApprovalExecutor approvalExecutor;
+    private final ApprovalStatusWatcher approvalStatusWatcher;
 
     /**
      * 监听审批通过事件
@@ -38,4 +40,15 @@ public class ApprovalEventListener {
             log.info("自动执行已禁用，跳过执行: approvalId={}", approvalId);
         }
     }
+
+    /**
+     * 监听审批状态变更事件
+     * 在事务提交后广播状态变更，唤醒等待审批结果的客户端；无事务时（如异步执行完成）直接广播
+     *
+     * @param event 审批状态变更事件
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleApprovalStatusChanged(ApprovalStatusChangedEvent event) {
+        approvalStatusWatcher.publish(event.getApprovalId());
+    }
 }
@@ -0,0 +1,24 @@
+package com.agentguard.approval.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 审批状态变更事件
+ * 当审批被批准、拒绝、过期或执行完成时发布此事件，用于唤醒等待审批结果的客户端
+ *
+ * @author zhuhx
+ */
+@Getter
+public class ApprovalStatusChangedEvent extends ApplicationEvent {
+
+    /**
+     * 审批请求ID
+     */
+    private final String approvalId;
+
+    public ApprovalStatusChangedEvent(Object source, String approvalId) {
+        super(source);
+        this.approvalId = approvalId;
+    }
+}
@@ -3,11 +3,17 @@ package com.agentguard.approval.mapper;
 import com.agentguard.approval.dto.ApprovalDTO;
 import com.agentguard.approval.entity.ApprovalRequestDO;
 import com.agentguard.approval.enums.ApprovalStatus;
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.core.toolkit.Constants;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
 
 /**
  * 审批请求数据访问层
@@ -38,4 +44,15 @@ public interface ApprovalMapper extends BaseMapper<ApprovalRequestDO> {
      * @return 审批请求DTO
      */
     ApprovalDTO selectByIdWithNames(@Param("id") String id);
+
+    /**
+     * 流式查询审批请求
+     * MySQL 驱动逐行返回结果，不在内存中缓存整个结果集；必须在事务内遍历，遍历期间连接不能执行其他查询
+     *
+     * @param wrapper 查询条件（必须指定查询列）
+     * @return 结果游标
+     */
+    @Select("SELECT ${ew.sqlSelect} FROM approval_request ${ew.customSqlSegment}")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    Cursor<ApprovalRequestDO> selectCursor(@Param(Constants.WRAPPER) Wrapper<ApprovalRequestDO> wrapper);
 }
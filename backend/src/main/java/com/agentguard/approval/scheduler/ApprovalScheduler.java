@@ -1,5 +1,6 @@
 package com.agentguard.approval.scheduler;
 
+import com.agentguard.approval.service.ApprovalExpiryQueue;
 import com.agentguard.approval.service.ApprovalService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -19,21 +20,39 @@ import org.springframework.stereotype.Component;
 public class ApprovalScheduler {
 
     private final ApprovalService approvalService;
+    private final ApprovalExpiryQueue approvalExpiryQueue;
 
     /**
-     * 过期审批检查定时任务
+     * 过期审批出队定时任务
      *
-     * 每1分钟执行一次，批量更新过期的审批状态
+     * 每秒执行一次，处理其他节点登记或本节点时间轮遗漏的到期审批
      */
-    @Scheduled(fixedRate = 60000)
+    @Scheduled(fixedDelay = 1000)
+    public void drainExpiryQueue() {
+        try {
+            int expiredCount = approvalExpiryQueue.drainDue();
+            if (expiredCount > 0) {
+                log.debug("过期审批出队完成: count={}", expiredCount);
+            }
+        } catch (Exception e) {
+            log.error("过期审批出队失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 过期审批对账定时任务
+     *
+     * 兜底处理 Redis 不可用期间未登记到延迟队列的审批，默认每10分钟执行一次
+     */
+    @Scheduled(fixedDelayString = "${approval.expiry.reconcile-interval-ms:600000}")
     public void expireOverdueApprovals() {
-        log.debug("开始执行过期审批检查定时任务...");
+        log.debug("开始执行过期审批对账定时任务...");
 
         try {
             approvalService.expireOverdue();
-            log.debug("过期审批检查定时任务执行完成");
+            log.debug("过期审批对账定时任务执行完成");
         } catch (Exception e) {
-            log.error("过期审批检查定时任务执行失败: {}", e.getMessage(), e);
+            log.error("过期审批对账定时任务执行失败: {}", e.getMessage(), e);
         }
     }
 }
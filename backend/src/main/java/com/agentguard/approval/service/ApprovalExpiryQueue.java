@@ -0,0 +1,34 @@
+package com.agentguard.approval.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * 审批过期延迟队列接口
+ * 按过期时间登记待审批请求，到期后批量置为已过期，替代定时全表扫描
+ *
+ * @author zhuhx
+ */
+public interface ApprovalExpiryQueue {
+
+    /**
+     * 登记审批过期时间
+     *
+     * @param approvalId 审批请求ID
+     * @param expiresAt 过期时间
+     */
+    void schedule(String approvalId, LocalDateTime expiresAt);
+
+    /**
+     * 取消审批过期登记（审批已被处理时调用）
+     *
+     * @param approvalId 审批请求ID
+     */
+    void cancel(String approvalId);
+
+    /**
+     * 取出所有已到期的审批并批量置为已过期
+     *
+     * @return 本次过期的审批数量
+     */
+    int drainDue();
+}
@@ -7,6 +7,8 @@ import com.agentguard.approval.enums.ApprovalStatus;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 
+import java.util.Collection;
+
 /**
  * 审批服务接口
  *
@@ -67,6 +69,15 @@ public interface ApprovalService {
      */
     void expireOverdue();
 
+    /**
+     * 批量将指定审批置为已过期
+     * 仅处理仍处于待审批状态的记录，并同步更新关联的日志状态
+     *
+     * @param ids 审批请求ID列表
+     * @return 实际过期的审批数量
+     */
+    int expire(Collection<String> ids);
+
     /**
      * 获取待审批数量
      *
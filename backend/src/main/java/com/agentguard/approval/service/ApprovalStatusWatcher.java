@@ -0,0 +1,41 @@
+package com.agentguard.approval.service;
+
+import com.agentguard.approval.dto.ApprovalStatusDTO;
+import com.agentguard.common.response.Result;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * 审批状态推送服务接口
+ * 以长轮询和 SSE 的方式向客户端推送审批结果，替代客户端定时轮询
+ *
+ * @author zhuhx
+ */
+public interface ApprovalStatusWatcher {
+
+    /**
+     * 长轮询等待审批结果
+     * 审批已有结果时立即返回，否则挂起请求直到审批状态变更或等待超时（超时返回当前状态）
+     *
+     * @param approvalId 审批请求ID
+     * @param timeoutSeconds 最长等待时间（秒）
+     * @return 异步结果
+     */
+    DeferredResult<Result<ApprovalStatusDTO>> await(String approvalId, Integer timeoutSeconds);
+
+    /**
+     * 订阅审批状态变更（SSE）
+     * 订阅后立即推送一次当前状态，之后每次状态变更推送一次，审批有最终结果后关闭连接
+     *
+     * @param approvalId 审批请求ID
+     * @return SSE 连接
+     */
+    SseEmitter subscribe(String approvalId);
+
+    /**
+     * 广播审批状态变更（通过 Redis 通知所有节点）
+     *
+     * @param approvalId 审批请求ID
+     */
+    void publish(String approvalId);
+}
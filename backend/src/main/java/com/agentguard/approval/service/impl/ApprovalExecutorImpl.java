@@ -13,6 +13,7 @@ import com.agentguard.approval.dto.ApprovalExecutionResultDTO;
 import com.agentguard.approval.entity.ApprovalRequestDO;
 import com.agentguard.approval.enums.ApprovalStatus;
 import com.agentguard.approval.enums.ExecutionStatus;
+import com.agentguard.approval.event.ApprovalStatusChangedEvent;
 import com.agentguard.approval.mapper.ApprovalMapper;
 import com.agentguard.approval.service.ApprovalExecutor;
 import com.agentguard.common.exception.BusinessException;
@@ -24,6 +25,7 @@ import com.agentguard.proxy.service.ProxyService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
@@ -53,6 +55,7 @@ public class ApprovalExecutorImpl implements ApprovalExecutor {
     private final RestTemplate restTemplate;
     private final EncryptionUtil encryptionUtil;
     private final com.agentguard.log.service.AgentLogService agentLogService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Value("${approval.auto-execute:true}")
     private boolean autoExecuteEnabled;
@@ -121,6 +124,7 @@ public class ApprovalExecutorImpl implements ApprovalExecutor {
             }
 
             log.info("审批请求执行成功: approvalId={}", approvalId);
+            eventPublisher.publishEvent(new ApprovalStatusChangedEvent(this, approvalId));
             return ApprovalExecutionResultDTO.success(approvalId, result);
 
         } catch (Exception e) {
@@ -156,6 +160,7 @@ public class ApprovalExecutorImpl implements ApprovalExecutor {
 
             // 发送执行失败通知
             sendExecutionFailureNotification(approvalId, e.getMessage());
+            eventPublisher.publishEvent(new ApprovalStatusChangedEvent(this, approvalId));
 
             return ApprovalExecutionResultDTO.failed(approvalId, e.getMessage());
         }
@@ -0,0 +1,187 @@
+package com.agentguard.approval.service.impl;
+
+import cn.hutool.core.collection.CollUtil;
+import com.agentguard.approval.entity.ApprovalRequestDO;
+import com.agentguard.approval.enums.ApprovalStatus;
+import com.agentguard.approval.mapper.ApprovalMapper;
+import com.agentguard.approval.service.ApprovalExpiryQueue;
+import com.agentguard.approval.service.ApprovalService;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 审批过期延迟队列实现类
+ * <p>
+ * 以 Redis 有序集合作为持久化的延迟队列（score 为过期时间戳），多节点共享；
+ * 本节点登记的审批同时放入进程内时间轮，到期即时触发出队，其余节点登记的审批
+ * 由每秒一次的出队任务兜底。出队通过 Lua 脚本原子地取出并删除，保证同一审批只被一个节点处理。
+ *
+ * @author zhuhx
+ */
+@Slf4j
+@Service
+public class ApprovalExpiryQueueImpl implements ApprovalExpiryQueue {
+
+    /** 延迟队列键 */
+    private static final String EXPIRY_QUEUE_KEY = "approval:expiry";
+
+    /** 单次出队数量上限 */
+    private static final int DRAIN_BATCH_SIZE = 500;
+
+    /**
+     * 出队 Lua 脚本
+     *
+     * 取出 score 不大于当前时间的成员并从集合中删除，返回取出的成员
+     */
+    private static final String CLAIM_DUE_SCRIPT = """
+            local due = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, tonumber(ARGV[2]))
+            if #due > 0 then
+                redis.call('ZREM', KEYS[1], unpack(due))
+            end
+            return due
+            """;
+
+    private final DefaultRedisScript<List<String>> claimDueScript = new DefaultRedisScript<>(CLAIM_DUE_SCRIPT, stringListType());
+
+    private final StringRedisTemplate redisTemplate;
+    private final ApprovalMapper approvalMapper;
+    private final ApprovalService approvalService;
+
+    /** 进程内时间轮：100ms 一格，512 格；守护线程，不阻止 JVM 退出 */
+    private final Timer wheelTimer = new HashedWheelTimer(
+            Thread.ofPlatform().name("approval-expiry-wheel").daemon().factory(), 100, TimeUnit.MILLISECONDS, 512);
+
+    public ApprovalExpiryQueueImpl(
+            StringRedisTemplate redisTemplate,
+            ApprovalMapper approvalMapper,
+            @Lazy ApprovalService approvalService) {
+        this.redisTemplate = redisTemplate;
+        this.approvalMapper = approvalMapper;
+        this.approvalService = approvalService;
+    }
+
+    /**
+     * 启动时将数据库中的待审批请求重新登记到延迟队列
+     * 用于恢复 Redis 数据丢失或服务停机期间未登记的审批
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        LambdaQueryWrapper<ApprovalRequestDO> wrapper = new LambdaQueryWrapper<>();
+        wrapper.select(ApprovalRequestDO::getId, ApprovalRequestDO::getExpiresAt)
+               .eq(ApprovalRequestDO::getStatus, ApprovalStatus.PENDING)
+               .isNotNull(ApprovalRequestDO::getExpiresAt);
+
+        try {
+            List<ApprovalRequestDO> pendingApprovals = approvalMapper.selectList(wrapper);
+            if (pendingApprovals.isEmpty()) {
+                return;
+            }
+
+            Set<ZSetOperations.TypedTuple<String>> tuples = pendingApprovals.stream()
+                    .map(approval -> ZSetOperations.TypedTuple.of(approval.getId(), (double) toEpochMilli(approval.getExpiresAt())))
+                    .collect(Collectors.toSet());
+            redisTemplate.opsForZSet().add(EXPIRY_QUEUE_KEY, tuples);
+            log.info("已将 {} 条待审批请求登记到过期队列", pendingApprovals.size());
+        } catch (Exception e) {
+            log.error("重建审批过期队列失败: {}", e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void schedule(String approvalId, LocalDateTime expiresAt) {
+        long expireAtMillis = toEpochMilli(expiresAt);
+        try {
+            redisTemplate.opsForZSet().add(EXPIRY_QUEUE_KEY, approvalId, expireAtMillis);
+        } catch (Exception e) {
+            // Redis 不可用时由定时对账任务兜底
+            log.warn("登记审批过期时间失败: approvalId={}, error={}", approvalId, e.getMessage());
+            return;
+        }
+
+        long delayMillis = Math.max(0, expireAtMillis - System.currentTimeMillis());
+        wheelTimer.newTimeout(timeout -> drainQuietly(), delayMillis, TimeUnit.MILLISECONDS);
+        log.debug("已登记审批过期时间: approvalId={}, delay={}", approvalId, Duration.ofMillis(delayMillis));
+    }
+
+    @Override
+    public void cancel(String approvalId) {
+        try {
+            redisTemplate.opsForZSet().remove(EXPIRY_QUEUE_KEY, approvalId);
+        } catch (Exception e) {
+            // 未取消的审批出队后会因状态不是待审批而被跳过
+            log.warn("取消审批过期登记失败: approvalId={}, error={}", approvalId, e.getMessage());
+        }
+    }
+
+    @Override
+    public int drainDue() {
+        int total = 0;
+        while (true) {
+            List<String> dueIds = redisTemplate.execute(claimDueScript,
+                    Collections.singletonList(EXPIRY_QUEUE_KEY),
+                    String.valueOf(System.currentTimeMillis()),
+                    String.valueOf(DRAIN_BATCH_SIZE));
+            if (CollUtil.isEmpty(dueIds)) {
+                break;
+            }
+
+            try {
+                total += approvalService.expire(dueIds);
+            } catch (Exception e) {
+                // 处理失败时放回队列，下次出队重试
+                long retryAt = System.currentTimeMillis();
+                dueIds.forEach(id -> redisTemplate.opsForZSet().add(EXPIRY_QUEUE_KEY, id, retryAt));
+                throw e;
+            }
+
+            if (dueIds.size() < DRAIN_BATCH_SIZE) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        wheelTimer.stop();
+    }
+
+    private void drainQuietly() {
+        try {
+            drainDue();
+        } catch (Exception e) {
+            log.error("审批过期出队失败: {}", e.getMessage(), e);
+        }
+    }
+
+    private long toEpochMilli(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * 脚本返回值类型：Lua 返回的成员数组由 StringRedisTemplate 反序列化为字符串列表
+     */
+    @SuppressWarnings("unchecked")
+    private static Class<List<String>> stringListType() {
+        return (Class<List<String>>) (Class<?>) List.class;
+    }
+}
@@ -1,6 +1,7 @@
 package com.agentguard.approval.service.impl;
 
 import cn.hutool.core.bean.BeanUtil;
+import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.util.ObjectUtil;
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.json.JSONUtil;
@@ -14,12 +15,15 @@ import com.agentguard.approval.entity.ApprovalRequestDO;
 import com.agentguard.approval.enums.ApprovalStatus;
 import com.agentguard.approval.enums.ExecutionStatus;
 import com.agentguard.approval.event.ApprovalApprovedEvent;
+import com.agentguard.approval.event.ApprovalStatusChangedEvent;
 import com.agentguard.approval.mapper.ApprovalMapper;
 import com.agentguard.approval.service.ApprovalExecutor;
+import com.agentguard.approval.service.ApprovalExpiryQueue;
 import com.agentguard.approval.service.ApprovalService;
 import com.agentguard.approval.util.ApprovalIdGenerator;
 import com.agentguard.common.exception.BusinessException;
 import com.agentguard.common.exception.ErrorCode;
+import com.agentguard.common.util.TransactionUtil;
 import com.agentguard.log.enums.ResponseStatus;
 import com.agentguard.log.service.AgentLogService;
 import com.agentguard.policy.entity.PolicyDO;
@@ -37,6 +41,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * 审批服务实现类
@@ -56,6 +62,7 @@ public class ApprovalServiceImpl implements ApprovalService {
     private final AgentLogService agentLogService;
     private final ApprovalIdGenerator approvalIdGenerator;
     private final SystemSettingsService systemSettingsService;
+    private final ApprovalExpiryQueue approvalExpiryQueue;
 
     @Override
     @Transactional
@@ -74,6 +81,8 @@ public class ApprovalServiceImpl implements ApprovalService {
         approvalDO.setExpiresAt(LocalDateTime.now().plusMinutes(expireMinutes));
 
         approvalMapper.insert(approvalDO);
+        // 事务提交后再登记到延迟队列，回滚的审批不会被登记
+        TransactionUtil.afterCommit(() -> approvalExpiryQueue.schedule(approvalDO.getId(), approvalDO.getExpiresAt()));
 
         ApprovalDTO result = approvalMapper.selectByIdWithNames(approvalDO.getId());
         if (result != null) {
@@ -131,10 +140,12 @@ public class ApprovalServiceImpl implements ApprovalService {
         approvalDO.setRemark(remark);
 
         approvalMapper.updateById(approvalDO);
+        TransactionUtil.afterCommit(() -> approvalExpiryQueue.cancel(id));
 
         // 发布审批通过事件，事件监听器会在事务提交后异步执行原始请求
         log.info("发布审批通过事件: approvalId={}", id);
         eventPublisher.publishEvent(new ApprovalApprovedEvent(this, id));
+        eventPublisher.publishEvent(new ApprovalStatusChangedEvent(this, id));
 
         ApprovalDTO result = approvalMapper.selectByIdWithNames(id);
         if (result != null && result.getStatus() == ApprovalStatus.PENDING
@@ -156,6 +167,7 @@ public class ApprovalServiceImpl implements ApprovalService {
         approvalDO.setRemark(remark);
 
         approvalMapper.updateById(approvalDO);
+        TransactionUtil.afterCommit(() -> approvalExpiryQueue.cancel(id));
 
         // 更新关联的日志状态为 REJECTED
         try {
@@ -172,6 +184,8 @@ public class ApprovalServiceImpl implements ApprovalService {
             log.error("发送拒绝通知失败: approvalId={}, error={}", id, e.getMessage(), e);
         }
 
+        eventPublisher.publishEvent(new ApprovalStatusChangedEvent(this, id));
+
         ApprovalDTO result = approvalMapper.selectByIdWithNames(id);
         if (result != null && result.getStatus() == ApprovalStatus.PENDING
                 && result.getExpiresAt() != null
@@ -184,37 +198,60 @@ public class ApprovalServiceImpl implements ApprovalService {
     @Override
     @Transactional
     public void expireOverdue() {
-        // 1. 查询所有过期的待审批记录
+        // 对账兜底：延迟队列正常工作时这里通常查不到记录
         LambdaQueryWrapper<ApprovalRequestDO> queryWrapper = new LambdaQueryWrapper<>();
-        queryWrapper.eq(ApprovalRequestDO::getStatus, ApprovalStatus.PENDING)
+        queryWrapper.select(ApprovalRequestDO::getId)
+                   .eq(ApprovalRequestDO::getStatus, ApprovalStatus.PENDING)
                    .lt(ApprovalRequestDO::getExpiresAt, LocalDateTime.now());
 
-        java.util.List<ApprovalRequestDO> expiredApprovals = approvalMapper.selectList(queryWrapper);
+        List<String> overdueIds = approvalMapper.selectList(queryWrapper).stream()
+                .map(ApprovalRequestDO::getId)
+                .toList();
 
-        if (expiredApprovals.isEmpty()) {
+        if (overdueIds.isEmpty()) {
             log.debug("没有过期的审批记录");
             return;
         }
 
-        log.info("发现 {} 条过期的审批记录，开始批量更新", expiredApprovals.size());
+        log.info("对账发现 {} 条未及时过期的审批记录", overdueIds.size());
+        expire(overdueIds);
+    }
+
+    @Override
+    @Transactional
+    public int expire(Collection<String> ids) {
+        if (CollUtil.isEmpty(ids)) {
+            return 0;
+        }
+
+        // 1. 只处理仍处于待审批状态的记录，已被审批的直接跳过
+        LambdaQueryWrapper<ApprovalRequestDO> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.select(ApprovalRequestDO::getId)
+                   .in(ApprovalRequestDO::getId, ids)
+                   .eq(ApprovalRequestDO::getStatus, ApprovalStatus.PENDING);
+
+        List<String> expiredIds = approvalMapper.selectList(queryWrapper).stream()
+                .map(ApprovalRequestDO::getId)
+                .toList();
+
+        if (expiredIds.isEmpty()) {
+            return 0;
+        }
 
         // 2. 批量更新审批状态
         LambdaUpdateWrapper<ApprovalRequestDO> updateWrapper = new LambdaUpdateWrapper<>();
-        updateWrapper.eq(ApprovalRequestDO::getStatus, ApprovalStatus.PENDING)
-                   .lt(ApprovalRequestDO::getExpiresAt, LocalDateTime.now())
+        updateWrapper.in(ApprovalRequestDO::getId, expiredIds)
+                   .eq(ApprovalRequestDO::getStatus, ApprovalStatus.PENDING)
                    .set(ApprovalRequestDO::getStatus, ApprovalStatus.EXPIRED);
 
         int updatedCount = approvalMapper.update(null, updateWrapper);
         log.info("已更新 {} 条审批记录状态为 EXPIRED", updatedCount);
 
-        // 3. 同步更新关联的日志状态
-        for (ApprovalRequestDO approval : expiredApprovals) {
-            try {
-                agentLogService.updateStatusByApprovalRequestId(approval.getId(), ResponseStatus.EXPIRED);
-            } catch (Exception e) {
-                log.error("更新审批 {} 关联的日志状态失败: {}", approval.getId(), e.getMessage(), e);
-            }
-        }
+        // 3. 批量更新关联的日志状态
+        agentLogService.updateStatusByApprovalRequestIds(expiredIds, ResponseStatus.EXPIRED);
+
+        expiredIds.forEach(id -> eventPublisher.publishEvent(new ApprovalStatusChangedEvent(this, id)));
+        return updatedCount;
     }
 
     @Override
@@ -241,6 +278,8 @@ public class ApprovalServiceImpl implements ApprovalService {
 
         ApprovalStatusDTO statusDTO = ApprovalStatusDTO.builder()
                 .status(displayStatus)
+                .executionStatus(approvalDO.getStatus() == ApprovalStatus.APPROVED
+                        ? approvalDO.getExecutionStatus() : null)
                 .build();
 
         // 如果审批通过且已执行成功，返回执行结果
@@ -0,0 +1,228 @@
+package com.agentguard.approval.service.impl;
+
+import cn.hutool.core.collection.CollUtil;
+import com.agentguard.approval.dto.ApprovalStatusDTO;
+import com.agentguard.approval.enums.ApprovalStatus;
+import com.agentguard.approval.enums.ExecutionStatus;
+import com.agentguard.approval.service.ApprovalExecutor;
+import com.agentguard.approval.service.ApprovalService;
+import com.agentguard.approval.service.ApprovalStatusWatcher;
+import com.agentguard.common.exception.BusinessException;
+import com.agentguard.common.response.Result;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 审批状态推送服务实现类
+ * <p>
+ * 等待中的长轮询请求和 SSE 连接按审批ID登记在内存中，不占用线程。
+ * 审批状态变更时先通过 Redis 发布/订阅广播到所有节点，各节点收到通知后
+ * 每个审批只查询一次数据库，再把结果分发给本节点上的全部等待者。
+ *
+ * @author zhuhx
+ */
+@Slf4j
+@Service
+public class ApprovalStatusWatcherImpl implements ApprovalStatusWatcher, MessageListener {
+
+    /** 审批状态变更广播频道 */
+    private static final String STATUS_CHANNEL = "approval:status:changed";
+
+    private final ApprovalService approvalService;
+    private final ApprovalExecutor approvalExecutor;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    /** 等待中的长轮询请求，key 为审批ID */
+    private final Map<String, Set<DeferredResult<Result<ApprovalStatusDTO>>>> pendingPolls = new ConcurrentHashMap<>();
+
+    /** SSE 订阅者，key 为审批ID */
+    private final Map<String, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+
+    @Value("${approval.status-wait.default-timeout-seconds:30}")
+    private int defaultTimeoutSeconds;
+
+    @Value("${approval.status-wait.max-timeout-seconds:60}")
+    private int maxTimeoutSeconds;
+
+    @Value("${approval.status-wait.stream-timeout-seconds:300}")
+    private int streamTimeoutSeconds;
+
+    public ApprovalStatusWatcherImpl(
+            @Lazy ApprovalService approvalService,
+            ApprovalExecutor approvalExecutor,
+            StringRedisTemplate redisTemplate,
+            RedisMessageListenerContainer listenerContainer) {
+        this.approvalService = approvalService;
+        this.approvalExecutor = approvalExecutor;
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+    }
+
+    @PostConstruct
+    public void init() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(STATUS_CHANNEL));
+        log.info("审批状态推送已订阅 Redis 频道: {}", STATUS_CHANNEL);
+    }
+
+    @Override
+    public DeferredResult<Result<ApprovalStatusDTO>> await(String approvalId, Integer timeoutSeconds) {
+        int timeout = timeoutSeconds == null || timeoutSeconds <= 0
+                ? defaultTimeoutSeconds
+                : Math.min(timeoutSeconds, maxTimeoutSeconds);
+
+        DeferredResult<Result<ApprovalStatusDTO>> deferredResult = new DeferredResult<>(timeout * 1000L);
+        Set<DeferredResult<Result<ApprovalStatusDTO>>> waiters =
+                pendingPolls.computeIfAbsent(approvalId, k -> ConcurrentHashMap.newKeySet());
+
+        // 先登记再查询，避免查询与登记之间发生的状态变更被遗漏
+        waiters.add(deferredResult);
+        deferredResult.onCompletion(() -> removeWaiter(pendingPolls, approvalId, deferredResult));
+        deferredResult.onTimeout(() -> {
+            // 超时返回当前状态，客户端可据此发起下一次等待
+            try {
+                deferredResult.setResult(Result.success(approvalService.getStatus(approvalId)));
+            } catch (BusinessException e) {
+                deferredResult.setResult(Result.error(e.getCode(), e.getMessage()));
+            }
+        });
+
+        ApprovalStatusDTO current;
+        try {
+            current = approvalService.getStatus(approvalId);
+        } catch (RuntimeException e) {
+            removeWaiter(pendingPolls, approvalId, deferredResult);
+            throw e;
+        }
+
+        if (isSettled(current)) {
+            deferredResult.setResult(Result.success(current));
+        }
+        return deferredResult;
+    }
+
+    @Override
+    public SseEmitter subscribe(String approvalId) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutSeconds * 1000L);
+        Set<SseEmitter> emitters = subscribers.computeIfAbsent(approvalId, k -> ConcurrentHashMap.newKeySet());
+
+        // 先登记再查询，避免查询与登记之间发生的状态变更被遗漏
+        emitters.add(emitter);
+        emitter.onCompletion(() -> removeWaiter(subscribers, approvalId, emitter));
+        emitter.onTimeout(() -> {
+            removeWaiter(subscribers, approvalId, emitter);
+            emitter.complete();
+        });
+        emitter.onError(e -> removeWaiter(subscribers, approvalId, emitter));
+
+        ApprovalStatusDTO current;
+        try {
+            current = approvalService.getStatus(approvalId);
+        } catch (RuntimeException e) {
+            removeWaiter(subscribers, approvalId, emitter);
+            throw e;
+        }
+
+        sendStatus(approvalId, emitter, current, isSettled(current));
+        return emitter;
+    }
+
+    @Override
+    public void publish(String approvalId) {
+        try {
+            redisTemplate.convertAndSend(STATUS_CHANNEL, approvalId);
+        } catch (Exception e) {
+            // Redis 不可用时降级为仅通知本节点
+            log.warn("广播审批状态变更失败，降级为本节点通知: approvalId={}, error={}", approvalId, e.getMessage());
+            notifyLocal(approvalId);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String approvalId = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            notifyLocal(approvalId);
+        } catch (Exception e) {
+            log.error("处理审批状态变更通知失败: approvalId={}, error={}", approvalId, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 唤醒本节点上等待该审批的客户端
+     *
+     * @param approvalId 审批请求ID
+     */
+    private void notifyLocal(String approvalId) {
+        Set<DeferredResult<Result<ApprovalStatusDTO>>> polls = pendingPolls.get(approvalId);
+        Set<SseEmitter> emitters = subscribers.get(approvalId);
+        if (CollUtil.isEmpty(polls) && CollUtil.isEmpty(emitters)) {
+            return;
+        }
+
+        // 每个审批只查询一次，结果分发给全部等待者
+        ApprovalStatusDTO status = approvalService.getStatus(approvalId);
+        boolean settled = isSettled(status);
+        log.debug("推送审批状态: approvalId={}, status={}, settled={}", approvalId, status.getStatus(), settled);
+
+        if (settled && polls != null) {
+            polls.forEach(deferredResult -> deferredResult.setResult(Result.success(status)));
+        }
+        if (emitters != null) {
+            emitters.forEach(emitter -> sendStatus(approvalId, emitter, status, settled));
+        }
+    }
+
+    /**
+     * 向 SSE 订阅者推送状态，审批有最终结果后关闭连接
+     */
+    private void sendStatus(String approvalId, SseEmitter emitter, ApprovalStatusDTO status, boolean settled) {
+        try {
+            emitter.send(SseEmitter.event().name("status").data(status));
+            if (settled) {
+                emitter.complete();
+            }
+        } catch (IOException | IllegalStateException e) {
+            log.debug("推送审批状态失败，客户端可能已断开: approvalId={}, error={}", approvalId, e.getMessage());
+            removeWaiter(subscribers, approvalId, emitter);
+        }
+    }
+
+    /**
+     * 判断审批是否已有最终结果
+     * 已批准且开启自动执行时，需等待执行完成才算最终结果
+     */
+    private boolean isSettled(ApprovalStatusDTO status) {
+        if (status.getStatus() == ApprovalStatus.PENDING) {
+            return false;
+        }
+        if (status.getStatus() == ApprovalStatus.APPROVED && approvalExecutor.isAutoExecuteEnabled()) {
+            return status.getExecutionStatus() == ExecutionStatus.SUCCESS
+                    || status.getExecutionStatus() == ExecutionStatus.FAILED;
+        }
+        return true;
+    }
+
+    private <T> void removeWaiter(Map<String, Set<T>> registry, String approvalId, T waiter) {
+        registry.computeIfPresent(approvalId, (k, waiters) -> {
+            waiters.remove(waiter);
+            return waiters.isEmpty() ? null : waiters;
+        });
+    }
+}
@@ -1,33 +1,281 @@
 package com.agentguard.approval.util;
 
+import cn.hutool.core.util.IdUtil;
 import com.baomidou.mybatisplus.core.incrementer.IdentifierGenerator;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.time.LocalDateTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Collections;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 审批ID生成器
  * <p>
- * 生成格式：YYYYMMDDHHMMSSXXX
- * 示例：20260131143022001
+ * 生成格式：YYYYMMDDHHMMSSNNXXXX
+ * 示例：20260131143022030001
  * <p>
  * - YYYYMMDD: 年月日
  * - HHMMSS: 时分秒
- * - XXX: 序号（同一秒内的第N个审批，支持1-999）
+ * - NN: 节点号（00-99），保证多节点同一秒生成的ID不冲突
+ * - XXXX: 序号（同一秒内的第N个ID，支持0-9999）
+ * <p>
+ * 秒和序号合并存放在一个 AtomicLong 中，通过 CAS 无锁递增。
+ * 同一秒序号用尽时借用下一秒继续生成，时钟回拨时沿用已发出的最大秒，不阻塞调用线程。
+ * <p>
+ * 发出的秒不超过登记在 Redis 中的上界（approval:id:ceiling:{节点号}，定时预留到当前秒之后），
+ * 重启或重新分配节点号后从该上界之后继续，借用的秒或时钟回拨前发出的秒不会被再次发出；
+ * 正常停机时上界回写为实际发出的最大秒。
+ * <p>
+ * 节点号通过 Redis 租约（approval:id:node:{节点号}，定时续期）独占：配置的节点号已被其他存活节点占用时拒绝启动，
+ * 由计数器分配时跳过被占用的节点号；运行中发现租约被其他节点占用（如 Redis 不可用期间）时重新分配。
  *
  * @author zhuhx
  */
+@Slf4j
 @Component
+@RequiredArgsConstructor
 public class ApprovalIdGenerator implements IdentifierGenerator {
 
-    private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    private static final DateTimeFormatter DATETIME_FORMATTER =
+            DateTimeFormatter.ofPattern("yyyyMMddHHmmss").withZone(ZoneId.systemDefault());
+
+    /** 每秒最大序号 */
+    private static final int MAX_SEQUENCE = 9999;
+
+    /** 秒与序号合并时的进制 */
+    private static final long SEQUENCE_RADIX = MAX_SEQUENCE + 1;
+
+    /** 节点号上限（不含） */
+    private static final int MAX_NODE_ID = 100;
+
+    /** 节点号分配计数器 */
+    private static final String NODE_ID_KEY = "approval:id:node";
+
+    /** 节点号租约键前缀 */
+    private static final String NODE_LEASE_KEY_PREFIX = "approval:id:node:";
+
+    /** 节点号租约有效期（毫秒），续期间隔为其三分之一 */
+    private static final long NODE_LEASE_TTL_MS = 30000;
+
+    /** 已预留的秒上界键前缀 */
+    private static final String CEILING_KEY_PREFIX = "approval:id:ceiling:";
+
+    /** 预留上界时向后预留的秒数，大于续期间隔，正常情况下生成ID时不需要访问 Redis */
+    private static final long CEILING_AHEAD_SECONDS = 30;
+
+    private static final Duration CEILING_TTL = Duration.ofDays(7);
+
+    /**
+     * 占用或续期租约：未被占用或由本实例持有时（重新）设置并返回 1，被其他实例持有时返回 0
+     */
+    private static final String CLAIM_LEASE_SCRIPT = """
+            local owner = redis.call('GET', KEYS[1])
+            if owner == false or owner == ARGV[1] then
+                redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+                return 1
+            end
+            return 0
+            """;
+
+    /**
+     * 释放本实例持有的租约
+     */
+    private static final String RELEASE_LEASE_SCRIPT = """
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """;
+
+    private static final DefaultRedisScript<Long> CLAIM_LEASE = new DefaultRedisScript<>(CLAIM_LEASE_SCRIPT, Long.class);
+
+    private static final DefaultRedisScript<Long> RELEASE_LEASE = new DefaultRedisScript<>(RELEASE_LEASE_SCRIPT, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    @Value("${approval.id.node-id:-1}")
+    private int configuredNodeId;
+
+    /** 当前节点号 */
+    private volatile int nodeId;
 
-    // 当前秒的时间戳
-    private volatile long currentSecond = 0;
-    // 当前秒内的序号
-    private final AtomicInteger sequence = new AtomicInteger(0);
+    /** 本实例的租约标识 */
+    private final String instanceToken = IdUtil.fastSimpleUUID();
+
+    /** 是否持有当前节点号的租约（Redis 不可用时为 false，节点号唯一性无法保证） */
+    private volatile boolean leaseHeld;
+
+    /** 已发出的最大 秒 * SEQUENCE_RADIX + 序号 */
+    private final AtomicLong state = new AtomicLong(0);
+
+    /** 已登记的秒上界，发出的ID不超过此秒 */
+    private volatile long ceilingSecond;
+
+    /** 最近一次格式化的时间前缀，同一秒内复用 */
+    private volatile SecondPrefix cachedPrefix = new SecondPrefix(-1, "");
+
+    /**
+     * 确定节点号
+     * 优先使用配置值，未配置时通过 Redis 计数器分配，Redis 不可用时随机选取
+     *
+     * @throws IllegalStateException 如果配置的节点号已被其他节点占用，或全部节点号都已被占用
+     */
+    @PostConstruct
+    public void init() {
+        if (configuredNodeId >= 0) {
+            nodeId = configuredNodeId % MAX_NODE_ID;
+            try {
+                leaseHeld = claimLease(nodeId);
+            } catch (Exception e) {
+                log.warn("ID生成器节点号租约登记失败，无法检测节点号冲突: nodeId={}, error={}", nodeId, e.getMessage());
+            }
+            if (!leaseHeld && isLeasedByOther(nodeId)) {
+                throw new IllegalStateException("ID生成器节点号 " + nodeId + " 已被其他节点占用，请修改 approval.id.node-id");
+            }
+        } else {
+            assignNodeId();
+        }
+        restoreCeiling();
+        log.info("ID生成器节点号: {}", nodeId);
+    }
+
+    /**
+     * 续期节点号租约；租约已被其他节点占用时重新分配节点号
+     */
+    @Scheduled(fixedDelay = NODE_LEASE_TTL_MS / 3)
+    public void renewLease() {
+        try {
+            if (claimLease(nodeId)) {
+                if (!leaseHeld) {
+                    log.info("ID生成器节点号租约已登记: nodeId={}", nodeId);
+                }
+                leaseHeld = true;
+                reserveUpTo(Math.max(System.currentTimeMillis() / 1000, state.get() / SEQUENCE_RADIX));
+                return;
+            }
+        } catch (Exception e) {
+            log.warn("ID生成器节点号租约续期失败: nodeId={}, error={}", nodeId, e.getMessage());
+            return;
+        }
+        log.error("ID生成器节点号 {} 已被其他节点占用，重新分配节点号", nodeId);
+        leaseHeld = false;
+        assignNodeId();
+        restoreCeiling();
+        log.info("ID生成器节点号: {}", nodeId);
+    }
+
+    /**
+     * 停机时回写实际发出的最大秒并释放租约，节点号可立即被其他节点使用
+     */
+    @PreDestroy
+    public void releaseLease() {
+        if (!leaseHeld) {
+            return;
+        }
+        try {
+            redisTemplate.opsForValue().set(CEILING_KEY_PREFIX + nodeId,
+                    String.valueOf(state.get() / SEQUENCE_RADIX), CEILING_TTL);
+            redisTemplate.execute(RELEASE_LEASE, Collections.singletonList(NODE_LEASE_KEY_PREFIX + nodeId), instanceToken);
+        } catch (Exception e) {
+            log.warn("释放ID生成器节点号租约失败: nodeId={}, error={}", nodeId, e.getMessage());
+        }
+    }
+
+    /**
+     * 通过 Redis 计数器分配未被占用的节点号，Redis 不可用时随机选取
+     *
+     * @throws IllegalStateException 如果全部节点号都已被占用
+     */
+    private void assignNodeId() {
+        try {
+            for (int attempt = 0; attempt < MAX_NODE_ID; attempt++) {
+                Long counter = redisTemplate.opsForValue().increment(NODE_ID_KEY);
+                int candidate = (int) ((counter == null ? 0 : counter) % MAX_NODE_ID);
+                if (claimLease(candidate)) {
+                    nodeId = candidate;
+                    leaseHeld = true;
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            nodeId = ThreadLocalRandom.current().nextInt(MAX_NODE_ID);
+            leaseHeld = false;
+            log.warn("通过 Redis 分配ID节点号失败，使用随机节点号（Redis 恢复后登记租约）: nodeId={}, error={}", nodeId, e.getMessage());
+            return;
+        }
+        throw new IllegalStateException("ID生成器节点号已全部被占用（最多 " + MAX_NODE_ID + " 个节点）");
+    }
+
+    /**
+     * 从当前节点号已登记的上界之后继续发号（该秒视为已用尽）
+     */
+    private void restoreCeiling() {
+        ceilingSecond = 0;
+        try {
+            String stored = redisTemplate.opsForValue().get(CEILING_KEY_PREFIX + nodeId);
+            if (stored == null) {
+                return;
+            }
+            long storedSecond = Long.parseLong(stored);
+            state.accumulateAndGet(storedSecond * SEQUENCE_RADIX + MAX_SEQUENCE, Math::max);
+            if (storedSecond >= System.currentTimeMillis() / 1000) {
+                log.info("ID生成器从已登记的上界之后继续发号: nodeId={}, ceiling={}", nodeId, storedSecond);
+            }
+        } catch (Exception e) {
+            log.warn("读取ID生成器已登记上界失败，重启前借用的秒可能被再次发出: nodeId={}, error={}", nodeId, e.getMessage());
+        }
+    }
+
+    /**
+     * 将上界登记到 秒 + CEILING_AHEAD_SECONDS；Redis 不可用时只在本地放行
+     */
+    private synchronized void reserveUpTo(long second) {
+        if (second + CEILING_AHEAD_SECONDS <= ceilingSecond) {
+            return;
+        }
+        long ceiling = second + CEILING_AHEAD_SECONDS;
+        try {
+            redisTemplate.opsForValue().set(CEILING_KEY_PREFIX + nodeId, String.valueOf(ceiling), CEILING_TTL);
+        } catch (Exception e) {
+            log.warn("登记ID生成器上界失败，重启后可能重复发出该上界之前的ID: nodeId={}, ceiling={}, error={}",
+                    nodeId, ceiling, e.getMessage());
+        }
+        ceilingSecond = ceiling;
+    }
+
+    private boolean claimLease(int candidate) {
+        Long claimed = redisTemplate.execute(CLAIM_LEASE, Collections.singletonList(NODE_LEASE_KEY_PREFIX + candidate),
+                instanceToken, String.valueOf(NODE_LEASE_TTL_MS));
+        return claimed != null && claimed == 1L;
+    }
+
+    private boolean isLeasedByOther(int candidate) {
+        try {
+            String owner = redisTemplate.opsForValue().get(NODE_LEASE_KEY_PREFIX + candidate);
+            return owner != null && !owner.equals(instanceToken);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * 当前节点号
+     */
+    public int getNodeId() {
+        return nodeId;
+    }
 
     @Override
     public Number nextId(Object entity) {
@@ -37,36 +285,69 @@ public class ApprovalIdGenerator implements IdentifierGenerator {
 
     @Override
     public String nextUUID(Object entity) {
-        LocalDateTime now = LocalDateTime.now();
-        long nowSecond = System.currentTimeMillis() / 1000;
-
-        // 如果是新的一秒，重置序号
-        if (nowSecond != currentSecond) {
-            synchronized (this) {
-                if (nowSecond != currentSecond) {
-                    currentSecond = nowSecond;
-                    sequence.set(0);
-                }
-            }
+        long next = nextState();
+        long second = next / SEQUENCE_RADIX;
+        long seq = next % SEQUENCE_RADIX;
+
+        // 生成ID：20260131143022030001
+        StringBuilder id = new StringBuilder(20).append(prefixOf(second));
+        if (nodeId < 10) {
+            id.append('0');
         }
+        id.append(nodeId);
+        for (long radix = SEQUENCE_RADIX / 10; radix > 1 && seq < radix; radix /= 10) {
+            id.append('0');
+        }
+        return id.append(seq).toString();
+    }
 
-        // 获取序号（1-999）
-        int seq = sequence.incrementAndGet();
-        if (seq > 999) {
-            // 如果超过999，等待下一秒
-            try {
-                Thread.sleep(1000);
-                return nextUUID(entity);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                throw new RuntimeException("生成审批ID失败", e);
+    /**
+     * 无锁获取下一个 秒+序号 组合
+     */
+    private long nextState() {
+        while (true) {
+            long current = state.get();
+            long lastSecond = current / SEQUENCE_RADIX;
+            long lastSeq = current % SEQUENCE_RADIX;
+            long nowSecond = System.currentTimeMillis() / 1000;
+
+            long next;
+            if (nowSecond > lastSecond) {
+                // 进入新的一秒，序号归零
+                next = nowSecond * SEQUENCE_RADIX;
+            } else if (lastSeq < MAX_SEQUENCE) {
+                // 同一秒内或时钟回拨，沿用已发出的最大秒继续递增
+                next = current + 1;
+            } else {
+                // 序号用尽，借用下一秒
+                next = (lastSecond + 1) * SEQUENCE_RADIX;
+            }
+
+            if (state.compareAndSet(current, next)) {
+                if (nowSecond < lastSecond) {
+                    log.debug("检测到时钟回拨或序号借用，沿用逻辑时间: now={}, logical={}", nowSecond, next / SEQUENCE_RADIX);
+                }
+                if (next / SEQUENCE_RADIX > ceilingSecond) {
+                    // 超过已登记的上界，先登记再发出
+                    reserveUpTo(next / SEQUENCE_RADIX);
+                }
+                return next;
             }
         }
+    }
 
-        // 格式化日期时间
-        String datetime = now.format(DATETIME_FORMATTER);
+    private String prefixOf(long second) {
+        SecondPrefix prefix = cachedPrefix;
+        if (prefix.second() != second) {
+            prefix = new SecondPrefix(second, DATETIME_FORMATTER.format(Instant.ofEpochSecond(second)));
+            cachedPrefix = prefix;
+        }
+        return prefix.text();
+    }
 
-        // 生成ID：20260131143022001
-        return String.format("%s%03d", datetime, seq);
+    /**
+     * 秒级时间前缀缓存
+     */
+    private record SecondPrefix(long second, String text) {
     }
 }
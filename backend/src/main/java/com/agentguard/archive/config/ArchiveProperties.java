@@ -0,0 +1,56 @@
+package com.agentguard.archive.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 冷数据归档配置属性
+ *
+ * @author zhuhx
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "agentguard.archive")
+public class ArchiveProperties {
+
+    /**
+     * 是否定时导出归档文件
+     */
+    private boolean enabled = true;
+
+    /**
+     * 归档根目录，多节点部署时应指向共享存储
+     */
+    private String path = "./data/archive";
+
+    /**
+     * 导出延迟天数，早于 今天-lagDays 的自然日视为已关闭，可以导出
+     */
+    private int lagDays = 1;
+
+    /**
+     * 首次运行时向前补导出的天数
+     */
+    private int backfillDays = 90;
+
+    /**
+     * 每个列式批次（同时也是每次数据库查询）的行数
+     */
+    private int batchSize = 4096;
+
+    /**
+     * 同时执行的扫描数
+     */
+    private int scanThreads = 4;
+
+    /**
+     * 等待执行的扫描数上限，超过时拒绝
+     */
+    private int scanQueueCapacity = 16;
+
+    /**
+     * 单次扫描超时（毫秒）
+     */
+    private long scanTimeoutMs = 600_000;
+}
@@ -0,0 +1,43 @@
+package com.agentguard.archive.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 归档扫描线程池配置
+ * <p>
+ * 扫描接口逐行读取归档文件并写出 NDJSON，耗时与扫描范围成正比，在专用线程池中执行，不占用 Tomcat 请求线程；
+ * 线程数和排队容量都有上限，已满时拒绝（503）。
+ *
+ * @author zhuhx
+ */
+@Slf4j
+@Configuration
+@RequiredArgsConstructor
+public class ArchiveScanConfig {
+
+    public static final String ARCHIVE_SCAN_EXECUTOR = "archiveScanExecutor";
+
+    private final ArchiveProperties properties;
+
+    @Bean(ARCHIVE_SCAN_EXECUTOR)
+    public ThreadPoolTaskExecutor archiveScanExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getScanThreads());
+        executor.setMaxPoolSize(properties.getScanThreads());
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setQueueCapacity(properties.getScanQueueCapacity());
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setThreadNamePrefix("archive-scan-");
+        executor.initialize();
+
+        log.info("归档扫描线程池已初始化: threads={}, queueCapacity={}",
+                properties.getScanThreads(), properties.getScanQueueCapacity());
+        return executor;
+    }
+}
@@ -0,0 +1,108 @@
+package com.agentguard.archive.controller;
+
+import com.agentguard.archive.config.ArchiveProperties;
+import com.agentguard.archive.config.ArchiveScanConfig;
+import com.agentguard.archive.dto.ArchiveManifestDTO;
+import com.agentguard.archive.enums.ArchiveDataset;
+import com.agentguard.archive.service.ArchiveService;
+import com.agentguard.common.response.Result;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 冷数据归档控制器
+ *
+ * @author zhuhx
+ */
+@Tag(name = "冷数据归档", description = "日志与成本记录列式归档文件查询接口")
+@RestController
+@RequestMapping("/api/v1/archive")
+public class ArchiveController {
+
+    /** Arrow IPC 文件格式的媒体类型 */
+    private static final MediaType ARROW_FILE = MediaType.parseMediaType("application/vnd.apache.arrow.file");
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    /** 单次扫描最大行数 */
+    private static final long MAX_SCAN_LIMIT = 1_000_000;
+
+    private final ArchiveService archiveService;
+    private final ArchiveProperties archiveProperties;
+    private final ThreadPoolTaskExecutor archiveScanExecutor;
+
+    public ArchiveController(
+            ArchiveService archiveService,
+            ArchiveProperties archiveProperties,
+            @Qualifier(ArchiveScanConfig.ARCHIVE_SCAN_EXECUTOR) ThreadPoolTaskExecutor archiveScanExecutor) {
+        this.archiveService = archiveService;
+        this.archiveProperties = archiveProperties;
+        this.archiveScanExecutor = archiveScanExecutor;
+    }
+
+    @Operation(summary = "查询归档清单", description = "返回已导出的归档文件及行数、大小、列名、校验值")
+    @GetMapping("/manifest")
+    public Result<ArchiveManifestDTO> getManifest(
+            @Parameter(description = "数据集") @RequestParam(required = false) ArchiveDataset dataset,
+            @Parameter(description = "开始日期") @RequestParam(required = false)
+                @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
+            @Parameter(description = "结束日期") @RequestParam(required = false)
+                @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate) {
+        return Result.success(archiveService.getManifest(dataset, startDate, endDate));
+    }
+
+    @Operation(summary = "下载归档文件", description = "返回 Arrow IPC 文件（ZSTD 压缩），可直接用 pyarrow.ipc.open_file 读取")
+    @GetMapping("/files/{dataset}/{date}")
+    public ResponseEntity<Resource> download(
+            @Parameter(description = "数据集") @PathVariable ArchiveDataset dataset,
+            @Parameter(description = "数据日期") @PathVariable @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate date) {
+        Path file = archiveService.getFile(dataset, date);
+        return ResponseEntity.ok()
+                .contentType(ARROW_FILE)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.getFileName() + "\"")
+                .body(new FileSystemResource(file));
+    }
+
+    @Operation(summary = "扫描归档数据", description = "按日期范围读取归档文件，支持 Agent 过滤与列投影，以 NDJSON 流式返回")
+    @GetMapping(value = "/scan", produces = "application/x-ndjson")
+    public WebAsyncTask<Void> scan(
+            @Parameter(description = "数据集") @RequestParam ArchiveDataset dataset,
+            @Parameter(description = "开始日期") @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
+            @Parameter(description = "结束日期") @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate,
+            @Parameter(description = "Agent ID过滤") @RequestParam(required = false) String agentId,
+            @Parameter(description = "输出列（逗号分隔，默认全部）") @RequestParam(required = false) List<String> columns,
+            @Parameter(description = "最大行数") @RequestParam(defaultValue = "100000") Long limit,
+            HttpServletResponse response) {
+        long boundedLimit = Math.max(1, Math.min(limit, MAX_SCAN_LIMIT));
+        List<String> projection = archiveService.resolveColumns(dataset, columns);
+
+        // 在专用扫描线程池中写出，释放请求线程；线程池已满时拒绝（503）
+        return new WebAsyncTask<>(archiveProperties.getScanTimeoutMs(), archiveScanExecutor, () -> {
+            response.setContentType(NDJSON.toString());
+            archiveService.scan(dataset, startDate, endDate, agentId, projection, boundedLimit, response.getOutputStream());
+            return null;
+        });
+    }
+
+    @Operation(summary = "立即导出归档", description = "导出所有尚未归档的已关闭自然日，返回导出的文件数")
+    @PostMapping("/export")
+    public Result<Integer> export() {
+        return Result.success(archiveService.exportClosedDays());
+    }
+}
@@ -0,0 +1,58 @@
+package com.agentguard.archive.dto;
+
+import com.agentguard.archive.enums.ArchiveDataset;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 归档文件描述
+ *
+ * @author zhuhx
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "归档文件描述")
+public class ArchiveFileDTO {
+
+    @Schema(description = "数据集")
+    private ArchiveDataset dataset;
+
+    @Schema(description = "数据日期（自然日）")
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate date;
+
+    @Schema(description = "相对归档根目录的文件路径")
+    private String file;
+
+    @Schema(description = "文件格式", example = "arrow-ipc-file")
+    private String format;
+
+    @Schema(description = "压缩算法", example = "zstd")
+    private String compression;
+
+    @Schema(description = "行数")
+    private Long rowCount;
+
+    @Schema(description = "文件大小（字节）")
+    private Long sizeBytes;
+
+    @Schema(description = "文件 SHA-256")
+    private String sha256;
+
+    @Schema(description = "列名")
+    private List<String> columns;
+
+    @Schema(description = "导出时间")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime exportedAt;
+}
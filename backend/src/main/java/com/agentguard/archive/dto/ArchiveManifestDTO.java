@@ -0,0 +1,34 @@
+package com.agentguard.archive.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 归档清单
+ *
+ * @author zhuhx
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "归档清单")
+public class ArchiveManifestDTO {
+
+    @Schema(description = "清单格式版本")
+    private Integer version;
+
+    @Schema(description = "清单更新时间")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime updatedAt;
+
+    @Schema(description = "归档文件列表（按数据集、日期排序）")
+    private List<ArchiveFileDTO> files;
+}
@@ -0,0 +1,55 @@
+package com.agentguard.archive.entity;
+
+import com.agentguard.archive.enums.ArchiveDataset;
+import com.baomidou.mybatisplus.annotation.*;
+import com.baomidou.mybatisplus.extension.handlers.JacksonTypeHandler;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 归档文件数据对象
+ *
+ * @author zhuhx
+ */
+@Data
+@TableName(value = "archive_file", autoResultMap = true)
+public class ArchiveFileDO {
+
+    /** 主键ID */
+    @TableId(type = IdType.ASSIGN_UUID)
+    private String id;
+
+    /** 数据集 */
+    private ArchiveDataset dataset;
+
+    /** 数据日期（自然日） */
+    private LocalDate dataDate;
+
+    /** 相对归档根目录的文件路径 */
+    private String file;
+
+    /** 文件格式 */
+    private String format;
+
+    /** 压缩算法 */
+    private String compression;
+
+    /** 行数 */
+    private Long rowCount;
+
+    /** 文件大小（字节） */
+    private Long sizeBytes;
+
+    /** 文件 SHA-256 */
+    private String sha256;
+
+    /** 列名 */
+    @TableField(typeHandler = JacksonTypeHandler.class)
+    private List<String> columnNames;
+
+    /** 导出时间 */
+    private LocalDateTime exportedAt;
+}
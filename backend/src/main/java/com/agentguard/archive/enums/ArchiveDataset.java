@@ -0,0 +1,28 @@
+package com.agentguard.archive.enums;
+
+import com.baomidou.mybatisplus.annotation.EnumValue;
+import com.fasterxml.jackson.annotation.JsonValue;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 归档数据集枚举
+ *
+ * @author zhuhx
+ */
+@Getter
+@AllArgsConstructor
+public enum ArchiveDataset {
+
+    /** Agent日志（不含请求体/响应体，大载荷通过引用列关联载荷存储） */
+    AGENT_LOG("agent_log", "Agent日志"),
+
+    /** 成本记录 */
+    COST_RECORD("cost_record", "成本记录");
+
+    @EnumValue
+    @JsonValue
+    private final String code;
+
+    private final String desc;
+}
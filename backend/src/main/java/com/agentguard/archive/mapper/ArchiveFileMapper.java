@@ -0,0 +1,14 @@
+package com.agentguard.archive.mapper;
+
+import com.agentguard.archive.entity.ArchiveFileDO;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * 归档文件数据访问层
+ *
+ * @author zhuhx
+ */
+@Mapper
+public interface ArchiveFileMapper extends BaseMapper<ArchiveFileDO> {
+}
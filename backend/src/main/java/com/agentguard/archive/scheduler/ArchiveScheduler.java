@@ -0,0 +1,41 @@
+package com.agentguard.archive.scheduler;
+
+import com.agentguard.archive.service.ArchiveService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 冷数据归档定时任务调度器
+ *
+ * @author zhuhx
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "agentguard.archive.enabled", havingValue = "true", matchIfMissing = true)
+public class ArchiveScheduler {
+
+    private final ArchiveService archiveService;
+
+    /**
+     * 导出已关闭自然日的归档文件
+     *
+     * 默认每天凌晨4点执行
+     */
+    @Scheduled(cron = "${agentguard.archive.cron:0 0 4 * * ?}")
+    public void exportClosedDays() {
+        log.debug("开始执行归档导出定时任务...");
+
+        try {
+            int exported = archiveService.exportClosedDays();
+            if (exported > 0) {
+                log.info("归档导出定时任务完成，导出 {} 个文件", exported);
+            }
+        } catch (Exception e) {
+            log.error("归档导出定时任务执行失败: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.agentguard.archive.service;
+
+import com.agentguard.archive.dto.ArchiveManifestDTO;
+import com.agentguard.archive.enums.ArchiveDataset;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 冷数据归档服务接口
+ * 将已关闭自然日的 agent_log、cost_record 导出为压缩列式文件（Arrow IPC），供分析与长周期统计读取，不再扫描在线表
+ *
+ * @author zhuhx
+ */
+public interface ArchiveService {
+
+    /**
+     * 导出所有尚未归档的已关闭自然日
+     *
+     * @return 本次导出的文件数
+     */
+    int exportClosedDays();
+
+    /**
+     * 查询归档清单
+     *
+     * @param dataset 数据集（可选）
+     * @param startDate 开始日期（可选，含）
+     * @param endDate 结束日期（可选，含）
+     * @return 归档清单
+     */
+    ArchiveManifestDTO getManifest(ArchiveDataset dataset, LocalDate startDate, LocalDate endDate);
+
+    /**
+     * 获取归档文件路径
+     *
+     * @param dataset 数据集
+     * @param date 数据日期
+     * @return 文件路径
+     */
+    Path getFile(ArchiveDataset dataset, LocalDate date);
+
+    /**
+     * 校验并确定扫描的输出列
+     *
+     * @param dataset 数据集
+     * @param columns 请求的输出列（为空时输出全部列）
+     * @return 输出列
+     */
+    List<String> resolveColumns(ArchiveDataset dataset, List<String> columns);
+
+    /**
+     * 扫描归档文件，以 NDJSON（每行一个 JSON 对象）写出
+     *
+     * @param dataset 数据集
+     * @param startDate 开始日期（含）
+     * @param endDate 结束日期（含）
+     * @param agentId Agent ID过滤（可选）
+     * @param columns 输出列（由 resolveColumns 校验）
+     * @param limit 最大行数
+     * @param output 输出流
+     * @throws IOException 写出失败
+     */
+    void scan(ArchiveDataset dataset, LocalDate startDate, LocalDate endDate, String agentId,
+              List<String> columns, long limit, OutputStream output) throws IOException;
+}
@@ -0,0 +1,568 @@
+package com.agentguard.archive.service.impl;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.SecureUtil;
+import cn.hutool.json.JSONUtil;
+import com.agentguard.archive.config.ArchiveProperties;
+import com.agentguard.archive.dto.ArchiveFileDTO;
+import com.agentguard.archive.dto.ArchiveManifestDTO;
+import com.agentguard.archive.entity.ArchiveFileDO;
+import com.agentguard.archive.enums.ArchiveDataset;
+import com.agentguard.archive.mapper.ArchiveFileMapper;
+import com.agentguard.archive.service.ArchiveService;
+import com.agentguard.common.exception.BusinessException;
+import com.agentguard.common.exception.ErrorCode;
+import com.agentguard.log.entity.AgentLogDO;
+import com.agentguard.log.mapper.AgentLogMapper;
+import com.agentguard.stats.entity.CostRecordDO;
+import com.agentguard.stats.mapper.CostRecordMapper;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.arrow.compression.CommonsCompressionFactory;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.DecimalVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.TimeStampMilliVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.compression.CompressionUtil;
+import org.apache.arrow.vector.ipc.ArrowFileReader;
+import org.apache.arrow.vector.ipc.ArrowFileWriter;
+import org.apache.arrow.vector.ipc.message.IpcOption;
+import org.apache.arrow.vector.types.DateUnit;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 冷数据归档服务实现类
+ * <p>
+ * 每个数据集每个自然日导出一个 Arrow IPC 文件（ZSTD 压缩）：{根目录}/{数据集}/yyyy/MM/{数据集}-yyyyMMdd.arrow，
+ * 导出时按 (created_at, id) 键集分批读取在线表，每批对应文件中的一个列式批次，避免长时间持有大结果集。
+ * 已导出的文件登记在 archive_file 表中，所有节点共享同一份清单；每次导出后按该表重写 {根目录}/manifest.json，
+ * 分析服务可以直接用 pyarrow/pandas 读取清单和文件。
+ * <p>
+ * 时间戳列按不带时区的毫秒时间戳保存（与数据库 DATETIME 一致），日期列按天保存。
+ *
+ * @author zhuhx
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ArchiveServiceImpl implements ArchiveService {
+
+    private static final String MANIFEST_FILE = "manifest.json";
+
+    private static final int MANIFEST_VERSION = 1;
+
+    private static final String FORMAT = "arrow-ipc-file";
+
+    private static final String COMPRESSION = "zstd";
+
+    private static final String EXPORT_LOCK_KEY = "archive:export:lock";
+
+    private static final Duration EXPORT_LOCK_TTL = Duration.ofHours(2);
+
+    private static final DateTimeFormatter FILE_DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private static final ArrowType UTF8 = new ArrowType.Utf8();
+    private static final ArrowType INT32 = new ArrowType.Int(32, true);
+    private static final ArrowType INT64 = new ArrowType.Int(64, true);
+    private static final ArrowType BOOL = new ArrowType.Bool();
+    private static final ArrowType TIMESTAMP = new ArrowType.Timestamp(TimeUnit.MILLISECOND, null);
+    private static final ArrowType DATE = new ArrowType.Date(DateUnit.DAY);
+
+    /** agent_log 导出时不读取的大字段（大载荷通过引用列关联载荷存储） */
+    private static final Set<String> AGENT_LOG_EXCLUDED_COLUMNS = Set.of("request_headers", "request_body", "response_body");
+
+    private static final List<ArchiveColumn<AgentLogDO>> AGENT_LOG_COLUMNS = List.of(
+            new ArchiveColumn<>("id", UTF8, AgentLogDO::getId),
+            new ArchiveColumn<>("agent_id", UTF8, AgentLogDO::getAgentId),
+            new ArchiveColumn<>("request_type", UTF8, logDO -> logDO.getRequestType() != null ? logDO.getRequestType().getCode() : null),
+            new ArchiveColumn<>("endpoint", UTF8, AgentLogDO::getEndpoint),
+            new ArchiveColumn<>("upstream_id", UTF8, AgentLogDO::getUpstreamId),
+            new ArchiveColumn<>("method", UTF8, AgentLogDO::getMethod),
+            new ArchiveColumn<>("request_summary", UTF8, AgentLogDO::getRequestSummary),
+            new ArchiveColumn<>("response_status", UTF8, logDO -> logDO.getResponseStatus() != null ? logDO.getResponseStatus().getCode() : null),
+            new ArchiveColumn<>("response_time_ms", INT32, AgentLogDO::getResponseTimeMs),
+            new ArchiveColumn<>("first_token_time_ms", INT32, AgentLogDO::getFirstTokenTimeMs),
+            new ArchiveColumn<>("finish_reason", UTF8, AgentLogDO::getFinishReason),
+            new ArchiveColumn<>("tool_calls", UTF8, AgentLogDO::getToolCalls),
+            new ArchiveColumn<>("token_input", INT32, AgentLogDO::getTokenInput),
+            new ArchiveColumn<>("token_output", INT32, AgentLogDO::getTokenOutput),
+            new ArchiveColumn<>("token_estimated", BOOL, AgentLogDO::getTokenEstimated),
+            new ArchiveColumn<>("cache_hit", BOOL, AgentLogDO::getCacheHit),
+            new ArchiveColumn<>("model", UTF8, AgentLogDO::getModel),
+            new ArchiveColumn<>("cost", new ArrowType.Decimal(10, 6, 128), AgentLogDO::getCost),
+            new ArchiveColumn<>("policy_snapshot", UTF8, logDO -> logDO.getPolicySnapshot() != null ? JSONUtil.toJsonStr(logDO.getPolicySnapshot()) : null),
+            new ArchiveColumn<>("approval_request_id", UTF8, AgentLogDO::getApprovalRequestId),
+            new ArchiveColumn<>("request_body_ref", UTF8, AgentLogDO::getRequestBodyRef),
+            new ArchiveColumn<>("response_body_ref", UTF8, AgentLogDO::getResponseBodyRef),
+            new ArchiveColumn<>("created_at", TIMESTAMP, AgentLogDO::getCreatedAt)
+    );
+
+    private static final List<ArchiveColumn<CostRecordDO>> COST_RECORD_COLUMNS = List.of(
+            new ArchiveColumn<>("id", UTF8, CostRecordDO::getId),
+            new ArchiveColumn<>("agent_id", UTF8, CostRecordDO::getAgentId),
+            new ArchiveColumn<>("date", DATE, CostRecordDO::getDate),
+            new ArchiveColumn<>("model", UTF8, CostRecordDO::getModel),
+            new ArchiveColumn<>("token_input", INT64, CostRecordDO::getTokenInput),
+            new ArchiveColumn<>("token_output", INT64, CostRecordDO::getTokenOutput),
+            new ArchiveColumn<>("api_calls", INT32, CostRecordDO::getApiCalls),
+            new ArchiveColumn<>("llm_cost", new ArrowType.Decimal(10, 4, 128), CostRecordDO::getLlmCost),
+            new ArchiveColumn<>("api_cost", new ArrowType.Decimal(10, 4, 128), CostRecordDO::getApiCost),
+            new ArchiveColumn<>("total_cost", new ArrowType.Decimal(10, 4, 128), CostRecordDO::getTotalCost),
+            new ArchiveColumn<>("created_at", TIMESTAMP, CostRecordDO::getCreatedAt),
+            new ArchiveColumn<>("updated_at", TIMESTAMP, CostRecordDO::getUpdatedAt)
+    );
+
+    private final ArchiveProperties properties;
+    private final AgentLogMapper agentLogMapper;
+    private final CostRecordMapper costRecordMapper;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final ArchiveFileMapper archiveFileMapper;
+
+    /** Arrow 堆外内存分配器，首次使用时创建 */
+    private volatile BufferAllocator allocator;
+
+    /**
+     * 导入旧版本登记在本地 manifest.json 中的归档文件（清单表为空时执行一次）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void importLegacyManifest() {
+        Path manifestPath = Paths.get(properties.getPath(), MANIFEST_FILE);
+        if (!Files.exists(manifestPath)) {
+            return;
+        }
+        try {
+            if (archiveFileMapper.selectCount(null) > 0) {
+                return;
+            }
+            ArchiveManifestDTO loaded = objectMapper.readValue(manifestPath.toFile(), ArchiveManifestDTO.class);
+            List<ArchiveFileDTO> files = CollUtil.emptyIfNull(loaded.getFiles());
+            files.forEach(this::register);
+            log.info("已将本地归档清单导入数据库: path={}, files={}", manifestPath, files.size());
+        } catch (Exception e) {
+            log.error("导入本地归档清单失败: path={}, error={}", manifestPath, e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (allocator != null) {
+            allocator.close();
+        }
+    }
+
+    @Override
+    public int exportClosedDays() {
+        if (!tryLock()) {
+            log.debug("其他节点正在导出归档文件，跳过");
+            return 0;
+        }
+
+        int exported = 0;
+        try {
+            LocalDate lastClosedDay = LocalDate.now().minusDays(Math.max(1, properties.getLagDays()));
+            LocalDate firstDay = lastClosedDay.minusDays(Math.max(0, properties.getBackfillDays() - 1));
+            Set<String> archived = archiveFileMapper.selectList(new LambdaQueryWrapper<ArchiveFileDO>()
+                            .select(ArchiveFileDO::getDataset, ArchiveFileDO::getDataDate)
+                            .ge(ArchiveFileDO::getDataDate, firstDay)
+                            .le(ArchiveFileDO::getDataDate, lastClosedDay))
+                    .stream()
+                    .map(file -> key(file.getDataset(), file.getDataDate()))
+                    .collect(Collectors.toSet());
+            for (LocalDate day = firstDay; !day.isAfter(lastClosedDay); day = day.plusDays(1)) {
+                for (ArchiveDataset dataset : ArchiveDataset.values()) {
+                    if (archived.contains(key(dataset, day))) {
+                        continue;
+                    }
+                    register(exportDay(dataset, day));
+                    exported++;
+                }
+            }
+            if (exported > 0) {
+                writeManifest();
+            }
+        } finally {
+            unlock();
+        }
+        return exported;
+    }
+
+    @Override
+    public ArchiveManifestDTO getManifest(ArchiveDataset dataset, LocalDate startDate, LocalDate endDate) {
+        LambdaQueryWrapper<ArchiveFileDO> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(dataset != null, ArchiveFileDO::getDataset, dataset)
+               .ge(startDate != null, ArchiveFileDO::getDataDate, startDate)
+               .le(endDate != null, ArchiveFileDO::getDataDate, endDate)
+               .orderByAsc(ArchiveFileDO::getDataset)
+               .orderByAsc(ArchiveFileDO::getDataDate);
+        List<ArchiveFileDTO> files = archiveFileMapper.selectList(wrapper).stream()
+                .map(this::toDTO)
+                .toList();
+        return ArchiveManifestDTO.builder()
+                .version(MANIFEST_VERSION)
+                .updatedAt(LocalDateTime.now())
+                .files(files)
+                .build();
+    }
+
+    @Override
+    public Path getFile(ArchiveDataset dataset, LocalDate date) {
+        ArchiveFileDO file = findFile(dataset, date);
+        if (file == null) {
+            throw new BusinessException(ErrorCode.ARCHIVE_FILE_NOT_FOUND);
+        }
+        Path path = Paths.get(properties.getPath()).resolve(file.getFile());
+        if (!Files.exists(path)) {
+            throw new BusinessException(ErrorCode.ARCHIVE_FILE_NOT_FOUND);
+        }
+        return path;
+    }
+
+    @Override
+    public List<String> resolveColumns(ArchiveDataset dataset, List<String> columns) {
+        List<String> allColumns = (dataset == ArchiveDataset.AGENT_LOG ? AGENT_LOG_COLUMNS : COST_RECORD_COLUMNS).stream()
+                .map(ArchiveColumn::name)
+                .toList();
+        List<String> projection = CollUtil.isEmpty(columns) ? allColumns : columns;
+        if (!allColumns.containsAll(projection)) {
+            throw new BusinessException(ErrorCode.ARCHIVE_COLUMN_INVALID,
+                    "归档列不存在，可选列: " + String.join(",", allColumns));
+        }
+        return projection;
+    }
+
+    @Override
+    public void scan(ArchiveDataset dataset, LocalDate startDate, LocalDate endDate, String agentId,
+                     List<String> projection, long limit, OutputStream output) throws IOException {
+        long written = 0;
+        for (ArchiveFileDTO file : getManifest(dataset, startDate, endDate).getFiles()) {
+            if (written >= limit) {
+                break;
+            }
+            if (file.getRowCount() == null || file.getRowCount() == 0) {
+                continue;
+            }
+            Path path = Paths.get(properties.getPath()).resolve(file.getFile());
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+                 ArrowFileReader reader = new ArrowFileReader(channel, allocator(), CommonsCompressionFactory.INSTANCE)) {
+                VectorSchemaRoot root = reader.getVectorSchemaRoot();
+                while (written < limit && reader.loadNextBatch()) {
+                    FieldVector agentIdVector = root.getVector("agent_id");
+                    for (int i = 0; i < root.getRowCount() && written < limit; i++) {
+                        if (StrUtil.isNotBlank(agentId) && !agentId.equals(readValue(agentIdVector, i))) {
+                            continue;
+                        }
+                        Map<String, Object> row = new LinkedHashMap<>();
+                        for (String column : projection) {
+                            row.put(column, readValue(root.getVector(column), i));
+                        }
+                        output.write(objectMapper.writeValueAsBytes(row));
+                        output.write('\n');
+                        written++;
+                    }
+                }
+            }
+            output.flush();
+        }
+    }
+
+    private ArchiveFileDTO exportDay(ArchiveDataset dataset, LocalDate day) {
+        return switch (dataset) {
+            case AGENT_LOG -> exportDay(dataset, day, AGENT_LOG_COLUMNS, last -> fetchAgentLogs(day, last));
+            case COST_RECORD -> exportDay(dataset, day, COST_RECORD_COLUMNS, last -> fetchCostRecords(day, last));
+        };
+    }
+
+    /**
+     * 导出单个自然日的数据到 Arrow 文件
+     */
+    private <T> ArchiveFileDTO exportDay(ArchiveDataset dataset, LocalDate day, List<ArchiveColumn<T>> columns,
+                                         Function<T, List<T>> fetcher) {
+        String relativeFile = String.format("%s/%d/%02d/%s-%s.arrow", dataset.getCode(),
+                day.getYear(), day.getMonthValue(), dataset.getCode(), day.format(FILE_DATE_FORMATTER));
+        Path target = Paths.get(properties.getPath()).resolve(relativeFile);
+        Schema schema = new Schema(columns.stream().map(column -> Field.nullable(column.name(), column.type())).toList());
+
+        long rowCount = 0;
+        try {
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+            try {
+                try (VectorSchemaRoot root = VectorSchemaRoot.create(schema, allocator());
+                     FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                     ArrowFileWriter writer = new ArrowFileWriter(root, null, channel, Map.of(), IpcOption.DEFAULT,
+                             CommonsCompressionFactory.INSTANCE, CompressionUtil.CodecType.ZSTD)) {
+                    writer.start();
+                    T last = null;
+                    while (true) {
+                        List<T> rows = fetcher.apply(last);
+                        if (rows.isEmpty()) {
+                            break;
+                        }
+                        fillBatch(root, columns, rows);
+                        writer.writeBatch();
+                        rowCount += rows.size();
+                        last = rows.get(rows.size() - 1);
+                        if (rows.size() < properties.getBatchSize()) {
+                            break;
+                        }
+                    }
+                    writer.end();
+                }
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("导出归档文件失败: " + relativeFile, e);
+        }
+
+        log.info("已导出归档文件: file={}, rows={}", relativeFile, rowCount);
+        return ArchiveFileDTO.builder()
+                .dataset(dataset)
+                .date(day)
+                .file(relativeFile)
+                .format(FORMAT)
+                .compression(COMPRESSION)
+                .rowCount(rowCount)
+                .sizeBytes(target.toFile().length())
+                .sha256(SecureUtil.sha256(target.toFile()))
+                .columns(columns.stream().map(ArchiveColumn::name).toList())
+                .exportedAt(LocalDateTime.now())
+                .build();
+    }
+
+    /**
+     * 按 (created_at, id) 键集分批读取某天的日志
+     */
+    private List<AgentLogDO> fetchAgentLogs(LocalDate day, AgentLogDO last) {
+        LambdaQueryWrapper<AgentLogDO> wrapper = new LambdaQueryWrapper<>();
+        wrapper.select(AgentLogDO.class, info -> !AGENT_LOG_EXCLUDED_COLUMNS.contains(info.getColumn()))
+               .ge(AgentLogDO::getCreatedAt, day.atStartOfDay())
+               .lt(AgentLogDO::getCreatedAt, day.plusDays(1).atStartOfDay());
+        if (last != null) {
+            wrapper.and(w -> w.gt(AgentLogDO::getCreatedAt, last.getCreatedAt())
+                    .or(o -> o.eq(AgentLogDO::getCreatedAt, last.getCreatedAt()).gt(AgentLogDO::getId, last.getId())));
+        }
+        wrapper.orderByAsc(AgentLogDO::getCreatedAt)
+               .orderByAsc(AgentLogDO::getId)
+               .last("LIMIT " + properties.getBatchSize());
+        return agentLogMapper.selectList(wrapper);
+    }
+
+    /**
+     * 按 id 键集分批读取某天的成本记录
+     */
+    private List<CostRecordDO> fetchCostRecords(LocalDate day, CostRecordDO last) {
+        LambdaQueryWrapper<CostRecordDO> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(CostRecordDO::getDate, day)
+               .gt(last != null, CostRecordDO::getId, last != null ? last.getId() : null)
+               .orderByAsc(CostRecordDO::getId)
+               .last("LIMIT " + properties.getBatchSize());
+        return costRecordMapper.selectList(wrapper);
+    }
+
+    private <T> void fillBatch(VectorSchemaRoot root, List<ArchiveColumn<T>> columns, List<T> rows) {
+        root.allocateNew();
+        for (ArchiveColumn<T> column : columns) {
+            FieldVector vector = root.getVector(column.name());
+            for (int i = 0; i < rows.size(); i++) {
+                writeValue(vector, i, column.getter().apply(rows.get(i)));
+            }
+        }
+        root.setRowCount(rows.size());
+    }
+
+    private void writeValue(FieldVector vector, int index, Object value) {
+        if (value == null) {
+            vector.setNull(index);
+            return;
+        }
+        if (vector instanceof VarCharVector varCharVector) {
+            varCharVector.setSafe(index, value.toString().getBytes(StandardCharsets.UTF_8));
+        } else if (vector instanceof IntVector intVector) {
+            intVector.setSafe(index, ((Number) value).intValue());
+        } else if (vector instanceof BigIntVector bigIntVector) {
+            bigIntVector.setSafe(index, ((Number) value).longValue());
+        } else if (vector instanceof BitVector bitVector) {
+            bitVector.setSafe(index, Boolean.TRUE.equals(value) ? 1 : 0);
+        } else if (vector instanceof DecimalVector decimalVector) {
+            decimalVector.setSafe(index, ((BigDecimal) value).setScale(decimalVector.getScale(), RoundingMode.HALF_UP));
+        } else if (vector instanceof TimeStampMilliVector timeStampVector) {
+            timeStampVector.setSafe(index, ((LocalDateTime) value).toInstant(ZoneOffset.UTC).toEpochMilli());
+        } else if (vector instanceof DateDayVector dateDayVector) {
+            dateDayVector.setSafe(index, (int) ((LocalDate) value).toEpochDay());
+        } else {
+            throw new IllegalArgumentException("不支持的归档列类型: " + vector.getField());
+        }
+    }
+
+    private Object readValue(FieldVector vector, int index) {
+        if (vector == null || vector.isNull(index)) {
+            return null;
+        }
+        if (vector instanceof VarCharVector varCharVector) {
+            return new String(varCharVector.get(index), StandardCharsets.UTF_8);
+        }
+        if (vector instanceof DateDayVector dateDayVector) {
+            return LocalDate.ofEpochDay(dateDayVector.get(index));
+        }
+        return vector.getObject(index);
+    }
+
+    /**
+     * 登记归档文件，同一数据集同一天重复导出时覆盖原记录
+     */
+    private void register(ArchiveFileDTO file) {
+        ArchiveFileDO fileDO = new ArchiveFileDO();
+        fileDO.setDataset(file.getDataset());
+        fileDO.setDataDate(file.getDate());
+        fileDO.setFile(file.getFile());
+        fileDO.setFormat(file.getFormat());
+        fileDO.setCompression(file.getCompression());
+        fileDO.setRowCount(file.getRowCount());
+        fileDO.setSizeBytes(file.getSizeBytes());
+        fileDO.setSha256(file.getSha256());
+        fileDO.setColumnNames(file.getColumns());
+        fileDO.setExportedAt(file.getExportedAt());
+
+        ArchiveFileDO existing = findFile(file.getDataset(), file.getDate());
+        if (existing == null) {
+            archiveFileMapper.insert(fileDO);
+        } else {
+            fileDO.setId(existing.getId());
+            archiveFileMapper.updateById(fileDO);
+        }
+    }
+
+    private ArchiveFileDO findFile(ArchiveDataset dataset, LocalDate date) {
+        return archiveFileMapper.selectOne(new LambdaQueryWrapper<ArchiveFileDO>()
+                .eq(ArchiveFileDO::getDataset, dataset)
+                .eq(ArchiveFileDO::getDataDate, date));
+    }
+
+    private ArchiveFileDTO toDTO(ArchiveFileDO fileDO) {
+        return ArchiveFileDTO.builder()
+                .dataset(fileDO.getDataset())
+                .date(fileDO.getDataDate())
+                .file(fileDO.getFile())
+                .format(fileDO.getFormat())
+                .compression(fileDO.getCompression())
+                .rowCount(fileDO.getRowCount())
+                .sizeBytes(fileDO.getSizeBytes())
+                .sha256(fileDO.getSha256())
+                .columns(fileDO.getColumnNames())
+                .exportedAt(fileDO.getExportedAt())
+                .build();
+    }
+
+    /**
+     * 按清单表原子地重写清单文件（先写临时文件再替换），清单表为准，写出失败只记录日志
+     */
+    private void writeManifest() {
+        Path manifestPath = Paths.get(properties.getPath(), MANIFEST_FILE);
+        ArchiveManifestDTO content = getManifest(null, null, null);
+        try {
+            Files.createDirectories(manifestPath.getParent());
+            Path temp = Files.createTempFile(manifestPath.getParent(), MANIFEST_FILE, ".tmp");
+            try {
+                objectMapper.writerWithDefaultPrettyPrinter().writeValue(temp.toFile(), content);
+                Files.move(temp, manifestPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            log.error("写入归档清单文件失败: path={}, error={}", manifestPath, e.getMessage(), e);
+        }
+    }
+
+    private BufferAllocator allocator() {
+        BufferAllocator current = allocator;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (allocator == null) {
+                try {
+                    allocator = new RootAllocator();
+                } catch (LinkageError e) {
+                    // Arrow 需要访问 java.nio 内部字段，需以 --add-opens=java.base/java.nio=ALL-UNNAMED 启动
+                    log.error("初始化 Arrow 内存分配器失败，请确认 JVM 启动参数包含 --add-opens=java.base/java.nio=ALL-UNNAMED: {}",
+                            e.getMessage());
+                    throw new BusinessException(ErrorCode.ARCHIVE_UNAVAILABLE);
+                }
+            }
+            return allocator;
+        }
+    }
+
+    private boolean tryLock() {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(EXPORT_LOCK_KEY, "1", EXPORT_LOCK_TTL));
+        } catch (Exception e) {
+            // Redis 不可用时仍执行，同一文件重复导出会被原子替换
+            log.warn("获取归档导出锁失败，直接执行: {}", e.getMessage());
+            return true;
+        }
+    }
+
+    private void unlock() {
+        try {
+            redisTemplate.delete(EXPORT_LOCK_KEY);
+        } catch (Exception e) {
+            log.warn("释放归档导出锁失败: {}", e.getMessage());
+        }
+    }
+
+    private String key(ArchiveDataset dataset, LocalDate date) {
+        return dataset.getCode() + "/" + date;
+    }
+
+    /**
+     * 归档列定义
+     */
+    private record ArchiveColumn<T>(String name, ArrowType type, Function<T, Object> getter) {
+    }
+}
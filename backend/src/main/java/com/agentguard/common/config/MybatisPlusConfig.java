@@ -1,12 +1,15 @@
 package com.agentguard.common.config;
 
+import com.agentguard.common.util.TimeOrderedIdGenerator;
 import com.baomidou.mybatisplus.annotation.DbType;
 import com.baomidou.mybatisplus.core.handlers.MetaObjectHandler;
+import com.baomidou.mybatisplus.core.incrementer.IdentifierGenerator;
 import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
 import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
 import org.apache.ibatis.reflection.MetaObject;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 
 import java.time.LocalDateTime;
 
@@ -25,6 +28,17 @@ public class MybatisPlusConfig {
         return interceptor;
     }
 
+    /**
+     * 全局主键生成器
+     * 使用时间有序ID替代随机UUID，减少日志、成本记录等高频写入表的索引页分裂。
+     * 审批ID生成器同样实现了 IdentifierGenerator，这里需标记为首选
+     */
+    @Bean
+    @Primary
+    public IdentifierGenerator identifierGenerator() {
+        return new TimeOrderedIdGenerator();
+    }
+
     @Bean
     public MetaObjectHandler metaObjectHandler() {
         return new MetaObjectHandler() {
@@ -0,0 +1,32 @@
+package com.agentguard.common.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 载荷存储配置属性
+ *
+ * @author zhuhx
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "agentguard.payload-store")
+public class PayloadStoreProperties {
+
+    /**
+     * 是否将大请求体/响应体转存到载荷存储
+     * 关闭时所有载荷仍内联保存在数据库中
+     */
+    private boolean enabled = true;
+
+    /**
+     * 本地存储根目录，多节点部署时必须指向各节点共享的存储
+     */
+    private String path = "./data/payloads";
+
+    /**
+     * 转存阈值（UTF-8 字节数），小于该大小的载荷仍内联保存
+     */
+    private int minSize = 2048;
+}
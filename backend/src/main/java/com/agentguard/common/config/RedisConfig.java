@@ -0,0 +1,27 @@
+package com.agentguard.common.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * Redis 配置类
+ * 提供 Redis 发布/订阅监听容器，用于跨节点广播事件
+ *
+ * @author zhuhx
+ */
+@Configuration
+public class RedisConfig {
+
+    /**
+     * Redis 消息监听容器
+     * 各模块通过 addMessageListener 注册自己关心的频道
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+}
@@ -19,6 +19,7 @@ public enum ErrorCode {
     FORBIDDEN(403, "禁止访问"),
     NOT_FOUND(404, "资源不存在"),
     INTERNAL_ERROR(500, "系统内部错误"),
+    SERVICE_OVERLOADED(503, "服务繁忙，请稍后重试"),
 
     // 用户模块 1xxx
     USER_NAME_DUPLICATE(1001, "用户名已存在"),
@@ -36,6 +37,13 @@ public enum ErrorCode {
     INTERNAL_ADDRESS_FORBIDDEN(2102, "禁止访问内网地址"),
     UNSUPPORTED_HTTP_METHOD(2103, "不支持的HTTP方法"),
     TARGET_SERVICE_UNREACHABLE(2104, "目标服务不可达"),
+    PROMPT_TOKEN_LIMIT_EXCEEDED(2105, "提示词Token数超出限制"),
+    CONTEXT_WINDOW_EXCEEDED(2106, "请求Token数超出模型上下文窗口"),
+    UPSTREAM_RATE_LIMITED(2107, "上游限流额度不足，请稍后重试"),
+    AGENT_CONCURRENCY_LIMITED(2108, "Agent并发LLM调用过多，请稍后重试"),
+    REQUEST_BODY_TOO_LARGE(2109, "请求体超出大小上限"),
+    RESPONSE_BODY_TOO_LARGE(2110, "目标服务响应体超出大小上限"),
+    PASSTHROUGH_DISABLED(2111, "透传接口未启用"),
 
     // 策略模块 3xxx
     POLICY_NOT_FOUND(3001, "策略不存在"),
@@ -54,6 +62,9 @@ public enum ErrorCode {
 
     // 日志模块 6xxx
     LOG_NOT_FOUND(6001, "日志不存在"),
+    LOG_CURSOR_INVALID(6002, "日志分页游标无效"),
+    LOG_SEARCH_QUERY_INVALID(6003, "日志搜索语句无效"),
+    LOG_TAIL_SUBSCRIBER_LIMIT(6004, "实时日志订阅数已达上限"),
 
     // 告警模块 7xxx
     ALERT_RULE_NOT_FOUND(7001, "告警规则不存在"),
@@ -67,7 +78,20 @@ public enum ErrorCode {
     POLICY_BINDING_NOT_FOUND(8001, "策略绑定不存在"),
     POLICY_BINDING_ALREADY_EXISTS(8002, "策略绑定已存在"),
     POLICY_BINDING_AGENT_DISABLED(8003, "Agent已禁用，无法绑定策略"),
-    POLICY_BINDING_POLICY_DISABLED(8004, "策略已禁用，无法绑定");
+    POLICY_BINDING_POLICY_DISABLED(8004, "策略已禁用，无法绑定"),
+
+    // 归档模块 9xxx
+    ARCHIVE_FILE_NOT_FOUND(9001, "归档文件不存在"),
+    ARCHIVE_COLUMN_INVALID(9002, "归档列不存在"),
+    ARCHIVE_UNAVAILABLE(9003, "归档存储不可用"),
+
+    // 数据导出模块 91xx
+    EXPORT_RESUME_ID_INVALID(9101, "续传位置不存在"),
+    EXPORT_BUSY(9102, "导出任务过多，请稍后重试"),
+
+    // 上游端点模块 92xx
+    UPSTREAM_NOT_FOUND(9201, "上游端点不存在"),
+    UPSTREAM_NAME_DUPLICATE(9202, "上游端点名称已存在");
 
     private final int code;
     private final String message;
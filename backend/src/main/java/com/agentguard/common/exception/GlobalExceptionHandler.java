@@ -3,6 +3,7 @@ package com.agentguard.common.exception;
 import cn.hutool.core.collection.CollUtil;
 import com.agentguard.common.response.Result;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.BindException;
 import org.springframework.validation.FieldError;
@@ -29,6 +30,16 @@ public class GlobalExceptionHandler {
         return Result.error(e.getCode(), e.getMessage());
     }
 
+    /**
+     * 并发数等资源已满（如同时导出数达到上限）
+     */
+    @ExceptionHandler(ServiceOverloadedException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public Result<Void> handleServiceOverloadedException(ServiceOverloadedException e) {
+        log.warn("服务繁忙，拒绝请求: {}", e.getMessage());
+        return Result.error(e.getCode(), e.getMessage());
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public Result<Void> handleValidationException(MethodArgumentNotValidException e) {
@@ -43,6 +54,16 @@ public class GlobalExceptionHandler {
         return Result.error(400, message);
     }
 
+    /**
+     * 异步线程池已满（如透传响应数达到上限）
+     */
+    @ExceptionHandler(TaskRejectedException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public Result<Void> handleTaskRejectedException(TaskRejectedException e) {
+        log.warn("异步线程池已满，拒绝请求: {}", e.getMessage());
+        return Result.error(ErrorCode.SERVICE_OVERLOADED.getCode(), ErrorCode.SERVICE_OVERLOADED.getMessage());
+    }
+
     @ExceptionHandler(Exception.class)
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public Result<Void> handleException(Exception e) {
@@ -0,0 +1,15 @@
+package com.agentguard.common.exception;
+
+/**
+ * 服务过载异常
+ * <p>
+ * 并发数、排队容量等资源已满时抛出，由全局异常处理返回 503，客户端可稍后重试。
+ *
+ * @author zhuhx
+ */
+public class ServiceOverloadedException extends BusinessException {
+
+    public ServiceOverloadedException(ErrorCode errorCode) {
+        super(errorCode);
+    }
+}
@@ -0,0 +1,30 @@
+package com.agentguard.common.exception;
+
+import lombok.Getter;
+
+/**
+ * 上游限流异常
+ * <p>
+ * 上游限流额度不足或上游返回 429 时抛出，不在当前线程等待，由调用方按 429 + Retry-After 返回，客户端稍后重试。
+ *
+ * @author zhuhx
+ */
+@Getter
+public class UpstreamRateLimitedException extends BusinessException {
+
+    /** 建议客户端等待的秒数 */
+    private final long retryAfterSeconds;
+
+    /**
+     * @param retryAfterMs 预计恢复所需时间（毫秒），按秒向上取整，至少 1 秒
+     */
+    public UpstreamRateLimitedException(long retryAfterMs) {
+        super(ErrorCode.UPSTREAM_RATE_LIMITED,
+                String.format("上游限流额度不足，预计 %d 秒后恢复，请稍后重试", toSeconds(retryAfterMs)));
+        this.retryAfterSeconds = toSeconds(retryAfterMs);
+    }
+
+    private static long toSeconds(long retryAfterMs) {
+        return Math.max(1, (retryAfterMs + 999) / 1000);
+    }
+}
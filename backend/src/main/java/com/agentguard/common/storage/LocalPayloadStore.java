@@ -0,0 +1,223 @@
+package com.agentguard.common.storage;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.SecureUtil;
+import com.agentguard.common.config.PayloadStoreProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.regex.Pattern;
+import java.util.zip.Adler32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 本地文件系统载荷存储
+ * <p>
+ * 文件按 SHA-256 存放在 {根目录}/ab/cd/abcd....bin，已存在的内容不再重复写入。
+ * 内容使用 Deflate 压缩并预置共享字典，字典收录 OpenAI/Anthropic 请求响应中的常见字段，
+ * 使较短的 JSON 也能获得不错的压缩率。
+ * <p>
+ * 文件格式：魔数 "AGP"（3字节）+ 版本（1字节）+ 字典 Adler32 校验值（4字节）+ Deflate 数据
+ * <p>
+ * 文件保存在节点本地目录，只适用于单节点部署；多节点部署时根目录必须指向各节点共享的存储（如 NFS），
+ * 否则各节点只能读到自己写入的载荷，过期清理也只在执行日志保留任务的节点生效。
+ * 复用已有文件时刷新其修改时间，清理时据此跳过最近仍在使用的载荷。
+ *
+ * @author zhuhx
+ */
+@Slf4j
+@Component
+public class LocalPayloadStore implements PayloadStore {
+
+    private static final byte[] MAGIC = {'A', 'G', 'P'};
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private static final int HEADER_LENGTH = 8;
+
+    private static final Pattern REF_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    /**
+     * 共享压缩字典
+     * Deflate 对距离越近的匹配编码越短，出现频率越高的片段越靠后
+     */
+    private static final byte[] DICTIONARY = String.join("",
+            "\"stream_options\":{\"include_usage\":true}",
+            "\"temperature\":", "\"max_tokens\":", "\"top_p\":",
+            "\"tool_choice\":\"auto\"", "\"parallel_tool_calls\":",
+            "\"type\":\"function\",\"function\":{\"name\":\"",
+            "\"description\":\"", "\"parameters\":{\"type\":\"object\",\"properties\":{",
+            "\"type\":\"string\"", "\"type\":\"integer\"", "\"type\":\"boolean\"", "\"type\":\"array\",\"items\":",
+            "\"required\":[", "\"tools\":[",
+            "\"usage\":{\"prompt_tokens\":", "\"completion_tokens\":", "\"total_tokens\":",
+            "\"input_tokens\":", "\"output_tokens\":",
+            "\"finish_reason\":\"stop\"", "\"finish_reason\":\"tool_calls\"", "\"stop_reason\":\"end_turn\"",
+            "\"tool_calls\":[{\"id\":\"call_", "\"arguments\":\"",
+            "\"object\":\"chat.completion\"", "\"created\":", "\"system_fingerprint\":",
+            "\"choices\":[{\"index\":0,\"message\":{\"role\":\"assistant\",\"content\":\"",
+            "\"logprobs\":null,", "\"refusal\":null,",
+            "{\"role\":\"tool\",\"tool_call_id\":\"", "{\"role\":\"assistant\",\"content\":\"",
+            "{\"role\":\"user\",\"content\":\"",
+            "{\"model\":\"", "\"messages\":[{\"role\":\"system\",\"content\":\"",
+            "You are a helpful assistant."
+    ).getBytes(StandardCharsets.UTF_8);
+
+    private static final int DICTIONARY_ID = dictionaryId();
+
+    private final PayloadStoreProperties properties;
+
+    public LocalPayloadStore(PayloadStoreProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public String put(String content) {
+        byte[] raw = content.getBytes(StandardCharsets.UTF_8);
+        String ref = SecureUtil.sha256().digestHex(raw);
+        Path target = resolve(ref);
+
+        // 内容寻址：相同内容的文件已存在时直接复用（刷新修改时间失败说明文件刚被清理，重新写入）
+        if (Files.exists(target) && touch(target)) {
+            return ref;
+        }
+
+        try {
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), ref, ".tmp");
+            try {
+                Files.write(temp, compress(raw));
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("保存载荷失败: " + ref, e);
+        }
+        return ref;
+    }
+
+    @Override
+    public String get(String ref) {
+        if (StrUtil.isBlank(ref) || !REF_PATTERN.matcher(ref).matches()) {
+            return null;
+        }
+
+        Path target = resolve(ref);
+        if (!Files.exists(target)) {
+            log.warn("载荷文件不存在: ref={}", ref);
+            return null;
+        }
+
+        try {
+            return new String(decompress(Files.readAllBytes(target)), StandardCharsets.UTF_8);
+        } catch (IOException | DataFormatException e) {
+            log.error("读取载荷失败: ref={}, error={}", ref, e.getMessage(), e);
+            return null;
+        }
+    }
+
+    @Override
+    public boolean delete(String ref, Instant unusedSince) {
+        if (StrUtil.isBlank(ref) || !REF_PATTERN.matcher(ref).matches()) {
+            return false;
+        }
+
+        Path target = resolve(ref);
+        try {
+            if (!Files.exists(target) || Files.getLastModifiedTime(target).toInstant().isAfter(unusedSince)) {
+                return false;
+            }
+            return Files.deleteIfExists(target);
+        } catch (IOException e) {
+            log.warn("删除载荷失败: ref={}, error={}", ref, e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean touch(Path target) {
+        try {
+            Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private Path resolve(String ref) {
+        return Paths.get(properties.getPath(), ref.substring(0, 2), ref.substring(2, 4), ref + ".bin");
+    }
+
+    private byte[] compress(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setDictionary(DICTIONARY);
+            deflater.setInput(raw);
+            deflater.finish();
+
+            ByteArrayOutputStream output = new ByteArrayOutputStream(raw.length / 4 + HEADER_LENGTH);
+            output.write(MAGIC, 0, MAGIC.length);
+            output.write(FORMAT_VERSION);
+            output.write(ByteBuffer.allocate(4).putInt(DICTIONARY_ID).array(), 0, 4);
+
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(buffer);
+                output.write(buffer, 0, length);
+            }
+            return output.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private byte[] decompress(byte[] stored) throws DataFormatException, IOException {
+        if (stored.length < HEADER_LENGTH
+                || stored[0] != MAGIC[0] || stored[1] != MAGIC[1] || stored[2] != MAGIC[2]) {
+            throw new IOException("无法识别的载荷文件格式");
+        }
+        int dictionaryId = ByteBuffer.wrap(stored, 4, 4).getInt();
+        if (dictionaryId != DICTIONARY_ID) {
+            throw new IOException("载荷文件使用的压缩字典不匹配: " + Integer.toHexString(dictionaryId));
+        }
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(stored, HEADER_LENGTH, stored.length - HEADER_LENGTH);
+            ByteArrayOutputStream output = new ByteArrayOutputStream(stored.length * 4);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0) {
+                    if (inflater.needsDictionary()) {
+                        inflater.setDictionary(DICTIONARY);
+                    } else if (inflater.needsInput()) {
+                        throw new IOException("载荷文件数据不完整");
+                    }
+                }
+                output.write(buffer, 0, length);
+            }
+            return output.toByteArray();
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static int dictionaryId() {
+        Adler32 adler32 = new Adler32();
+        adler32.update(DICTIONARY);
+        return (int) adler32.getValue();
+    }
+}
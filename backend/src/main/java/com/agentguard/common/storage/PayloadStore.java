@@ -0,0 +1,41 @@
+package com.agentguard.common.storage;
+
+import java.time.Instant;
+
+/**
+ * 载荷存储接口
+ * <p>
+ * 按内容哈希寻址保存请求体、响应体等大文本，相同内容只保存一份。
+ * 数据库中只保留哈希引用，查看详情时再按引用读取。
+ *
+ * @author zhuhx
+ */
+public interface PayloadStore {
+
+    /**
+     * 保存载荷
+     *
+     * @param content 载荷内容
+     * @return 内容引用（SHA-256 十六进制）
+     */
+    String put(String content);
+
+    /**
+     * 读取载荷
+     *
+     * @param ref 内容引用
+     * @return 载荷内容，不存在时返回 null
+     */
+    String get(String ref);
+
+    /**
+     * 删除载荷
+     * 相同内容的载荷被多条记录共享，调用方需先确认已没有记录引用；
+     * unusedSince 之后写入或复用过的载荷不删除，避免误删并发写入的新记录刚复用的内容
+     *
+     * @param ref 内容引用
+     * @param unusedSince 只删除此时间之后未被写入或复用过的载荷
+     * @return 是否已删除
+     */
+    boolean delete(String ref, Instant unusedSince);
+}
@@ -0,0 +1,79 @@
+package com.agentguard.common.util;
+
+import com.baomidou.mybatisplus.core.incrementer.DefaultIdentifierGenerator;
+import com.baomidou.mybatisplus.core.incrementer.IdentifierGenerator;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 时间有序ID生成器
+ * <p>
+ * 按 UUIDv7 布局生成 32 位十六进制字符串（不含连字符）：
+ * <p>
+ * - 48 位毫秒时间戳
+ * - 4 位版本号（7）
+ * - 12 位毫秒内序号
+ * - 2 位变体（10）+ 62 位随机数
+ * <p>
+ * 前缀随时间单调递增，新记录总是追加到 InnoDB 聚簇索引末尾，避免随机主键带来的页分裂。
+ * 毫秒与序号合并存放在一个 AtomicLong 中无锁递增，序号用尽或时钟回拨时沿用逻辑时间继续递增。
+ *
+ * @author zhuhx
+ */
+public class TimeOrderedIdGenerator implements IdentifierGenerator {
+
+    /** 毫秒内序号位数 */
+    private static final int SEQUENCE_BITS = 12;
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /** 已发出的最大 毫秒 << 12 | 序号 */
+    private final AtomicLong state = new AtomicLong(0);
+
+    /** 数值型主键仍使用雪花算法 */
+    private final IdentifierGenerator numericGenerator = DefaultIdentifierGenerator.getInstance();
+
+    @Override
+    public Number nextId(Object entity) {
+        return numericGenerator.nextId(entity);
+    }
+
+    @Override
+    public String nextUUID(Object entity) {
+        long timeAndSeq = nextState();
+        long millis = timeAndSeq >>> SEQUENCE_BITS;
+        long seq = timeAndSeq & ((1L << SEQUENCE_BITS) - 1);
+
+        long msb = (millis << 16) | (0x7L << 12) | seq;
+        long lsb = (ThreadLocalRandom.current().nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+
+        char[] chars = new char[32];
+        writeHex(chars, 0, msb);
+        writeHex(chars, 16, lsb);
+        return new String(chars);
+    }
+
+    /**
+     * 无锁获取下一个 毫秒+序号 组合
+     */
+    private long nextState() {
+        while (true) {
+            long current = state.get();
+            long nowMillis = System.currentTimeMillis();
+            long candidate = nowMillis << SEQUENCE_BITS;
+            // 新的一毫秒从序号0开始，否则在已发出的最大值上递增（序号溢出时自然进位到下一毫秒）
+            long next = candidate > current ? candidate : current + 1;
+            if (state.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    private void writeHex(char[] chars, int offset, long value) {
+        for (int i = 15; i >= 0; i--) {
+            chars[offset + i] = HEX_DIGITS[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.agentguard.common.util;
+
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.io.IOException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 上游错误分类工具
+ * 负载均衡器的被动健康检查和熔断器使用同一套规则判断错误是否由上游服务本身导致
+ *
+ * @author zhuhx
+ */
+public final class UpstreamErrorUtil {
+
+    private UpstreamErrorUtil() {
+    }
+
+    /**
+     * 是否为上游故障：连接失败、超时、5xx（沿异常链查找）
+     *
+     * @param error 异常
+     * @return 是否为上游故障
+     */
+    public static boolean isUpstreamFailure(Throwable error) {
+        if (error instanceof HttpServerErrorException || error instanceof ResourceAccessException
+                || error instanceof WebClientRequestException
+                || error instanceof TimeoutException || error instanceof IOException) {
+            return true;
+        }
+        if (error instanceof WebClientResponseException responseError) {
+            return responseError.getStatusCode().is5xxServerError();
+        }
+        if (error instanceof RestClientResponseException responseError) {
+            return responseError.getStatusCode().is5xxServerError();
+        }
+        return error.getCause() != null && error.getCause() != error && isUpstreamFailure(error.getCause());
+    }
+
+    /**
+     * 是否为上游返回的客户端错误（4xx，包括 429）：由请求本身或配额导致，不代表上游异常
+     *
+     * @param error 异常
+     * @return 是否为客户端错误
+     */
+    public static boolean isClientError(Throwable error) {
+        if (error instanceof WebClientResponseException responseError) {
+            return responseError.getStatusCode().is4xxClientError();
+        }
+        if (error instanceof RestClientResponseException responseError) {
+            return responseError.getStatusCode().is4xxClientError();
+        }
+        return false;
+    }
+
+    /**
+     * 是否为上游限流响应（429）
+     *
+     * @param error 异常
+     * @return 是否为 429
+     */
+    public static boolean isTooManyRequests(Throwable error) {
+        if (error instanceof WebClientResponseException responseError) {
+            return responseError.getStatusCode().value() == 429;
+        }
+        if (error instanceof RestClientResponseException responseError) {
+            return responseError.getStatusCode().value() == 429;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,26 @@
+package com.agentguard.export.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 数据导出配置属性
+ *
+ * @author zhuhx
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "agentguard.export")
+public class ExportProperties {
+
+    /**
+     * 单节点同时进行的导出数上限，每个导出在写出期间独占一个数据库连接，应明显小于连接池大小
+     */
+    private int maxConcurrent = 2;
+
+    /**
+     * 导出查询超时（秒），作为只读事务超时，超过后游标查询被取消
+     */
+    private int queryTimeoutSeconds = 60;
+}
@@ -0,0 +1,133 @@
+package com.agentguard.export.controller;
+
+import com.agentguard.approval.enums.ApprovalStatus;
+import com.agentguard.export.dto.ApprovalExportQueryDTO;
+import com.agentguard.export.dto.CostExportQueryDTO;
+import com.agentguard.export.dto.LogExportQueryDTO;
+import com.agentguard.export.enums.ExportFormat;
+import com.agentguard.export.service.ExportService;
+import com.agentguard.log.enums.RequestType;
+import com.agentguard.log.enums.ResponseStatus;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 数据导出控制器
+ * <p>
+ * 在请求线程中同步写出，导出耗时不受异步请求超时限制。
+ *
+ * @author zhuhx
+ */
+@Tag(name = "数据导出", description = "日志、成本记录、审批请求流式导出接口")
+@RestController
+@RequestMapping("/api/v1/export")
+@RequiredArgsConstructor
+public class ExportController {
+
+    private static final DateTimeFormatter FILE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    private final ExportService exportService;
+
+    @Operation(summary = "导出日志", description = "按创建时间升序流式导出；中断后以最后收到的记录ID作为 afterId 续传")
+    @GetMapping("/logs")
+    public void exportLogs(
+            @Parameter(description = "导出格式") @RequestParam(defaultValue = "CSV") ExportFormat format,
+            @Parameter(description = "是否 gzip 压缩") @RequestParam(defaultValue = "false") boolean gzip,
+            @Parameter(description = "Agent ID过滤") @RequestParam(required = false) String agentId,
+            @Parameter(description = "响应状态过滤") @RequestParam(required = false) ResponseStatus responseStatus,
+            @Parameter(description = "请求类型过滤") @RequestParam(required = false) RequestType requestType,
+            @Parameter(description = "开始时间") @RequestParam(required = false)
+                @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime startTime,
+            @Parameter(description = "结束时间") @RequestParam(required = false)
+                @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime endTime,
+            @Parameter(description = "是否导出请求头、请求体、响应体") @RequestParam(defaultValue = "false") boolean includeBodies,
+            @Parameter(description = "续传位置（上次收到的最后一条记录ID）") @RequestParam(required = false) String afterId,
+            HttpServletResponse response) throws IOException {
+        LogExportQueryDTO query = LogExportQueryDTO.builder()
+                .agentId(agentId)
+                .responseStatus(responseStatus)
+                .requestType(requestType)
+                .startTime(startTime)
+                .endTime(endTime)
+                .includeBodies(includeBodies)
+                .afterId(afterId)
+                .build();
+        exportService.exportLogs(query, format, () -> openOutput(response, "agent-log", format, gzip));
+    }
+
+    @Operation(summary = "导出成本记录", description = "按日期升序流式导出；中断后以最后收到的记录ID作为 afterId 续传")
+    @GetMapping("/costs")
+    public void exportCosts(
+            @Parameter(description = "导出格式") @RequestParam(defaultValue = "CSV") ExportFormat format,
+            @Parameter(description = "是否 gzip 压缩") @RequestParam(defaultValue = "false") boolean gzip,
+            @Parameter(description = "Agent ID过滤") @RequestParam(required = false) String agentId,
+            @Parameter(description = "模型过滤") @RequestParam(required = false) String model,
+            @Parameter(description = "开始日期") @RequestParam(required = false)
+                @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
+            @Parameter(description = "结束日期") @RequestParam(required = false)
+                @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate,
+            @Parameter(description = "续传位置（上次收到的最后一条记录ID）") @RequestParam(required = false) String afterId,
+            HttpServletResponse response) throws IOException {
+        CostExportQueryDTO query = CostExportQueryDTO.builder()
+                .agentId(agentId)
+                .model(model)
+                .startDate(startDate)
+                .endDate(endDate)
+                .afterId(afterId)
+                .build();
+        exportService.exportCosts(query, format, () -> openOutput(response, "cost-record", format, gzip));
+    }
+
+    @Operation(summary = "导出审批请求", description = "按创建时间升序流式导出；中断后以最后收到的记录ID作为 afterId 续传")
+    @GetMapping("/approvals")
+    public void exportApprovals(
+            @Parameter(description = "导出格式") @RequestParam(defaultValue = "CSV") ExportFormat format,
+            @Parameter(description = "是否 gzip 压缩") @RequestParam(defaultValue = "false") boolean gzip,
+            @Parameter(description = "Agent ID过滤") @RequestParam(required = false) String agentId,
+            @Parameter(description = "审批状态过滤") @RequestParam(required = false) ApprovalStatus status,
+            @Parameter(description = "开始时间") @RequestParam(required = false)
+                @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime startTime,
+            @Parameter(description = "结束时间") @RequestParam(required = false)
+                @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime endTime,
+            @Parameter(description = "是否导出原始请求数据和执行结果") @RequestParam(defaultValue = "false") boolean includeBodies,
+            @Parameter(description = "续传位置（上次收到的最后一条记录ID）") @RequestParam(required = false) String afterId,
+            HttpServletResponse response) throws IOException {
+        ApprovalExportQueryDTO query = ApprovalExportQueryDTO.builder()
+                .agentId(agentId)
+                .status(status)
+                .startTime(startTime)
+                .endTime(endTime)
+                .includeBodies(includeBodies)
+                .afterId(afterId)
+                .build();
+        exportService.exportApprovals(query, format, () -> openOutput(response, "approval-request", format, gzip));
+    }
+
+    /**
+     * 设置下载响应头并打开输出流
+     */
+    private OutputStream openOutput(HttpServletResponse response, String name, ExportFormat format, boolean gzip) throws IOException {
+        String fileName = name + "-" + LocalDateTime.now().format(FILE_TIME_FORMATTER) + "." + format.getExtension();
+        if (gzip) {
+            response.setContentType("application/gzip");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + ".gz\"");
+            return new GZIPOutputStream(response.getOutputStream(), 64 * 1024);
+        }
+        response.setContentType(format.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+        return response.getOutputStream();
+    }
+}
@@ -0,0 +1,39 @@
+package com.agentguard.export.dto;
+
+import com.agentguard.approval.enums.ApprovalStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 审批请求导出查询条件
+ *
+ * @author zhuhx
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ApprovalExportQueryDTO {
+
+    /** Agent ID */
+    private String agentId;
+
+    /** 审批状态 */
+    private ApprovalStatus status;
+
+    /** 开始时间（含） */
+    private LocalDateTime startTime;
+
+    /** 结束时间（含） */
+    private LocalDateTime endTime;
+
+    /** 是否导出原始请求数据和执行结果 */
+    private boolean includeBodies;
+
+    /** 续传位置：上次导出收到的最后一条记录ID */
+    private String afterId;
+}
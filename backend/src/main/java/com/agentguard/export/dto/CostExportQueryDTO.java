@@ -0,0 +1,35 @@
+package com.agentguard.export.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * 成本记录导出查询条件
+ *
+ * @author zhuhx
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CostExportQueryDTO {
+
+    /** Agent ID */
+    private String agentId;
+
+    /** LLM模型 */
+    private String model;
+
+    /** 开始日期（含） */
+    private LocalDate startDate;
+
+    /** 结束日期（含） */
+    private LocalDate endDate;
+
+    /** 续传位置：上次导出收到的最后一条记录ID */
+    private String afterId;
+}
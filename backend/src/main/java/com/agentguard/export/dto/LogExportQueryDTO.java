@@ -0,0 +1,43 @@
+package com.agentguard.export.dto;
+
+import com.agentguard.log.enums.RequestType;
+import com.agentguard.log.enums.ResponseStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 日志导出查询条件
+ *
+ * @author zhuhx
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LogExportQueryDTO {
+
+    /** Agent ID */
+    private String agentId;
+
+    /** 响应状态 */
+    private ResponseStatus responseStatus;
+
+    /** 请求类型 */
+    private RequestType requestType;
+
+    /** 开始时间（含） */
+    private LocalDateTime startTime;
+
+    /** 结束时间（含） */
+    private LocalDateTime endTime;
+
+    /** 是否导出请求头、请求体、响应体 */
+    private boolean includeBodies;
+
+    /** 续传位置：上次导出收到的最后一条记录ID */
+    private String afterId;
+}
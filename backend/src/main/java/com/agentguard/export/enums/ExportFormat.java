@@ -0,0 +1,26 @@
+package com.agentguard.export.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 导出文件格式枚举
+ *
+ * @author zhuhx
+ */
+@Getter
+@AllArgsConstructor
+public enum ExportFormat {
+
+    /** CSV（UTF-8 BOM，可直接用 Excel 打开） */
+    CSV("csv", "text/csv;charset=UTF-8"),
+
+    /** NDJSON（每行一个 JSON 对象） */
+    NDJSON("ndjson", "application/x-ndjson");
+
+    /** 文件扩展名 */
+    private final String extension;
+
+    /** 响应内容类型 */
+    private final String contentType;
+}
@@ -0,0 +1,68 @@
+package com.agentguard.export.service;
+
+import com.agentguard.export.dto.ApprovalExportQueryDTO;
+import com.agentguard.export.dto.CostExportQueryDTO;
+import com.agentguard.export.dto.LogExportQueryDTO;
+import com.agentguard.export.enums.ExportFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 数据导出服务接口
+ * 通过数据库流式游标逐行读取并写出，内存占用与导出行数无关；结果按 (时间, ID) 升序输出，
+ * 中断后可用最后收到的记录ID作为 afterId 续传
+ *
+ * @author zhuhx
+ */
+public interface ExportService {
+
+    /**
+     * 导出日志
+     *
+     * @param query 查询条件
+     * @param format 导出格式
+     * @param output 输出目标（校验通过、开始写出时才会打开）
+     * @return 导出行数
+     * @throws IOException 写出失败
+     */
+    long exportLogs(LogExportQueryDTO query, ExportFormat format, ExportOutput output) throws IOException;
+
+    /**
+     * 导出成本记录
+     *
+     * @param query 查询条件
+     * @param format 导出格式
+     * @param output 输出目标（校验通过、开始写出时才会打开）
+     * @return 导出行数
+     * @throws IOException 写出失败
+     */
+    long exportCosts(CostExportQueryDTO query, ExportFormat format, ExportOutput output) throws IOException;
+
+    /**
+     * 导出审批请求
+     *
+     * @param query 查询条件
+     * @param format 导出格式
+     * @param output 输出目标（校验通过、开始写出时才会打开）
+     * @return 导出行数
+     * @throws IOException 写出失败
+     */
+    long exportApprovals(ApprovalExportQueryDTO query, ExportFormat format, ExportOutput output) throws IOException;
+
+    /**
+     * 导出输出目标
+     * 延迟到开始写出时再打开，参数校验失败时仍可返回普通的错误响应
+     */
+    @FunctionalInterface
+    interface ExportOutput {
+
+        /**
+         * 打开输出流
+         *
+         * @return 输出流
+         * @throws IOException 打开失败
+         */
+        OutputStream open() throws IOException;
+    }
+}
@@ -0,0 +1,326 @@
+package com.agentguard.export.service.impl;
+
+import cn.hutool.core.util.ObjectUtil;
+import cn.hutool.core.util.StrUtil;
+import com.agentguard.agent.entity.AgentDO;
+import com.agentguard.agent.mapper.AgentMapper;
+import com.agentguard.approval.entity.ApprovalRequestDO;
+import com.agentguard.approval.mapper.ApprovalMapper;
+import com.agentguard.common.exception.BusinessException;
+import com.agentguard.common.exception.ErrorCode;
+import com.agentguard.common.exception.ServiceOverloadedException;
+import com.agentguard.common.storage.PayloadStore;
+import com.agentguard.export.config.ExportProperties;
+import com.agentguard.export.dto.ApprovalExportQueryDTO;
+import com.agentguard.export.dto.CostExportQueryDTO;
+import com.agentguard.export.dto.LogExportQueryDTO;
+import com.agentguard.export.enums.ExportFormat;
+import com.agentguard.export.service.ExportService;
+import com.agentguard.export.util.ExportRowWriter;
+import com.agentguard.log.entity.AgentLogDO;
+import com.agentguard.log.mapper.AgentLogMapper;
+import com.agentguard.stats.entity.CostRecordDO;
+import com.agentguard.stats.mapper.CostRecordMapper;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 数据导出服务实现类
+ * <p>
+ * 导出在只读事务中打开 MySQL 流式游标（fetchSize = Integer.MIN_VALUE），逐行转换后直接写到响应流。
+ * 游标打开期间同一连接不能执行其他查询，因此 Agent 名称在打开游标前一次性加载，
+ * 转存到载荷存储的请求体/响应体从本地文件读取。
+ * <p>
+ * 游标在整个下载期间占用一个数据库连接，慢客户端会长时间不归还，因此同时进行的导出数有上限，
+ * 已满时直接拒绝（503）；事务设置超时，游标查询超时后由驱动取消。
+ * 事务改为编程式开启，保证先拿到导出许可再占用连接。
+ *
+ * @author zhuhx
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ExportServiceImpl implements ExportService {
+
+    /** 不导出正文时日志不读取的大字段 */
+    private static final Set<String> LOG_BODY_COLUMNS = Set.of(
+            "request_headers", "request_body", "response_body", "request_body_ref", "response_body_ref");
+
+    /** 不导出正文时审批请求不读取的大字段 */
+    private static final Set<String> APPROVAL_BODY_COLUMNS = Set.of("request_data", "execution_result");
+
+    private final AgentLogMapper agentLogMapper;
+    private final CostRecordMapper costRecordMapper;
+    private final ApprovalMapper approvalMapper;
+    private final AgentMapper agentMapper;
+    private final PayloadStore payloadStore;
+    private final ObjectMapper objectMapper;
+    private final ExportProperties exportProperties;
+    private final PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private Semaphore exportPermits;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.setTimeout(exportProperties.getQueryTimeoutSeconds());
+        exportPermits = new Semaphore(exportProperties.getMaxConcurrent());
+    }
+
+    @Override
+    public long exportLogs(LogExportQueryDTO query, ExportFormat format, ExportOutput output) throws IOException {
+        return runExport(() -> doExportLogs(query, format, output));
+    }
+
+    @Override
+    public long exportCosts(CostExportQueryDTO query, ExportFormat format, ExportOutput output) throws IOException {
+        return runExport(() -> doExportCosts(query, format, output));
+    }
+
+    @Override
+    public long exportApprovals(ApprovalExportQueryDTO query, ExportFormat format, ExportOutput output) throws IOException {
+        return runExport(() -> doExportApprovals(query, format, output));
+    }
+
+    /**
+     * 取得导出许可后在只读事务中执行导出，许可已满时拒绝
+     */
+    private long runExport(ExportTask task) throws IOException {
+        if (!exportPermits.tryAcquire()) {
+            throw new ServiceOverloadedException(ErrorCode.EXPORT_BUSY);
+        }
+        try {
+            Long rows = transactionTemplate.execute(status -> {
+                try {
+                    return task.run();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            return rows != null ? rows : 0L;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            exportPermits.release();
+        }
+    }
+
+    private long doExportLogs(LogExportQueryDTO query, ExportFormat format, ExportOutput output) throws IOException {
+        LambdaQueryWrapper<AgentLogDO> wrapper = new LambdaQueryWrapper<>();
+        wrapper.select(AgentLogDO.class, field -> query.isIncludeBodies() || !LOG_BODY_COLUMNS.contains(field.getColumn()))
+               .ge(ObjectUtil.isNotNull(query.getStartTime()), AgentLogDO::getCreatedAt, query.getStartTime())
+               .le(ObjectUtil.isNotNull(query.getEndTime()), AgentLogDO::getCreatedAt, query.getEndTime())
+               .eq(StrUtil.isNotBlank(query.getAgentId()), AgentLogDO::getAgentId, query.getAgentId())
+               .eq(query.getResponseStatus() != null, AgentLogDO::getResponseStatus, query.getResponseStatus())
+               .eq(query.getRequestType() != null, AgentLogDO::getRequestType, query.getRequestType());
+
+        // 续传：(created_at, id) > 上次最后一条记录
+        if (StrUtil.isNotBlank(query.getAfterId())) {
+            LocalDateTime afterTime = findResumeValue(agentLogMapper.selectList(new LambdaQueryWrapper<AgentLogDO>()
+                    .select(AgentLogDO::getCreatedAt)
+                    .eq(AgentLogDO::getId, query.getAfterId())), AgentLogDO::getCreatedAt);
+            wrapper.and(w -> w.gt(AgentLogDO::getCreatedAt, afterTime)
+                    .or(o -> o.eq(AgentLogDO::getCreatedAt, afterTime).gt(AgentLogDO::getId, query.getAfterId())));
+        }
+        wrapper.orderByAsc(AgentLogDO::getCreatedAt)
+               .orderByAsc(AgentLogDO::getId);
+
+        Map<String, String> agentNames = loadAgentNames();
+        List<ExportColumn<AgentLogDO>> columns = new ArrayList<>(List.of(
+                new ExportColumn<>("id", AgentLogDO::getId),
+                new ExportColumn<>("agent_id", AgentLogDO::getAgentId),
+                new ExportColumn<>("agent_name", logDO -> agentNames.get(logDO.getAgentId())),
+                new ExportColumn<>("request_type", logDO -> logDO.getRequestType() != null ? logDO.getRequestType().getCode() : null),
+                new ExportColumn<>("endpoint", AgentLogDO::getEndpoint),
+                new ExportColumn<>("upstream_id", AgentLogDO::getUpstreamId),
+                new ExportColumn<>("method", AgentLogDO::getMethod),
+                new ExportColumn<>("request_summary", AgentLogDO::getRequestSummary),
+                new ExportColumn<>("response_status", logDO -> logDO.getResponseStatus() != null ? logDO.getResponseStatus().getCode() : null),
+                new ExportColumn<>("response_time_ms", AgentLogDO::getResponseTimeMs),
+                new ExportColumn<>("first_token_time_ms", AgentLogDO::getFirstTokenTimeMs),
+                new ExportColumn<>("finish_reason", AgentLogDO::getFinishReason),
+                new ExportColumn<>("tool_calls", AgentLogDO::getToolCalls),
+                new ExportColumn<>("token_input", AgentLogDO::getTokenInput),
+                new ExportColumn<>("token_output", AgentLogDO::getTokenOutput),
+                new ExportColumn<>("token_estimated", AgentLogDO::getTokenEstimated),
+                new ExportColumn<>("cache_hit", AgentLogDO::getCacheHit),
+                new ExportColumn<>("model", AgentLogDO::getModel),
+                new ExportColumn<>("cost", AgentLogDO::getCost),
+                new ExportColumn<>("policy_name", logDO -> logDO.getPolicySnapshot() != null ? logDO.getPolicySnapshot().getName() : null),
+                new ExportColumn<>("approval_request_id", AgentLogDO::getApprovalRequestId),
+                new ExportColumn<>("created_at", AgentLogDO::getCreatedAt)
+        ));
+        if (query.isIncludeBodies()) {
+            columns.add(new ExportColumn<>("request_headers", AgentLogDO::getRequestHeaders));
+            columns.add(new ExportColumn<>("request_body", logDO -> resolvePayload(logDO.getRequestBody(), logDO.getRequestBodyRef())));
+            columns.add(new ExportColumn<>("response_body", logDO -> resolvePayload(logDO.getResponseBody(), logDO.getResponseBodyRef())));
+        }
+
+        try (Cursor<AgentLogDO> cursor = agentLogMapper.selectCursor(wrapper)) {
+            return write(cursor, columns, format, output);
+        }
+    }
+
+    private long doExportCosts(CostExportQueryDTO query, ExportFormat format, ExportOutput output) throws IOException {
+        LambdaQueryWrapper<CostRecordDO> wrapper = new LambdaQueryWrapper<>();
+        wrapper.ge(ObjectUtil.isNotNull(query.getStartDate()), CostRecordDO::getDate, query.getStartDate())
+               .le(ObjectUtil.isNotNull(query.getEndDate()), CostRecordDO::getDate, query.getEndDate())
+               .eq(StrUtil.isNotBlank(query.getAgentId()), CostRecordDO::getAgentId, query.getAgentId())
+               .eq(StrUtil.isNotBlank(query.getModel()), CostRecordDO::getModel, query.getModel());
+
+        // 续传：(date, id) > 上次最后一条记录
+        if (StrUtil.isNotBlank(query.getAfterId())) {
+            LocalDate afterDate = findResumeValue(costRecordMapper.selectList(new LambdaQueryWrapper<CostRecordDO>()
+                    .select(CostRecordDO::getDate)
+                    .eq(CostRecordDO::getId, query.getAfterId())), CostRecordDO::getDate);
+            wrapper.and(w -> w.gt(CostRecordDO::getDate, afterDate)
+                    .or(o -> o.eq(CostRecordDO::getDate, afterDate).gt(CostRecordDO::getId, query.getAfterId())));
+        }
+        wrapper.orderByAsc(CostRecordDO::getDate)
+               .orderByAsc(CostRecordDO::getId);
+
+        Map<String, String> agentNames = loadAgentNames();
+        List<ExportColumn<CostRecordDO>> columns = List.of(
+                new ExportColumn<>("id", CostRecordDO::getId),
+                new ExportColumn<>("date", CostRecordDO::getDate),
+                new ExportColumn<>("agent_id", CostRecordDO::getAgentId),
+                new ExportColumn<>("agent_name", record -> agentNames.get(record.getAgentId())),
+                new ExportColumn<>("model", CostRecordDO::getModel),
+                new ExportColumn<>("token_input", CostRecordDO::getTokenInput),
+                new ExportColumn<>("token_output", CostRecordDO::getTokenOutput),
+                new ExportColumn<>("api_calls", CostRecordDO::getApiCalls),
+                new ExportColumn<>("llm_cost", CostRecordDO::getLlmCost),
+                new ExportColumn<>("api_cost", CostRecordDO::getApiCost),
+                new ExportColumn<>("total_cost", CostRecordDO::getTotalCost),
+                new ExportColumn<>("updated_at", CostRecordDO::getUpdatedAt)
+        );
+
+        try (Cursor<CostRecordDO> cursor = costRecordMapper.selectCursor(wrapper)) {
+            return write(cursor, columns, format, output);
+        }
+    }
+
+    private long doExportApprovals(ApprovalExportQueryDTO query, ExportFormat format, ExportOutput output) throws IOException {
+        LambdaQueryWrapper<ApprovalRequestDO> wrapper = new LambdaQueryWrapper<>();
+        wrapper.select(ApprovalRequestDO.class, field -> query.isIncludeBodies() || !APPROVAL_BODY_COLUMNS.contains(field.getColumn()))
+               .ge(ObjectUtil.isNotNull(query.getStartTime()), ApprovalRequestDO::getCreatedAt, query.getStartTime())
+               .le(ObjectUtil.isNotNull(query.getEndTime()), ApprovalRequestDO::getCreatedAt, query.getEndTime())
+               .eq(StrUtil.isNotBlank(query.getAgentId()), ApprovalRequestDO::getAgentId, query.getAgentId())
+               .eq(query.getStatus() != null, ApprovalRequestDO::getStatus, query.getStatus());
+
+        // 续传：(created_at, id) > 上次最后一条记录
+        if (StrUtil.isNotBlank(query.getAfterId())) {
+            LocalDateTime afterTime = findResumeValue(approvalMapper.selectList(new LambdaQueryWrapper<ApprovalRequestDO>()
+                    .select(ApprovalRequestDO::getCreatedAt)
+                    .eq(ApprovalRequestDO::getId, query.getAfterId())), ApprovalRequestDO::getCreatedAt);
+            wrapper.and(w -> w.gt(ApprovalRequestDO::getCreatedAt, afterTime)
+                    .or(o -> o.eq(ApprovalRequestDO::getCreatedAt, afterTime).gt(ApprovalRequestDO::getId, query.getAfterId())));
+        }
+        wrapper.orderByAsc(ApprovalRequestDO::getCreatedAt)
+               .orderByAsc(ApprovalRequestDO::getId);
+
+        Map<String, String> agentNames = loadAgentNames();
+        List<ExportColumn<ApprovalRequestDO>> columns = new ArrayList<>(List.of(
+                new ExportColumn<>("id", ApprovalRequestDO::getId),
+                new ExportColumn<>("agent_id", ApprovalRequestDO::getAgentId),
+                new ExportColumn<>("agent_name", approval -> agentNames.get(approval.getAgentId())),
+                new ExportColumn<>("policy_id", ApprovalRequestDO::getPolicyId),
+                new ExportColumn<>("status", approval -> approval.getStatus() != null ? approval.getStatus().getCode() : null),
+                new ExportColumn<>("application_reason", ApprovalRequestDO::getApplicationReason),
+                new ExportColumn<>("approver_id", ApprovalRequestDO::getApproverId),
+                new ExportColumn<>("approved_at", ApprovalRequestDO::getApprovedAt),
+                new ExportColumn<>("remark", ApprovalRequestDO::getRemark),
+                new ExportColumn<>("execution_status", approval -> approval.getExecutionStatus() != null ? approval.getExecutionStatus().getCode() : null),
+                new ExportColumn<>("executed_at", ApprovalRequestDO::getExecutedAt),
+                new ExportColumn<>("expires_at", ApprovalRequestDO::getExpiresAt),
+                new ExportColumn<>("created_at", ApprovalRequestDO::getCreatedAt)
+        ));
+        if (query.isIncludeBodies()) {
+            columns.add(new ExportColumn<>("request_data", ApprovalRequestDO::getRequestData));
+            columns.add(new ExportColumn<>("execution_result", ApprovalRequestDO::getExecutionResult));
+        }
+
+        try (Cursor<ApprovalRequestDO> cursor = approvalMapper.selectCursor(wrapper)) {
+            return write(cursor, columns, format, output);
+        }
+    }
+
+    /**
+     * 逐行写出游标中的记录
+     */
+    private <T> long write(Cursor<T> cursor, List<ExportColumn<T>> columns, ExportFormat format,
+                           ExportOutput output) throws IOException {
+        List<String> columnNames = columns.stream().map(ExportColumn::name).toList();
+        try (ExportRowWriter writer = new ExportRowWriter(format, columnNames, objectMapper, output.open())) {
+            for (T row : cursor) {
+                List<Object> values = new ArrayList<>(columns.size());
+                for (ExportColumn<T> column : columns) {
+                    values.add(column.getter().apply(row));
+                }
+                writer.writeRow(values);
+            }
+            log.info("数据导出完成: rows={}", writer.getRowCount());
+            return writer.getRowCount();
+        }
+    }
+
+    /**
+     * 查询续传记录的排序值，记录不存在时视为续传位置无效
+     */
+    private <T, V> V findResumeValue(List<T> records, Function<T, V> getter) {
+        if (records.isEmpty() || getter.apply(records.get(0)) == null) {
+            throw new BusinessException(ErrorCode.EXPORT_RESUME_ID_INVALID);
+        }
+        return getter.apply(records.get(0));
+    }
+
+    /**
+     * 一次性加载全部 Agent 名称（游标打开后连接不能再执行其他查询）
+     */
+    private Map<String, String> loadAgentNames() {
+        LambdaQueryWrapper<AgentDO> wrapper = new LambdaQueryWrapper<>();
+        wrapper.select(AgentDO::getId, AgentDO::getName);
+        return agentMapper.selectList(wrapper).stream()
+                .collect(Collectors.toMap(AgentDO::getId, AgentDO::getName, (a, b) -> a));
+    }
+
+    private String resolvePayload(String inline, String ref) {
+        return StrUtil.isNotBlank(ref) ? payloadStore.get(ref) : inline;
+    }
+
+    /**
+     * 在事务内执行的导出任务
+     */
+    @FunctionalInterface
+    private interface ExportTask {
+
+        long run() throws IOException;
+    }
+
+    /**
+     * 导出列定义
+     */
+    private record ExportColumn<T>(String name, Function<T, Object> getter) {
+    }
+}
@@ -0,0 +1,122 @@
+package com.agentguard.export.util;
+
+import com.agentguard.export.enums.ExportFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 导出行写入器
+ * <p>
+ * 逐行写出 CSV 或 NDJSON，每隔固定行数刷新一次输出流，内存占用与导出总行数无关。
+ * CSV 以 UTF-8 BOM 开头便于 Excel 识别编码，以 = + - @ 开头的文本前加单引号，避免被表格软件当作公式执行。
+ *
+ * @author zhuhx
+ */
+public class ExportRowWriter implements Closeable {
+
+    private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /** 刷新间隔（行） */
+    private static final int FLUSH_INTERVAL = 1000;
+
+    private final ExportFormat format;
+    private final List<String> columns;
+    private final ObjectMapper objectMapper;
+    private final Writer writer;
+
+    private long rowCount;
+
+    public ExportRowWriter(ExportFormat format, List<String> columns, ObjectMapper objectMapper, OutputStream output) throws IOException {
+        this.format = format;
+        this.columns = columns;
+        this.objectMapper = objectMapper;
+        this.writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 64 * 1024);
+
+        if (format == ExportFormat.CSV) {
+            writer.write('\uFEFF');
+            writeCsvLine(List.copyOf(columns));
+        }
+    }
+
+    /**
+     * 写出一行，values 与列名一一对应
+     */
+    public void writeRow(List<Object> values) throws IOException {
+        List<Object> formatted = values.stream().map(this::formatValue).toList();
+        if (format == ExportFormat.CSV) {
+            writeCsvLine(formatted);
+        } else {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 0; i < columns.size(); i++) {
+                row.put(columns.get(i), formatted.get(i));
+            }
+            writer.write(objectMapper.writeValueAsString(row));
+            writer.write('\n');
+        }
+
+        if (++rowCount % FLUSH_INTERVAL == 0) {
+            writer.flush();
+        }
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.flush();
+        writer.close();
+    }
+
+    private Object formatValue(Object value) {
+        if (value instanceof LocalDateTime dateTime) {
+            return dateTime.format(DATETIME_FORMATTER);
+        }
+        if (value instanceof LocalDate date) {
+            return date.toString();
+        }
+        if (value instanceof BigDecimal decimal && format == ExportFormat.CSV) {
+            return decimal.toPlainString();
+        }
+        return value;
+    }
+
+    private void writeCsvLine(List<Object> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(escapeCsv(values.get(i)));
+        }
+        writer.write("\r\n");
+    }
+
+    private String escapeCsv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (value instanceof String && !text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+}
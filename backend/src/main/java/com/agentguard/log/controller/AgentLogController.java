@@ -1,17 +1,29 @@
 package com.agentguard.log.controller;
 
+import cn.hutool.core.util.StrUtil;
 import com.agentguard.common.response.Result;
+import com.agentguard.log.dto.AgentLogCursorPageDTO;
 import com.agentguard.log.dto.AgentLogDTO;
+import com.agentguard.log.dto.LogSearchHitDTO;
+import com.agentguard.log.dto.LogTailFilterDTO;
 import com.agentguard.log.enums.RequestType;
 import com.agentguard.log.enums.ResponseStatus;
 import com.agentguard.log.service.AgentLogService;
+import com.agentguard.log.service.LogSearchService;
+import com.agentguard.log.service.LogTailService;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * Agent日志控制器
@@ -25,17 +37,77 @@ import org.springframework.web.bind.annotation.*;
 public class AgentLogController {
 
     private final AgentLogService agentLogService;
+    private final LogSearchService logSearchService;
+    private final LogTailService logTailService;
 
-    @Operation(summary = "分页查询日志列表")
+    @Operation(summary = "分页查询日志列表", description = "列表不含请求头、请求体、响应体，详情请调用日志详情接口")
     @GetMapping
     public Result<IPage<AgentLogDTO>> page(
             @Parameter(description = "当前页码") @RequestParam(defaultValue = "1") Integer current,
             @Parameter(description = "每页大小") @RequestParam(defaultValue = "10") Integer size,
             @Parameter(description = "Agent ID过滤") @RequestParam(required = false) String agentId,
             @Parameter(description = "响应状态过滤") @RequestParam(required = false) ResponseStatus responseStatus,
-            @Parameter(description = "请求类型过滤") @RequestParam(required = false) RequestType requestType) {
+            @Parameter(description = "请求类型过滤") @RequestParam(required = false) RequestType requestType,
+            @Parameter(description = "开始时间") @RequestParam(required = false)
+                @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime startTime,
+            @Parameter(description = "结束时间") @RequestParam(required = false)
+                @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime endTime) {
         Page<AgentLogDTO> page = new Page<>(current, size);
-        return Result.success(agentLogService.page(page, agentId, responseStatus, requestType));
+        return Result.success(agentLogService.page(page, agentId, responseStatus, requestType, startTime, endTime));
+    }
+
+    @Operation(
+            summary = "游标分页查询日志列表",
+            description = "按创建时间倒序，使用上一页返回的 nextCursor 翻页；列表不含请求头、请求体、响应体，详情请调用日志详情接口"
+    )
+    @GetMapping("/cursor")
+    public Result<AgentLogCursorPageDTO> cursorPage(
+            @Parameter(description = "游标（首页不传）") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页大小（最大100）") @RequestParam(defaultValue = "20") Integer size,
+            @Parameter(description = "Agent ID过滤") @RequestParam(required = false) String agentId,
+            @Parameter(description = "响应状态过滤") @RequestParam(required = false) ResponseStatus responseStatus,
+            @Parameter(description = "请求类型过滤") @RequestParam(required = false) RequestType requestType,
+            @Parameter(description = "开始时间") @RequestParam(required = false)
+                @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime startTime,
+            @Parameter(description = "结束时间") @RequestParam(required = false)
+                @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime endTime) {
+        return Result.success(agentLogService.cursorPage(cursor, size, agentId, responseStatus, requestType, startTime, endTime));
+    }
+
+    @Operation(
+            summary = "全文搜索日志",
+            description = "按请求体/响应体内容、工具调用、模型、请求地址搜索，支持 Lucene 查询语法（如 toolCalls:search AND model:gpt-4o），按相关度排序；"
+                    + "索引按节点本地维护，多节点部署时只返回处理本次请求的节点写入的日志（见结果中的 node）"
+    )
+    @GetMapping("/search")
+    public Result<List<LogSearchHitDTO>> search(
+            @Parameter(description = "搜索语句") @RequestParam String q,
+            @Parameter(description = "返回条数（最大100）") @RequestParam(defaultValue = "20") Integer size,
+            @Parameter(description = "Agent ID过滤") @RequestParam(required = false) String agentId,
+            @Parameter(description = "开始时间") @RequestParam(required = false)
+                @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime startTime,
+            @Parameter(description = "结束时间") @RequestParam(required = false)
+                @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime endTime) {
+        return Result.success(logSearchService.search(q, agentId, startTime, endTime, size));
+    }
+
+    @Operation(
+            summary = "实时日志",
+            description = "SSE 推送新写入的日志（log 事件，不含请求头、请求体、响应体）；客户端过慢时丢弃的条数通过 dropped 事件通知"
+    )
+    @GetMapping(value = "/tail", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter tail(
+            @Parameter(description = "Agent ID过滤") @RequestParam(required = false) String agentId,
+            @Parameter(description = "响应状态过滤") @RequestParam(required = false) ResponseStatus responseStatus,
+            @Parameter(description = "模型过滤") @RequestParam(required = false) String model,
+            @Parameter(description = "请求类型过滤") @RequestParam(required = false) RequestType requestType) {
+        LogTailFilterDTO filter = LogTailFilterDTO.builder()
+                .agentId(StrUtil.emptyToNull(agentId))
+                .responseStatus(responseStatus)
+                .model(StrUtil.emptyToNull(model))
+                .requestType(requestType)
+                .build();
+        return logTailService.subscribe(filter);
     }
 
     @Operation(summary = "获取日志详情")
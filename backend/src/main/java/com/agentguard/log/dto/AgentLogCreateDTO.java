@@ -29,6 +29,9 @@ public class AgentLogCreateDTO {
     @Schema(description = "请求地址", example = "https://api.example.com/transfer")
     private String endpoint;
 
+    @Schema(description = "选中的上游端点ID，为空表示Agent主端点")
+    private String upstreamId;
+
     @Schema(description = "请求方法", example = "POST")
     private String method;
 
@@ -66,6 +69,12 @@ public class AgentLogCreateDTO {
     @Schema(description = "输出token数")
     private Integer tokenOutput;
 
+    @Schema(description = "Token数是否为本地估算值（上游未返回usage时）")
+    private Boolean tokenEstimated;
+
+    @Schema(description = "是否命中相似提示词响应缓存（未请求上游）")
+    private Boolean cacheHit;
+
     @Schema(description = "LLM模型", example = "gpt-4")
     private String model;
 
@@ -0,0 +1,34 @@
+package com.agentguard.log.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Agent日志游标分页结果
+ *
+ * @author zhuhx
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Agent日志游标分页结果")
+public class AgentLogCursorPageDTO {
+
+    @Schema(description = "日志列表（不含请求头、请求体、响应体，详情通过日志ID查询）")
+    private List<AgentLogDTO> records;
+
+    @Schema(description = "下一页游标，为空表示没有更多数据")
+    private String nextCursor;
+
+    @Schema(description = "是否还有更多数据")
+    private Boolean hasMore;
+
+    @Schema(description = "符合条件的记录总数（缓存值，可能略有延迟）")
+    private Long total;
+}
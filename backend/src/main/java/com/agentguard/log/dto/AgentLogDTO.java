@@ -36,6 +36,9 @@ public class AgentLogDTO {
     @Schema(description = "请求地址")
     private String endpoint;
 
+    @Schema(description = "选中的上游端点ID，为空表示Agent主端点")
+    private String upstreamId;
+
     @Schema(description = "请求方法")
     private String method;
 
@@ -72,6 +75,12 @@ public class AgentLogDTO {
     @Schema(description = "输出token数")
     private Integer tokenOutput;
 
+    @Schema(description = "Token数是否为本地估算值（上游未返回usage时）")
+    private Boolean tokenEstimated;
+
+    @Schema(description = "是否命中相似提示词响应缓存（未请求上游）")
+    private Boolean cacheHit;
+
     @Schema(description = "LLM模型")
     private String model;
 
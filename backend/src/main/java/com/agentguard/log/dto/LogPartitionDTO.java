@@ -0,0 +1,21 @@
+package com.agentguard.log.dto;
+
+import lombok.Data;
+
+/**
+ * 日志表分区信息DTO
+ *
+ * @author zhuhx
+ */
+@Data
+public class LogPartitionDTO {
+
+    /** 分区名 */
+    private String name;
+
+    /** 分区上界（RANGE COLUMNS 描述，如 '2026-02-01 00:00:00' 或 MAXVALUE） */
+    private String description;
+
+    /** 估算行数 */
+    private Long tableRows;
+}
@@ -0,0 +1,43 @@
+package com.agentguard.log.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 日志全文搜索命中结果
+ *
+ * @author zhuhx
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "日志全文搜索命中结果")
+public class LogSearchHitDTO {
+
+    @Schema(description = "日志ID，详情通过日志详情接口查询")
+    private String id;
+
+    @Schema(description = "AgentID")
+    private String agentId;
+
+    @Schema(description = "创建时间")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime createdAt;
+
+    @Schema(description = "相关度得分")
+    private Float score;
+
+    @Schema(description = "命中片段，关键词以 <em> 标记")
+    private List<String> highlights;
+
+    @Schema(description = "返回结果的节点（全文索引按节点本地维护，只包含该节点写入的日志）")
+    private String node;
+}
@@ -0,0 +1,42 @@
+package com.agentguard.log.dto;
+
+import com.agentguard.log.enums.RequestType;
+import com.agentguard.log.enums.ResponseStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 实时日志过滤条件
+ *
+ * @author zhuhx
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LogTailFilterDTO {
+
+    /** Agent ID */
+    private String agentId;
+
+    /** 响应状态 */
+    private ResponseStatus responseStatus;
+
+    /** LLM模型 */
+    private String model;
+
+    /** 请求类型 */
+    private RequestType requestType;
+
+    /**
+     * 判断日志是否满足过滤条件
+     */
+    public boolean matches(AgentLogDTO agentLog) {
+        return (agentId == null || agentId.equals(agentLog.getAgentId()))
+                && (responseStatus == null || responseStatus == agentLog.getResponseStatus())
+                && (model == null || model.equalsIgnoreCase(agentLog.getModel()))
+                && (requestType == null || requestType == agentLog.getRequestType());
+    }
+}
@@ -32,6 +32,9 @@ public class AgentLogDO {
     /** 请求地址 */
     private String endpoint;
 
+    /** 选中的上游端点ID，为空表示Agent主端点 */
+    private String upstreamId;
+
     /** 请求方法 */
     private String method;
 
@@ -47,6 +50,12 @@ public class AgentLogDO {
     /** 完整响应体（JSON格式） */
     private String responseBody;
 
+    /** 请求体在载荷存储中的引用（转存后 requestBody 为空） */
+    private String requestBodyRef;
+
+    /** 响应体在载荷存储中的引用（转存后 responseBody 为空） */
+    private String responseBodyRef;
+
     /** 响应状态：SUCCESS/FAILED/BLOCKED/PENDING_APPROVAL */
     private ResponseStatus responseStatus;
 
@@ -68,6 +77,12 @@ public class AgentLogDO {
     /** 输出token数 */
     private Integer tokenOutput;
 
+    /** Token数是否为本地估算值（上游未返回usage时） */
+    private Boolean tokenEstimated;
+
+    /** 是否命中相似提示词响应缓存（未请求上游） */
+    private Boolean cacheHit;
+
     /** LLM模型 */
     private String model;
 
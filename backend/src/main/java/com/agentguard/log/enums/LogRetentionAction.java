@@ -0,0 +1,26 @@
+package com.agentguard.log.enums;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 日志过期处理方式枚举
+ *
+ * @author zhuhx
+ */
+@Getter
+@AllArgsConstructor
+public enum LogRetentionAction {
+
+    /** 直接删除过期分区 */
+    DROP("DROP", "删除"),
+
+    /** 将过期分区交换到归档表后删除分区 */
+    ARCHIVE("ARCHIVE", "归档");
+
+    @JsonValue
+    private final String code;
+
+    private final String desc;
+}
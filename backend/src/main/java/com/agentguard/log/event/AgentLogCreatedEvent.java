@@ -0,0 +1,25 @@
+package com.agentguard.log.event;
+
+import com.agentguard.log.dto.AgentLogDTO;
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 日志写入事件
+ * 日志入库后发布此事件，用于向实时日志订阅者推送
+ *
+ * @author zhuhx
+ */
+@Getter
+public class AgentLogCreatedEvent extends ApplicationEvent {
+
+    /**
+     * 日志记录（不含请求头、请求体、响应体）
+     */
+    private final AgentLogDTO agentLog;
+
+    public AgentLogCreatedEvent(Object source, AgentLogDTO agentLog) {
+        super(source);
+        this.agentLog = agentLog;
+    }
+}
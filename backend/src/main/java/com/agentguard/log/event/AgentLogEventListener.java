@@ -0,0 +1,33 @@
+package com.agentguard.log.event;
+
+import com.agentguard.log.service.LogTailService;
+import com.agentguard.stats.service.LatencyStatsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * 日志事件监听器
+ *
+ * @author zhuhx
+ */
+@Component
+@RequiredArgsConstructor
+public class AgentLogEventListener {
+
+    private final LogTailService logTailService;
+    private final LatencyStatsService latencyStatsService;
+
+    /**
+     * 监听日志写入事件
+     * 在事务提交后推送给实时日志订阅者并记录延迟分布，避免处理最终回滚的日志
+     *
+     * @param event 日志写入事件
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleAgentLogCreated(AgentLogCreatedEvent event) {
+        latencyStatsService.record(event.getAgentLog());
+        logTailService.publish(event.getAgentLog());
+    }
+}
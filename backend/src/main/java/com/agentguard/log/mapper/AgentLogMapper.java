@@ -1,8 +1,22 @@
 package com.agentguard.log.mapper;
 
+import com.agentguard.log.dto.LogPartitionDTO;
 import com.agentguard.log.entity.AgentLogDO;
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.toolkit.Constants;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultMap;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Agent日志数据访问层
@@ -11,4 +25,170 @@ import org.apache.ibatis.annotations.Mapper;
  */
 @Mapper
 public interface AgentLogMapper extends BaseMapper<AgentLogDO> {
+
+    /**
+     * 查询日志表的分区列表（按分区顺序）
+     * 表未分区时返回空列表
+     */
+    @Select("""
+            SELECT PARTITION_NAME AS name,
+                   PARTITION_DESCRIPTION AS description,
+                   TABLE_ROWS AS tableRows
+            FROM information_schema.PARTITIONS
+            WHERE TABLE_SCHEMA = DATABASE()
+              AND TABLE_NAME = 'agent_log'
+              AND PARTITION_NAME IS NOT NULL
+            ORDER BY PARTITION_ORDINAL_POSITION
+            """)
+    List<LogPartitionDTO> selectPartitions();
+
+    /**
+     * 查询兜底分区中的最大创建时间
+     * 兜底分区为空时返回 null；拆分兜底分区需要重写其中的全部数据
+     */
+    @Select("SELECT MAX(created_at) FROM agent_log PARTITION (p_future)")
+    LocalDateTime selectFuturePartitionMaxCreatedAt();
+
+    /**
+     * 从兜底分区中拆分出新的月分区
+     *
+     * @param definitions 新分区定义，如 PARTITION p202611 VALUES LESS THAN ('2026-12-01 00:00:00')
+     */
+    @Update("""
+            ALTER TABLE agent_log REORGANIZE PARTITION p_future INTO (
+                ${definitions},
+                PARTITION p_future VALUES LESS THAN (MAXVALUE)
+            )
+            """)
+    void splitFuturePartition(@Param("definitions") String definitions);
+
+    /**
+     * 删除分区（元数据操作，不逐行删除）
+     *
+     * @param partition 分区名
+     */
+    @Update("ALTER TABLE agent_log DROP PARTITION ${partition}")
+    void dropPartition(@Param("partition") String partition);
+
+    /**
+     * 创建与日志表结构相同的非分区归档表
+     *
+     * @param archiveTable 归档表名
+     */
+    @Update("CREATE TABLE IF NOT EXISTS ${archiveTable} LIKE agent_log")
+    void createArchiveTable(@Param("archiveTable") String archiveTable);
+
+    /**
+     * 查询表的分区数，未分区时返回 0
+     *
+     * @param table 表名
+     */
+    @Select("""
+            SELECT COUNT(*)
+            FROM information_schema.PARTITIONS
+            WHERE TABLE_SCHEMA = DATABASE()
+              AND TABLE_NAME = #{table}
+              AND PARTITION_NAME IS NOT NULL
+            """)
+    int countPartitions(@Param("table") String table);
+
+    /**
+     * 判断表中是否有数据
+     *
+     * @param table 表名
+     */
+    @Select("SELECT EXISTS (SELECT 1 FROM ${table})")
+    boolean existsRows(@Param("table") String table);
+
+    /**
+     * 判断日志表指定分区中是否有数据
+     *
+     * @param partition 分区名
+     */
+    @Select("SELECT EXISTS (SELECT 1 FROM agent_log PARTITION (${partition}))")
+    boolean partitionHasRows(@Param("partition") String partition);
+
+    /**
+     * 移除归档表的分区定义（分区交换要求目标表不分区）
+     *
+     * @param archiveTable 归档表名
+     */
+    @Update("ALTER TABLE ${archiveTable} REMOVE PARTITIONING")
+    void removePartitioning(@Param("archiveTable") String archiveTable);
+
+    /**
+     * 将分区数据交换到归档表（元数据操作）
+     *
+     * @param partition 分区名
+     * @param archiveTable 归档表名
+     */
+    @Update("ALTER TABLE agent_log EXCHANGE PARTITION ${partition} WITH TABLE ${archiveTable}")
+    void exchangePartition(@Param("partition") String partition, @Param("archiveTable") String archiveTable);
+
+    /**
+     * 查询全部日志归档表名
+     */
+    @Select("""
+            SELECT TABLE_NAME
+            FROM information_schema.TABLES
+            WHERE TABLE_SCHEMA = DATABASE()
+              AND TABLE_NAME LIKE 'agent\\_log\\_archive\\_%'
+            """)
+    List<String> selectArchiveTables();
+
+    /**
+     * 按引用升序分批查询数据源中的载荷引用（去重）
+     *
+     * @param source 数据源：表名，或 agent_log PARTITION (分区名)
+     * @param after 上一批最后一个引用，首批传空串
+     * @param limit 批大小
+     */
+    @Select("""
+            (SELECT request_body_ref AS ref FROM ${source}
+             WHERE request_body_ref > #{after} ORDER BY request_body_ref LIMIT #{limit})
+            UNION
+            (SELECT response_body_ref FROM ${source}
+             WHERE response_body_ref > #{after} ORDER BY response_body_ref LIMIT #{limit})
+            ORDER BY ref
+            LIMIT #{limit}
+            """)
+    List<String> selectPayloadRefs(@Param("source") String source, @Param("after") String after, @Param("limit") int limit);
+
+    /**
+     * 查询给定引用中仍被数据源中记录使用的引用
+     *
+     * @param source 数据源：表名，或 agent_log PARTITION (分区名列表)
+     * @param refs 载荷引用
+     */
+    List<String> selectReferencedPayloadRefs(@Param("source") String source, @Param("refs") Collection<String> refs);
+
+    /**
+     * 将载荷内容写回归档表的正文列并清空引用
+     *
+     * @param archiveTable 归档表名
+     * @param ref 载荷引用
+     * @param content 载荷内容
+     * @return 更新行数
+     */
+    @Update("""
+            UPDATE ${archiveTable}
+            SET request_body = IF(request_body_ref = #{ref}, #{content}, request_body),
+                response_body = IF(response_body_ref = #{ref}, #{content}, response_body),
+                request_body_ref = IF(request_body_ref = #{ref}, NULL, request_body_ref),
+                response_body_ref = IF(response_body_ref = #{ref}, NULL, response_body_ref)
+            WHERE request_body_ref = #{ref} OR response_body_ref = #{ref}
+            """)
+    int inlinePayload(@Param("archiveTable") String archiveTable, @Param("ref") String ref, @Param("content") String content);
+
+    /**
+     * 流式查询日志
+     * MySQL 驱动逐行返回结果，不在内存中缓存整个结果集；必须在事务内遍历，遍历期间连接不能执行其他查询
+     *
+     * @param wrapper 查询条件（必须指定查询列）
+     * @return 结果游标
+     */
+    @Select("SELECT ${ew.sqlSelect} FROM agent_log ${ew.customSqlSegment}")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    @ResultMap("mybatis-plus_AgentLogDO")
+    Cursor<AgentLogDO> selectCursor(@Param(Constants.WRAPPER) Wrapper<AgentLogDO> wrapper);
 }
@@ -0,0 +1,49 @@
+package com.agentguard.log.scheduler;
+
+import com.agentguard.log.service.LogRetentionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 日志保留定时任务调度器
+ *
+ * @author zhuhx
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "agent-log.retention.scheduler.enabled", havingValue = "true", matchIfMissing = true)
+public class LogRetentionScheduler {
+
+    private final LogRetentionService logRetentionService;
+
+    /**
+     * 启动时执行一次，确保当月及未来分区已存在
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintainPartitions();
+    }
+
+    /**
+     * 日志分区维护定时任务
+     *
+     * 默认每天凌晨3点30分执行
+     */
+    @Scheduled(cron = "${agent-log.retention.cron:0 30 3 * * ?}")
+    public void maintainPartitions() {
+        log.debug("开始执行日志分区维护定时任务...");
+
+        try {
+            logRetentionService.maintain();
+            log.debug("日志分区维护定时任务执行完成");
+        } catch (Exception e) {
+            log.error("日志分区维护定时任务执行失败: {}", e.getMessage(), e);
+        }
+    }
+}
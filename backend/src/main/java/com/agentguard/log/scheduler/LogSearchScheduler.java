@@ -0,0 +1,70 @@
+package com.agentguard.log.scheduler;
+
+import com.agentguard.log.service.LogSearchService;
+import com.agentguard.settings.dto.LogRetentionSettingsDTO;
+import com.agentguard.settings.service.SystemSettingsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+
+/**
+ * 日志全文索引定时任务调度器
+ *
+ * @author zhuhx
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "agent-log.search.enabled", havingValue = "true", matchIfMissing = true)
+public class LogSearchScheduler {
+
+    private final LogSearchService logSearchService;
+    private final SystemSettingsService systemSettingsService;
+
+    /**
+     * 定时提交索引，批量落盘并刷新搜索视图
+     *
+     * 默认每5秒执行一次
+     */
+    @Scheduled(fixedDelayString = "${agent-log.search.commit-interval-ms:5000}")
+    public void commitIndex() {
+        try {
+            logSearchService.commit();
+        } catch (Exception e) {
+            log.error("日志全文索引提交任务执行失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 启动时执行一次，清理停机期间过期的索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        rotateIndexes();
+    }
+
+    /**
+     * 过期索引清理定时任务
+     *
+     * 索引保存在各节点本地，每个节点都要执行，不与分区维护共用集群锁；默认每天凌晨3点40分执行
+     */
+    @Scheduled(cron = "${agent-log.search.rotate-cron:0 40 3 * * ?}")
+    public void rotateIndexes() {
+        try {
+            LogRetentionSettingsDTO settings = systemSettingsService.getLogRetentionSettings();
+            if (!Boolean.TRUE.equals(settings.getEnabled())) {
+                return;
+            }
+            // 与日志分区使用相同的保留起点
+            logSearchService.dropBefore(YearMonth.now().minusMonths(settings.getRetentionMonths()));
+        } catch (Exception e) {
+            log.error("日志全文索引清理任务执行失败: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -1,12 +1,16 @@
 package com.agentguard.log.service;
 
 import com.agentguard.log.dto.AgentLogCreateDTO;
+import com.agentguard.log.dto.AgentLogCursorPageDTO;
 import com.agentguard.log.dto.AgentLogDTO;
 import com.agentguard.log.enums.RequestType;
 import com.agentguard.log.enums.ResponseStatus;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+
 /**
  * Agent日志服务接口
  *
@@ -37,9 +41,28 @@ public interface AgentLogService {
      * @param agentId Agent ID过滤（可选）
      * @param responseStatus 响应状态过滤（可选）
      * @param requestType 请求类型过滤（可选）
+     * @param startTime 开始时间（可选，用于分区裁剪）
+     * @param endTime 结束时间（可选，用于分区裁剪）
      * @return 分页结果
      */
-    IPage<AgentLogDTO> page(Page<AgentLogDTO> page, String agentId, ResponseStatus responseStatus, RequestType requestType);
+    IPage<AgentLogDTO> page(Page<AgentLogDTO> page, String agentId, ResponseStatus responseStatus, RequestType requestType,
+                            LocalDateTime startTime, LocalDateTime endTime);
+
+    /**
+     * 游标分页查询日志
+     * 按 (created_at, id) 倒序定位，翻页耗时与页码无关；列表不含请求头、请求体、响应体
+     *
+     * @param cursor 上一页返回的游标（首页为空）
+     * @param size 每页大小（最大100）
+     * @param agentId Agent ID过滤（可选）
+     * @param responseStatus 响应状态过滤（可选）
+     * @param requestType 请求类型过滤（可选）
+     * @param startTime 开始时间（可选）
+     * @param endTime 结束时间（可选）
+     * @return 游标分页结果
+     */
+    AgentLogCursorPageDTO cursorPage(String cursor, int size, String agentId, ResponseStatus responseStatus,
+                                     RequestType requestType, LocalDateTime startTime, LocalDateTime endTime);
 
     /**
      * 根据审批请求ID更新日志状态
@@ -49,6 +72,14 @@ public interface AgentLogService {
      */
     void updateStatusByApprovalRequestId(String approvalRequestId, ResponseStatus newStatus);
 
+    /**
+     * 根据审批请求ID批量更新日志状态
+     *
+     * @param approvalRequestIds 审批请求ID列表
+     * @param newStatus 新的响应状态
+     */
+    void updateStatusByApprovalRequestIds(Collection<String> approvalRequestIds, ResponseStatus newStatus);
+
     /**
      * 根据审批请求ID更新日志响应体
      *
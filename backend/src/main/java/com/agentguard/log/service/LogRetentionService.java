@@ -0,0 +1,16 @@
+package com.agentguard.log.service;
+
+/**
+ * 日志保留服务接口
+ * 维护 agent_log 的月分区：预建未来分区，按系统设置删除或归档过期分区
+ *
+ * @author zhuhx
+ */
+public interface LogRetentionService {
+
+    /**
+     * 执行一次分区维护
+     * 日志表未分区时直接跳过
+     */
+    void maintain();
+}
@@ -0,0 +1,50 @@
+package com.agentguard.log.service;
+
+import com.agentguard.log.dto.LogSearchHitDTO;
+import com.agentguard.log.entity.AgentLogDO;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * 日志全文搜索服务接口
+ * 在本地维护按月滚动的倒排索引，支持按提示词、工具名、模型、请求地址搜索日志
+ *
+ * @author zhuhx
+ */
+public interface LogSearchService {
+
+    /**
+     * 将日志写入索引（写入后由定时任务提交，数秒内可搜索）
+     *
+     * @param logDO 日志记录
+     * @param requestBody 完整请求体
+     * @param responseBody 完整响应体
+     */
+    void index(AgentLogDO logDO, String requestBody, String responseBody);
+
+    /**
+     * 搜索日志
+     *
+     * @param query 搜索语句（支持 Lucene 查询语法，如 toolCalls:search AND model:gpt-4o）
+     * @param agentId Agent ID过滤（可选）
+     * @param startTime 开始时间（可选）
+     * @param endTime 结束时间（可选）
+     * @param size 返回条数
+     * @return 命中结果，按相关度排序
+     */
+    List<LogSearchHitDTO> search(String query, String agentId, LocalDateTime startTime, LocalDateTime endTime, int size);
+
+    /**
+     * 提交索引变更并刷新搜索视图
+     */
+    void commit();
+
+    /**
+     * 删除指定月份之前的索引（与日志保留策略保持一致）
+     *
+     * @param cutoff 保留的最早月份
+     */
+    void dropBefore(YearMonth cutoff);
+}
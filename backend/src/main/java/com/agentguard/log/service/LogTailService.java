@@ -0,0 +1,29 @@
+package com.agentguard.log.service;
+
+import com.agentguard.log.dto.AgentLogDTO;
+import com.agentguard.log.dto.LogTailFilterDTO;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * 实时日志推送服务接口
+ * 新日志直接从写入链路推送给订阅者，不查询数据库；通过 Redis 发布/订阅在多节点间广播
+ *
+ * @author zhuhx
+ */
+public interface LogTailService {
+
+    /**
+     * 订阅实时日志
+     *
+     * @param filter 过滤条件
+     * @return SSE 连接，推送 log 事件（日志）和 dropped 事件（因客户端过慢丢弃的条数）
+     */
+    SseEmitter subscribe(LogTailFilterDTO filter);
+
+    /**
+     * 推送新日志
+     *
+     * @param agentLog 日志记录
+     */
+    void publish(AgentLogDTO agentLog);
+}
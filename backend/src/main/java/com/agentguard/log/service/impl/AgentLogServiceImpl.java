@@ -1,30 +1,49 @@
 package com.agentguard.log.service.impl;
 
 import cn.hutool.core.bean.BeanUtil;
+import cn.hutool.core.codec.Base64;
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.util.ObjectUtil;
 import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.SecureUtil;
 import com.agentguard.agent.entity.AgentDO;
 import com.agentguard.agent.mapper.AgentMapper;
+import com.agentguard.common.config.PayloadStoreProperties;
 import com.agentguard.common.exception.BusinessException;
 import com.agentguard.common.exception.ErrorCode;
+import com.agentguard.common.storage.PayloadStore;
+import com.agentguard.common.util.TransactionUtil;
 import com.agentguard.log.dto.AgentLogCreateDTO;
+import com.agentguard.log.dto.AgentLogCursorPageDTO;
 import com.agentguard.log.dto.AgentLogDTO;
 import com.agentguard.log.entity.AgentLogDO;
 import com.agentguard.log.enums.RequestType;
 import com.agentguard.log.enums.ResponseStatus;
+import com.agentguard.log.event.AgentLogCreatedEvent;
 import com.agentguard.log.mapper.AgentLogMapper;
 import com.agentguard.log.service.AgentLogService;
+import com.agentguard.log.service.LogSearchService;
 import com.agentguard.stats.service.StatsService;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -34,24 +53,68 @@ import java.util.stream.Collectors;
  *
  * @author zhuhx
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class AgentLogServiceImpl implements AgentLogService {
 
+    /** 列表查询不返回的大字段 */
+    private static final Set<String> LIST_EXCLUDED_COLUMNS = Set.of(
+            "request_headers", "request_body", "response_body", "request_body_ref", "response_body_ref", "policy_snapshot");
+
+    /** 列表查询的策略快照只保留 id、名称、类型、动作和原因（列表展示用），策略条件在详情接口中查询 */
+    private static final String LIST_POLICY_SNAPSHOT_COLUMN = "JSON_REMOVE(policy_snapshot, '$.conditions') AS policy_snapshot";
+
+    /** 游标分页单页上限 */
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
+    private static final String COUNT_CACHE_KEY_PREFIX = "log:count:";
+
+    private static final String CURSOR_SEPARATOR = "|";
+
+    private static final DateTimeFormatter CURSOR_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSS");
+
     private final AgentLogMapper agentLogMapper;
     private final AgentMapper agentMapper;
     private final StatsService statsService;
+    private final StringRedisTemplate redisTemplate;
+    private final PayloadStore payloadStore;
+    private final PayloadStoreProperties payloadStoreProperties;
+    private final LogSearchService logSearchService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${agent-log.count-cache-seconds:30}")
+    private long countCacheSeconds;
 
     @Override
     @Transactional
     public AgentLogDTO create(AgentLogCreateDTO dto) {
         AgentLogDO logDO = BeanUtil.copyProperties(dto, AgentLogDO.class);
+        AgentLogDTO result = BeanUtil.copyProperties(logDO, AgentLogDTO.class);
+
+        // 大请求体/响应体转存到载荷存储，行内只保留引用
+        logDO.setRequestBodyRef(offloadPayload(logDO.getRequestBody()));
+        if (StrUtil.isNotBlank(logDO.getRequestBodyRef())) {
+            logDO.setRequestBody(null);
+        }
+        logDO.setResponseBodyRef(offloadPayload(logDO.getResponseBody()));
+        if (StrUtil.isNotBlank(logDO.getResponseBodyRef())) {
+            logDO.setResponseBody(null);
+        }
         agentLogMapper.insert(logDO);
+
+        // 事务提交后写入全文索引（使用转存前的完整请求体/响应体），回滚的日志不会被搜到
+        TransactionUtil.afterCommit(() -> logSearchService.index(logDO, dto.getRequestBody(), dto.getResponseBody()));
         
         // 同步更新成本记录
         updateCostRecord(dto);
         
-        return BeanUtil.copyProperties(logDO, AgentLogDTO.class);
+        result.setId(logDO.getId());
+        result.setCreatedAt(logDO.getCreatedAt());
+
+        // 事务提交后推送给实时日志订阅者、记录延迟分布
+        eventPublisher.publishEvent(new AgentLogCreatedEvent(this, result));
+        return result;
     }
     
     /**
@@ -98,13 +161,99 @@ public class AgentLogServiceImpl implements AgentLogService {
         
         AgentLogDTO dto = BeanUtil.copyProperties(logDO, AgentLogDTO.class);
         dto.setAgentName(agentName);
+
+        // 按引用从载荷存储读取已转存的请求体/响应体
+        if (StrUtil.isNotBlank(logDO.getRequestBodyRef())) {
+            dto.setRequestBody(payloadStore.get(logDO.getRequestBodyRef()));
+        }
+        if (StrUtil.isNotBlank(logDO.getResponseBodyRef())) {
+            dto.setResponseBody(payloadStore.get(logDO.getResponseBodyRef()));
+        }
         return dto;
     }
 
     @Override
-    public IPage<AgentLogDTO> page(Page<AgentLogDTO> page, String agentId, ResponseStatus responseStatus, RequestType requestType) {
-        LambdaQueryWrapper<AgentLogDO> wrapper = new LambdaQueryWrapper<>();
+    public IPage<AgentLogDTO> page(Page<AgentLogDTO> page, String agentId, ResponseStatus responseStatus, RequestType requestType,
+                                   LocalDateTime startTime, LocalDateTime endTime) {
+        LambdaQueryWrapper<AgentLogDO> wrapper = buildListWrapper(agentId, responseStatus, requestType, startTime, endTime);
+
+        // 按创建时间倒序排列
+        wrapper.orderByDesc(AgentLogDO::getCreatedAt)
+               .orderByDesc(AgentLogDO::getId);
+
+        // 总数走缓存，避免每次翻页都执行 COUNT(*)
+        Page<AgentLogDO> entityPage = new Page<>(page.getCurrent(), page.getSize(), false);
+        Page<AgentLogDO> result = agentLogMapper.selectPage(entityPage, wrapper);
+        result.setTotal(countCached(agentId, responseStatus, requestType, startTime, endTime));
+
+        Map<String, String> agentNameMap = getAgentNameMap(result.getRecords());
+        return result.convert(logDO -> toListDTO(logDO, agentNameMap));
+    }
+
+    @Override
+    public AgentLogCursorPageDTO cursorPage(String cursor, int size, String agentId, ResponseStatus responseStatus,
+                                           RequestType requestType, LocalDateTime startTime, LocalDateTime endTime) {
+        int pageSize = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        LambdaQueryWrapper<AgentLogDO> wrapper = buildListWrapper(agentId, responseStatus, requestType, startTime, endTime);
+
+        // 从游标位置向后读取：(created_at, id) < (cursorTime, cursorId)
+        if (StrUtil.isNotBlank(cursor)) {
+            LogCursor position = decodeCursor(cursor);
+            wrapper.and(w -> w.lt(AgentLogDO::getCreatedAt, position.createdAt())
+                    .or(o -> o.eq(AgentLogDO::getCreatedAt, position.createdAt())
+                            .lt(AgentLogDO::getId, position.id())));
+        }
+
+        // 多取一条用于判断是否还有下一页
+        wrapper.orderByDesc(AgentLogDO::getCreatedAt)
+               .orderByDesc(AgentLogDO::getId)
+               .last("LIMIT " + (pageSize + 1));
+
+        List<AgentLogDO> logs = agentLogMapper.selectList(wrapper);
+        boolean hasMore = logs.size() > pageSize;
+        if (hasMore) {
+            logs = logs.subList(0, pageSize);
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            AgentLogDO last = logs.get(logs.size() - 1);
+            nextCursor = encodeCursor(last.getCreatedAt(), last.getId());
+        }
+
+        Map<String, String> agentNameMap = getAgentNameMap(logs);
+        return AgentLogCursorPageDTO.builder()
+                .records(logs.stream().map(logDO -> toListDTO(logDO, agentNameMap)).toList())
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .total(countCached(agentId, responseStatus, requestType, startTime, endTime))
+                .build();
+    }
+
+    /**
+     * 构建日志列表查询条件
+     * 列表只查询轻量字段，请求头、请求体、响应体、策略条件等大字段在详情接口中查询
+     */
+    private LambdaQueryWrapper<AgentLogDO> buildListWrapper(String agentId, ResponseStatus responseStatus, RequestType requestType,
+                                                           LocalDateTime startTime, LocalDateTime endTime) {
+        String columns = TableInfoHelper.getTableInfo(AgentLogDO.class)
+                .chooseSelect(field -> !LIST_EXCLUDED_COLUMNS.contains(field.getColumn()));
+        LambdaQueryWrapper<AgentLogDO> wrapper = new QueryWrapper<AgentLogDO>()
+                .select(columns, LIST_POLICY_SNAPSHOT_COLUMN)
+                .lambda();
+        applyFilters(wrapper, agentId, responseStatus, requestType, startTime, endTime);
+        return wrapper;
+    }
 
+    private void applyFilters(LambdaQueryWrapper<AgentLogDO> wrapper, String agentId, ResponseStatus responseStatus,
+                              RequestType requestType, LocalDateTime startTime, LocalDateTime endTime) {
+        // 直接比较分区键 created_at，MySQL 只扫描时间范围内的分区
+        if (ObjectUtil.isNotNull(startTime)) {
+            wrapper.ge(AgentLogDO::getCreatedAt, startTime);
+        }
+        if (ObjectUtil.isNotNull(endTime)) {
+            wrapper.le(AgentLogDO::getCreatedAt, endTime);
+        }
         if (StrUtil.isNotBlank(agentId)) {
             wrapper.eq(AgentLogDO::getAgentId, agentId);
         }
@@ -114,32 +263,111 @@ public class AgentLogServiceImpl implements AgentLogService {
         if (requestType != null) {
             wrapper.eq(AgentLogDO::getRequestType, requestType);
         }
+    }
 
-        // 按创建时间倒序排列
-        wrapper.orderByDesc(AgentLogDO::getCreatedAt);
+    /**
+     * 查询符合条件的日志总数，结果按查询条件缓存一段时间
+     */
+    private long countCached(String agentId, ResponseStatus responseStatus, RequestType requestType,
+                             LocalDateTime startTime, LocalDateTime endTime) {
+        String cacheKey = COUNT_CACHE_KEY_PREFIX + SecureUtil.md5(StrUtil.format("{}|{}|{}|{}|{}",
+                agentId, responseStatus, requestType, startTime, endTime));
+        try {
+            String cached = redisTemplate.opsForValue().get(cacheKey);
+            if (StrUtil.isNotBlank(cached)) {
+                return Long.parseLong(cached);
+            }
+        } catch (Exception e) {
+            log.warn("读取日志总数缓存失败: {}", e.getMessage());
+        }
 
-        Page<AgentLogDO> entityPage = new Page<>(page.getCurrent(), page.getSize());
-        Page<AgentLogDO> result = agentLogMapper.selectPage(entityPage, wrapper);
+        LambdaQueryWrapper<AgentLogDO> countWrapper = new LambdaQueryWrapper<>();
+        applyFilters(countWrapper, agentId, responseStatus, requestType, startTime, endTime);
+        long total = agentLogMapper.selectCount(countWrapper);
+
+        try {
+            redisTemplate.opsForValue().set(cacheKey, String.valueOf(total), Duration.ofSeconds(countCacheSeconds));
+        } catch (Exception e) {
+            log.warn("写入日志总数缓存失败: {}", e.getMessage());
+        }
+        return total;
+    }
 
-        // 批量查询Agent名称
-        Set<String> agentIds = result.getRecords().stream()
+    /**
+     * 批量查询Agent名称
+     */
+    private Map<String, String> getAgentNameMap(List<AgentLogDO> logs) {
+        Set<String> agentIds = logs.stream()
                 .map(AgentLogDO::getAgentId)
                 .collect(Collectors.toSet());
-        
-        Map<String, String> agentNameMap = Map.of();
-        if (CollUtil.isNotEmpty(agentIds)) {
-            LambdaQueryWrapper<AgentDO> agentWrapper = new LambdaQueryWrapper<>();
-            agentWrapper.in(AgentDO::getId, agentIds);
-            agentNameMap = agentMapper.selectList(agentWrapper).stream()
-                    .collect(Collectors.toMap(AgentDO::getId, AgentDO::getName));
+        if (CollUtil.isEmpty(agentIds)) {
+            return Map.of();
+        }
+
+        LambdaQueryWrapper<AgentDO> agentWrapper = new LambdaQueryWrapper<>();
+        agentWrapper.in(AgentDO::getId, agentIds);
+        return agentMapper.selectList(agentWrapper).stream()
+                .collect(Collectors.toMap(AgentDO::getId, AgentDO::getName));
+    }
+
+    private AgentLogDTO toListDTO(AgentLogDO logDO, Map<String, String> agentNameMap) {
+        AgentLogDTO dto = BeanUtil.copyProperties(logDO, AgentLogDTO.class);
+        dto.setAgentName(agentNameMap.get(logDO.getAgentId()));
+        return dto;
+    }
+
+    /**
+     * 将超过阈值的载荷转存到载荷存储
+     *
+     * @param payload 载荷内容
+     * @return 内容引用，未转存时返回 null（载荷仍内联保存）
+     */
+    private String offloadPayload(String payload) {
+        if (!payloadStoreProperties.isEnabled() || StrUtil.isBlank(payload) || belowMinSize(payload)) {
+            return null;
+        }
+        try {
+            return payloadStore.put(payload);
+        } catch (Exception e) {
+            log.warn("载荷转存失败，改为内联保存: {}", e.getMessage());
+            return null;
         }
+    }
 
-        Map<String, String> finalAgentNameMap = agentNameMap;
-        return result.convert(logDO -> {
-            AgentLogDTO dto = BeanUtil.copyProperties(logDO, AgentLogDTO.class);
-            dto.setAgentName(finalAgentNameMap.get(logDO.getAgentId()));
-            return dto;
-        });
+    /**
+     * 载荷的 UTF-8 字节数是否小于转存阈值
+     * 每个字符至少占 1 字节，字符数已达到阈值时不必编码
+     */
+    private boolean belowMinSize(String payload) {
+        int minSize = payloadStoreProperties.getMinSize();
+        return payload.length() < minSize && StrUtil.utf8Bytes(payload).length < minSize;
+    }
+
+    private String encodeCursor(LocalDateTime createdAt, String id) {
+        return Base64.encodeUrlSafe(createdAt.format(CURSOR_TIME_FORMATTER) + CURSOR_SEPARATOR + id);
+    }
+
+    private LogCursor decodeCursor(String cursor) {
+        try {
+            String decoded = Base64.decodeStr(cursor);
+            int separatorIndex = decoded.indexOf(CURSOR_SEPARATOR);
+            LocalDateTime createdAt = LocalDateTime.parse(decoded.substring(0, separatorIndex), CURSOR_TIME_FORMATTER);
+            String id = decoded.substring(separatorIndex + 1);
+            if (StrUtil.isBlank(id)) {
+                throw new BusinessException(ErrorCode.LOG_CURSOR_INVALID);
+            }
+            return new LogCursor(createdAt, id);
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new BusinessException(ErrorCode.LOG_CURSOR_INVALID);
+        }
+    }
+
+    /**
+     * 游标位置：上一页最后一条记录的创建时间和ID
+     */
+    private record LogCursor(LocalDateTime createdAt, String id) {
     }
 
     @Override
@@ -156,6 +384,20 @@ public class AgentLogServiceImpl implements AgentLogService {
         agentLogMapper.update(null, wrapper);
     }
 
+    @Override
+    @Transactional
+    public void updateStatusByApprovalRequestIds(Collection<String> approvalRequestIds, ResponseStatus newStatus) {
+        if (CollUtil.isEmpty(approvalRequestIds)) {
+            return;
+        }
+
+        LambdaUpdateWrapper<AgentLogDO> wrapper = new LambdaUpdateWrapper<>();
+        wrapper.in(AgentLogDO::getApprovalRequestId, approvalRequestIds)
+               .set(AgentLogDO::getResponseStatus, newStatus);
+
+        agentLogMapper.update(null, wrapper);
+    }
+
     @Override
     @Transactional
     public void updateResponseBodyByApprovalRequestId(String approvalRequestId, String responseBody) {
@@ -163,9 +405,11 @@ public class AgentLogServiceImpl implements AgentLogService {
             return;
         }
 
+        String responseBodyRef = offloadPayload(responseBody);
         LambdaUpdateWrapper<AgentLogDO> wrapper = new LambdaUpdateWrapper<>();
         wrapper.eq(AgentLogDO::getApprovalRequestId, approvalRequestId)
-               .set(AgentLogDO::getResponseBody, responseBody);
+               .set(AgentLogDO::getResponseBody, StrUtil.isNotBlank(responseBodyRef) ? null : responseBody)
+               .set(AgentLogDO::getResponseBodyRef, responseBodyRef);
 
         agentLogMapper.update(null, wrapper);
     }
@@ -0,0 +1,354 @@
+package com.agentguard.log.service.impl;
+
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
+import com.agentguard.common.storage.PayloadStore;
+import com.agentguard.log.dto.LogPartitionDTO;
+import com.agentguard.log.enums.LogRetentionAction;
+import com.agentguard.log.mapper.AgentLogMapper;
+import com.agentguard.log.service.LogRetentionService;
+import com.agentguard.settings.dto.LogRetentionSettingsDTO;
+import com.agentguard.settings.service.SystemSettingsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 日志保留服务实现类
+ * <p>
+ * agent_log 按 created_at 做 RANGE COLUMNS 月分区，最后一个分区 p_future 兜底。
+ * 预建分区通过拆分 p_future 完成：REORGANIZE 会重写被拆分分区中的全部数据，
+ * 迁移脚本已按月建到当前月之后，p_future 正常为空，拆分只改元数据；
+ * p_future 中已有数据时，这些数据所在区间合并为一个分区，只重写一次，其上只拆空区间。
+ * 过期分区直接 DROP，或先 EXCHANGE 到归档表再 DROP，均不逐行删除；归档步骤可重试。
+ * 多节点部署时通过 Redis 锁保证同一时刻只有一个节点执行 DDL。
+ * <p>
+ * 过期行引用的载荷随行一起清理：删除分区前按引用分批删除不再被其他分区或归档表引用的载荷；
+ * 归档时先把载荷内容写回归档表（归档表不依赖载荷存储），再删除载荷。
+ *
+ * @author zhuhx
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LogRetentionServiceImpl implements LogRetentionService {
+
+    /** 兜底分区名 */
+    private static final String FUTURE_PARTITION = "p_future";
+
+    /** 归档表名前缀 */
+    private static final String ARCHIVE_TABLE_PREFIX = "agent_log_archive_";
+
+    /** 分区维护锁 */
+    private static final String MAINTAIN_LOCK_KEY = "log:retention:lock";
+
+    private static final Duration MAINTAIN_LOCK_TTL = Duration.ofMinutes(30);
+
+    /** 仍由本次维护持有时才删除锁，维护超过锁有效期后不会误删其他节点的锁 */
+    private static final String UNLOCK_SCRIPT = """
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """;
+
+    private static final DefaultRedisScript<Long> UNLOCK = new DefaultRedisScript<>(UNLOCK_SCRIPT, Long.class);
+
+    /** 载荷引用分批处理的大小 */
+    private static final int PAYLOAD_REF_BATCH_SIZE = 500;
+
+    /** 最近一段时间内写入或复用过的载荷不删除，给异步写入中的新日志留出余量 */
+    private static final Duration PAYLOAD_GRACE = Duration.ofHours(1);
+
+    private static final DateTimeFormatter BOUND_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final DateTimeFormatter PARTITION_NAME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final AgentLogMapper agentLogMapper;
+    private final SystemSettingsService systemSettingsService;
+    private final StringRedisTemplate redisTemplate;
+    private final PayloadStore payloadStore;
+
+    @Override
+    public void maintain() {
+        List<LogPartitionDTO> partitions = agentLogMapper.selectPartitions();
+        if (partitions.isEmpty()) {
+            log.warn("agent_log 表未分区，跳过分区维护");
+            return;
+        }
+
+        String lockToken = IdUtil.fastSimpleUUID();
+        if (!tryLock(lockToken)) {
+            log.debug("其他节点正在执行日志分区维护，跳过");
+            return;
+        }
+
+        try {
+            LogRetentionSettingsDTO settings = systemSettingsService.getLogRetentionSettings();
+            precreatePartitions(partitions, settings.getPrecreateMonths());
+            if (Boolean.TRUE.equals(settings.getEnabled())) {
+                expirePartitions(agentLogMapper.selectPartitions(), settings);
+            }
+        } finally {
+            unlock(lockToken);
+        }
+    }
+
+    /**
+     * 从 p_future 拆分出未来若干个月的分区
+     */
+    private void precreatePartitions(List<LogPartitionDTO> partitions, int precreateMonths) {
+        LogPartitionDTO last = partitions.get(partitions.size() - 1);
+        if (!FUTURE_PARTITION.equals(last.getName())) {
+            log.warn("agent_log 最后一个分区不是 {}，跳过预建分区: {}", FUTURE_PARTITION, last.getName());
+            return;
+        }
+
+        LocalDateTime lastBound = partitions.stream()
+                .map(this::parseUpperBound)
+                .filter(Objects::nonNull)
+                .max(LocalDateTime::compareTo)
+                .orElse(null);
+        if (lastBound == null) {
+            log.warn("agent_log 没有可用的分区上界，跳过预建分区");
+            return;
+        }
+
+        // 预建到 当前月 + precreateMonths 的月末
+        LocalDateTime target = YearMonth.now().plusMonths(precreateMonths + 1L).atDay(1).atStartOfDay();
+
+        List<String> definitions = new ArrayList<>();
+        YearMonth month = YearMonth.from(lastBound);
+        LocalDateTime bound = lastBound;
+
+        LocalDateTime futureMax = agentLogMapper.selectFuturePartitionMaxCreatedAt();
+        if (futureMax != null) {
+            // 拆分会重写 p_future 中的数据：已有数据所在区间合并为一个分区，避免逐月重写
+            LocalDateTime occupiedBound = YearMonth.from(futureMax).plusMonths(1).atDay(1).atStartOfDay();
+            log.warn("agent_log 兜底分区 {} 中有数据（约 {} 行，最大创建时间 {}），拆分时将重写这些数据",
+                    FUTURE_PARTITION, last.getTableRows(), futureMax.format(BOUND_FORMATTER));
+            definitions.add(StrUtil.format("PARTITION p{} VALUES LESS THAN ('{}')",
+                    month.format(PARTITION_NAME_FORMATTER), occupiedBound.format(BOUND_FORMATTER)));
+            month = YearMonth.from(occupiedBound);
+            bound = occupiedBound;
+        }
+
+        while (bound.isBefore(target)) {
+            LocalDateTime nextBound = month.plusMonths(1).atDay(1).atStartOfDay();
+            definitions.add(StrUtil.format("PARTITION p{} VALUES LESS THAN ('{}')",
+                    month.format(PARTITION_NAME_FORMATTER), nextBound.format(BOUND_FORMATTER)));
+            month = month.plusMonths(1);
+            bound = nextBound;
+        }
+
+        if (definitions.isEmpty()) {
+            return;
+        }
+
+        agentLogMapper.splitFuturePartition(String.join(",\n", definitions));
+        log.info("已预建 {} 个日志分区，覆盖至 {}", definitions.size(), bound.format(BOUND_FORMATTER));
+    }
+
+    /**
+     * 删除或归档上界早于保留起点的分区
+     */
+    private void expirePartitions(List<LogPartitionDTO> partitions, LogRetentionSettingsDTO settings) {
+        LocalDateTime cutoff = YearMonth.now().minusMonths(settings.getRetentionMonths()).atDay(1).atStartOfDay();
+
+        for (LogPartitionDTO partition : partitions) {
+            LocalDateTime upperBound = parseUpperBound(partition);
+            if (upperBound == null || upperBound.isAfter(cutoff)) {
+                continue;
+            }
+
+            String name = partition.getName();
+            try {
+                if (settings.getExpireAction() == LogRetentionAction.ARCHIVE) {
+                    if (!archivePartition(partition)) {
+                        continue;
+                    }
+                    inlineArchivedPayloads(ARCHIVE_TABLE_PREFIX + name);
+                } else {
+                    releasePartitionPayloads(name);
+                }
+                agentLogMapper.dropPartition(name);
+                log.info("已删除过期日志分区: {}, 上界={}", name, upperBound.format(BOUND_FORMATTER));
+            } catch (Exception e) {
+                log.error("处理过期日志分区失败: partition={}, error={}", name, e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 将分区交换到归档表，可重试：归档表已存在时不再移除分区定义，已归档过（交换后删除分区失败）时不再交换
+     *
+     * @return 分区是否可以删除
+     */
+    private boolean archivePartition(LogPartitionDTO partition) {
+        String name = partition.getName();
+        String archiveTable = ARCHIVE_TABLE_PREFIX + name;
+        agentLogMapper.createArchiveTable(archiveTable);
+        if (agentLogMapper.countPartitions(archiveTable) > 0) {
+            agentLogMapper.removePartitioning(archiveTable);
+        }
+
+        if (agentLogMapper.existsRows(archiveTable)) {
+            if (agentLogMapper.partitionHasRows(name)) {
+                // 再次交换会把已归档的数据换回日志表，随后被删除
+                log.error("归档表 {} 已有数据且日志分区 {} 不为空，跳过该分区，请人工处理", archiveTable, name);
+                return false;
+            }
+            log.info("日志分区 {} 已归档到 {}，继续删除分区", name, archiveTable);
+            return true;
+        }
+
+        agentLogMapper.exchangePartition(name, archiveTable);
+        log.info("已将日志分区 {} 归档到 {}，约 {} 行", name, archiveTable, partition.getTableRows());
+        return true;
+    }
+
+    /**
+     * 删除即将被删除的分区引用的载荷
+     * 先于删除分区执行：删除分区失败时过期行可能缺少正文，下次重试时仍会删除这些行
+     */
+    private void releasePartitionPayloads(String partition) {
+        List<String> otherPartitions = agentLogMapper.selectPartitions().stream()
+                .map(LogPartitionDTO::getName)
+                .filter(name -> !partition.equals(name))
+                .toList();
+        List<String> sources = new ArrayList<>(agentLogMapper.selectArchiveTables());
+        if (!otherPartitions.isEmpty()) {
+            sources.add(0, "agent_log PARTITION (" + String.join(", ", otherPartitions) + ")");
+        }
+
+        Instant unusedSince = Instant.now().minus(PAYLOAD_GRACE);
+        String source = "agent_log PARTITION (" + partition + ")";
+        int deleted = 0;
+        String after = "";
+        List<String> refs;
+        do {
+            refs = agentLogMapper.selectPayloadRefs(source, after, PAYLOAD_REF_BATCH_SIZE);
+            if (refs.isEmpty()) {
+                break;
+            }
+            deleted += deleteUnreferencedPayloads(refs, sources, unusedSince);
+            after = refs.get(refs.size() - 1);
+        } while (refs.size() == PAYLOAD_REF_BATCH_SIZE);
+
+        if (deleted > 0) {
+            log.info("已清理日志分区 {} 引用的载荷 {} 个", partition, deleted);
+        }
+    }
+
+    /**
+     * 把归档表引用的载荷内容写回正文列，随后删除不再被引用的载荷；读取或写回失败的引用保持不变
+     */
+    private void inlineArchivedPayloads(String archiveTable) {
+        List<String> sources = new ArrayList<>(agentLogMapper.selectArchiveTables());
+        sources.add(0, "agent_log");
+
+        Instant unusedSince = Instant.now().minus(PAYLOAD_GRACE);
+        int inlinedCount = 0;
+        int deleted = 0;
+        String after = "";
+        List<String> refs;
+        do {
+            refs = agentLogMapper.selectPayloadRefs(archiveTable, after, PAYLOAD_REF_BATCH_SIZE);
+            if (refs.isEmpty()) {
+                break;
+            }
+            List<String> inlined = new ArrayList<>(refs.size());
+            for (String ref : refs) {
+                String content = payloadStore.get(ref);
+                if (content == null) {
+                    continue;
+                }
+                try {
+                    agentLogMapper.inlinePayload(archiveTable, ref, content);
+                    inlined.add(ref);
+                } catch (Exception e) {
+                    log.warn("载荷写回归档表失败，保留引用: table={}, ref={}, error={}", archiveTable, ref, e.getMessage());
+                }
+            }
+            inlinedCount += inlined.size();
+            deleted += deleteUnreferencedPayloads(inlined, sources, unusedSince);
+            after = refs.get(refs.size() - 1);
+        } while (refs.size() == PAYLOAD_REF_BATCH_SIZE);
+
+        if (inlinedCount > 0) {
+            log.info("已将 {} 个载荷写回归档表 {}，清理载荷 {} 个", inlinedCount, archiveTable, deleted);
+        }
+    }
+
+    /**
+     * 删除给定引用中不再被任何数据源引用的载荷
+     *
+     * @return 删除的载荷数
+     */
+    private int deleteUnreferencedPayloads(Collection<String> refs, List<String> sources, Instant unusedSince) {
+        Set<String> candidates = new HashSet<>(refs);
+        for (String source : sources) {
+            if (candidates.isEmpty()) {
+                break;
+            }
+            agentLogMapper.selectReferencedPayloadRefs(source, candidates).forEach(candidates::remove);
+        }
+
+        int deleted = 0;
+        for (String ref : candidates) {
+            if (payloadStore.delete(ref, unusedSince)) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * 解析分区上界，MAXVALUE 返回 null
+     */
+    private LocalDateTime parseUpperBound(LogPartitionDTO partition) {
+        String description = StrUtil.unWrap(StrUtil.trim(partition.getDescription()), '\'');
+        if (StrUtil.isBlank(description) || "MAXVALUE".equalsIgnoreCase(description)) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(description, BOUND_FORMATTER);
+        } catch (Exception e) {
+            log.warn("无法解析日志分区上界: partition={}, description={}", partition.getName(), partition.getDescription());
+            return null;
+        }
+    }
+
+    private boolean tryLock(String token) {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(MAINTAIN_LOCK_KEY, token, MAINTAIN_LOCK_TTL));
+        } catch (Exception e) {
+            // Redis 不可用时仍执行，DDL 冲突会被记录为错误
+            log.warn("获取日志分区维护锁失败，直接执行: {}", e.getMessage());
+            return true;
+        }
+    }
+
+    private void unlock(String token) {
+        try {
+            redisTemplate.execute(UNLOCK, Collections.singletonList(MAINTAIN_LOCK_KEY), token);
+        } catch (Exception e) {
+            log.warn("释放日志分区维护锁失败: {}", e.getMessage());
+        }
+    }
+}
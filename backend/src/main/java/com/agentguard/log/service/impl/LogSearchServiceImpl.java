@@ -0,0 +1,359 @@
+package com.agentguard.log.service.impl;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.net.NetUtil;
+import cn.hutool.core.util.StrUtil;
+import com.agentguard.common.exception.BusinessException;
+import com.agentguard.common.exception.ErrorCode;
+import com.agentguard.log.dto.LogSearchHitDTO;
+import com.agentguard.log.entity.AgentLogDO;
+import com.agentguard.log.service.LogSearchService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.MultiReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TieredMergePolicy;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.highlight.Highlighter;
+import org.apache.lucene.search.highlight.QueryScorer;
+import org.apache.lucene.search.highlight.SimpleHTMLFormatter;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 日志全文搜索服务实现类
+ * <p>
+ * 基于 Lucene 在本地按月建立独立索引（{根目录}/yyyyMM），写入时只进入内存缓冲，
+ * 由定时任务批量提交并刷新近实时搜索视图；段合并使用 TieredMergePolicy。
+ * 按时间范围搜索时只打开对应月份的索引，过期月份随日志保留策略整目录删除。
+ * <p>
+ * 索引只包含本节点写入的日志，多节点部署时各节点分别维护，搜索结果标记所在节点，
+ * 调用方需知道结果不含其他节点写入的日志。日志在事务提交后才写入索引。
+ *
+ * @author zhuhx
+ */
+@Slf4j
+@Service
+public class LogSearchServiceImpl implements LogSearchService {
+
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_AGENT_ID = "agentId";
+    private static final String FIELD_CREATED_AT = "createdAt";
+    private static final String FIELD_MODEL = "model";
+    private static final String FIELD_ENDPOINT = "endpoint";
+    private static final String FIELD_TOOL_CALLS = "toolCalls";
+    private static final String FIELD_CONTENT = "content";
+
+    /** 默认搜索字段 */
+    private static final String[] SEARCH_FIELDS = {FIELD_CONTENT, FIELD_TOOL_CALLS, FIELD_MODEL, FIELD_ENDPOINT};
+
+    /** 单条日志最多返回的命中片段数 */
+    private static final int MAX_HIGHLIGHTS = 3;
+
+    /** 单次搜索最多返回条数 */
+    private static final int MAX_SEARCH_SIZE = 100;
+
+    private static final DateTimeFormatter MONTH_FORMATTER = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+
+    /** 本节点主机名，标记搜索结果来源 */
+    private final String node = NetUtil.getLocalHostName();
+
+    /** 按月份打开的索引 */
+    private final Map<YearMonth, MonthIndex> indexes = new ConcurrentHashMap<>();
+
+    @Value("${agent-log.search.enabled:true}")
+    private boolean enabled;
+
+    @Value("${agent-log.search.path:./data/log-index}")
+    private String indexPath;
+
+    @Value("${agent-log.search.max-content-length:16384}")
+    private int maxContentLength;
+
+    /**
+     * 启动时打开已有的月索引
+     */
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        File root = FileUtil.mkdir(indexPath);
+        File[] monthDirs = root.listFiles(File::isDirectory);
+        if (monthDirs == null) {
+            return;
+        }
+        for (File monthDir : monthDirs) {
+            YearMonth month = parseMonth(monthDir.getName());
+            if (month != null) {
+                getOrOpen(month);
+            }
+        }
+        log.info("日志全文索引已加载: path={}, months={}", indexPath, indexes.size());
+    }
+
+    @Override
+    public void index(AgentLogDO logDO, String requestBody, String responseBody) {
+        if (!enabled || logDO == null || logDO.getCreatedAt() == null) {
+            return;
+        }
+
+        try {
+            Document doc = new Document();
+            doc.add(new StringField(FIELD_ID, logDO.getId(), Field.Store.YES));
+            if (StrUtil.isNotBlank(logDO.getAgentId())) {
+                doc.add(new StringField(FIELD_AGENT_ID, logDO.getAgentId(), Field.Store.YES));
+            }
+
+            long createdAtMillis = toEpochMilli(logDO.getCreatedAt());
+            doc.add(new LongPoint(FIELD_CREATED_AT, createdAtMillis));
+            doc.add(new StoredField(FIELD_CREATED_AT, createdAtMillis));
+
+            addText(doc, FIELD_MODEL, logDO.getModel(), Field.Store.NO);
+            addText(doc, FIELD_ENDPOINT, logDO.getEndpoint(), Field.Store.NO);
+            addText(doc, FIELD_TOOL_CALLS, logDO.getToolCalls(), Field.Store.NO);
+
+            // 请求体与响应体各自截断后合并为一个字段，保存原文用于高亮；分别截断避免过长的请求体挤掉响应体
+            String content = StrUtil.join("\n", StrUtil.subPre(StrUtil.nullToEmpty(requestBody), maxContentLength),
+                    StrUtil.subPre(StrUtil.nullToEmpty(responseBody), maxContentLength));
+            addText(doc, FIELD_CONTENT, content, Field.Store.YES);
+
+            getOrOpen(YearMonth.from(logDO.getCreatedAt())).writer().addDocument(doc);
+        } catch (Exception e) {
+            log.warn("写入日志全文索引失败: logId={}, error={}", logDO.getId(), e.getMessage());
+        }
+    }
+
+    @Override
+    public List<LogSearchHitDTO> search(String query, String agentId, LocalDateTime startTime, LocalDateTime endTime, int size) {
+        if (!enabled || StrUtil.isBlank(query)) {
+            return List.of();
+        }
+
+        Query textQuery;
+        try {
+            MultiFieldQueryParser parser = new MultiFieldQueryParser(SEARCH_FIELDS, analyzer);
+            parser.setDefaultOperator(QueryParser.Operator.AND);
+            textQuery = parser.parse(query);
+        } catch (ParseException e) {
+            throw new BusinessException(ErrorCode.LOG_SEARCH_QUERY_INVALID, "日志搜索语句无效: " + e.getMessage());
+        }
+
+        BooleanQuery.Builder builder = new BooleanQuery.Builder().add(textQuery, BooleanClause.Occur.MUST);
+        if (StrUtil.isNotBlank(agentId)) {
+            builder.add(new TermQuery(new Term(FIELD_AGENT_ID, agentId)), BooleanClause.Occur.FILTER);
+        }
+        if (startTime != null || endTime != null) {
+            long lower = startTime != null ? toEpochMilli(startTime) : Long.MIN_VALUE;
+            long upper = endTime != null ? toEpochMilli(endTime) : Long.MAX_VALUE;
+            builder.add(LongPoint.newRangeQuery(FIELD_CREATED_AT, lower, upper), BooleanClause.Occur.FILTER);
+        }
+
+        // 只打开时间范围内的月索引
+        List<MonthIndex> targets = indexes.entrySet().stream()
+                .filter(entry -> startTime == null || !entry.getKey().isBefore(YearMonth.from(startTime)))
+                .filter(entry -> endTime == null || !entry.getKey().isAfter(YearMonth.from(endTime)))
+                .map(Map.Entry::getValue)
+                .toList();
+        if (targets.isEmpty()) {
+            return List.of();
+        }
+
+        List<SearcherLease> leases = new ArrayList<>();
+        try {
+            for (MonthIndex target : targets) {
+                leases.add(new SearcherLease(target.searcherManager(), target.searcherManager().acquire()));
+            }
+            IndexReader[] readers = leases.stream()
+                    .map(lease -> lease.searcher().getIndexReader())
+                    .toArray(IndexReader[]::new);
+
+            try (MultiReader multiReader = new MultiReader(readers, false)) {
+                IndexSearcher searcher = new IndexSearcher(multiReader);
+                TopDocs topDocs = searcher.search(builder.build(), Math.max(1, Math.min(size, MAX_SEARCH_SIZE)));
+                Highlighter highlighter = new Highlighter(
+                        new SimpleHTMLFormatter("<em>", "</em>"), new QueryScorer(textQuery, FIELD_CONTENT));
+
+                List<LogSearchHitDTO> hits = new ArrayList<>();
+                for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                    Document doc = searcher.storedFields().document(scoreDoc.doc);
+                    hits.add(LogSearchHitDTO.builder()
+                            .id(doc.get(FIELD_ID))
+                            .agentId(doc.get(FIELD_AGENT_ID))
+                            .createdAt(LocalDateTime.ofInstant(
+                                    Instant.ofEpochMilli(doc.getField(FIELD_CREATED_AT).numericValue().longValue()),
+                                    ZoneId.systemDefault()))
+                            .score(scoreDoc.score)
+                            .highlights(highlight(highlighter, doc.get(FIELD_CONTENT)))
+                            .node(node)
+                            .build());
+                }
+                return hits;
+            }
+        } catch (IOException e) {
+            log.error("搜索日志全文索引失败: query={}, error={}", query, e.getMessage(), e);
+            throw new BusinessException(ErrorCode.INTERNAL_ERROR);
+        } finally {
+            for (SearcherLease lease : leases) {
+                try {
+                    lease.manager().release(lease.searcher());
+                } catch (IOException e) {
+                    log.warn("释放索引搜索器失败: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void commit() {
+        indexes.forEach((month, index) -> {
+            try {
+                if (index.writer().hasUncommittedChanges()) {
+                    index.writer().commit();
+                }
+                index.searcherManager().maybeRefresh();
+            } catch (IOException e) {
+                log.error("提交日志全文索引失败: month={}, error={}", month, e.getMessage(), e);
+            }
+        });
+    }
+
+    @Override
+    public void dropBefore(YearMonth cutoff) {
+        indexes.keySet().stream()
+                .filter(month -> month.isBefore(cutoff))
+                .toList()
+                .forEach(month -> {
+                    MonthIndex index = indexes.remove(month);
+                    close(month, index);
+                    FileUtil.del(monthPath(month).toFile());
+                    log.info("已删除过期日志全文索引: month={}", month);
+                });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        commit();
+        indexes.forEach(this::close);
+        indexes.clear();
+    }
+
+    private MonthIndex getOrOpen(YearMonth month) {
+        return indexes.computeIfAbsent(month, key -> {
+            try {
+                Directory directory = FSDirectory.open(monthPath(key));
+                IndexWriterConfig config = new IndexWriterConfig(analyzer)
+                        .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND)
+                        .setMergePolicy(new TieredMergePolicy())
+                        .setRAMBufferSizeMB(32);
+                IndexWriter writer = new IndexWriter(directory, config);
+                SearcherManager searcherManager = new SearcherManager(writer, null);
+                return new MonthIndex(directory, writer, searcherManager);
+            } catch (IOException e) {
+                throw new IllegalStateException("打开日志全文索引失败: " + key, e);
+            }
+        });
+    }
+
+    private void close(YearMonth month, MonthIndex index) {
+        if (index == null) {
+            return;
+        }
+        try {
+            index.searcherManager().close();
+            index.writer().close();
+            index.directory().close();
+        } catch (IOException e) {
+            log.warn("关闭日志全文索引失败: month={}, error={}", month, e.getMessage());
+        }
+    }
+
+    private List<String> highlight(Highlighter highlighter, String content) {
+        if (StrUtil.isBlank(content)) {
+            return List.of();
+        }
+        try {
+            return Arrays.stream(highlighter.getBestFragments(analyzer, FIELD_CONTENT, content, MAX_HIGHLIGHTS))
+                    .filter(StrUtil::isNotBlank)
+                    .toList();
+        } catch (Exception e) {
+            log.debug("生成搜索高亮失败: {}", e.getMessage());
+            return List.of();
+        }
+    }
+
+    private void addText(Document doc, String field, String value, Field.Store store) {
+        if (StrUtil.isNotBlank(value)) {
+            doc.add(new TextField(field, value, store));
+        }
+    }
+
+    private Path monthPath(YearMonth month) {
+        return Paths.get(indexPath, month.format(MONTH_FORMATTER));
+    }
+
+    private YearMonth parseMonth(String name) {
+        try {
+            return YearMonth.parse(name, MONTH_FORMATTER);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private long toEpochMilli(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * 单月索引
+     */
+    private record MonthIndex(Directory directory, IndexWriter writer, SearcherManager searcherManager) {
+    }
+
+    /**
+     * 搜索期间持有的搜索器
+     */
+    private record SearcherLease(SearcherManager manager, IndexSearcher searcher) {
+    }
+}
@@ -0,0 +1,313 @@
+package com.agentguard.log.service.impl;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.TimedCache;
+import cn.hutool.core.bean.BeanUtil;
+import cn.hutool.core.util.StrUtil;
+import com.agentguard.agent.entity.AgentDO;
+import com.agentguard.agent.mapper.AgentMapper;
+import com.agentguard.common.exception.BusinessException;
+import com.agentguard.common.exception.ErrorCode;
+import com.agentguard.log.dto.AgentLogDTO;
+import com.agentguard.log.dto.LogTailFilterDTO;
+import com.agentguard.log.service.LogTailService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 实时日志推送服务实现类
+ * <p>
+ * 日志写入后经 Redis 频道广播到所有节点，各节点按订阅者的过滤条件分发到其有界缓冲队列，
+ * 由虚拟线程逐个写出到 SSE 连接。客户端过慢导致队列满时丢弃新日志并计数，
+ * 下次写出前先推送 dropped 事件告知丢弃条数，慢客户端不会拖慢写入链路和其他订阅者。
+ * <p>
+ * 有订阅者的节点定期刷新 Redis 活跃标记，所有节点都没有订阅者时写入链路不做任何广播。
+ *
+ * @author zhuhx
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LogTailServiceImpl implements LogTailService, MessageListener {
+
+    /** 实时日志广播频道 */
+    private static final String TAIL_CHANNEL = "log:tail";
+
+    /** 存在订阅者的活跃标记 */
+    private static final String ACTIVE_KEY = "log:tail:active";
+
+    /** 活跃标记检查间隔（秒） */
+    private static final long ACTIVE_CHECK_SECONDS = 2;
+
+    /** 待广播日志队列长度 */
+    private static final int PUBLISH_QUEUE_SIZE = 10000;
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final AgentMapper agentMapper;
+    private final ObjectMapper objectMapper;
+
+    /** 本节点订阅者 */
+    private final Set<TailSubscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    /** 广播线程，队列满时丢弃，不阻塞写入链路 */
+    private final ThreadPoolExecutor publishExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(PUBLISH_QUEUE_SIZE), Thread.ofPlatform().name("log-tail-publisher").daemon().factory(),
+            (task, executor) -> {
+                throw new RejectedExecutionException("实时日志广播队列已满");
+            });
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("log-tail-scheduler").daemon().factory());
+
+    /** Agent 名称缓存 */
+    private final TimedCache<String, String> agentNameCache = CacheUtil.newTimedCache(Duration.ofMinutes(5).toMillis());
+
+    /** 任一节点存在订阅者 */
+    private volatile boolean clusterActive;
+
+    /** 广播队列满丢弃的日志数 */
+    private final AtomicLong publishDropped = new AtomicLong();
+
+    @Value("${agent-log.tail.buffer-size:256}")
+    private int bufferSize;
+
+    @Value("${agent-log.tail.max-subscribers:200}")
+    private int maxSubscribers;
+
+    @Value("${agent-log.tail.timeout-seconds:1800}")
+    private long timeoutSeconds;
+
+    @Value("${agent-log.tail.heartbeat-seconds:15}")
+    private long heartbeatSeconds;
+
+    @PostConstruct
+    public void init() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(TAIL_CHANNEL));
+        scheduler.scheduleWithFixedDelay(this::refreshActive, 0, ACTIVE_CHECK_SECONDS, TimeUnit.SECONDS);
+        scheduler.scheduleWithFixedDelay(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        log.info("实时日志推送已订阅 Redis 频道: {}", TAIL_CHANNEL);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        scheduler.shutdownNow();
+        publishExecutor.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter().complete());
+    }
+
+    @Override
+    public SseEmitter subscribe(LogTailFilterDTO filter) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new BusinessException(ErrorCode.LOG_TAIL_SUBSCRIBER_LIMIT);
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutSeconds * 1000L);
+        TailSubscriber subscriber = new TailSubscriber(emitter, filter, new ArrayBlockingQueue<>(bufferSize),
+                new AtomicLong(), new AtomicLong(), new AtomicBoolean());
+        subscribers.add(subscriber);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> {
+            subscribers.remove(subscriber);
+            emitter.complete();
+        });
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        // 立即标记活跃，其他节点在下次检查时开始广播
+        markActive();
+        clusterActive = true;
+        log.debug("新增实时日志订阅: filter={}, subscribers={}", filter, subscribers.size());
+        return emitter;
+    }
+
+    @Override
+    public void publish(AgentLogDTO agentLog) {
+        if (!clusterActive) {
+            return;
+        }
+
+        // 只推送列表字段，详情通过日志详情接口查询
+        AgentLogDTO event = BeanUtil.copyProperties(agentLog, AgentLogDTO.class,
+                "requestHeaders", "requestBody", "responseBody");
+        if (StrUtil.isBlank(event.getAgentName()) && StrUtil.isNotBlank(event.getAgentId())) {
+            event.setAgentName(getAgentName(event.getAgentId()));
+        }
+
+        try {
+            publishExecutor.execute(() -> broadcast(event));
+        } catch (RejectedExecutionException e) {
+            long dropped = publishDropped.incrementAndGet();
+            if (dropped % 1000 == 1) {
+                log.warn("实时日志广播队列已满，累计丢弃 {} 条", dropped);
+            }
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        try {
+            dispatchLocal(objectMapper.readValue(message.getBody(), AgentLogDTO.class));
+        } catch (Exception e) {
+            log.error("处理实时日志广播失败: {}", e.getMessage(), e);
+        }
+    }
+
+    private void broadcast(AgentLogDTO event) {
+        try {
+            redisTemplate.convertAndSend(TAIL_CHANNEL, objectMapper.writeValueAsString(event));
+        } catch (Exception e) {
+            // Redis 不可用时降级为仅推送本节点
+            log.debug("广播实时日志失败，降级为本节点推送: {}", e.getMessage());
+            dispatchLocal(event);
+        }
+    }
+
+    /**
+     * 分发给本节点上过滤条件匹配的订阅者
+     */
+    private void dispatchLocal(AgentLogDTO event) {
+        for (TailSubscriber subscriber : subscribers) {
+            if (subscriber.filter().matches(event)) {
+                subscriber.offer(event);
+            }
+        }
+    }
+
+    private void heartbeat() {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        markActive();
+        for (TailSubscriber subscriber : subscribers) {
+            Thread.ofVirtual().start(() -> subscriber.send(SseEmitter.event().comment("heartbeat")));
+        }
+    }
+
+    private void markActive() {
+        try {
+            redisTemplate.opsForValue().set(ACTIVE_KEY, "1", Duration.ofSeconds(heartbeatSeconds * 3));
+        } catch (Exception e) {
+            log.debug("刷新实时日志活跃标记失败: {}", e.getMessage());
+        }
+    }
+
+    private void refreshActive() {
+        try {
+            clusterActive = !subscribers.isEmpty() || Boolean.TRUE.equals(redisTemplate.hasKey(ACTIVE_KEY));
+        } catch (Exception e) {
+            clusterActive = !subscribers.isEmpty();
+        }
+    }
+
+    private String getAgentName(String agentId) {
+        String name = agentNameCache.get(agentId, false);
+        if (name == null) {
+            AgentDO agent = agentMapper.selectById(agentId);
+            name = agent != null ? agent.getName() : "";
+            agentNameCache.put(agentId, name);
+        }
+        return StrUtil.emptyToNull(name);
+    }
+
+    /**
+     * 实时日志订阅者
+     *
+     * @param emitter SSE 连接
+     * @param filter 过滤条件
+     * @param buffer 待推送日志（有界）
+     * @param dropped 尚未通知客户端的丢弃条数
+     * @param totalDropped 累计丢弃条数
+     * @param draining 是否有线程正在写出
+     */
+    private record TailSubscriber(SseEmitter emitter, LogTailFilterDTO filter, BlockingQueue<AgentLogDTO> buffer,
+                                  AtomicLong dropped, AtomicLong totalDropped, AtomicBoolean draining) {
+
+        void offer(AgentLogDTO event) {
+            if (!buffer.offer(event)) {
+                dropped.incrementAndGet();
+                totalDropped.incrementAndGet();
+            }
+            scheduleDrain();
+        }
+
+        void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    Thread.ofVirtual().start(this::drain);
+                } catch (RuntimeException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        /**
+         * 按顺序写出缓冲区中的日志，同一订阅者同时只有一个线程写出
+         */
+        void drain() {
+            try {
+                while (true) {
+                    long droppedCount = dropped.getAndSet(0);
+                    if (droppedCount > 0 && !send(SseEmitter.event().name("dropped")
+                            .data(Map.of("dropped", droppedCount, "totalDropped", totalDropped.get())))) {
+                        return;
+                    }
+                    AgentLogDTO event = buffer.poll();
+                    if (event == null) {
+                        break;
+                    }
+                    if (!send(SseEmitter.event().name("log").id(event.getId()).data(event))) {
+                        return;
+                    }
+                }
+            } finally {
+                draining.set(false);
+            }
+            // 释放标记后再次检查，避免与 offer 交错时遗漏新日志
+            if (!buffer.isEmpty() || dropped.get() > 0) {
+                scheduleDrain();
+            }
+        }
+
+        boolean send(SseEmitter.SseEventBuilder event) {
+            try {
+                synchronized (emitter) {
+                    emitter.send(event);
+                }
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                log.debug("推送实时日志失败，客户端可能已断开: {}", e.getMessage());
+                emitter.completeWithError(e);
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.agentguard.policy.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 策略的响应缓存覆盖配置
+ * 在策略条件中以 cache 字段配置，如 {"urlPattern": "https://api.weather.com/**", "cache": {"ttlSeconds": 300}}，
+ * 对匹配该策略的 API 代理请求生效（多个策略匹配时取优先级最高的）
+ *
+ * @author zhuhx
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "响应缓存覆盖配置")
+public class CacheOverrideDTO {
+
+    /** 是否使用缓存，为 false 时匹配的请求不读取也不写入缓存 */
+    @Schema(description = "是否使用缓存，为 false 时匹配的请求不读取也不写入缓存", example = "true")
+    private Boolean enabled;
+
+    /** 新鲜期（秒），设置时忽略响应的 Cache-Control/Expires 新鲜期和 no-cache（仍遵守 no-store、private） */
+    @Schema(description = "新鲜期（秒），设置时覆盖响应头计算的新鲜期", example = "300")
+    private Integer ttlSeconds;
+}
@@ -56,6 +56,14 @@ public class PolicyResult {
     @Schema(description = "限流结果（频率限制策略使用）")
     private RateLimitResult rateLimitResult;
 
+    /** 响应缓存覆盖配置（匹配的策略条件中配置了 cache 时） */
+    @Schema(description = "响应缓存覆盖配置（匹配的策略条件中配置了 cache 时）")
+    private CacheOverrideDTO cacheOverride;
+
+    /** 相似提示词缓存覆盖配置（匹配的策略条件中配置了 promptCache 时） */
+    @Schema(description = "相似提示词缓存覆盖配置（匹配的策略条件中配置了 promptCache 时）")
+    private PromptCacheOverrideDTO promptCacheOverride;
+
     /**
      * 创建允许通过的结果
      *
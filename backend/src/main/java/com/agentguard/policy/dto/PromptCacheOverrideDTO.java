@@ -0,0 +1,26 @@
+package com.agentguard.policy.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 策略的相似提示词缓存覆盖配置
+ * 在策略条件中以 promptCache 字段配置，如 {"promptCache": {"enabled": true}}，
+ * 对匹配该策略的 LLM 调用生效（多个策略匹配时取优先级最高的）
+ *
+ * @author zhuhx
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "相似提示词缓存覆盖配置")
+public class PromptCacheOverrideDTO {
+
+    /** 是否使用相似提示词缓存，设置时覆盖 Agent 的开关（全局开关关闭时仍不生效） */
+    @Schema(description = "是否使用相似提示词缓存，设置时覆盖 Agent 的开关", example = "true")
+    private Boolean enabled;
+}
@@ -7,8 +7,10 @@ import cn.hutool.core.util.StrUtil;
 import cn.hutool.json.JSONObject;
 import cn.hutool.json.JSONUtil;
 import com.agentguard.log.enums.RequestType;
+import com.agentguard.policy.dto.CacheOverrideDTO;
 import com.agentguard.policy.dto.PolicyDTO;
 import com.agentguard.policy.dto.PolicyResult;
+import com.agentguard.policy.dto.PromptCacheOverrideDTO;
 import com.agentguard.policy.dto.RateLimitResult;
 import com.agentguard.policy.enums.PolicyAction;
 import com.agentguard.policy.enums.PolicyScope;
@@ -123,22 +125,54 @@ public class ConfigurablePolicyEngine implements PolicyEngine {
                 .toList();
         log.debug("根据requestType过滤后，剩余 {} 条待评估策略", sortedPolicies.size());
 
-        // 按优先级顺序评估策略
+        // 按优先级顺序评估策略，匹配的策略中优先级最高的缓存覆盖配置随结果返回
+        CacheOverrideDTO cacheOverride = null;
+        PromptCacheOverrideDTO promptCacheOverride = null;
         for (PolicyDTO policy : sortedPolicies) {
             log.debug("检查策略: id={}, name={}, type={}, requestType={}",
                     policy.getId(), policy.getName(), policy.getType(), policy.getRequestType());
             if (matchesPolicy(policy, targetUrl, method, headers, body)) {
                 log.info("策略匹配成功: id={}, name={}, action={}", policy.getId(), policy.getName(), policy.getAction());
                 PolicyResult result = createResult(policy, targetUrl, headers, body, clientIp);
+                if (cacheOverride == null) {
+                    cacheOverride = parseOverride(policy, "cache", CacheOverrideDTO.class);
+                }
+                if (promptCacheOverride == null) {
+                    promptCacheOverride = parseOverride(policy, "promptCache", PromptCacheOverrideDTO.class);
+                }
                 // 如果策略结果是阻止或需要特殊处理，立即返回
                 if (result.isBlocked() || result.isRequireApproval() || result.getRateLimitResult() != null) {
+                    result.setCacheOverride(cacheOverride);
+                    result.setPromptCacheOverride(promptCacheOverride);
                     return result;
                 }
             }
         }
         // 无匹配策略，默认允许
         log.debug("未找到匹配的策略，允许请求通过");
-        return PolicyResult.allow();
+        PolicyResult result = PolicyResult.allow();
+        result.setCacheOverride(cacheOverride);
+        result.setPromptCacheOverride(promptCacheOverride);
+        return result;
+    }
+
+    /**
+     * 解析策略条件中的缓存覆盖配置
+     *
+     * @param policy 策略
+     * @param field 条件中的字段名
+     * @param type 覆盖配置类型
+     * @return 缓存覆盖配置，未配置时返回 null
+     */
+    private <T> T parseOverride(PolicyDTO policy, String field, Class<T> type) {
+        try {
+            JSONObject conditions = JSONUtil.parseObj(policy.getConditions());
+            JSONObject cache = conditions.getJSONObject(field);
+            return cache != null ? cache.toBean(type) : null;
+        } catch (Exception e) {
+            log.warn("解析策略 {} 的 {} 配置失败: {}", policy.getId(), field, e.getMessage());
+            return null;
+        }
     }
 
     /**
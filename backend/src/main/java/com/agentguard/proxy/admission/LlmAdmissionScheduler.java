@@ -0,0 +1,41 @@
+package com.agentguard.proxy.admission;
+
+import com.agentguard.agent.dto.AgentDTO;
+
+/**
+ * LLM 调用准入调度接口
+ * <p>
+ * 转发 LLM 请求前申请准入：Agent 同时进行的调用数未达上限时立即放行，否则排队；
+ * 多个 Agent 同时排队时按加权公平队列（权重由 Agent 调度权重或运行环境决定）依次放行，
+ * 排队超过截止时间时拒绝。
+ *
+ * @author zhuhx
+ */
+public interface LlmAdmissionScheduler {
+
+    /**
+     * 申请准入，阻塞到放行、拒绝或超时
+     *
+     * @param agent Agent信息
+     * @param deadline 请求的截止时间（毫秒时间戳），排队不超过该时间
+     * @return 准入凭证，调用结束（成功、失败或取消）时必须释放
+     * @throws com.agentguard.common.exception.BusinessException 排队已满或排队超时（AGENT_CONCURRENCY_LIMITED）
+     */
+    Ticket admit(AgentDTO agent, long deadline);
+
+    /**
+     * 准入凭证
+     */
+    interface Ticket {
+
+        /**
+         * 排队时间（毫秒）
+         */
+        long getQueueMs();
+
+        /**
+         * 释放并发额度，重复释放无效
+         */
+        void release();
+    }
+}
@@ -0,0 +1,622 @@
+package com.agentguard.proxy.admission.impl;
+
+import cn.hutool.core.util.IdUtil;
+import com.agentguard.agent.dto.AgentDTO;
+import com.agentguard.common.exception.BusinessException;
+import com.agentguard.common.exception.ErrorCode;
+import com.agentguard.proxy.admission.LlmAdmissionScheduler;
+import com.agentguard.proxy.config.ProxyProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * LLM 调用准入调度实现类
+ * <p>
+ * 所有请求进入各自 Agent 的队列，由单独的调度线程按开始时间公平队列（SFQ）放行：
+ * 入队时开始标签 = max(虚拟时间, 该 Agent 上一个请求的结束标签)，结束标签 = 开始标签 + 1 / 权重，
+ * 每次在未达并发上限的 Agent 中放行结束标签最小的队首请求，并把虚拟时间推进到其开始标签。
+ * 长期空闲的 Agent 不会积累额度，繁忙 Agent 之间按权重比例分配放行次数。
+ * <p>
+ * Agent 的并发上限按所有节点合计：放行前在 Redis 有序集合中登记租约（分数为过期时间），
+ * 持有期间定期续期，节点宕机时租约在有效期后失效；其他节点占满时该 Agent 暂停 leaseRetryMs 后重试。
+ * 租约在单独的工作线程中获取，Redis 变慢时不阻塞调度线程（其他 Agent 照常放行）；Redis 不可用时降级为只按本节点计数。
+ * Agent 未配置并发上限且默认上限为 0 时不限制并发，也不登记租约。
+ *
+ * @author zhuhx
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LlmAdmissionSchedulerImpl implements LlmAdmissionScheduler {
+
+    /** 并发租约键前缀 */
+    private static final String LEASE_KEY_PREFIX = "llm_concurrency:";
+
+    /**
+     * 获取租约 Lua 脚本：移除过期租约，未达上限时登记新租约
+     */
+    private static final String ACQUIRE_LEASE_SCRIPT = """
+            local key = KEYS[1]
+            local now = tonumber(ARGV[1])
+            local limit = tonumber(ARGV[2])
+
+            redis.call('ZREMRANGEBYSCORE', key, '-inf', now)
+            if redis.call('ZCARD', key) >= limit then
+                return 0
+            end
+            redis.call('ZADD', key, ARGV[3], ARGV[4])
+            redis.call('PEXPIRE', key, ARGV[5])
+            return 1
+            """;
+
+    /**
+     * 续期租约 Lua 脚本：只更新仍存在的租约（ZADD XX），已被判定过期并移除的租约不再恢复，以免超出并发上限
+     * ARGV[1] 为键的有效期，其后依次为 过期时间、租约成员
+     */
+    private static final String RENEW_LEASES_SCRIPT = """
+            local renewed = redis.call('ZADD', KEYS[1], 'XX', 'CH', unpack(ARGV, 2))
+            redis.call('PEXPIRE', KEYS[1], ARGV[1])
+            return renewed
+            """;
+
+    /** 不限制并发 */
+    private static final int UNLIMITED = Integer.MAX_VALUE;
+
+    /** 队列时间指标 */
+    private static final String QUEUE_TIMER = "agentguard.llm.admission.queue";
+
+    /** Redis 不可用时放行的请求不持有租约 */
+    private static final Lease NO_LEASE = new Lease(null, null);
+
+    private static final Ticket NO_OP_TICKET = new Ticket() {
+        @Override
+        public long getQueueMs() {
+            return 0;
+        }
+
+        @Override
+        public void release() {
+        }
+    };
+
+    private final DefaultRedisScript<Long> acquireLeaseScript = new DefaultRedisScript<>(ACQUIRE_LEASE_SCRIPT, Long.class);
+
+    private final DefaultRedisScript<Long> renewLeasesScript = new DefaultRedisScript<>(RENEW_LEASES_SCRIPT, Long.class);
+
+    private final ProxyProperties proxyProperties;
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** 入队、释放时通知调度线程 */
+    private final Condition changed = lock.newCondition();
+
+    /** Agent ID -> 调度队列，空闲（无排队、无进行中）时移除 */
+    private final Map<String, AgentQueue> queues = new HashMap<>();
+
+    /** 本节点进行中的调用数（lock 内修改） */
+    private volatile int inflight;
+
+    /** 本节点排队中的请求数（lock 内修改） */
+    private volatile int queued;
+
+    /** 虚拟时间：最近放行请求的开始标签 */
+    private double virtualTime;
+
+    /** 最早的排队截止时间，到达后清理超时请求 */
+    private long nextExpiryAt = Long.MAX_VALUE;
+
+    /** 本节点持有的租约，定期续期 */
+    private final Set<Lease> leases = ConcurrentHashMap.newKeySet();
+
+    private final Thread dispatcher = Thread.ofPlatform().name("llm-admission-dispatcher").daemon()
+            .unstarted(this::dispatchLoop);
+
+    private final ScheduledExecutorService leaseRenewer = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("llm-admission-lease").daemon().factory());
+
+    /** 获取租约的工作线程，调度线程只负责选择放行的请求 */
+    private ThreadPoolExecutor leaseWorkers;
+
+    private volatile boolean running = true;
+
+    @PostConstruct
+    public void init() {
+        ProxyProperties.Admission config = proxyProperties.getAdmission();
+        int workers = Math.max(1, config.getLeaseWorkers());
+        leaseWorkers = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, config.getMaxConcurrent())),
+                Thread.ofPlatform().name("llm-admission-lease-worker-", 0).daemon().factory());
+        dispatcher.start();
+        long renewIntervalMs = Math.max(1000, proxyProperties.getAdmission().getLeaseTtlMs() / 3);
+        leaseRenewer.scheduleWithFixedDelay(this::renewLeases, renewIntervalMs, renewIntervalMs, TimeUnit.MILLISECONDS);
+        Gauge.builder("agentguard.llm.admission.inflight", this, scheduler -> scheduler.inflight)
+                .description("本节点进行中的LLM调用数")
+                .register(meterRegistry);
+        Gauge.builder("agentguard.llm.admission.queued", this, scheduler -> scheduler.queued)
+                .description("本节点排队中的LLM调用数")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        running = false;
+        dispatcher.interrupt();
+        leaseRenewer.shutdownNow();
+        leaseWorkers.shutdownNow();
+    }
+
+    @Override
+    public Ticket admit(AgentDTO agent, long deadline) {
+        ProxyProperties.Admission config = proxyProperties.getAdmission();
+        if (!config.isEnabled()) {
+            return NO_OP_TICKET;
+        }
+        long now = System.currentTimeMillis();
+        Waiter waiter = new Waiter(agent.getId(), now, Math.min(deadline, now + config.getMaxQueueWaitMs()));
+        boolean accepted;
+        lock.lock();
+        try {
+            AgentQueue queue = queues.computeIfAbsent(agent.getId(), AgentQueue::new);
+            queue.weight = resolveWeight(agent, config);
+            queue.limit = resolveLimit(agent, config);
+            accepted = queue.waiters.size() < config.getMaxQueuedPerAgent();
+            if (accepted) {
+                waiter.start = Math.max(virtualTime, queue.lastFinish);
+                waiter.finish = waiter.start + 1.0 / queue.weight;
+                queue.lastFinish = waiter.finish;
+                queue.waiters.addLast(waiter);
+                queued++;
+                nextExpiryAt = Math.min(nextExpiryAt, waiter.deadline);
+                changed.signal();
+            } else if (queue.isIdle()) {
+                queues.remove(queue.agentId, queue);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (!accepted) {
+            recordQueueTime("rejected", 0);
+            throw new BusinessException(ErrorCode.AGENT_CONCURRENCY_LIMITED,
+                    String.format("Agent 排队的LLM调用已达上限 %d，请稍后重试", config.getMaxQueuedPerAgent()));
+        }
+
+        try {
+            // 调度线程负责超时；额外等待 1 秒兜底，避免调度线程异常时调用方永久阻塞
+            return waiter.future.get(Math.max(0, waiter.deadline - now) + 1000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abandon(waiter);
+            throw new BusinessException(ErrorCode.AGENT_CONCURRENCY_LIMITED, "LLM调用排队被中断");
+        } catch (TimeoutException e) {
+            abandon(waiter);
+            throw new BusinessException(ErrorCode.AGENT_CONCURRENCY_LIMITED);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof BusinessException businessException) {
+                throw businessException;
+            }
+            throw new BusinessException(ErrorCode.AGENT_CONCURRENCY_LIMITED);
+        }
+    }
+
+    /**
+     * 调用方放弃排队：已放行的凭证立即释放，未放行的请求由调度线程丢弃
+     */
+    private void abandon(Waiter waiter) {
+        if (!waiter.future.cancel(false)) {
+            waiter.future.thenAccept(Ticket::release);
+        }
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                dispatchNext();
+            } catch (InterruptedException e) {
+                if (!running) {
+                    return;
+                }
+            } catch (Exception e) {
+                log.error("LLM调用准入调度失败: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 清理超时请求并放行一个请求；没有可放行的请求时等待到下一个事件
+     */
+    private void dispatchNext() throws InterruptedException {
+        List<Waiter> expired = new ArrayList<>();
+        AgentQueue queue;
+        Waiter waiter = null;
+        lock.lock();
+        try {
+            long now = System.currentTimeMillis();
+            if (now >= nextExpiryAt) {
+                expireWaiters(now, expired);
+            }
+            long[] retryAt = {Long.MAX_VALUE};
+            queue = pickQueue(now, retryAt);
+            if (queue != null) {
+                waiter = queue.waiters.pollFirst();
+                queued--;
+                queue.inflight++;
+                inflight++;
+                virtualTime = Math.max(virtualTime, waiter.start);
+            } else if (expired.isEmpty()) {
+                long wakeAt = Math.min(nextExpiryAt, retryAt[0]);
+                if (wakeAt == Long.MAX_VALUE) {
+                    changed.await();
+                } else {
+                    changed.await(Math.max(1, wakeAt - now), TimeUnit.MILLISECONDS);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        for (Waiter timedOut : expired) {
+            long queueMs = System.currentTimeMillis() - timedOut.enqueuedAt;
+            if (timedOut.future.completeExceptionally(new BusinessException(ErrorCode.AGENT_CONCURRENCY_LIMITED,
+                    String.format("LLM调用排队超时（已等待 %dms），请稍后重试", queueMs)))) {
+                recordQueueTime("timeout", queueMs);
+            }
+        }
+        if (waiter != null) {
+            startGrant(queue, waiter);
+        }
+    }
+
+    /**
+     * 在未达并发上限的 Agent 中选择队首结束标签最小的队列（lock 内调用）
+     *
+     * @param now 当前时间
+     * @param retryAt 输出：因全局并发已满暂停的队列中最早的重试时间
+     * @return 可放行的队列，没有时返回 null
+     */
+    private AgentQueue pickQueue(long now, long[] retryAt) {
+        if (inflight >= proxyProperties.getAdmission().getMaxConcurrent()) {
+            return null;
+        }
+        AgentQueue best = null;
+        for (Iterator<AgentQueue> it = queues.values().iterator(); it.hasNext(); ) {
+            AgentQueue queue = it.next();
+            // 丢弃调用方已放弃的请求
+            while (!queue.waiters.isEmpty() && queue.waiters.peekFirst().future.isDone()) {
+                queue.waiters.pollFirst();
+                queued--;
+            }
+            if (queue.isIdle()) {
+                it.remove();
+                continue;
+            }
+            if (queue.waiters.isEmpty() || queue.inflight >= queue.limit) {
+                continue;
+            }
+            if (queue.blockedUntil > now) {
+                retryAt[0] = Math.min(retryAt[0], queue.blockedUntil);
+                continue;
+            }
+            if (best == null || queue.waiters.peekFirst().finish < best.waiters.peekFirst().finish) {
+                best = queue;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 移除超时和已放弃的请求（lock 内调用），并重新计算最早截止时间
+     */
+    private void expireWaiters(long now, List<Waiter> expired) {
+        long next = Long.MAX_VALUE;
+        for (Iterator<AgentQueue> it = queues.values().iterator(); it.hasNext(); ) {
+            AgentQueue queue = it.next();
+            for (Iterator<Waiter> waiterIt = queue.waiters.iterator(); waiterIt.hasNext(); ) {
+                Waiter waiter = waiterIt.next();
+                if (waiter.future.isDone() || waiter.deadline <= now) {
+                    waiterIt.remove();
+                    queued--;
+                    if (!waiter.future.isDone()) {
+                        expired.add(waiter);
+                    }
+                } else {
+                    next = Math.min(next, waiter.deadline);
+                }
+            }
+            if (queue.isIdle()) {
+                it.remove();
+            }
+        }
+        nextExpiryAt = next;
+    }
+
+    /**
+     * 放行请求：需要全局租约时交给工作线程获取，不需要时直接放行；工作线程已满时按租约已满处理
+     */
+    private void startGrant(AgentQueue queue, Waiter waiter) {
+        ProxyProperties.Admission config = proxyProperties.getAdmission();
+        if (!config.isDistributed() || queue.limit == UNLIMITED) {
+            grant(queue, waiter, NO_LEASE);
+            return;
+        }
+        try {
+            leaseWorkers.execute(() -> grant(queue, waiter, acquireLease(queue.agentId, queue.limit, config.getLeaseTtlMs())));
+        } catch (RejectedExecutionException e) {
+            log.warn("Agent {} 获取并发租约的任务已满，稍后重试", queue.agentId);
+            requeue(queue, waiter);
+        }
+    }
+
+    /**
+     * 租约获取完成：交给调用方；全局并发已满时放回队首，暂停该 Agent 一段时间后重试
+     */
+    private void grant(AgentQueue queue, Waiter waiter, Lease lease) {
+        if (lease == null) {
+            requeue(queue, waiter);
+            return;
+        }
+
+        long queueMs = System.currentTimeMillis() - waiter.enqueuedAt;
+        AdmissionTicket ticket = new AdmissionTicket(queue, lease, queueMs);
+        if (lease != NO_LEASE) {
+            leases.add(lease);
+        }
+        if (waiter.future.complete(ticket)) {
+            recordQueueTime("admitted", queueMs);
+            if (queueMs > 0) {
+                log.debug("Agent {} 的LLM调用排队 {}ms 后放行", queue.agentId, queueMs);
+            }
+        } else {
+            // 调用方已放弃
+            ticket.release();
+        }
+    }
+
+    /**
+     * 放回队首并暂停该 Agent leaseRetryMs，通知调度线程重新计算等待时间
+     */
+    private void requeue(AgentQueue queue, Waiter waiter) {
+        lock.lock();
+        try {
+            queue.inflight--;
+            inflight--;
+            queue.waiters.addFirst(waiter);
+            queued++;
+            queue.blockedUntil = System.currentTimeMillis() + proxyProperties.getAdmission().getLeaseRetryMs();
+            nextExpiryAt = Math.min(nextExpiryAt, waiter.deadline);
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 获取 Agent 的全局并发租约
+     *
+     * @return 租约；全局并发已满时返回 null；Redis 不可用时返回 NO_LEASE（降级放行）
+     */
+    private Lease acquireLease(String agentId, int limit, long ttlMs) {
+        String key = LEASE_KEY_PREFIX + agentId;
+        String member = IdUtil.fastSimpleUUID();
+        long now = System.currentTimeMillis();
+        try {
+            Long acquired = redisTemplate.execute(
+                    acquireLeaseScript,
+                    Collections.singletonList(key),
+                    String.valueOf(now),
+                    String.valueOf(limit),
+                    String.valueOf(now + ttlMs),
+                    member,
+                    String.valueOf(ttlMs * 2)
+            );
+            if (acquired == null) {
+                log.warn("Agent {} 并发租约脚本执行失败，降级为按本节点计数", agentId);
+                return NO_LEASE;
+            }
+            return acquired == 1 ? new Lease(key, member) : null;
+        } catch (Exception e) {
+            log.warn("Agent {} 获取并发租约失败，降级为按本节点计数: {}", agentId, e.getMessage());
+            return NO_LEASE;
+        }
+    }
+
+    /**
+     * 续期本节点持有的租约（按 Agent 分组，每个 Agent 一次写入）
+     */
+    private void renewLeases() {
+        if (leases.isEmpty()) {
+            return;
+        }
+        long ttlMs = proxyProperties.getAdmission().getLeaseTtlMs();
+        String expireAt = String.valueOf(System.currentTimeMillis() + ttlMs);
+        Map<String, List<String>> byKey = leases.stream()
+                .collect(Collectors.groupingBy(Lease::key, Collectors.mapping(Lease::member, Collectors.toList())));
+        byKey.forEach((key, members) -> {
+            List<String> args = new ArrayList<>(members.size() * 2 + 1);
+            args.add(String.valueOf(ttlMs * 2));
+            for (String member : members) {
+                args.add(expireAt);
+                args.add(member);
+            }
+            try {
+                redisTemplate.execute(renewLeasesScript, Collections.singletonList(key), args.toArray());
+            } catch (Exception e) {
+                log.warn("续期并发租约失败，key: {}, error: {}", key, e.getMessage());
+            }
+        });
+    }
+
+    private int resolveWeight(AgentDTO agent, ProxyProperties.Admission config) {
+        if (agent.getSchedulingWeight() != null && agent.getSchedulingWeight() > 0) {
+            return agent.getSchedulingWeight();
+        }
+        Integer weight = agent.getEnvironment() != null ? config.getEnvironmentWeights().get(agent.getEnvironment()) : null;
+        return weight != null && weight > 0 ? weight : 1;
+    }
+
+    private int resolveLimit(AgentDTO agent, ProxyProperties.Admission config) {
+        if (agent.getMaxConcurrency() != null && agent.getMaxConcurrency() > 0) {
+            return agent.getMaxConcurrency();
+        }
+        return config.getDefaultAgentConcurrency() > 0 ? config.getDefaultAgentConcurrency() : UNLIMITED;
+    }
+
+    /**
+     * 记录排队时间（只按结果区分，不按 Agent 打标签，避免指标数量随 Agent 数增长）
+     */
+    private void recordQueueTime(String outcome, long queueMs) {
+        Timer.builder(QUEUE_TIMER)
+                .description("LLM调用准入排队时间")
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry)
+                .record(queueMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 全局并发租约
+     */
+    private record Lease(String key, String member) {
+    }
+
+    /**
+     * 排队中的请求
+     */
+    private static final class Waiter {
+
+        private final String agentId;
+
+        private final long enqueuedAt;
+
+        private final long deadline;
+
+        private final CompletableFuture<Ticket> future = new CompletableFuture<>();
+
+        /** 开始标签 */
+        private double start;
+
+        /** 结束标签 */
+        private double finish;
+
+        private Waiter(String agentId, long enqueuedAt, long deadline) {
+            this.agentId = agentId;
+            this.enqueuedAt = enqueuedAt;
+            this.deadline = deadline;
+        }
+    }
+
+    /**
+     * 单个 Agent 的调度队列（lock 保护）
+     */
+    private static final class AgentQueue {
+
+        private final String agentId;
+
+        private final Deque<Waiter> waiters = new ArrayDeque<>();
+
+        private int weight = 1;
+
+        private int limit = 1;
+
+        /** 本节点进行中的调用数 */
+        private int inflight;
+
+        /** 最近入队请求的结束标签 */
+        private double lastFinish;
+
+        /** 全局并发已满时暂停到该时间 */
+        private long blockedUntil;
+
+        private AgentQueue(String agentId) {
+            this.agentId = agentId;
+        }
+
+        private boolean isIdle() {
+            return waiters.isEmpty() && inflight == 0;
+        }
+    }
+
+    /**
+     * 准入凭证
+     */
+    private final class AdmissionTicket implements Ticket {
+
+        private final AgentQueue queue;
+
+        private final Lease lease;
+
+        private final long queueMs;
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private AdmissionTicket(AgentQueue queue, Lease lease, long queueMs) {
+            this.queue = queue;
+            this.lease = lease;
+            this.queueMs = queueMs;
+        }
+
+        @Override
+        public long getQueueMs() {
+            return queueMs;
+        }
+
+        @Override
+        public void release() {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            if (lease != NO_LEASE) {
+                leases.remove(lease);
+                try {
+                    redisTemplate.opsForZSet().remove(lease.key(), lease.member());
+                } catch (Exception e) {
+                    log.warn("释放并发租约失败，将在有效期后自动失效，key: {}, error: {}", lease.key(), e.getMessage());
+                }
+            }
+            lock.lock();
+            try {
+                queue.inflight--;
+                inflight--;
+                if (queue.isIdle()) {
+                    queues.remove(queue.agentId, queue);
+                }
+                changed.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.agentguard.proxy.cache;
+
+import com.agentguard.policy.dto.CacheOverrideDTO;
+import com.agentguard.proxy.dto.ProxyRequestDTO;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+import java.util.function.Function;
+
+/**
+ * API 代理 HTTP 响应缓存接口
+ * <p>
+ * 按 RFC 9111 共享缓存语义工作：GET 请求的新鲜缓存响应直接返回，过期后带条件请求头重新验证（304 时沿用缓存的响应体），
+ * 不安全方法（POST/PUT/DELETE 等）成功后使目标地址的缓存失效。
+ *
+ * @author zhuhx
+ */
+public interface HttpResponseCache {
+
+    /**
+     * 经缓存转发请求
+     *
+     * @param agentId Agent ID
+     * @param request 代理请求
+     * @param override 匹配策略的缓存覆盖配置（可选）
+     * @param forwarder 转发请求到目标服务：参数为需要附加的请求头（如条件请求头），返回目标服务的响应，4xx/5xx 以异常抛出
+     * @return 响应及缓存状态
+     */
+    CacheResult exchange(String agentId, ProxyRequestDTO request, CacheOverrideDTO override,
+                         Function<HttpHeaders, ResponseEntity<String>> forwarder);
+
+    /**
+     * 使目标地址的缓存失效（未经缓存转发的不安全方法请求成功后调用）
+     *
+     * @param url 目标地址
+     */
+    void invalidate(String url);
+
+    /**
+     * 缓存状态
+     */
+    enum CacheStatus {
+
+        /** 返回新鲜的缓存响应，未请求目标服务 */
+        HIT,
+
+        /** 重新验证时目标服务出错，按 stale-if-error 返回过期的缓存响应 */
+        STALE,
+
+        /** 缓存响应已过期，目标服务返回 304，沿用缓存的响应体 */
+        REVALIDATED,
+
+        /** 未命中，请求目标服务 */
+        MISS,
+
+        /** 不经过缓存（不可缓存的请求或缓存被禁用） */
+        BYPASS,
+
+        /** 请求要求 only-if-cached 但没有可用的缓存响应，返回 504，未请求目标服务 */
+        UNAVAILABLE
+    }
+
+    /**
+     * 缓存转发结果
+     *
+     * @param response 响应
+     * @param status 缓存状态
+     */
+    record CacheResult(ResponseEntity<String> response, CacheStatus status) {
+    }
+}
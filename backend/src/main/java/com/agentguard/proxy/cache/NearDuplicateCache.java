@@ -0,0 +1,61 @@
+package com.agentguard.proxy.cache;
+
+import com.agentguard.agent.dto.AgentDTO;
+import com.agentguard.policy.dto.PromptCacheOverrideDTO;
+import com.agentguard.proxy.dto.LlmResponseSummaryDTO;
+import com.agentguard.proxy.dto.ProxyResponseDTO;
+import com.agentguard.proxy.parser.RawJsonObject;
+
+/**
+ * 相似提示词响应缓存接口
+ * <p>
+ * 只比较提示词内容的相似度，不要求完全相同：只差时间戳、请求ID或空白的提示词也能命中。
+ * 完全在本地计算（MinHash + LSH），不依赖向量嵌入服务。
+ *
+ * @author zhuhx
+ */
+public interface NearDuplicateCache {
+
+    /**
+     * 计算请求的签名
+     *
+     * @param agent Agent信息
+     * @param body 请求体
+     * @param override 匹配策略的相似提示词缓存覆盖配置（可选），设置了 enabled 时取代 Agent 的开关
+     * @return 签名；未启用缓存、Agent（或策略）未开启或请求无法缓存（如消息内容过长）时返回 null
+     */
+    Signature sign(AgentDTO agent, RawJsonObject body, PromptCacheOverrideDTO override);
+
+    /**
+     * 查找相似请求的缓存响应
+     *
+     * @param signature 请求签名
+     * @return 相似度最高且不低于阈值的缓存响应，没有时返回 null
+     */
+    Hit get(Signature signature);
+
+    /**
+     * 缓存响应；已有相似度不低于阈值的条目时替换该条目
+     *
+     * @param signature 请求签名
+     * @param response 代理响应
+     * @param summary 响应摘要（可选）
+     */
+    void put(Signature signature, ProxyResponseDTO response, LlmResponseSummaryDTO summary);
+
+    /**
+     * 请求签名
+     */
+    interface Signature {
+    }
+
+    /**
+     * 命中的缓存响应
+     *
+     * @param response 代理响应
+     * @param summary 响应摘要（可选）
+     * @param similarity 与缓存请求的相似度（0-1）
+     */
+    record Hit(ProxyResponseDTO response, LlmResponseSummaryDTO summary, double similarity) {
+    }
+}
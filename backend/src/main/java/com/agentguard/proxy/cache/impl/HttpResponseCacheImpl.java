@@ -0,0 +1,688 @@
+package com.agentguard.proxy.cache.impl;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import cn.hutool.json.JSONUtil;
+import com.agentguard.policy.dto.CacheOverrideDTO;
+import com.agentguard.proxy.cache.HttpResponseCache;
+import com.agentguard.proxy.config.ProxyProperties;
+import com.agentguard.proxy.dto.ProxyRequestDTO;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * API 代理 HTTP 响应缓存实现类
+ * <p>
+ * 缓存键为目标地址，同一地址按 Vary 指定的请求头（以及未共享时的 Agent）区分变体。
+ * 新鲜期依次取 s-maxage、max-age、Expires - Date，都没有时按 Last-Modified 启发式计算；当前年龄按 RFC 9111 4.2.3 计算。
+ * 请求带 Authorization 时只缓存明确允许共享的响应（public、s-maxage、must-revalidate）。
+ * 内存层按地址做 LRU 淘汰，总字节数不超过上限；启用 Redis 层时写穿到 Redis，内存未命中时从 Redis 加载。
+ *
+ * @author zhuhx
+ */
+@Slf4j
+@Component
+public class HttpResponseCacheImpl implements HttpResponseCache {
+
+    private static final String REDIS_KEY_PREFIX = "http_cache:";
+
+    /** 安全方法，其余方法成功后使目标地址的缓存失效 */
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS", "TRACE");
+
+    /**
+     * 默认可缓存（可使用启发式新鲜期）的状态码（RFC 9110 15.1）。
+     * 只保留 2xx、3xx：4xx、5xx 响应由转发方以异常返回，不会进入缓存
+     */
+    private static final Set<Integer> HEURISTICALLY_CACHEABLE = Set.of(200, 203, 204, 300, 301, 308);
+
+    /** 客户端自带条件请求头时不经过缓存，直接透传 */
+    private static final List<String> CONDITIONAL_HEADERS = List.of(
+            HttpHeaders.IF_NONE_MATCH, HttpHeaders.IF_MODIFIED_SINCE, HttpHeaders.IF_MATCH,
+            HttpHeaders.IF_UNMODIFIED_SINCE, HttpHeaders.IF_RANGE, HttpHeaders.RANGE);
+
+    /** 304 响应中不用于更新缓存响应头的字段 */
+    private static final Set<String> NON_UPDATABLE_HEADERS = Set.of("content-length", "content-encoding",
+            "transfer-encoding", "connection");
+
+    private final ProxyProperties proxyProperties;
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final MeterRegistry meterRegistry;
+
+    /** 目标地址 -> 各变体（按访问顺序，最久未使用的在前） */
+    private final LinkedHashMap<String, List<StoredResponse>> slots = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** 内存层占用的字节数 */
+    private long memoryBytes;
+
+    public HttpResponseCacheImpl(ProxyProperties proxyProperties, StringRedisTemplate redisTemplate,
+                                 MeterRegistry meterRegistry) {
+        this.proxyProperties = proxyProperties;
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 注册内存层占用字节数指标
+     */
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("agentguard.proxy.http_cache.bytes", this, cache -> cache.memoryBytes)
+                .description("API 代理响应缓存内存层占用的字节数")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public CacheResult exchange(String agentId, ProxyRequestDTO request, CacheOverrideDTO override,
+                                Function<HttpHeaders, ResponseEntity<String>> forwarder) {
+        ProxyProperties.HttpCache config = proxyProperties.getHttpCache();
+        String method = StrUtil.blankToDefault(request.getMethod(), "GET").toUpperCase(Locale.ROOT);
+        if (!config.isEnabled()) {
+            return new CacheResult(forwarder.apply(new HttpHeaders()), CacheStatus.BYPASS);
+        }
+        if (!SAFE_METHODS.contains(method)) {
+            // 不安全方法成功后使目标地址及 Location、Content-Location 指向的同源地址失效（RFC 9111 4.4）
+            ResponseEntity<String> response = forwarder.apply(new HttpHeaders());
+            invalidate(request.getTargetUrl());
+            invalidateSameOrigin(request.getTargetUrl(), response.getHeaders().getFirst(HttpHeaders.LOCATION));
+            invalidateSameOrigin(request.getTargetUrl(), response.getHeaders().getFirst(HttpHeaders.CONTENT_LOCATION));
+            return new CacheResult(response, CacheStatus.BYPASS);
+        }
+        if (!"GET".equals(method) || CollUtil.isNotEmpty(request.getBody())
+                || (override != null && Boolean.FALSE.equals(override.getEnabled()))
+                || CONDITIONAL_HEADERS.stream().anyMatch(name -> header(request.getHeaders(), name) != null)) {
+            return new CacheResult(forwarder.apply(new HttpHeaders()), CacheStatus.BYPASS);
+        }
+
+        Map<String, String> requestDirectives = requestDirectives(request.getHeaders());
+        String url = request.getTargetUrl();
+        String partition = config.isShareAcrossAgents() ? "*" : agentId;
+        long now = System.currentTimeMillis();
+        StoredResponse stored = lookup(url, partition, request.getHeaders(), now);
+
+        if (stored != null && canServe(stored, requestDirectives, override, now)) {
+            return result(toEntity(stored), CacheStatus.HIT);
+        }
+        if (requestDirectives.containsKey("only-if-cached")) {
+            // 只允许使用缓存但没有可用的缓存响应时返回 504，不请求目标服务（RFC 9111 5.2.1.7）
+            return result(ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).build(), CacheStatus.UNAVAILABLE);
+        }
+
+        // 有验证器时带条件请求头重新验证
+        HttpHeaders conditional = new HttpHeaders();
+        if (stored != null) {
+            String etag = stored.getHeaders().get("etag");
+            String lastModified = stored.getHeaders().get("last-modified");
+            if (etag != null) {
+                conditional.set(HttpHeaders.IF_NONE_MATCH, etag);
+            } else if (lastModified != null) {
+                conditional.set(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+            }
+        }
+
+        long requestTime = System.currentTimeMillis();
+        ResponseEntity<String> response;
+        try {
+            response = forwarder.apply(conditional);
+        } catch (RuntimeException e) {
+            if (stored != null && isServerError(e) && canServeStaleOnError(stored, requestDirectives, override)) {
+                log.info("目标服务出错，按 stale-if-error 返回过期的缓存响应: {}", url);
+                return result(toEntity(stored), CacheStatus.STALE);
+            }
+            throw e;
+        }
+        long responseTime = System.currentTimeMillis();
+
+        if (stored != null && response.getStatusCode().value() == 304 && !conditional.isEmpty()) {
+            // 按 304 响应头更新缓存的响应（RFC 9111 4.3.4），沿用缓存的响应体
+            StoredResponse refreshed = stored.freshen(response.getHeaders(), requestTime, responseTime);
+            if (!requestDirectives.containsKey("no-store")) {
+                store(url, refreshed, request, override);
+            }
+            return result(toEntity(refreshed), CacheStatus.REVALIDATED);
+        }
+
+        if (!requestDirectives.containsKey("no-store")) {
+            StoredResponse candidate = StoredResponse.of(partition, response, request.getHeaders(), requestTime, responseTime);
+            if (isStorable(candidate, request, override, config)) {
+                store(url, candidate, request, override);
+            }
+        }
+        return result(response, CacheStatus.MISS);
+    }
+
+    private CacheResult result(ResponseEntity<String> response, CacheStatus status) {
+        Counter.builder("agentguard.proxy.http_cache")
+                .description("API 代理响应缓存查找结果")
+                .tag("result", status.name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry)
+                .increment();
+        return new CacheResult(response, status);
+    }
+
+    /**
+     * 能否直接返回缓存响应（不请求目标服务）
+     */
+    private boolean canServe(StoredResponse stored, Map<String, String> requestDirectives, CacheOverrideDTO override, long now) {
+        Map<String, String> responseDirectives = stored.directives();
+        boolean ttlOverridden = override != null && override.getTtlSeconds() != null;
+        if (requestDirectives.containsKey("no-cache") || (responseDirectives.containsKey("no-cache") && !ttlOverridden)) {
+            return false;
+        }
+        long age = stored.currentAge(now);
+        long lifetime = freshnessLifetime(stored, override);
+        Long maxAge = seconds(requestDirectives.get("max-age"));
+        if (maxAge != null && age > maxAge * 1000) {
+            return false;
+        }
+        Long minFresh = seconds(requestDirectives.get("min-fresh"));
+        if (minFresh != null && lifetime - age < minFresh * 1000) {
+            return false;
+        }
+        if (lifetime > age) {
+            return true;
+        }
+        // 已过期：客户端允许使用过期响应（max-stale）且响应没有要求必须重新验证时可返回
+        if (!requestDirectives.containsKey("max-stale") || mustRevalidate(responseDirectives)) {
+            return false;
+        }
+        Long maxStale = seconds(requestDirectives.get("max-stale"));
+        return maxStale == null || age - lifetime <= maxStale * 1000;
+    }
+
+    /**
+     * 目标服务出错时能否返回过期的缓存响应（RFC 5861 stale-if-error）
+     */
+    private boolean canServeStaleOnError(StoredResponse stored, Map<String, String> requestDirectives,
+                                         CacheOverrideDTO override) {
+        Long window = seconds(requestDirectives.get("stale-if-error"));
+        if (window == null) {
+            window = seconds(stored.directives().get("stale-if-error"));
+        }
+        if (window == null || mustRevalidate(stored.directives())) {
+            return false;
+        }
+        long staleness = stored.currentAge(System.currentTimeMillis()) - freshnessLifetime(stored, override);
+        return staleness <= window * 1000;
+    }
+
+    private boolean mustRevalidate(Map<String, String> responseDirectives) {
+        return responseDirectives.containsKey("must-revalidate") || responseDirectives.containsKey("proxy-revalidate")
+                || responseDirectives.containsKey("s-maxage");
+    }
+
+    private boolean isServerError(RuntimeException e) {
+        return e instanceof HttpServerErrorException || e instanceof ResourceAccessException
+                || e instanceof CallNotPermittedException;
+    }
+
+    /**
+     * 新鲜期（毫秒）：策略覆盖 > s-maxage > max-age > Expires - Date > 启发式（RFC 9111 4.2.1、4.2.2）
+     */
+    private long freshnessLifetime(StoredResponse stored, CacheOverrideDTO override) {
+        if (override != null && override.getTtlSeconds() != null) {
+            return override.getTtlSeconds() * 1000L;
+        }
+        Map<String, String> directives = stored.directives();
+        Long sMaxAge = seconds(directives.get("s-maxage"));
+        if (sMaxAge != null) {
+            return sMaxAge * 1000;
+        }
+        Long maxAge = seconds(directives.get("max-age"));
+        if (maxAge != null) {
+            return maxAge * 1000;
+        }
+        String expires = stored.getHeaders().get("expires");
+        if (expires != null) {
+            long expiresAt = parseHttpDate(expires);
+            return expiresAt < 0 ? 0 : Math.max(0, expiresAt - stored.dateValue());
+        }
+        String lastModified = stored.getHeaders().get("last-modified");
+        if (lastModified != null && (HEURISTICALLY_CACHEABLE.contains(stored.getStatusCode()) || directives.containsKey("public"))) {
+            long lastModifiedAt = parseHttpDate(lastModified);
+            if (lastModifiedAt > 0 && lastModifiedAt < stored.dateValue()) {
+                ProxyProperties.HttpCache config = proxyProperties.getHttpCache();
+                long heuristic = (stored.dateValue() - lastModifiedAt) * config.getHeuristicPercent() / 100;
+                return Math.min(heuristic, config.getMaxHeuristicSeconds() * 1000);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 响应能否存入共享缓存（RFC 9111 3、3.5）
+     */
+    private boolean isStorable(StoredResponse candidate, ProxyRequestDTO request, CacheOverrideDTO override,
+                               ProxyProperties.HttpCache config) {
+        int status = candidate.getStatusCode();
+        if (status < 200 || status >= 400 || status == 206 || status == 304) {
+            return false;
+        }
+        Map<String, String> directives = candidate.directives();
+        if (directives.containsKey("no-store") || directives.containsKey("private")) {
+            return false;
+        }
+        if (candidate.getVaryValues() == null) {
+            // Vary: * 的响应无法匹配任何后续请求
+            return false;
+        }
+        if (header(request.getHeaders(), HttpHeaders.AUTHORIZATION) != null && !directives.containsKey("public")
+                && !directives.containsKey("s-maxage") && !directives.containsKey("must-revalidate")) {
+            return false;
+        }
+        if (candidate.size() > config.getMaxEntryBytes()) {
+            return false;
+        }
+        boolean explicitlyCacheable = (override != null && override.getTtlSeconds() != null)
+                || directives.containsKey("public") || directives.containsKey("max-age")
+                || directives.containsKey("s-maxage") || candidate.getHeaders().containsKey("expires");
+        if (!explicitlyCacheable && !HEURISTICALLY_CACHEABLE.contains(status)) {
+            return false;
+        }
+        // 已过期且无法重新验证的响应没有保存价值
+        return freshnessLifetime(candidate, override) > candidate.currentAge(System.currentTimeMillis())
+                || candidate.hasValidator();
+    }
+
+    /**
+     * 查找与请求匹配的变体：内存层未命中且启用 Redis 层时从 Redis 加载
+     */
+    private StoredResponse lookup(String url, String partition, Map<String, String> requestHeaders, long now) {
+        List<StoredResponse> variants;
+        synchronized (this) {
+            variants = slots.get(url);
+            variants = variants != null ? new ArrayList<>(variants) : null;
+        }
+        if (variants == null && proxyProperties.getHttpCache().isRedisEnabled()) {
+            variants = loadFromRedis(url);
+            if (variants != null) {
+                synchronized (this) {
+                    if (!slots.containsKey(url)) {
+                        putSlot(url, new ArrayList<>(variants));
+                    }
+                }
+            }
+        }
+        if (variants == null) {
+            return null;
+        }
+        for (StoredResponse variant : variants) {
+            if (variant.getDiscardAt() > now && variant.getPartition().equals(partition)
+                    && variant.getVaryValues().equals(varyValues(variant.varyFields(), requestHeaders))) {
+                return variant;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 保存变体：替换同一变体，超出变体数或内存上限时淘汰
+     */
+    private void store(String url, StoredResponse response, ProxyRequestDTO request, CacheOverrideDTO override) {
+        ProxyProperties.HttpCache config = proxyProperties.getHttpCache();
+        long now = System.currentTimeMillis();
+        long remaining = Math.max(0, freshnessLifetime(response, override) - response.currentAge(now));
+        response.setDiscardAt(now + remaining + (response.hasValidator() ? config.getStaleRetentionMs() : 0));
+        if (response.getDiscardAt() <= now) {
+            return;
+        }
+
+        List<StoredResponse> snapshot;
+        synchronized (this) {
+            List<StoredResponse> variants = slots.remove(url);
+            if (variants != null) {
+                memoryBytes -= sizeOf(variants);
+            } else {
+                variants = new ArrayList<>();
+            }
+            variants.removeIf(variant -> variant.getDiscardAt() <= now || (variant.getPartition().equals(response.getPartition())
+                    && variant.getVaryValues().equals(varyValues(variant.varyFields(), request.getHeaders()))));
+            variants.add(response);
+            if (variants.size() > config.getMaxVariants()) {
+                variants.sort(Comparator.comparingLong(StoredResponse::getResponseTime));
+                variants = new ArrayList<>(variants.subList(variants.size() - config.getMaxVariants(), variants.size()));
+            }
+            putSlot(url, variants);
+            snapshot = new ArrayList<>(variants);
+        }
+        saveToRedis(url, snapshot);
+    }
+
+    /**
+     * 放入内存层并按总字节数淘汰最久未使用的地址（需持有锁）
+     */
+    private void putSlot(String url, List<StoredResponse> variants) {
+        slots.put(url, variants);
+        memoryBytes += sizeOf(variants);
+        long maxMemoryBytes = proxyProperties.getHttpCache().getMaxMemoryBytes();
+        Iterator<Map.Entry<String, List<StoredResponse>>> eldest = slots.entrySet().iterator();
+        while (memoryBytes > maxMemoryBytes && eldest.hasNext()) {
+            Map.Entry<String, List<StoredResponse>> entry = eldest.next();
+            if (entry.getKey().equals(url)) {
+                continue;
+            }
+            memoryBytes -= sizeOf(entry.getValue());
+            eldest.remove();
+        }
+    }
+
+    @Override
+    public void invalidate(String url) {
+        synchronized (this) {
+            List<StoredResponse> removed = slots.remove(url);
+            if (removed != null) {
+                memoryBytes -= sizeOf(removed);
+            }
+        }
+        if (proxyProperties.getHttpCache().isRedisEnabled()) {
+            try {
+                redisTemplate.delete(redisKey(url));
+            } catch (Exception e) {
+                log.warn("删除响应缓存失败，url: {}, error: {}", url, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Location、Content-Location 与请求地址同源时使其失效
+     */
+    private void invalidateSameOrigin(String requestUrl, String location) {
+        if (StrUtil.isBlank(location)) {
+            return;
+        }
+        try {
+            URI base = URI.create(requestUrl);
+            URI target = base.resolve(location);
+            if (Objects.equals(base.getScheme(), target.getScheme()) && Objects.equals(base.getHost(), target.getHost())
+                    && base.getPort() == target.getPort()) {
+                invalidate(target.toString());
+            }
+        } catch (IllegalArgumentException e) {
+            log.debug("忽略无效的 Location: {}", location);
+        }
+    }
+
+    private List<StoredResponse> loadFromRedis(String url) {
+        try {
+            String json = redisTemplate.opsForValue().get(redisKey(url));
+            return json != null ? JSONUtil.toList(json, StoredResponse.class) : null;
+        } catch (Exception e) {
+            log.warn("读取响应缓存失败，url: {}, error: {}", url, e.getMessage());
+            return null;
+        }
+    }
+
+    private void saveToRedis(String url, List<StoredResponse> variants) {
+        if (!proxyProperties.getHttpCache().isRedisEnabled()) {
+            return;
+        }
+        long ttlMs = variants.stream().mapToLong(StoredResponse::getDiscardAt).max().orElse(0) - System.currentTimeMillis();
+        if (ttlMs <= 0) {
+            return;
+        }
+        try {
+            redisTemplate.opsForValue().set(redisKey(url), JSONUtil.toJsonStr(variants), Duration.ofMillis(ttlMs));
+        } catch (Exception e) {
+            log.warn("写入响应缓存失败，url: {}, error: {}", url, e.getMessage());
+        }
+    }
+
+    private String redisKey(String url) {
+        return REDIS_KEY_PREFIX + DigestUtil.sha256Hex(url);
+    }
+
+    private static long sizeOf(List<StoredResponse> variants) {
+        return variants.stream().mapToLong(StoredResponse::size).sum();
+    }
+
+    /**
+     * 由缓存的响应生成返回给客户端的响应，Age 按当前年龄重新生成（RFC 9111 5.1）
+     */
+    private ResponseEntity<String> toEntity(StoredResponse stored) {
+        HttpHeaders headers = new HttpHeaders();
+        stored.getHeaders().forEach(headers::set);
+        headers.set(HttpHeaders.AGE, String.valueOf(stored.currentAge(System.currentTimeMillis()) / 1000));
+        return new ResponseEntity<>(stored.getBody(), headers, HttpStatusCode.valueOf(stored.getStatusCode()));
+    }
+
+    /**
+     * 请求的 Cache-Control 指令；没有 Cache-Control 但有 Pragma: no-cache 时按 no-cache 处理
+     */
+    private static Map<String, String> requestDirectives(Map<String, String> requestHeaders) {
+        String cacheControl = header(requestHeaders, HttpHeaders.CACHE_CONTROL);
+        if (cacheControl == null && "no-cache".equalsIgnoreCase(StrUtil.trim(header(requestHeaders, HttpHeaders.PRAGMA)))) {
+            return Map.of("no-cache", "");
+        }
+        return parseDirectives(cacheControl);
+    }
+
+    /**
+     * 解析 Cache-Control 指令：指令名转小写，参数去掉引号
+     */
+    static Map<String, String> parseDirectives(String cacheControl) {
+        Map<String, String> directives = new HashMap<>();
+        if (StrUtil.isBlank(cacheControl)) {
+            return directives;
+        }
+        boolean quoted = false;
+        int start = 0;
+        for (int i = 0; i <= cacheControl.length(); i++) {
+            if (i < cacheControl.length()) {
+                char c = cacheControl.charAt(i);
+                if (c == '"') {
+                    quoted = !quoted;
+                }
+                if (c != ',' || quoted) {
+                    continue;
+                }
+            }
+            String directive = cacheControl.substring(start, i).trim();
+            start = i + 1;
+            if (directive.isEmpty()) {
+                continue;
+            }
+            int eq = directive.indexOf('=');
+            String name = (eq < 0 ? directive : directive.substring(0, eq)).trim().toLowerCase(Locale.ROOT);
+            String value = eq < 0 ? "" : StrUtil.unWrap(directive.substring(eq + 1).trim(), '"');
+            directives.putIfAbsent(name, value);
+        }
+        return directives;
+    }
+
+    /**
+     * 解析秒数参数，没有参数或无法解析时返回 null
+     */
+    private static Long seconds(String value) {
+        if (StrUtil.isBlank(value)) {
+            return null;
+        }
+        try {
+            return Math.max(0, Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 解析 HTTP 日期（IMF-fixdate），无法解析时返回 -1
+     */
+    static long parseHttpDate(String value) {
+        try {
+            return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 忽略大小写读取请求头
+     */
+    private static String header(Map<String, String> headers, String name) {
+        if (headers == null) {
+            return null;
+        }
+        for (Map.Entry<String, String> entry : headers.entrySet()) {
+            if (name.equalsIgnoreCase(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 请求在 Vary 各字段上的取值（合并空白），用于匹配变体
+     */
+    private static Map<String, String> varyValues(List<String> varyFields, Map<String, String> requestHeaders) {
+        Map<String, String> values = new HashMap<>();
+        for (String field : varyFields) {
+            String value = header(requestHeaders, field);
+            values.put(field, value == null ? "" : value.trim().replaceAll("\\s+", " "));
+        }
+        return values;
+    }
+
+    /**
+     * 缓存的响应（可序列化到 Redis）
+     */
+    @Data
+    public static class StoredResponse {
+
+        /** 所属分区：Agent ID，Agent 间共享时为 * */
+        private String partition;
+
+        private int statusCode;
+
+        private String body;
+
+        /** 响应头（字段名小写，多值以逗号合并） */
+        private Map<String, String> headers;
+
+        /** 请求在 Vary 各字段上的取值，Vary: * 时为 null */
+        private Map<String, String> varyValues;
+
+        /** 发出请求的时间（毫秒时间戳） */
+        private long requestTime;
+
+        /** 收到响应的时间（毫秒时间戳） */
+        private long responseTime;
+
+        /** 丢弃时间（毫秒时间戳）：新鲜期结束，有验证器时再保留一段时间用于重新验证 */
+        private long discardAt;
+
+        static StoredResponse of(String partition, ResponseEntity<String> response, Map<String, String> requestHeaders,
+                                 long requestTime, long responseTime) {
+            StoredResponse stored = new StoredResponse();
+            stored.setPartition(partition);
+            stored.setStatusCode(response.getStatusCode().value());
+            stored.setBody(response.getBody());
+            Map<String, String> headers = new LinkedHashMap<>();
+            response.getHeaders().forEach((name, values) -> headers.put(name.toLowerCase(Locale.ROOT), String.join(", ", values)));
+            stored.setHeaders(headers);
+            stored.setRequestTime(requestTime);
+            stored.setResponseTime(responseTime);
+            List<String> varyFields = stored.varyFields();
+            stored.setVaryValues(varyFields.contains("*") ? null : varyValues(varyFields, requestHeaders));
+            return stored;
+        }
+
+        /**
+         * 按 304 响应头更新，返回新的缓存响应
+         */
+        StoredResponse freshen(HttpHeaders notModified, long requestTime, long responseTime) {
+            StoredResponse refreshed = new StoredResponse();
+            refreshed.setPartition(partition);
+            refreshed.setStatusCode(statusCode);
+            refreshed.setBody(body);
+            Map<String, String> merged = new LinkedHashMap<>(headers);
+            notModified.forEach((name, values) -> {
+                String key = name.toLowerCase(Locale.ROOT);
+                if (!NON_UPDATABLE_HEADERS.contains(key)) {
+                    merged.put(key, String.join(", ", values));
+                }
+            });
+            refreshed.setHeaders(merged);
+            refreshed.setVaryValues(varyValues);
+            refreshed.setRequestTime(requestTime);
+            refreshed.setResponseTime(responseTime);
+            return refreshed;
+        }
+
+        Map<String, String> directives() {
+            return parseDirectives(headers.get("cache-control"));
+        }
+
+        List<String> varyFields() {
+            String vary = headers.get("vary");
+            if (StrUtil.isBlank(vary)) {
+                return List.of();
+            }
+            return StrUtil.split(vary, ',', true, true).stream().map(field -> field.toLowerCase(Locale.ROOT)).toList();
+        }
+
+        boolean hasValidator() {
+            return headers.containsKey("etag") || headers.containsKey("last-modified");
+        }
+
+        /**
+         * Date 响应头，没有或无法解析时取收到响应的时间
+         */
+        long dateValue() {
+            String date = headers.get("date");
+            long value = date != null ? parseHttpDate(date) : -1;
+            return value > 0 ? value : responseTime;
+        }
+
+        /**
+         * 当前年龄（毫秒，RFC 9111 4.2.3）
+         */
+        long currentAge(long now) {
+            Long ageValue = seconds(headers.get("age"));
+            long apparentAge = Math.max(0, responseTime - dateValue());
+            long correctedAgeValue = (ageValue != null ? ageValue * 1000 : 0) + (responseTime - requestTime);
+            return Math.max(apparentAge, correctedAgeValue) + (now - responseTime);
+        }
+
+        /**
+         * 占用字节数（估算）
+         */
+        long size() {
+            long size = body != null ? body.getBytes(StandardCharsets.UTF_8).length : 0;
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                size += header.getKey().length() + header.getValue().length();
+            }
+            return size;
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package com.agentguard.proxy.cache.impl;
+
+import com.agentguard.agent.dto.AgentDTO;
+import com.agentguard.policy.dto.PromptCacheOverrideDTO;
+import com.agentguard.proxy.cache.NearDuplicateCache;
+import com.agentguard.proxy.config.ProxyProperties;
+import com.agentguard.proxy.dto.LlmResponseSummaryDTO;
+import com.agentguard.proxy.dto.ProxyResponseDTO;
+import com.agentguard.proxy.parser.RawJsonObject;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * 基于 MinHash + LSH 的相似提示词响应缓存实现类
+ * <p>
+ * 消息内容规范化（小写、合并空白）后按字符 k-gram 分片，计算 MinHash 签名：两个签名相同位置取值相等的比例
+ * 即 Jaccard 相似度的估计值。签名按段（band）哈希进 LSH 桶，至少一段完全相同的缓存条目才作为候选，
+ * 查找开销与缓存条目数无关。最后一条消息和之前的上下文分别计算签名，避免很长的系统提示词掩盖问题本身的差异。
+ * 模型、工具等其余请求参数按原始字节计算指纹（不解析），只在指纹相同的条目中查找。缓存条目数有上限，超出时淘汰最久未命中的条目。
+ *
+ * @author zhuhx
+ */
+@Slf4j
+@Component
+public class MinHashNearDuplicateCache implements NearDuplicateCache {
+
+    /** 不参与参数指纹的字段：消息单独比较相似度，其余为转发时改写或与响应内容无关的字段 */
+    private static final Set<String> NON_PARAMETER_FIELDS = Set.of("messages", "model", "stream", "stream_options", "user");
+
+    /** 生成 MinHash 哈希函数种子的固定种子 */
+    private static final long SEED = 0x5DEECE66DL;
+
+    /** 按键名排序输出，用于序列化非文本消息内容 */
+    private static final ObjectMapper CANONICAL_MAPPER = new ObjectMapper()
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+
+    private final ProxyProperties proxyProperties;
+
+    private final MeterRegistry meterRegistry;
+
+    /** 分片长度、签名长度和每段哈希值个数在启动时确定，保证签名之间可比较 */
+    private final int shingleSize;
+
+    private final long[] seeds;
+
+    private final int rows;
+
+    /** 缓存条目（按访问顺序，最久未命中的在前） */
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** LSH 桶：段哈希 -> 缓存条目 */
+    private final Map<Long, List<Entry>> buckets = new HashMap<>();
+
+    private long nextId;
+
+    public MinHashNearDuplicateCache(ProxyProperties proxyProperties, MeterRegistry meterRegistry) {
+        this.proxyProperties = proxyProperties;
+        this.meterRegistry = meterRegistry;
+        ProxyProperties.PromptCache config = proxyProperties.getPromptCache();
+        if (config.getBands() <= 0 || config.getNumHashes() % config.getBands() != 0) {
+            throw new IllegalStateException("相似提示词缓存的签名长度需为分段数的整数倍: numHashes="
+                    + config.getNumHashes() + ", bands=" + config.getBands());
+        }
+        this.shingleSize = Math.max(1, config.getShingleSize());
+        this.rows = config.getNumHashes() / config.getBands();
+        this.seeds = new long[config.getNumHashes()];
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = 0; i < seeds.length; i++) {
+            seeds[i] = random.nextLong();
+        }
+    }
+
+    /**
+     * 注册缓存条目数指标
+     */
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("agentguard.llm.prompt_cache.size", this, cache -> cache.entries.size())
+                .description("相似提示词缓存条目数")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Signature sign(AgentDTO agent, RawJsonObject body, PromptCacheOverrideDTO override) {
+        ProxyProperties.PromptCache config = proxyProperties.getPromptCache();
+        Boolean enabled = override != null && override.getEnabled() != null
+                ? override.getEnabled() : agent.getPromptCacheEnabled();
+        if (!config.isEnabled() || !Boolean.TRUE.equals(enabled) || body == null) {
+            return null;
+        }
+        try {
+            // 只解析 messages 字段（策略评估已解析时直接复用），其余参数按原始字节计算指纹
+            if (!(body.get("messages") instanceof List<?> messages) || messages.isEmpty()) {
+                return null;
+            }
+            StringBuilder context = new StringBuilder();
+            for (int i = 0; i < messages.size() - 1; i++) {
+                appendMessage(context, messages.get(i));
+            }
+            StringBuilder query = new StringBuilder();
+            appendMessage(query, messages.get(messages.size() - 1));
+            if (context.length() + query.length() > config.getMaxPromptChars()) {
+                return null;
+            }
+
+            String partition = agent.getId() + ":" + agent.getLlmModel() + ":" + body.digest(NON_PARAMETER_FIELDS);
+            return new MinHashSignature(partition, minHash(normalize(query)), minHash(normalize(context)));
+        } catch (Exception e) {
+            log.debug("请求体无法计算相似度签名，不使用缓存: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public Hit get(Signature signature) {
+        MinHashSignature target = (MinHashSignature) signature;
+        long[] bandKeys = bandKeys(target);
+        Hit hit = null;
+        synchronized (this) {
+            Match match = findBest(target, bandKeys);
+            if (match != null) {
+                entries.get(match.entry().id);
+                hit = new Hit(match.entry().response, match.entry().summary, match.similarity());
+            }
+        }
+        Counter.builder("agentguard.llm.prompt_cache")
+                .description("相似提示词缓存查找次数")
+                .tag("result", hit != null ? "hit" : "miss")
+                .register(meterRegistry)
+                .increment();
+        return hit;
+    }
+
+    @Override
+    public void put(Signature signature, ProxyResponseDTO response, LlmResponseSummaryDTO summary) {
+        MinHashSignature target = (MinHashSignature) signature;
+        long[] bandKeys = bandKeys(target);
+        ProxyProperties.PromptCache config = proxyProperties.getPromptCache();
+        Entry entry = new Entry(target, bandKeys, response, summary, System.currentTimeMillis() + config.getTtlMs());
+        synchronized (this) {
+            // 已有相似条目时替换，避免同一问题占用多个条目
+            Match match = findBest(target, bandKeys);
+            if (match != null) {
+                remove(match.entry());
+            }
+            entry.id = nextId++;
+            entries.put(entry.id, entry);
+            for (long bandKey : bandKeys) {
+                buckets.computeIfAbsent(bandKey, key -> new ArrayList<>(1)).add(entry);
+            }
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (entries.size() > config.getMaxEntries() && eldest.hasNext()) {
+                Entry evicted = eldest.next();
+                eldest.remove();
+                removeFromBuckets(evicted);
+            }
+        }
+    }
+
+    /**
+     * 在候选条目中查找相似度最高且不低于阈值的条目，顺带移除过期条目
+     */
+    private Match findBest(MinHashSignature target, long[] bandKeys) {
+        double threshold = proxyProperties.getPromptCache().getSimilarityThreshold();
+        long now = System.currentTimeMillis();
+        Set<Entry> candidates = new LinkedHashSet<>();
+        for (long bandKey : bandKeys) {
+            List<Entry> bucket = buckets.get(bandKey);
+            if (bucket != null) {
+                candidates.addAll(bucket);
+            }
+        }
+
+        Match best = null;
+        List<Entry> expired = new ArrayList<>();
+        for (Entry candidate : candidates) {
+            if (candidate.expiresAt <= now) {
+                expired.add(candidate);
+                continue;
+            }
+            if (!candidate.signature.partition().equals(target.partition())) {
+                continue;
+            }
+            double similarity = Math.min(
+                    similarity(candidate.signature.query(), target.query()),
+                    similarity(candidate.signature.context(), target.context()));
+            if (similarity >= threshold && (best == null || similarity > best.similarity())) {
+                best = new Match(candidate, similarity);
+            }
+        }
+        expired.forEach(this::remove);
+        return best;
+    }
+
+    private void remove(Entry entry) {
+        entries.remove(entry.id);
+        removeFromBuckets(entry);
+    }
+
+    private void removeFromBuckets(Entry entry) {
+        for (long bandKey : entry.bandKeys) {
+            List<Entry> bucket = buckets.get(bandKey);
+            if (bucket != null && bucket.remove(entry) && bucket.isEmpty()) {
+                buckets.remove(bandKey);
+            }
+        }
+    }
+
+    /**
+     * 将一条消息的角色、文本内容和工具调用追加为一行；非文本内容（如图片）按规范化 JSON 追加
+     */
+    private void appendMessage(StringBuilder text, Object message) throws JsonProcessingException {
+        if (!(message instanceof Map<?, ?> map)) {
+            text.append(CANONICAL_MAPPER.writeValueAsString(message)).append('\n');
+            return;
+        }
+        text.append(map.get("role")).append(": ");
+        Object content = map.get("content");
+        if (content instanceof String str) {
+            text.append(str);
+        } else if (content instanceof List<?> parts) {
+            for (Object part : parts) {
+                if (part instanceof Map<?, ?> partMap && partMap.get("text") instanceof String partText) {
+                    text.append(partText).append(' ');
+                } else {
+                    text.append(CANONICAL_MAPPER.writeValueAsString(part)).append(' ');
+                }
+            }
+        }
+        if (map.get("tool_calls") instanceof List<?> toolCalls) {
+            for (Object toolCall : toolCalls) {
+                if (toolCall instanceof Map<?, ?> call && call.get("function") instanceof Map<?, ?> function) {
+                    text.append(' ').append(function.get("name")).append('(').append(function.get("arguments")).append(')');
+                }
+            }
+        }
+        text.append('\n');
+    }
+
+    /**
+     * 规范化文本：转小写，连续空白合并为一个空格
+     */
+    private String normalize(CharSequence text) {
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = normalized.length() > 0;
+            } else {
+                if (pendingSpace) {
+                    normalized.append(' ');
+                    pendingSpace = false;
+                }
+                normalized.append(Character.toLowerCase(c));
+            }
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * 计算 MinHash 签名：每个哈希函数取所有分片哈希值的最小值
+     */
+    private long[] minHash(String text) {
+        long[] signature = new long[seeds.length];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        if (text.length() <= shingleSize) {
+            update(signature, hashShingle(text, 0, text.length()));
+            return signature;
+        }
+        for (int i = 0; i + shingleSize <= text.length(); i++) {
+            update(signature, hashShingle(text, i, i + shingleSize));
+        }
+        return signature;
+    }
+
+    private void update(long[] signature, long shingleHash) {
+        for (int i = 0; i < seeds.length; i++) {
+            long value = mix(shingleHash ^ seeds[i]);
+            if (value < signature[i]) {
+                signature[i] = value;
+            }
+        }
+    }
+
+    /**
+     * 分片哈希（FNV-1a 64 位）
+     */
+    private long hashShingle(String text, int from, int to) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = from; i < to; i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * 各段的 LSH 桶键：参数指纹和段内哈希值共同决定
+     */
+    private long[] bandKeys(MinHashSignature signature) {
+        long[] query = signature.query();
+        int bands = query.length / rows;
+        long[] keys = new long[bands];
+        long partitionHash = signature.partition().hashCode();
+        for (int band = 0; band < bands; band++) {
+            long key = mix(partitionHash * 31 + band);
+            for (int row = 0; row < rows; row++) {
+                key = mix(key ^ query[band * rows + row]);
+            }
+            keys[band] = key;
+        }
+        return keys;
+    }
+
+    /**
+     * 估算 Jaccard 相似度：签名相同位置取值相等的比例
+     */
+    private static double similarity(long[] a, long[] b) {
+        int equal = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / a.length;
+    }
+
+    /**
+     * 64 位混合函数（SplitMix64）
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * MinHash 签名
+     *
+     * @param partition 参数指纹（Agent、模型及其余请求参数），只比较指纹相同的请求
+     * @param query 最后一条消息的签名
+     * @param context 之前所有消息的签名
+     */
+    private record MinHashSignature(String partition, long[] query, long[] context) implements Signature {
+    }
+
+    private record Match(Entry entry, double similarity) {
+    }
+
+    /**
+     * 缓存条目
+     */
+    private static final class Entry {
+
+        private long id;
+
+        private final MinHashSignature signature;
+
+        private final long[] bandKeys;
+
+        private final ProxyResponseDTO response;
+
+        private final LlmResponseSummaryDTO summary;
+
+        private final long expiresAt;
+
+        private Entry(MinHashSignature signature, long[] bandKeys, ProxyResponseDTO response,
+                      LlmResponseSummaryDTO summary, long expiresAt) {
+            this.signature = signature;
+            this.bandKeys = bandKeys;
+            this.response = response;
+            this.summary = summary;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.agentguard.proxy.circuit;
+
+import com.agentguard.proxy.dto.CircuitBreakerStatusDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 上游熔断器 Actuator 端点
+ * GET /actuator/circuitbreakers 返回本节点各上游主机的熔断器状态和窗口统计
+ *
+ * @author zhuhx
+ */
+@Component
+@Endpoint(id = "circuitbreakers")
+@RequiredArgsConstructor
+public class CircuitBreakerEndpoint {
+
+    private final UpstreamCircuitBreakers upstreamCircuitBreakers;
+
+    @ReadOperation
+    public List<CircuitBreakerStatusDTO> circuitBreakers() {
+        return upstreamCircuitBreakers.getStatus();
+    }
+}
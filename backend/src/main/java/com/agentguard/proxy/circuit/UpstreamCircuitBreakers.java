@@ -0,0 +1,78 @@
+package com.agentguard.proxy.circuit;
+
+import com.agentguard.proxy.dto.CircuitBreakerStatusDTO;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 上游熔断器接口
+ * <p>
+ * 按目标地址的主机（host:port）维护熔断器。熔断器打开时调用直接以
+ * {@link io.github.resilience4j.circuitbreaker.CallNotPermittedException} 失败，不建立连接、不等待超时。
+ * 只有 5xx、超时、连接失败计为失败；4xx 不影响熔断统计。
+ * 非流式 LLM 调用的耗时取决于生成长度，通过 *LongRunning 方法执行，不计入慢调用统计。
+ *
+ * @author zhuhx
+ */
+public interface UpstreamCircuitBreakers {
+
+    /**
+     * 在熔断器保护下执行阻塞调用
+     *
+     * @param url 目标地址
+     * @param call 调用
+     * @param <T> 结果类型
+     * @return 调用结果
+     */
+    <T> T execute(String url, Supplier<T> call);
+
+    /**
+     * 在熔断器保护下执行耗时取决于生成长度的阻塞调用（非流式 LLM 调用），只统计失败率，不计慢调用
+     *
+     * @param url 目标地址
+     * @param call 调用
+     * @param <T> 结果类型
+     * @return 调用结果
+     */
+    <T> T executeLongRunning(String url, Supplier<T> call);
+
+    /**
+     * 在熔断器保护下执行响应式调用，订阅时申请许可；取消订阅时归还许可，不计入统计
+     *
+     * @param url 目标地址
+     * @param call 调用
+     * @param <T> 结果类型
+     * @return 受保护的调用
+     */
+    <T> Mono<T> guard(String url, Mono<T> call);
+
+    /**
+     * 在熔断器保护下执行耗时取决于生成长度的响应式调用（非流式 LLM 调用），只统计失败率，不计慢调用
+     *
+     * @param url 目标地址
+     * @param call 调用
+     * @param <T> 结果类型
+     * @return 受保护的调用
+     */
+    <T> Mono<T> guardLongRunning(String url, Mono<T> call);
+
+    /**
+     * 在熔断器保护下执行流式调用，流结束时记录结果，慢调用按首个数据块的时间判断
+     *
+     * @param url 目标地址
+     * @param stream 流式调用
+     * @param <T> 元素类型
+     * @return 受保护的流
+     */
+    <T> Flux<T> guardStream(String url, Flux<T> stream);
+
+    /**
+     * 获取本节点全部熔断器的状态
+     *
+     * @return 熔断器状态列表，按主机排序
+     */
+    List<CircuitBreakerStatusDTO> getStatus();
+}
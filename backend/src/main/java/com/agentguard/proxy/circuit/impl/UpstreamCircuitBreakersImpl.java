@@ -0,0 +1,260 @@
+package com.agentguard.proxy.circuit.impl;
+
+import cn.hutool.core.util.StrUtil;
+import com.agentguard.common.exception.BusinessException;
+import com.agentguard.common.util.UpstreamErrorUtil;
+import com.agentguard.proxy.circuit.UpstreamCircuitBreakers;
+import com.agentguard.proxy.config.ProxyProperties;
+import com.agentguard.proxy.dto.CircuitBreakerStatusDTO;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 上游熔断器实现类
+ * <p>
+ * 基于 Resilience4j：时间滑动窗口统计失败率和慢调用率，任一超过阈值即打开（慢调用率阈值为 0 时不按慢调用打开）；
+ * 打开期间直接拒绝，等待时间到期后进入半开状态放行少量请求，据其结果关闭或重新打开。
+ * 熔断器在首次访问某个主机时创建，状态只在本节点内存中维护；数量达到上限时移除长时间未使用的关闭状态熔断器，
+ * 仍无空位时新主机不受熔断保护。
+ *
+ * @author zhuhx
+ */
+@Slf4j
+@Component
+public class UpstreamCircuitBreakersImpl implements UpstreamCircuitBreakers {
+
+    /** 关闭慢调用统计时使用的慢调用时间阈值 */
+    private static final Duration SLOW_CALL_DISABLED = Duration.ofDays(365);
+
+    private final ProxyProperties.CircuitBreaker config;
+
+    private final CircuitBreakerRegistry registry;
+
+    /** 熔断器名称 -> 最近使用时间（毫秒） */
+    private final Map<String, Long> lastUsedMillis = new ConcurrentHashMap<>();
+
+    public UpstreamCircuitBreakersImpl(ProxyProperties proxyProperties) {
+        this.config = proxyProperties.getCircuitBreaker();
+        boolean slowCallEnabled = config.getSlowCallRateThreshold() > 0;
+        this.registry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.TIME_BASED)
+                .slidingWindowSize(config.getWindowSeconds())
+                .minimumNumberOfCalls(config.getMinimumCalls())
+                .failureRateThreshold(config.getFailureRateThreshold())
+                .slowCallRateThreshold(slowCallEnabled ? config.getSlowCallRateThreshold() : 100)
+                .slowCallDurationThreshold(slowCallEnabled ? Duration.ofMillis(config.getSlowCallDurationMs()) : SLOW_CALL_DISABLED)
+                .waitDurationInOpenState(Duration.ofMillis(config.getOpenDurationMs()))
+                .permittedNumberOfCallsInHalfOpenState(config.getHalfOpenCalls())
+                .recordException(UpstreamErrorUtil::isUpstreamFailure)
+                // 4xx 和业务校验失败说明上游可达，既不算失败也不算成功
+                .ignoreException(error -> UpstreamErrorUtil.isClientError(error) || error instanceof BusinessException)
+                .build());
+        this.registry.getEventPublisher().onEntryAdded(event -> event.getAddedEntry().getEventPublisher()
+                .onStateTransition(transition -> log.warn("上游 {} 熔断器状态变更: {}",
+                        transition.getCircuitBreakerName(), transition.getStateTransition())));
+    }
+
+    @Override
+    public <T> T execute(String url, Supplier<T> call) {
+        return execute(url, call, true);
+    }
+
+    @Override
+    public <T> T executeLongRunning(String url, Supplier<T> call) {
+        return execute(url, call, false);
+    }
+
+    @Override
+    public <T> Mono<T> guard(String url, Mono<T> call) {
+        return guard(url, call, true);
+    }
+
+    @Override
+    public <T> Mono<T> guardLongRunning(String url, Mono<T> call) {
+        return guard(url, call, false);
+    }
+
+    /**
+     * @param timed 是否按耗时统计慢调用，不统计时按耗时 0 记录
+     */
+    private <T> T execute(String url, Supplier<T> call, boolean timed) {
+        CircuitBreaker circuitBreaker = circuitBreakerFor(url);
+        if (circuitBreaker == null) {
+            return call.get();
+        }
+        circuitBreaker.acquirePermission();
+        long start = System.nanoTime();
+        try {
+            T result = call.get();
+            circuitBreaker.onSuccess(elapsed(start, timed), TimeUnit.NANOSECONDS);
+            return result;
+        } catch (Throwable e) {
+            circuitBreaker.onError(elapsed(start, timed), TimeUnit.NANOSECONDS, e);
+            throw e;
+        }
+    }
+
+    private <T> Mono<T> guard(String url, Mono<T> call, boolean timed) {
+        return Mono.defer(() -> {
+            CircuitBreaker circuitBreaker = circuitBreakerFor(url);
+            if (circuitBreaker == null) {
+                return call;
+            }
+            circuitBreaker.acquirePermission();
+            long start = System.nanoTime();
+            AtomicBoolean recorded = new AtomicBoolean();
+            return call
+                    .doOnSuccess(value -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            circuitBreaker.onSuccess(elapsed(start, timed), TimeUnit.NANOSECONDS);
+                        }
+                    })
+                    .doOnError(error -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            circuitBreaker.onError(elapsed(start, timed), TimeUnit.NANOSECONDS, error);
+                        }
+                    })
+                    .doOnCancel(() -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            circuitBreaker.releasePermission();
+                        }
+                    });
+        });
+    }
+
+    @Override
+    public <T> Flux<T> guardStream(String url, Flux<T> stream) {
+        return Flux.defer(() -> {
+            CircuitBreaker circuitBreaker = circuitBreakerFor(url);
+            if (circuitBreaker == null) {
+                return stream;
+            }
+            circuitBreaker.acquirePermission();
+            long start = System.nanoTime();
+            AtomicLong firstElementNanos = new AtomicLong();
+            AtomicBoolean recorded = new AtomicBoolean();
+            return stream
+                    .doOnNext(element -> firstElementNanos.compareAndSet(0, System.nanoTime() - start))
+                    .doOnComplete(() -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            circuitBreaker.onSuccess(streamDuration(start, firstElementNanos), TimeUnit.NANOSECONDS);
+                        }
+                    })
+                    .doOnError(error -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            circuitBreaker.onError(streamDuration(start, firstElementNanos), TimeUnit.NANOSECONDS, error);
+                        }
+                    })
+                    .doOnCancel(() -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            circuitBreaker.releasePermission();
+                        }
+                    });
+        });
+    }
+
+    @Override
+    public List<CircuitBreakerStatusDTO> getStatus() {
+        return registry.getAllCircuitBreakers().stream()
+                .sorted(Comparator.comparing(CircuitBreaker::getName))
+                .map(circuitBreaker -> {
+                    CircuitBreaker.Metrics metrics = circuitBreaker.getMetrics();
+                    return CircuitBreakerStatusDTO.builder()
+                            .host(circuitBreaker.getName())
+                            .state(circuitBreaker.getState().name())
+                            .failureRate(metrics.getFailureRate())
+                            .slowCallRate(metrics.getSlowCallRate())
+                            .bufferedCalls(metrics.getNumberOfBufferedCalls())
+                            .failedCalls(metrics.getNumberOfFailedCalls())
+                            .slowCalls(metrics.getNumberOfSlowCalls())
+                            .notPermittedCalls(metrics.getNumberOfNotPermittedCalls())
+                            .build();
+                })
+                .toList();
+    }
+
+    private long elapsed(long start, boolean timed) {
+        return timed ? System.nanoTime() - start : 0;
+    }
+
+    /**
+     * 流式调用的耗时：收到首个数据块时按首块时间计算，否则按总耗时计算
+     */
+    private long streamDuration(long start, AtomicLong firstElementNanos) {
+        long first = firstElementNanos.get();
+        return first > 0 ? first : System.nanoTime() - start;
+    }
+
+    /**
+     * 获取目标地址所在主机的熔断器，未启用、地址无法解析或熔断器数量已满时返回 null
+     */
+    private CircuitBreaker circuitBreakerFor(String url) {
+        if (!config.isEnabled() || StrUtil.isBlank(url)) {
+            return null;
+        }
+        try {
+            URI uri = URI.create(url);
+            String host = uri.getHost();
+            if (host == null) {
+                return null;
+            }
+            int port = uri.getPort();
+            if (port < 0) {
+                port = "http".equalsIgnoreCase(uri.getScheme()) ? 80 : 443;
+            }
+            String name = host.toLowerCase(Locale.ROOT) + ":" + port;
+            long nowMillis = System.currentTimeMillis();
+            if (registry.find(name).isEmpty() && !reserveSlot(nowMillis)) {
+                return null;
+            }
+            lastUsedMillis.put(name, nowMillis);
+            return registry.circuitBreaker(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 为新主机的熔断器腾出位置：数量达到上限时移除空闲超时的关闭状态熔断器
+     *
+     * @return 是否有空位
+     */
+    private synchronized boolean reserveSlot(long nowMillis) {
+        if (lastUsedMillis.size() < config.getMaxBreakers()) {
+            return true;
+        }
+        lastUsedMillis.entrySet().removeIf(entry -> {
+            if (nowMillis - entry.getValue() < config.getIdleEvictMs()) {
+                return false;
+            }
+            CircuitBreaker circuitBreaker = registry.find(entry.getKey()).orElse(null);
+            if (circuitBreaker != null && circuitBreaker.getState() != CircuitBreaker.State.CLOSED) {
+                return false;
+            }
+            registry.remove(entry.getKey());
+            return true;
+        });
+        if (lastUsedMillis.size() < config.getMaxBreakers()) {
+            return true;
+        }
+        log.debug("上游熔断器数量已达上限 {}，新主机不受熔断保护", config.getMaxBreakers());
+        return false;
+    }
+}
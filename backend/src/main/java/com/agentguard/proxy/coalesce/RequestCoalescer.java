@@ -0,0 +1,89 @@
+package com.agentguard.proxy.coalesce;
+
+import com.agentguard.agent.dto.AgentDTO;
+import com.agentguard.proxy.parser.RawJsonObject;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 相同 LLM 请求合并接口（single-flight）
+ * <p>
+ * 同一 Agent 的相同请求（请求体摘要一致）正在转发时，之后到达的请求加入该请求，等待并共享其结果，
+ * 不再排队准入和请求上游；流式请求共享同一个上游流。请求完成后立即移除，不缓存结果。
+ *
+ * @author zhuhx
+ */
+public interface RequestCoalescer {
+
+    /**
+     * 计算请求的合并键
+     *
+     * @param agent Agent信息
+     * @param body 请求体
+     * @param stream 是否流式请求
+     * @return 合并键；未启用合并或请求不可合并（如非确定性请求）时返回 null
+     */
+    String key(AgentDTO agent, RawJsonObject body, boolean stream);
+
+    /**
+     * 加入相同请求
+     *
+     * @param key 合并键，为 null 时不合并（返回不登记的领导者）
+     * @param <T> 结果类型
+     * @return 没有相同请求进行中时返回领导者（负责转发并发布结果），否则返回跟随者
+     */
+    <T> Flight<T> join(String key);
+
+    /**
+     * 进行中的请求
+     *
+     * @param <T> 结果类型
+     */
+    interface Flight<T> {
+
+        /**
+         * 是否领导者
+         */
+        boolean isLeader();
+
+        /**
+         * 当前加入的跟随者数量
+         */
+        int getFollowers();
+
+        /**
+         * 跟随者等待领导者发布结果
+         *
+         * @param deadline 截止时间（毫秒时间戳）
+         * @return 领导者发布的结果
+         * @throws TimeoutException 截止时间前领导者未发布结果
+         * @throws RuntimeException 领导者转发失败时抛出其异常
+         */
+        T await(long deadline) throws TimeoutException;
+
+        /**
+         * 领导者共享上游流：后加入的跟随者从第一个数据块开始重放，流结束（完成、失败或取消）或数据块数达到重放上限时
+         * 请求移除；重放缓存有上限，已有数据块被淘汰后订阅的跟随者收到失败。需在 {@link #complete(Object)} 之前调用
+         *
+         * @param source 上游流
+         * @param <C> 数据块类型
+         * @return 共享流，领导者和跟随者都订阅该流
+         */
+        <C> Flux<C> share(Flux<C> source);
+
+        /**
+         * 领导者发布结果；未共享上游流时请求立即移除，之后到达的相同请求重新转发
+         *
+         * @param value 结果
+         */
+        void complete(T value);
+
+        /**
+         * 领导者转发失败，跟随者收到相同异常
+         *
+         * @param error 异常
+         */
+        void fail(Throwable error);
+    }
+}
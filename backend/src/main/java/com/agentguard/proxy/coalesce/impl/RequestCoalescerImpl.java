@@ -0,0 +1,202 @@
+package com.agentguard.proxy.coalesce.impl;
+
+import cn.hutool.core.util.StrUtil;
+import com.agentguard.agent.dto.AgentDTO;
+import com.agentguard.common.exception.BusinessException;
+import com.agentguard.common.exception.ErrorCode;
+import com.agentguard.proxy.coalesce.RequestCoalescer;
+import com.agentguard.proxy.config.ProxyProperties;
+import com.agentguard.proxy.parser.RawJsonObject;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 相同 LLM 请求合并实现类
+ * <p>
+ * 合并键由 Agent、Agent 配置的模型、是否流式和请求体摘要组成。摘要按顶层字段名排序后对字段值的原始字节计算 SHA-256，
+ * 不解析字段内容，并去掉转发时会被改写的 model、stream、stream_options 字段；字段值内部的空白或键顺序不同视为不同请求。
+ * 流式请求最多重放 maxReplayChunks 个数据块，超过后不再合并。进行中的请求只保存在本节点内存中。
+ *
+ * @author zhuhx
+ */
+@Slf4j
+@Component
+public class RequestCoalescerImpl implements RequestCoalescer {
+
+    /** 转发时被改写的字段，不参与合并键计算 */
+    private static final Set<String> REWRITTEN_FIELDS = Set.of("model", "stream", "stream_options");
+
+    private final ProxyProperties proxyProperties;
+
+    private final MeterRegistry meterRegistry;
+
+    /** 合并键 -> 进行中的请求 */
+    private final Map<String, Call<?>> calls = new ConcurrentHashMap<>();
+
+    public RequestCoalescerImpl(ProxyProperties proxyProperties, MeterRegistry meterRegistry) {
+        this.proxyProperties = proxyProperties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public String key(AgentDTO agent, RawJsonObject body, boolean stream) {
+        ProxyProperties.Coalescing config = proxyProperties.getCoalescing();
+        if (!config.isEnabled() || body == null) {
+            return null;
+        }
+        try {
+            // 只解析 temperature 字段，非确定性请求不再计算摘要
+            if (config.isDeterministicOnly() && !isDeterministic(body)) {
+                return null;
+            }
+            return StrUtil.join(":", agent.getId(), agent.getLlmModel(), stream ? "stream" : "unary", body.digest(REWRITTEN_FIELDS));
+        } catch (Exception e) {
+            log.debug("请求体无法计算摘要，不合并: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Flight<T> join(String key) {
+        if (key == null) {
+            return new FlightView<>(new Call<>(null), true);
+        }
+        Call<T> created = new Call<>(key);
+        Call<T> existing = (Call<T>) calls.putIfAbsent(key, created);
+        if (existing == null) {
+            return new FlightView<>(created, true);
+        }
+        existing.followers.incrementAndGet();
+        Counter.builder("agentguard.llm.coalesced")
+                .description("合并到进行中相同请求的 LLM 调用数")
+                .tag("mode", key.contains(":stream:") ? "stream" : "unary")
+                .register(meterRegistry)
+                .increment();
+        log.debug("请求合并到进行中的相同请求: {}", key);
+        return new FlightView<>(existing, false);
+    }
+
+    /**
+     * 确定性请求：temperature 为 0
+     */
+    private boolean isDeterministic(RawJsonObject body) {
+        return body.get("temperature") instanceof Number temperature && temperature.doubleValue() == 0;
+    }
+
+    /**
+     * 进行中的请求，领导者和跟随者共享
+     */
+    private static final class Call<T> {
+
+        private final String key;
+
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private final AtomicInteger followers = new AtomicInteger();
+
+        /** 是否已共享上游流（流结束时才移除） */
+        private volatile boolean shared;
+
+        private Call(String key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * 领导者或跟随者视图
+     */
+    private final class FlightView<T> implements Flight<T> {
+
+        private final Call<T> call;
+
+        private final boolean leader;
+
+        private FlightView(Call<T> call, boolean leader) {
+            this.call = call;
+            this.leader = leader;
+        }
+
+        @Override
+        public boolean isLeader() {
+            return leader;
+        }
+
+        @Override
+        public int getFollowers() {
+            return call.followers.get();
+        }
+
+        @Override
+        public T await(long deadline) throws TimeoutException {
+            try {
+                return call.result.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw new IllegalStateException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("等待相同请求的结果时被中断", e);
+            }
+        }
+
+        @Override
+        public <C> Flux<C> share(Flux<C> source) {
+            if (call.key == null) {
+                return source;
+            }
+            call.shared = true;
+            int maxReplayChunks = proxyProperties.getCoalescing().getMaxReplayChunks();
+            AtomicLong emitted = new AtomicLong();
+            Flux<C> shared = source
+                    .doOnNext(chunk -> {
+                        // 达到重放上限后不再接受新的跟随者，缓存只保留最近的数据块
+                        if (emitted.incrementAndGet() == maxReplayChunks) {
+                            remove();
+                        }
+                    })
+                    .doFinally(signal -> remove())
+                    .replay(maxReplayChunks)
+                    .autoConnect();
+            // 跟随者订阅前已有数据块被淘汰时无法完整重放，直接失败而不是返回缺少开头的流
+            return Flux.defer(() -> emitted.get() > maxReplayChunks
+                    ? Flux.error(new BusinessException(ErrorCode.SERVICE_OVERLOADED))
+                    : shared);
+        }
+
+        @Override
+        public void complete(T value) {
+            call.result.complete(value);
+            if (!call.shared) {
+                remove();
+            }
+        }
+
+        @Override
+        public void fail(Throwable error) {
+            call.result.completeExceptionally(error);
+            remove();
+        }
+
+        private void remove() {
+            if (call.key != null) {
+                calls.remove(call.key, call);
+            }
+        }
+    }
+}
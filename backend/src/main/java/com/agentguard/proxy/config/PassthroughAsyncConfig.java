@@ -0,0 +1,49 @@
+package com.agentguard.proxy.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 透传响应体写出线程池配置
+ * <p>
+ * 透传接口的响应体在异步线程中阻塞写出，单个响应最长可达 streamTimeoutMs。透传接口通过 WebAsyncTask
+ * 指定使用该专用线程池，线程数和排队容量都有上限，已满时拒绝而不是无限排队；不替换全局的 Spring MVC 异步线程池。
+ *
+ * @author zhuhx
+ */
+@Slf4j
+@Configuration
+@RequiredArgsConstructor
+public class PassthroughAsyncConfig {
+
+    public static final String PASSTHROUGH_STREAM_EXECUTOR = "passthroughStreamExecutor";
+
+    private final ProxyProperties proxyProperties;
+
+    @Bean(PASSTHROUGH_STREAM_EXECUTOR)
+    public ThreadPoolTaskExecutor passthroughStreamExecutor() {
+        ProxyProperties.Passthrough config = proxyProperties.getPassthrough();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+        // 核心线程数与最大线程数相同，空闲时回收
+        executor.setCorePoolSize(config.getStreamThreads());
+        executor.setMaxPoolSize(config.getStreamThreads());
+        executor.setAllowCoreThreadTimeOut(true);
+
+        // 有界队列，已满时拒绝（由异常处理返回 503）
+        executor.setQueueCapacity(config.getStreamQueueCapacity());
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+
+        executor.setThreadNamePrefix("passthrough-stream-");
+        executor.initialize();
+
+        log.info("透传响应体写出线程池已初始化: threads={}, queueCapacity={}",
+                config.getStreamThreads(), config.getStreamQueueCapacity());
+        return executor;
+    }
+}
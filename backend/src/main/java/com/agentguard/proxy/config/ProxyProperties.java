@@ -1,9 +1,15 @@
 package com.agentguard.proxy.config;
 
+import com.agentguard.agent.enums.AgentEnvironment;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
 /**
  * 代理服务配置属性
  *
@@ -19,4 +25,426 @@ public class ProxyProperties {
      * 生产环境应设置为 false，开发环境可设置为 true
      */
     private boolean allowInternalAddress = false;
+
+    /**
+     * 转发前 Token 预检
+     */
+    private TokenAdmission tokenAdmission = new TokenAdmission();
+
+    /**
+     * 请求对冲
+     */
+    private Hedging hedging = new Hedging();
+
+    /**
+     * 上游熔断
+     */
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    /**
+     * 上游限流感知
+     */
+    private RateLimit rateLimit = new RateLimit();
+
+    /**
+     * LLM 调用准入调度
+     */
+    private Admission admission = new Admission();
+
+    /**
+     * 网关自适应并发限制（/proxy/**）
+     */
+    private LoadShedding loadShedding = new LoadShedding();
+
+    /**
+     * 相同 LLM 请求合并（single-flight）
+     */
+    private Coalescing coalescing = new Coalescing();
+
+    /**
+     * 相似提示词响应缓存（按 Agent 开启）
+     */
+    private PromptCache promptCache = new PromptCache();
+
+    /**
+     * API 代理 HTTP 响应缓存（RFC 9111）
+     */
+    private HttpCache httpCache = new HttpCache();
+
+    /**
+     * API 代理流式透传与请求体/响应体大小上限
+     */
+    private Passthrough passthrough = new Passthrough();
+
+    /**
+     * 转发前 Token 预检配置
+     * 本地分词计算提示词 Token 数，超出单次上限或模型上下文窗口时直接拒绝，不请求上游
+     */
+    @Data
+    public static class TokenAdmission {
+
+        /** 模型快照后缀：-0613、-20240409、-2024-08-06 */
+        private static final Pattern SNAPSHOT_SUFFIX = Pattern.compile("-\\d{4}(\\d{4}|-\\d{2}-\\d{2})?");
+
+        /** 是否启用预检 */
+        private boolean enabled = true;
+
+        /** 单次请求提示词 Token 上限，0 表示不限制 */
+        private int maxPromptTokens = 0;
+
+        /**
+         * 模型上下文窗口（键为模型名，同时匹配带日期快照后缀的版本，如 gpt-4-0613、gpt-4o-2024-08-06），未匹配的模型不检查。
+         * 不按前缀匹配：gpt-4-1106-preview、gpt-4.5-preview 等与 gpt-4 窗口不同的模型需要单独列出
+         */
+        private Map<String, Integer> contextWindows = new LinkedHashMap<>();
+
+        /**
+         * 查找模型的上下文窗口
+         *
+         * @param model 模型名称
+         * @return 上下文窗口大小，未配置时返回 null
+         */
+        public Integer resolveContextWindow(String model) {
+            if (model == null || contextWindows.isEmpty()) {
+                return null;
+            }
+            String name = model.toLowerCase(Locale.ROOT);
+            for (Map.Entry<String, Integer> entry : contextWindows.entrySet()) {
+                String configured = entry.getKey().toLowerCase(Locale.ROOT);
+                if (name.equals(configured) || (name.startsWith(configured)
+                        && SNAPSHOT_SUFFIX.matcher(name.substring(configured.length())).matches())) {
+                    return entry.getValue();
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 请求对冲配置
+     * 对 Agent 开启对冲后，非流式 LLM 调用和 API 代理 GET 请求的主请求超过该 Agent 的延迟分位数仍未返回响应头时，
+     * 向另一个端点发送相同请求，取先成功者并取消另一个；对冲请求数按令牌桶预算限制
+     */
+    @Data
+    public static class Hedging {
+
+        /** 全局开关，关闭后忽略 Agent 的对冲设置 */
+        private boolean enabled = true;
+
+        /** 触发对冲的延迟分位数（按 Agent 和请求类型统计响应头时间） */
+        private double percentile = 95;
+
+        /** 统计窗口（毫秒），分位数按最近一到两个窗口的样本计算 */
+        private long windowMs = 60000;
+
+        /** 样本数少于该值时不对冲 */
+        private int minSamples = 50;
+
+        /** 对冲等待时间下限（毫秒） */
+        private long minDelayMs = 50;
+
+        /** 对冲等待时间上限（毫秒） */
+        private long maxDelayMs = 10000;
+
+        /** 对冲预算：对冲请求数不超过主请求数的百分比 */
+        private double budgetPercent = 5;
+
+        /** 对冲预算最多累积的请求数，限制空闲后的突发对冲 */
+        private int budgetBurst = 10;
+
+        /** 单次尝试的响应超时（毫秒），与 RestTemplate 响应超时一致 */
+        private long attemptTimeoutMs = 30000;
+    }
+
+    /**
+     * 上游熔断配置
+     * 按上游主机（host:port）独立熔断：时间滑动窗口内失败率（5xx、超时、连接失败）或慢调用率超过阈值时打开，
+     * 打开期间直接拒绝请求，等待时间到期后进入半开状态放行少量探测请求，全部成功则关闭
+     */
+    @Data
+    public static class CircuitBreaker {
+
+        /** 是否启用 */
+        private boolean enabled = true;
+
+        /** 滑动窗口长度（秒） */
+        private int windowSeconds = 60;
+
+        /** 窗口内最少调用数，不足时不计算失败率 */
+        private int minimumCalls = 20;
+
+        /** 失败率阈值（百分比） */
+        private float failureRateThreshold = 50;
+
+        /**
+         * 慢调用率阈值（百分比），0 表示不按慢调用打开。
+         * 非流式 LLM 调用的耗时取决于生成长度，始终不计慢调用；启用后只影响 API 代理和流式请求（按首个数据块时间）
+         */
+        private float slowCallRateThreshold = 0;
+
+        /** 慢调用时间阈值（毫秒），流式请求按首个数据块时间计算 */
+        private long slowCallDurationMs = 20000;
+
+        /** 打开状态持续时间（毫秒），到期后进入半开状态 */
+        private long openDurationMs = 30000;
+
+        /** 半开状态放行的探测请求数 */
+        private int halfOpenCalls = 5;
+
+        /** 本节点熔断器数量上限（每个 host:port 一个） */
+        private int maxBreakers = 1000;
+
+        /** 数量达到上限时，超过该时长（毫秒）未使用的关闭状态熔断器被移除 */
+        private long idleEvictMs = 600000;
+    }
+
+    /**
+     * 上游限流感知配置
+     * 按供应商密钥（上游主机 + API Key）从响应头学习剩余请求数、剩余 Token 数和重置时间，
+     * 额度不足时在截止时间内排队等待，额度偏低时均匀间隔发送；429 按服务端要求的等待时间在延迟预算内重试
+     */
+    @Data
+    public static class RateLimit {
+
+        /** 是否启用 */
+        private boolean enabled = true;
+
+        /** 转发前等待额度的最长时间（毫秒），超过则直接拒绝，不请求上游；仅用于流式和对冲请求，非流式请求不等待，额度不足直接拒绝 */
+        private long maxQueueWaitMs = 5000;
+
+        /** 单次请求的延迟预算（毫秒），排队和 429 重试的总等待不超过该时间 */
+        private long latencyBudgetMs = 60000;
+
+        /** 429 最多重试次数（流式和对冲请求），非流式请求收到 429 直接返回 429 + Retry-After */
+        private int maxRetries = 2;
+
+        /** 429 响应未给出等待时间时的默认等待（毫秒） */
+        private long defaultRetryAfterMs = 1000;
+
+        /** 剩余请求数或 Token 数低于上限的该百分比时，按剩余额度把请求均匀分布到重置前 */
+        private int pacePercent = 10;
+    }
+
+    /**
+     * LLM 调用准入调度配置
+     * 每个 Agent 同时进行的 LLM 调用数受并发上限约束（跨节点通过 Redis 租约统计），超出部分排队；
+     * 多个 Agent 排队时按权重公平调度，单个 Agent 的大量并发不会占满本节点的转发能力
+     */
+    @Data
+    public static class Admission {
+
+        /** 是否启用（默认关闭，开启后才按并发上限排队） */
+        private boolean enabled = false;
+
+        /** 本节点同时进行的 LLM 调用总数上限 */
+        private int maxConcurrent = 200;
+
+        /** Agent 未配置并发上限时的默认值（所有节点合计），0 表示不限制 */
+        private int defaultAgentConcurrency = 0;
+
+        /** 单个 Agent 在本节点排队的请求数上限，超出直接拒绝 */
+        private int maxQueuedPerAgent = 50;
+
+        /** 最长排队时间（毫秒），超时拒绝 */
+        private long maxQueueWaitMs = 10000;
+
+        /** 按运行环境的默认调度权重，Agent 未设置运行环境时权重为 1 */
+        private Map<AgentEnvironment, Integer> environmentWeights = new LinkedHashMap<>(Map.of(
+                AgentEnvironment.PRODUCTION, 4,
+                AgentEnvironment.STAGING, 2,
+                AgentEnvironment.TEST, 1));
+
+        /** 是否通过 Redis 租约统计跨节点的 Agent 并发数；关闭时并发上限按单节点计算 */
+        private boolean distributed = true;
+
+        /** 租约有效期（毫秒），持有期间定期续期，节点宕机后租约在有效期后自动释放 */
+        private long leaseTtlMs = 30000;
+
+        /** Agent 全局并发已满时重新尝试获取租约的间隔（毫秒） */
+        private long leaseRetryMs = 100;
+
+        /** 获取租约的工作线程数（Redis 调用不在调度线程中执行） */
+        private int leaseWorkers = 4;
+    }
+
+    /**
+     * 网关自适应并发限制配置
+     * 按 /proxy/** 请求的处理耗时自动调整允许同时处理的请求数（梯度算法）：耗时明显高于长期基线时收缩，
+     * 否则缓慢增长；超出时直接返回 503 + Retry-After。按 Agent 运行环境分配可用比例，测试环境先于生产环境被拒绝
+     */
+    @Data
+    public static class LoadShedding {
+
+        /** 是否启用 */
+        private boolean enabled = true;
+
+        /** 初始并发上限 */
+        private int initialLimit = 100;
+
+        /** 并发上限下限 */
+        private int minLimit = 10;
+
+        /** 并发上限上限 */
+        private int maxLimit = 400;
+
+        /** 延迟容忍倍数：短期平均耗时超过长期基线的该倍数时开始收缩 */
+        private double tolerance = 1.5;
+
+        /** 平滑系数（0-1），越小调整越平缓 */
+        private double smoothing = 0.2;
+
+        /** 采样窗口（毫秒），每个窗口调整一次上限 */
+        private long windowMs = 1000;
+
+        /** 每个窗口最少样本数，不足时延长窗口 */
+        private int minWindowSamples = 10;
+
+        /** 长期基线的平滑窗口数 */
+        private int longWindow = 600;
+
+        /** 每次调整允许的排队余量（上限在梯度基础上增加的请求数） */
+        private int queueSize = 4;
+
+        /** 拒绝时 Retry-After 秒数 */
+        private int retryAfterSeconds = 1;
+
+        /** 各运行环境可使用的并发上限比例（百分比） */
+        private Map<AgentEnvironment, Integer> environmentShares = new LinkedHashMap<>(Map.of(
+                AgentEnvironment.PRODUCTION, 100,
+                AgentEnvironment.STAGING, 80,
+                AgentEnvironment.TEST, 50));
+
+        /** 无法识别 Agent（请求头中没有 Agent API Key 或 Key 无效）时按该运行环境处理 */
+        private AgentEnvironment defaultEnvironment = AgentEnvironment.STAGING;
+
+        /** API Key 到运行环境的本地缓存时间（毫秒） */
+        private long environmentCacheMs = 60000;
+    }
+
+    /**
+     * 相同 LLM 请求合并配置
+     * 同一 Agent 的相同请求（规范化后的请求体一致）正在转发时，之后到达的请求等待并共享其响应，不再请求上游；
+     * 流式请求共享同一个上游流，后加入的请求从第一个数据块开始重放。与响应缓存不同，请求完成后不保留结果
+     */
+    @Data
+    public static class Coalescing {
+
+        /** 是否启用 */
+        private boolean enabled = true;
+
+        /** 只合并确定性请求（temperature 为 0），关闭后相同请求一律合并 */
+        private boolean deterministicOnly = true;
+
+        /** 跟随者最长等待时间（毫秒），应不小于上游响应超时，超过时不再等待 */
+        private long maxWaitMs = 180000;
+
+        /** 流式请求最多缓存的数据块数，跟随者从缓存重放；上游流超过该数量后不再接受新的跟随者 */
+        private int maxReplayChunks = 1024;
+    }
+
+    /**
+     * 相似提示词响应缓存配置
+     * 消息内容按字符 k-gram 分片后计算 MinHash 签名，本地 LSH 索引查找近期相似请求；最后一条消息和之前的上下文
+     * 分别计算相似度，都不低于阈值且模型、工具等其余请求参数完全一致时返回缓存的响应。只缓存非流式调用的成功响应
+     */
+    @Data
+    public static class PromptCache {
+
+        /** 是否启用（总开关，Agent 或匹配的策略还需单独开启） */
+        private boolean enabled = true;
+
+        /** 相似度阈值（0-1，MinHash 估算的 Jaccard 相似度） */
+        private double similarityThreshold = 0.9;
+
+        /** 分片长度（字符数） */
+        private int shingleSize = 5;
+
+        /** MinHash 签名长度（哈希函数个数），需为 bands 的整数倍 */
+        private int numHashes = 128;
+
+        /** LSH 分段数，每段 numHashes / bands 个哈希值；段数越多召回越高、候选越多 */
+        private int bands = 16;
+
+        /** 最多缓存条目数，超出时淘汰最久未命中的条目 */
+        private int maxEntries = 10000;
+
+        /** 缓存有效期（毫秒） */
+        private long ttlMs = 3600000;
+
+        /** 消息内容超过该字符数时不缓存 */
+        private int maxPromptChars = 200000;
+    }
+
+    /**
+     * API 代理 HTTP 响应缓存配置
+     * 按 RFC 9111 共享缓存语义缓存 GET 请求的响应：按 Cache-Control/Expires/Age 计算新鲜期，过期后带 If-None-Match、
+     * If-Modified-Since 重新验证，按 Vary 区分变体，不安全方法成功后使目标地址的缓存失效。
+     * 内存层按总字节数限制、淘汰最久未使用的地址；可选 Redis 层供多节点共享
+     */
+    @Data
+    public static class HttpCache {
+
+        /** 是否启用 */
+        private boolean enabled = true;
+
+        /** 内存层最多占用的字节数（响应体和响应头合计） */
+        private long maxMemoryBytes = 64L * 1024 * 1024;
+
+        /** 单个响应超过该字节数时不缓存 */
+        private int maxEntryBytes = 1024 * 1024;
+
+        /** 同一地址最多保存的变体数（Vary） */
+        private int maxVariants = 8;
+
+        /** 启发式新鲜期：没有显式新鲜期但有 Last-Modified 时，取 (Date - Last-Modified) 的该百分比 */
+        private int heuristicPercent = 10;
+
+        /** 启发式新鲜期上限（秒） */
+        private long maxHeuristicSeconds = 86400;
+
+        /** 过期后继续保留的时间（毫秒），期间有 ETag/Last-Modified 的响应可重新验证 */
+        private long staleRetentionMs = 3600000;
+
+        /** 是否在 Agent 之间共享缓存（关闭时每个 Agent 的缓存相互隔离，避免凭据不同的请求共享响应） */
+        private boolean shareAcrossAgents = false;
+
+        /** 是否启用 Redis 层 */
+        private boolean redisEnabled = false;
+    }
+
+    /**
+     * API 代理流式透传配置
+     * <p>
+     * 透传接口按块转发请求体和响应体（不整体缓冲、不解压），日志只保留前若干字节。
+     */
+    @Data
+    public static class Passthrough {
+
+        /** 是否启用透传接口 */
+        private boolean enabled = true;
+
+        /** 请求体上限（字节） */
+        private long maxRequestBytes = 100L * 1024 * 1024;
+
+        /** 透传响应体上限（字节），超出时中断响应 */
+        private long maxResponseBytes = 1024L * 1024 * 1024;
+
+        /** 普通 API 代理接口整体读取响应体的上限（字节），超出时返回 502 */
+        private int maxBufferedResponseBytes = 16 * 1024 * 1024;
+
+        /** 请求体不超过该字节数且为 JSON 时解析后参与策略评估 */
+        private int inspectBytes = 64 * 1024;
+
+        /** 日志记录的请求体、响应体字节数（请求体不超过 inspectBytes） */
+        private int captureBytes = 8 * 1024;
+
+        /** 透传响应的最长时间（毫秒） */
+        private long streamTimeoutMs = 600000;
+
+        /** 同时写出的透传响应数上限，即透传写出线程池的线程数；线程和排队容量都用满时不请求目标服务，直接返回 503 */
+        private int streamThreads = 100;
+
+        /** 透传写出线程池的排队容量，线程用满时最多排队的响应数 */
+        private int streamQueueCapacity = 16;
+    }
 }
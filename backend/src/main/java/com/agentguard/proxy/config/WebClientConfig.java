@@ -21,6 +21,9 @@ import java.util.concurrent.TimeUnit;
 @Configuration
 public class WebClientConfig {
 
+    /** 整体读取响应体时的内存上限（对冲转发的非流式请求需要整体缓冲响应体） */
+    private static final int MAX_IN_MEMORY_SIZE = 16 * 1024 * 1024;
+
     @Bean
     public WebClient webClient() {
         // 配置 HttpClient 超时和连接池
@@ -34,6 +37,7 @@ public class WebClientConfig {
 
         return WebClient.builder()
                 .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(MAX_IN_MEMORY_SIZE))
                 .build();
     }
 }
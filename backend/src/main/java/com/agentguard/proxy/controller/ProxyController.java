@@ -1,21 +1,35 @@
 package com.agentguard.proxy.controller;
 
+import cn.hutool.json.JSONUtil;
 import com.agentguard.common.response.Result;
+import com.agentguard.proxy.config.PassthroughAsyncConfig;
+import com.agentguard.proxy.config.ProxyProperties;
 import com.agentguard.proxy.dto.LlmProxyRequestDTO;
+import com.agentguard.proxy.dto.PassthroughRequestDTO;
 import com.agentguard.proxy.dto.ProxyRequestDTO;
 import com.agentguard.proxy.dto.ProxyResponseDTO;
+import com.agentguard.proxy.parser.RawJsonObject;
+import com.agentguard.proxy.service.PassthroughBody;
 import com.agentguard.proxy.service.ProxyService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.context.request.async.WebAsyncTask;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.util.Map;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Set;
 
 /**
  * Agent代理控制器
@@ -28,33 +42,58 @@ import java.util.Map;
 @Tag(name = "Agent代理", description = "Agent请求代理接口")
 @RestController
 @RequestMapping("/proxy/v1")
-@RequiredArgsConstructor
 public class ProxyController {
 
+    /** 透传接口：目标地址请求头 */
+    private static final String TARGET_URL_HEADER = "X-Target-Url";
+
+    /** 透传接口：转发给目标服务的 Authorization（Authorization 本身用于 Agent 认证） */
+    private static final String TARGET_AUTHORIZATION_HEADER = "X-Target-Authorization";
+
+    /** 透传接口：不转发给目标服务的请求头 */
+    private static final Set<String> PASSTHROUGH_EXCLUDED_HEADERS = Set.of(
+            "authorization", "host", "content-length", "x-target-url", "x-target-authorization");
+
     private final ProxyService proxyService;
 
+    private final ProxyProperties proxyProperties;
+
+    private final ThreadPoolTaskExecutor passthroughStreamExecutor;
+
+    public ProxyController(ProxyService proxyService, ProxyProperties proxyProperties,
+                           @Qualifier(PassthroughAsyncConfig.PASSTHROUGH_STREAM_EXECUTOR) ThreadPoolTaskExecutor passthroughStreamExecutor) {
+        this.proxyService = proxyService;
+        this.proxyProperties = proxyProperties;
+        this.passthroughStreamExecutor = passthroughStreamExecutor;
+    }
+
     @Operation(summary = "LLM对话代理", description = "代理LLM对话请求，支持密钥替换、Token统计和成本计算，支持流式和非流式响应")
     @PostMapping(value = "/chat/completions", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
     public Object chatCompletions(
             @RequestHeader("Authorization") String authorization,
-            @RequestBody Map<String, Object> requestBody) {
+            @RequestBody byte[] requestBody) {
 
-        log.debug("接收到LLM请求体: {}", requestBody);
+        log.debug("接收到LLM请求体，长度: {}", requestBody.length);
 
-        // 将原始请求体包装到 DTO 中
+        // 保留原始请求体，只做结构扫描，字段按需解析
         LlmProxyRequestDTO request = new LlmProxyRequestDTO();
-        request.setBody(requestBody);
+        request.setBody(RawJsonObject.of(requestBody));
 
         // 检查是否为流式请求
-        boolean isStreaming = requestBody != null &&
-                             Boolean.TRUE.equals(requestBody.get("stream"));
+        boolean isStreaming = Boolean.TRUE.equals(request.getBody().get("stream"));
 
         if (isStreaming) {
             // 流式响应 - 直接返回 SseEmitter（Spring MVC 会自动处理）
             return proxyService.handleLlmStreamRequest(authorization, request);
         } else {
             // 非流式响应（保持原有行为）
-            return ResponseEntity.ok(Result.success(proxyService.handleLlmRequest(authorization, request)));
+            ProxyResponseDTO response = proxyService.handleLlmRequest(authorization, request);
+            ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+            if (response.getRetryAfterSeconds() != null) {
+                // 上游限流时不在请求线程上等待，告知客户端稍后重试
+                builder.header(HttpHeaders.RETRY_AFTER, String.valueOf(response.getRetryAfterSeconds()));
+            }
+            return builder.body(Result.success(response));
         }
     }
 
@@ -64,6 +103,58 @@ public class ProxyController {
         return Result.success(proxyService.handleRequest(request));
     }
 
+    @Operation(summary = "业务API流式透传", description = "按块转发请求体和响应体，保留目标服务的状态码和响应头（包括 Content-Encoding）。"
+            + "Authorization 为 Agent API Key，X-Target-Url 为目标地址，X-Target-Authorization 作为 Authorization 转发给目标服务")
+    @RequestMapping(value = "/api/passthrough", method = {RequestMethod.GET, RequestMethod.POST, RequestMethod.PUT,
+            RequestMethod.PATCH, RequestMethod.DELETE, RequestMethod.HEAD, RequestMethod.OPTIONS})
+    public WebAsyncTask<Void> apiPassthrough(
+            @RequestHeader("Authorization") String authorization,
+            @RequestHeader(TARGET_URL_HEADER) String targetUrl,
+            HttpServletRequest servletRequest,
+            HttpServletResponse servletResponse) throws IOException {
+
+        HttpHeaders headers = new HttpHeaders();
+        for (String name : Collections.list(servletRequest.getHeaderNames())) {
+            if (TARGET_AUTHORIZATION_HEADER.equalsIgnoreCase(name)) {
+                headers.addAll(HttpHeaders.AUTHORIZATION, Collections.list(servletRequest.getHeaders(name)));
+            } else if (!PASSTHROUGH_EXCLUDED_HEADERS.contains(name.toLowerCase())) {
+                headers.addAll(name, Collections.list(servletRequest.getHeaders(name)));
+            }
+        }
+
+        PassthroughRequestDTO request = PassthroughRequestDTO.builder()
+                .authorization(authorization)
+                .targetUrl(targetUrl)
+                .method(servletRequest.getMethod())
+                .headers(headers)
+                .contentLength(servletRequest.getContentLengthLong())
+                .body(servletRequest.getInputStream())
+                .build();
+
+        ResponseEntity<?> response = proxyService.handlePassthroughRequest(request);
+        if (response.getBody() instanceof PassthroughBody body) {
+            // 响应体在专用写出线程池中写出，超时时间按透传配置（默认的异步超时不适合大文件）；
+            // 状态码和响应头在写出线程中设置，线程池拒绝（503）时不会带上目标服务的响应头
+            WebAsyncTask<Void> task = new WebAsyncTask<>(proxyProperties.getPassthrough().getStreamTimeoutMs(),
+                    passthroughStreamExecutor, () -> {
+                servletResponse.setStatus(response.getStatusCode().value());
+                response.getHeaders().forEach((name, values) -> values.forEach(value -> servletResponse.addHeader(name, value)));
+                body.writeTo(servletResponse.getOutputStream());
+                return null;
+            });
+            // 被拒绝、开始写出前超时或客户端断开时释放目标服务的连接
+            task.onCompletion(body::discardIfNotStarted);
+            return task;
+        }
+
+        // 被拦截、待审批或转发失败时的 JSON 代理响应在请求线程中直接写出，不占用异步线程
+        servletResponse.setStatus(response.getStatusCode().value());
+        servletResponse.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        servletResponse.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        servletResponse.getWriter().write(JSONUtil.toJsonStr(response.getBody()));
+        return null;
+    }
+
     @Deprecated
     @Operation(summary = "代理请求（已废弃）", description = "请使用 /api 端点代替")
     @PostMapping("/request")
@@ -0,0 +1,41 @@
+package com.agentguard.proxy.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * 上游熔断器状态 DTO
+ * 本节点的实时状态，多节点部署时各节点独立统计
+ *
+ * @author zhuhx
+ */
+@Data
+@Builder
+@Schema(description = "上游熔断器状态")
+public class CircuitBreakerStatusDTO {
+
+    @Schema(description = "上游主机（host:port）")
+    private String host;
+
+    @Schema(description = "状态：CLOSED/OPEN/HALF_OPEN")
+    private String state;
+
+    @Schema(description = "窗口内失败率（百分比），调用数不足时为 -1")
+    private Float failureRate;
+
+    @Schema(description = "窗口内慢调用率（百分比），调用数不足时为 -1")
+    private Float slowCallRate;
+
+    @Schema(description = "窗口内调用数")
+    private Integer bufferedCalls;
+
+    @Schema(description = "窗口内失败调用数")
+    private Integer failedCalls;
+
+    @Schema(description = "窗口内慢调用数")
+    private Integer slowCalls;
+
+    @Schema(description = "熔断期间被拒绝的调用数")
+    private Long notPermittedCalls;
+}
@@ -0,0 +1,29 @@
+package com.agentguard.proxy.dto;
+
+import com.agentguard.stats.dto.TokenUsageDTO;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * LLM 响应摘要
+ * 一次流式解析上游响应得到的日志所需字段，响应体本身原样返回给调用方
+ *
+ * @author zhuhx
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LlmResponseSummaryDTO {
+
+    /** Token 使用量（响应中没有 usage 时为空） */
+    private TokenUsageDTO tokenUsage;
+
+    /** 结束原因（OpenAI: choices[0].finish_reason，Anthropic: stop_reason） */
+    private String finishReason;
+
+    /** 调用的工具名称（逗号分隔），没有工具调用时为空 */
+    private String toolNames;
+}
@@ -0,0 +1,41 @@
+package com.agentguard.proxy.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.http.HttpHeaders;
+
+import java.io.InputStream;
+
+/**
+ * 流式透传请求 DTO
+ * <p>
+ * 请求体保持为输入流，由代理按块转发到目标服务。
+ *
+ * @author zhuhx
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PassthroughRequestDTO {
+
+    /** Authorization 请求头（Bearer ag-xxx） */
+    private String authorization;
+
+    /** 目标URL */
+    private String targetUrl;
+
+    /** HTTP方法 */
+    private String method;
+
+    /** 转发到目标服务的请求头（已去掉代理自身使用的请求头） */
+    private HttpHeaders headers;
+
+    /** 请求体长度，未知时为 -1 */
+    private long contentLength;
+
+    /** 请求体输入流 */
+    private InputStream body;
+}
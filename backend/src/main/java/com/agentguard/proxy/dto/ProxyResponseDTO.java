@@ -1,6 +1,7 @@
 package com.agentguard.proxy.dto;
 
 import com.agentguard.log.enums.ResponseStatus;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -39,6 +40,11 @@ public class ProxyResponseDTO {
     @Schema(description = "审批请求ID")
     private String approvalRequestId;
 
+    /** 建议客户端重试前等待的秒数（上游限流时），通过 Retry-After 响应头返回，不写入响应体 */
+    @JsonIgnore
+    @Schema(hidden = true)
+    private Long retryAfterSeconds;
+
     /**
      * 创建成功响应
      *
@@ -0,0 +1,182 @@
+package com.agentguard.proxy.filter;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import cn.hutool.json.JSONUtil;
+import com.agentguard.agent.enums.AgentEnvironment;
+import com.agentguard.agent.service.AgentService;
+import com.agentguard.common.exception.ErrorCode;
+import com.agentguard.common.response.Result;
+import com.agentguard.proxy.config.ProxyProperties;
+import com.agentguard.proxy.limit.AdaptiveConcurrencyLimiter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+/**
+ * 代理接口过载保护过滤器
+ * <p>
+ * /proxy/** 请求先向自适应并发限制申请许可，超出时直接返回 503 + Retry-After，不再进入业务处理。
+ * 请求头中的 Agent API Key 用于确定运行环境（本地缓存），生产环境可使用全部并发上限，测试环境只能使用一部分。
+ * API Key 在请求体中的接口（/proxy/v1/api）先解析请求体，再由 {@link ProxyRequestBodyShedding} 按请求体中的 Key 申请许可。
+ * 耗时样本只统计网关自身的处理：排队准入、限流等待、等待相同请求和上游调用由业务层暂停计时（见 {@link AdaptiveConcurrencyLimiter#pause()}），
+ * 流式请求只统计建立流之前的部分（之后不占用请求线程）。
+ *
+ * @author zhuhx
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class ProxyLoadSheddingFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    /** API Key 在请求体中的接口，解析请求体后才能确定运行环境 */
+    private static final Set<String> BODY_KEYED_PATHS = Set.of("/proxy/v1/api", "/proxy/v1/request");
+
+    /** 解析请求体后申请的许可（请求属性） */
+    private static final String DEFERRED_PERMIT_ATTRIBUTE = ProxyLoadSheddingFilter.class.getName() + ".permit";
+
+    /** API Key 运行环境缓存容量 */
+    private static final int ENVIRONMENT_CACHE_CAPACITY = 10000;
+
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    private final AgentService agentService;
+
+    private final ProxyProperties proxyProperties;
+
+    /** API Key 的 SHA-256 -> 运行环境（无法识别的 Key 缓存为默认环境，避免重复查库） */
+    private final LRUCache<String, AgentEnvironment> environmentCache;
+
+    public ProxyLoadSheddingFilter(AdaptiveConcurrencyLimiter concurrencyLimiter, AgentService agentService,
+                                   ProxyProperties proxyProperties) {
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.agentService = agentService;
+        this.proxyProperties = proxyProperties;
+        this.environmentCache = CacheUtil.newLRUCache(ENVIRONMENT_CACHE_CAPACITY,
+                proxyProperties.getLoadShedding().getEnvironmentCacheMs());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !proxyProperties.getLoadShedding().isEnabled() || !request.getRequestURI().startsWith("/proxy/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (BODY_KEYED_PATHS.contains(request.getRequestURI())) {
+            // API Key 在请求体中：解析请求体后由 ProxyRequestBodyShedding 申请许可，这里只负责归还
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                if (request.getAttribute(DEFERRED_PERMIT_ATTRIBUTE) instanceof AdaptiveConcurrencyLimiter.Permit permit) {
+                    permit.release();
+                }
+            }
+            return;
+        }
+
+        AgentEnvironment environment = resolveEnvironment(bearerApiKey(request));
+        AdaptiveConcurrencyLimiter.Permit permit = concurrencyLimiter.tryAcquire(environment);
+        if (permit == null) {
+            logRejected(request, environment);
+            handleOverloaded(response);
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            permit.release();
+        }
+    }
+
+    /**
+     * 为 API Key 在请求体中的请求申请许可，许可在过滤器中归还
+     *
+     * @param request 请求
+     * @param response 响应，拒绝时设置 Retry-After
+     * @param apiKey 请求体中的 Agent API Key
+     * @return 是否准入；未启用过载保护时直接准入
+     */
+    public boolean admitDeferred(HttpServletRequest request, HttpServletResponse response, String apiKey) {
+        if (shouldNotFilter(request) || !BODY_KEYED_PATHS.contains(request.getRequestURI())
+                || request.getAttribute(DEFERRED_PERMIT_ATTRIBUTE) != null) {
+            return true;
+        }
+        AgentEnvironment environment = resolveEnvironment(apiKey);
+        AdaptiveConcurrencyLimiter.Permit permit = concurrencyLimiter.tryAcquire(environment);
+        if (permit == null) {
+            logRejected(request, environment);
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(proxyProperties.getLoadShedding().getRetryAfterSeconds()));
+            return false;
+        }
+        request.setAttribute(DEFERRED_PERMIT_ATTRIBUTE, permit);
+        return true;
+    }
+
+    private String bearerApiKey(HttpServletRequest request) {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (StrUtil.isBlank(authorization) || !authorization.startsWith(BEARER_PREFIX)) {
+            return null;
+        }
+        return authorization.substring(BEARER_PREFIX.length()).trim();
+    }
+
+    /**
+     * 由 Agent API Key 确定运行环境，缓存键为 API Key 的 SHA-256，内存中不保留明文
+     */
+    private AgentEnvironment resolveEnvironment(String apiKey) {
+        AgentEnvironment defaultEnvironment = proxyProperties.getLoadShedding().getDefaultEnvironment();
+        if (StrUtil.isBlank(apiKey)) {
+            return defaultEnvironment;
+        }
+        String cacheKey = DigestUtil.sha256Hex(apiKey);
+        AgentEnvironment cached = environmentCache.get(cacheKey, false);
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            AgentEnvironment environment = agentService.getEnvironmentByApiKey(apiKey);
+            AgentEnvironment resolved = environment != null ? environment : defaultEnvironment;
+            environmentCache.put(cacheKey, resolved);
+            return resolved;
+        } catch (Exception e) {
+            log.warn("查询Agent运行环境失败，按默认环境处理: {}", e.getMessage());
+            return defaultEnvironment;
+        }
+    }
+
+    private void logRejected(HttpServletRequest request, AgentEnvironment environment) {
+        log.warn("网关过载，拒绝请求: {} {}，运行环境 {}，并发 {}/{}", request.getMethod(), request.getRequestURI(),
+                environment, concurrencyLimiter.getInflight(), concurrencyLimiter.getLimit());
+    }
+
+    /**
+     * 返回 503 + Retry-After
+     */
+    private void handleOverloaded(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(proxyProperties.getLoadShedding().getRetryAfterSeconds()));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        Result<?> result = Result.error(ErrorCode.SERVICE_OVERLOADED.getCode(), ErrorCode.SERVICE_OVERLOADED.getMessage());
+        response.getWriter().write(JSONUtil.toJsonStr(result));
+    }
+}
@@ -0,0 +1,52 @@
+package com.agentguard.proxy.filter;
+
+import com.agentguard.common.exception.ErrorCode;
+import com.agentguard.common.exception.ServiceOverloadedException;
+import com.agentguard.proxy.controller.ProxyController;
+import com.agentguard.proxy.dto.ProxyRequestDTO;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+import java.lang.reflect.Type;
+
+/**
+ * API Key 在请求体中的代理请求的过载保护
+ * <p>
+ * 请求体解析完成后按其中的 API Key 确定运行环境并申请许可，超出时返回 503 + Retry-After；
+ * 许可由 {@link ProxyLoadSheddingFilter} 在请求结束时归还。
+ *
+ * @author zhuhx
+ */
+@ControllerAdvice(assignableTypes = ProxyController.class)
+@RequiredArgsConstructor
+public class ProxyRequestBodyShedding extends RequestBodyAdviceAdapter {
+
+    private final ProxyLoadSheddingFilter loadSheddingFilter;
+
+    @Override
+    public boolean supports(MethodParameter methodParameter, Type targetType,
+                            Class<? extends HttpMessageConverter<?>> converterType) {
+        return ProxyRequestDTO.class.equals(methodParameter.getParameterType());
+    }
+
+    @Override
+    public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                Class<? extends HttpMessageConverter<?>> converterType) {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            HttpServletRequest request = attributes.getRequest();
+            HttpServletResponse response = attributes.getResponse();
+            if (response != null && !loadSheddingFilter.admitDeferred(request, response, ((ProxyRequestDTO) body).getApiKey())) {
+                throw new ServiceOverloadedException(ErrorCode.SERVICE_OVERLOADED);
+            }
+        }
+        return body;
+    }
+}
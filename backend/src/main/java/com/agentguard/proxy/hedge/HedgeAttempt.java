@@ -0,0 +1,137 @@
+package com.agentguard.proxy.hedge;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 对冲请求中的一次尝试
+ * <p>
+ * 序号 0 为主请求，1 为对冲请求。尝试由调用方构建的请求在收到响应头时调用 {@link #markResponded()}，
+ * 对冲执行器据此判断主请求是否已经响应（已响应则不再对冲）并统计响应头时间；结果由对冲执行器写入。
+ *
+ * @author zhuhx
+ */
+public final class HedgeAttempt {
+
+    /**
+     * 尝试结果
+     */
+    public enum Outcome {
+        /** 进行中 */
+        PENDING,
+        /** 成功并被采用 */
+        SUCCEEDED,
+        /** 失败 */
+        FAILED,
+        /** 另一个尝试先成功，本尝试被取消 */
+        CANCELLED
+    }
+
+    private final int index;
+
+    private final long startNanos = System.nanoTime();
+
+    /** 目标描述（上游端点名称或目标地址），用于日志 */
+    private volatile String target;
+
+    /** 收到响应头的时间（纳秒），0 表示未收到 */
+    private volatile long respondedNanos;
+
+    private volatile long endNanos;
+
+    private final AtomicReference<Outcome> outcome = new AtomicReference<>(Outcome.PENDING);
+
+    private volatile String error;
+
+    public HedgeAttempt(int index) {
+        this.index = index;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public boolean isHedge() {
+        return index > 0;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public void setTarget(String target) {
+        this.target = target;
+    }
+
+    /**
+     * 标记已收到响应头
+     */
+    public void markResponded() {
+        if (respondedNanos == 0) {
+            respondedNanos = System.nanoTime();
+        }
+    }
+
+    public boolean hasResponded() {
+        return respondedNanos != 0;
+    }
+
+    /**
+     * 响应头时间（毫秒），未收到响应头时返回 -1
+     */
+    public long getRespondedMs() {
+        long responded = respondedNanos;
+        return responded == 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(responded - startNanos);
+    }
+
+    /**
+     * 已耗时（毫秒），结束后为总耗时
+     */
+    public long getElapsedMs() {
+        long end = endNanos;
+        return TimeUnit.NANOSECONDS.toMillis((end == 0 ? System.nanoTime() : end) - startNanos);
+    }
+
+    public Outcome getOutcome() {
+        return outcome.get();
+    }
+
+    /**
+     * 写入结果，只有第一次写入生效
+     *
+     * @param result 结果
+     * @param cause 失败原因，非失败时为 null
+     * @return 是否写入成功
+     */
+    public boolean finish(Outcome result, Throwable cause) {
+        long now = System.nanoTime();
+        if (!outcome.compareAndSet(Outcome.PENDING, result)) {
+            return false;
+        }
+        endNanos = now;
+        if (cause != null) {
+            error = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+        }
+        return true;
+    }
+
+    /**
+     * 转为日志摘要
+     */
+    public Map<String, Object> toSummary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("attempt", index);
+        summary.put("target", target);
+        summary.put("outcome", outcome.get().name().toLowerCase());
+        summary.put("latencyMs", getElapsedMs());
+        if (respondedNanos != 0) {
+            summary.put("respondedMs", getRespondedMs());
+        }
+        if (error != null) {
+            summary.put("error", error);
+        }
+        return summary;
+    }
+}
@@ -0,0 +1,39 @@
+package com.agentguard.proxy.hedge;
+
+import reactor.core.publisher.Mono;
+
+import java.util.function.Function;
+
+/**
+ * 请求对冲执行器接口
+ * <p>
+ * 先发送主请求；主请求在对冲阈值（按键统计的响应头时间分位数）内既未完成也未收到响应头时，
+ * 若对冲预算允许，再发送一次对冲请求，取先成功者，另一个立即取消（取消订阅，关闭连接）。
+ * 主请求在阈值内失败时直接返回失败，对冲不用于重试；两次尝试都失败时抛出主请求的异常。
+ *
+ * @author zhuhx
+ */
+public interface RequestHedger {
+
+    /**
+     * 执行可对冲的请求，阻塞等待结果
+     *
+     * @param key 统计键（如 Agent ID 与请求类型），延迟分位数和对冲预算按键独立计算
+     * @param hedgeable 本次请求是否允许对冲；不允许时只发送主请求，但仍计入延迟统计
+     * @param attemptFactory 按尝试构建请求，在调用线程中执行；收到响应头时应调用 {@link HedgeAttempt#markResponded()}。
+     *                       对冲尝试没有可用目标时返回 null，此时不发送对冲请求、退还预算，继续等待主请求
+     * @param <T> 结果类型
+     * @return 结果及采用的尝试
+     */
+    <T> HedgeResult<T> execute(String key, boolean hedgeable, Function<HedgeAttempt, Mono<T>> attemptFactory);
+
+    /**
+     * 对冲执行结果
+     *
+     * @param value 采用的结果
+     * @param winner 采用的尝试
+     * @param <T> 结果类型
+     */
+    record HedgeResult<T>(T value, HedgeAttempt winner) {
+    }
+}
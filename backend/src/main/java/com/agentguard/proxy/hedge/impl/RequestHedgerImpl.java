@@ -0,0 +1,247 @@
+package com.agentguard.proxy.hedge.impl;
+
+import com.agentguard.proxy.config.ProxyProperties;
+import com.agentguard.proxy.hedge.HedgeAttempt;
+import com.agentguard.proxy.hedge.RequestHedger;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.stereotype.Component;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 请求对冲执行器实现类
+ * <p>
+ * 对冲阈值：每个键一个 HdrHistogram {@link Recorder} 记录响应头时间（被取消且未响应的尝试记录已耗时，作为下限），
+ * 每个统计窗口取出一次区间直方图，与上一窗口合并后计算分位数，并限制在配置的上下限之间；样本不足时不对冲。
+ * 对冲预算：令牌桶，每个主请求存入 budgetPercent% 个令牌，每次对冲消耗 1 个，最多累积 budgetBurst 个，
+ * 因此长期对冲请求数不超过主请求数的 budgetPercent%，上游变慢时也不会成倍放大负载。
+ *
+ * @author zhuhx
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RequestHedgerImpl implements RequestHedger {
+
+    private static final long LOWEST_TRACKABLE_MS = 1;
+
+    private static final long HIGHEST_TRACKABLE_MS = TimeUnit.HOURS.toMillis(1);
+
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    /** 预算以千分之一个令牌为单位记账 */
+    private static final long CREDIT_UNIT = 1000;
+
+    private final ProxyProperties proxyProperties;
+
+    /** 统计键 -> 延迟统计和预算 */
+    private final Map<String, HedgeState> states = new ConcurrentHashMap<>();
+
+    @Override
+    public <T> HedgeResult<T> execute(String key, boolean hedgeable, Function<HedgeAttempt, Mono<T>> attemptFactory) {
+        ProxyProperties.Hedging config = proxyProperties.getHedging();
+        HedgeState state = states.computeIfAbsent(key, k -> new HedgeState());
+        state.deposit(config);
+        long delayMs = hedgeable ? state.threshold(config) : -1;
+
+        HedgeAttempt primary = new HedgeAttempt(0);
+        CompletableFuture<T> primaryFuture = start(primary, Mono.defer(() -> attemptFactory.apply(primary)));
+        HedgeAttempt hedge = null;
+        try {
+            if (delayMs < 0) {
+                return new HedgeResult<>(await(primaryFuture), primary);
+            }
+            try {
+                return new HedgeResult<>(primaryFuture.get(delayMs, TimeUnit.MILLISECONDS), primary);
+            } catch (TimeoutException e) {
+                // 主请求超过阈值仍未完成
+            } catch (ExecutionException e) {
+                throw propagate(e.getCause());
+            }
+            // 已收到响应头说明上游正在返回响应体，此时对冲没有收益
+            if (primary.hasResponded() || !state.withdraw()) {
+                return new HedgeResult<>(await(primaryFuture), primary);
+            }
+            HedgeAttempt candidate = new HedgeAttempt(1);
+            Mono<T> hedgeRequest;
+            try {
+                hedgeRequest = attemptFactory.apply(candidate);
+            } catch (RuntimeException e) {
+                // 与主请求一致，构建失败按对冲请求失败处理
+                hedgeRequest = Mono.error(e);
+            }
+            if (hedgeRequest == null) {
+                // 没有可对冲的目标，退还预算
+                state.refund();
+                return new HedgeResult<>(await(primaryFuture), primary);
+            }
+            hedge = candidate;
+            log.debug("请求 {} 超过对冲阈值 {}ms 未响应，发送对冲请求", key, delayMs);
+            return race(primary, primaryFuture, hedge, start(hedge, hedgeRequest));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel(primary, primaryFuture);
+            throw Exceptions.propagate(e);
+        } finally {
+            state.record(primary);
+            if (hedge != null) {
+                state.record(hedge);
+            }
+        }
+    }
+
+    /**
+     * 等待主请求和对冲请求，采用先成功者并取消另一个；两者都失败时抛出主请求的异常
+     */
+    private <T> HedgeResult<T> race(HedgeAttempt primary, CompletableFuture<T> primaryFuture,
+                                    HedgeAttempt hedge, CompletableFuture<T> hedgeFuture) {
+        try {
+            CompletableFuture.anyOf(primaryFuture, hedgeFuture).join();
+        } catch (CompletionException | CancellationException e) {
+            // 先结束的一方失败，继续等待另一方
+        }
+        if (succeeded(primaryFuture)) {
+            cancel(hedge, hedgeFuture);
+            return new HedgeResult<>(primaryFuture.join(), primary);
+        }
+        if (succeeded(hedgeFuture)) {
+            cancel(primary, primaryFuture);
+            return new HedgeResult<>(hedgeFuture.join(), hedge);
+        }
+        boolean primaryFailed = primaryFuture.isCompletedExceptionally();
+        CompletableFuture<T> remainingFuture = primaryFailed ? hedgeFuture : primaryFuture;
+        HedgeAttempt remaining = primaryFailed ? hedge : primary;
+        try {
+            return new HedgeResult<>(remainingFuture.join(), remaining);
+        } catch (CompletionException e) {
+            // 两次尝试都失败
+            return new HedgeResult<>(await(primaryFuture), primary);
+        }
+    }
+
+    private <T> CompletableFuture<T> start(HedgeAttempt attempt, Mono<T> request) {
+        return request
+                .doOnSuccess(value -> attempt.finish(HedgeAttempt.Outcome.SUCCEEDED, null))
+                .doOnError(error -> attempt.finish(HedgeAttempt.Outcome.FAILED, error))
+                .toFuture();
+    }
+
+    /**
+     * 取消尝试：取消订阅会中止进行中的 HTTP 请求并关闭连接
+     */
+    private void cancel(HedgeAttempt attempt, CompletableFuture<?> future) {
+        if (attempt.finish(HedgeAttempt.Outcome.CANCELLED, null)) {
+            future.cancel(true);
+        }
+    }
+
+    private boolean succeeded(CompletableFuture<?> future) {
+        return future.isDone() && !future.isCompletedExceptionally();
+    }
+
+    private <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw propagate(e.getCause());
+        }
+    }
+
+    private RuntimeException propagate(Throwable error) {
+        return error instanceof RuntimeException runtimeError ? runtimeError : Exceptions.propagate(error);
+    }
+
+    /**
+     * 单个统计键的延迟统计和对冲预算
+     */
+    private static final class HedgeState {
+
+        private final Recorder recorder = new Recorder(LOWEST_TRACKABLE_MS, HIGHEST_TRACKABLE_MS, SIGNIFICANT_DIGITS);
+
+        /** 上一统计窗口的区间直方图，仅在持有 refreshing 时访问 */
+        private Histogram previous;
+
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private volatile long refreshedAtMillis = System.currentTimeMillis();
+
+        /** 当前对冲阈值（毫秒），-1 表示样本不足 */
+        private volatile long thresholdMs = -1;
+
+        /** 预算余额（千分之一令牌） */
+        private final AtomicLong credits = new AtomicLong();
+
+        /**
+         * 获取对冲阈值，统计窗口到期时重新计算
+         */
+        long threshold(ProxyProperties.Hedging config) {
+            long nowMillis = System.currentTimeMillis();
+            if (nowMillis - refreshedAtMillis >= config.getWindowMs() && refreshing.compareAndSet(false, true)) {
+                try {
+                    Histogram current = recorder.getIntervalHistogram();
+                    Histogram window = current.copy();
+                    if (previous != null) {
+                        window.add(previous);
+                    }
+                    previous = current;
+                    thresholdMs = window.getTotalCount() < config.getMinSamples() ? -1
+                            : Math.min(Math.max(window.getValueAtPercentile(config.getPercentile()),
+                            config.getMinDelayMs()), config.getMaxDelayMs());
+                    refreshedAtMillis = nowMillis;
+                } finally {
+                    refreshing.set(false);
+                }
+            }
+            return thresholdMs;
+        }
+
+        /**
+         * 记录尝试的响应头时间；被取消且未响应的尝试记录已耗时；连接失败等未响应的失败不记录
+         */
+        void record(HedgeAttempt attempt) {
+            long valueMs = attempt.getRespondedMs();
+            if (valueMs < 0 && attempt.getOutcome() == HedgeAttempt.Outcome.CANCELLED) {
+                valueMs = attempt.getElapsedMs();
+            }
+            if (valueMs >= 0) {
+                recorder.recordValue(Math.min(Math.max(valueMs, LOWEST_TRACKABLE_MS), HIGHEST_TRACKABLE_MS));
+            }
+        }
+
+        void deposit(ProxyProperties.Hedging config) {
+            long amount = Math.round(config.getBudgetPercent() * CREDIT_UNIT / 100);
+            long cap = config.getBudgetBurst() * CREDIT_UNIT;
+            credits.getAndUpdate(current -> current >= cap ? current : Math.min(current + amount, cap));
+        }
+
+        void refund() {
+            credits.addAndGet(CREDIT_UNIT);
+        }
+
+        boolean withdraw() {
+            long balance;
+            do {
+                balance = credits.get();
+                if (balance < CREDIT_UNIT) {
+                    return false;
+                }
+            } while (!credits.compareAndSet(balance, balance - CREDIT_UNIT));
+            return true;
+        }
+    }
+}
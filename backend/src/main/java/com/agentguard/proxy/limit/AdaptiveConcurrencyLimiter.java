@@ -0,0 +1,64 @@
+package com.agentguard.proxy.limit;
+
+import com.agentguard.agent.enums.AgentEnvironment;
+
+/**
+ * 网关自适应并发限制接口
+ * <p>
+ * 根据请求处理耗时推算本节点可同时处理的请求数，超出时立即拒绝（不排队），
+ * 避免数据库、Redis 或上游变慢时线程池和连接池被占满、延迟无限增长。
+ *
+ * @author zhuhx
+ */
+public interface AdaptiveConcurrencyLimiter {
+
+    /**
+     * 申请处理一个请求
+     *
+     * @param environment 请求所属 Agent 的运行环境，决定可使用的并发上限比例
+     * @return 许可，请求处理完成后释放；超出可用上限时返回 null
+     */
+    Permit tryAcquire(AgentEnvironment environment);
+
+    /**
+     * 当前并发上限
+     */
+    int getLimit();
+
+    /**
+     * 当前进行中的请求数
+     */
+    int getInflight();
+
+    /**
+     * 暂停当前请求的耗时统计，直到返回的句柄关闭
+     * <p>
+     * 用于包裹排队准入、限流等待、等待相同请求和上游调用，这些耗时不由网关决定，不计入调整上限的样本。
+     * 当前线程没有许可（未经过滤器或在其他线程执行）时为空操作；嵌套暂停只按最外层计算。
+     *
+     * @return 暂停句柄，等待结束后在 finally 中恢复
+     */
+    Pause pause();
+
+    /**
+     * 处理许可
+     */
+    interface Permit {
+
+        /**
+         * 请求处理完成：归还并发额度，并记录处理耗时作为调整上限的样本
+         */
+        void release();
+    }
+
+    /**
+     * 耗时统计暂停句柄
+     */
+    interface Pause {
+
+        /**
+         * 恢复耗时统计
+         */
+        void resume();
+    }
+}
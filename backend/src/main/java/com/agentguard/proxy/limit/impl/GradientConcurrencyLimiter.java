@@ -0,0 +1,227 @@
+package com.agentguard.proxy.limit.impl;
+
+import com.agentguard.agent.enums.AgentEnvironment;
+import com.agentguard.proxy.config.ProxyProperties;
+import com.agentguard.proxy.limit.AdaptiveConcurrencyLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 梯度自适应并发限制实现类
+ * <p>
+ * 每个采样窗口计算平均处理耗时（短期耗时），并以指数平滑维护长期基线：
+ * <pre>
+ * gradient = clamp(tolerance × 长期基线 / 短期耗时, 0.5, 1.0)
+ * newLimit = limit × gradient + queueSize
+ * limit    = limit × (1 - smoothing) + newLimit × smoothing
+ * </pre>
+ * 耗时没有明显高于基线时梯度为 1，上限按 queueSize 缓慢增长；耗时上升时按比例收缩。
+ * 窗口内最大并发不足上限一半时不调整（负载低时耗时不反映容量）。短期耗时远低于基线时（负载下降后）基线加速回落。
+ * <p>
+ * 样本只包含网关自身的处理耗时：请求线程上通过 {@link #pause()} 包裹的排队准入、限流等待和上游调用耗时会被扣除，
+ * 否则上游 LLM 变慢或主动等待都会被误判为网关过载而收缩上限。
+ *
+ * @author zhuhx
+ */
+@Slf4j
+@Component
+public class GradientConcurrencyLimiter implements AdaptiveConcurrencyLimiter {
+
+    private final ProxyProperties proxyProperties;
+
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    /** 当前请求线程持有的许可，用于扣除暂停期间的耗时 */
+    private final ThreadLocal<TimedPermit> currentPermit = new ThreadLocal<>();
+
+    /** 估算的并发上限（平滑后的浮点值） */
+    private double estimatedLimit;
+
+    /** 当前并发上限 */
+    private volatile int limit;
+
+    /** 长期耗时基线（纳秒），0 表示尚无样本 */
+    private double longRtt;
+
+    /** 当前采样窗口 */
+    private long windowStart;
+    private long windowRttSum;
+    private int windowCount;
+    private int windowMaxInflight;
+
+    public GradientConcurrencyLimiter(ProxyProperties proxyProperties, MeterRegistry meterRegistry) {
+        this.proxyProperties = proxyProperties;
+        this.meterRegistry = meterRegistry;
+        this.estimatedLimit = proxyProperties.getLoadShedding().getInitialLimit();
+        this.limit = proxyProperties.getLoadShedding().getInitialLimit();
+    }
+
+    /**
+     * 注册并发上限和进行中请求数指标
+     */
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("agentguard.proxy.concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .description("网关当前并发上限")
+                .register(meterRegistry);
+        Gauge.builder("agentguard.proxy.concurrency.inflight", this, AdaptiveConcurrencyLimiter::getInflight)
+                .description("网关进行中的请求数")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Permit tryAcquire(AgentEnvironment environment) {
+        ProxyProperties.LoadShedding config = proxyProperties.getLoadShedding();
+        Integer share = config.getEnvironmentShares().get(environment);
+        int allowed = Math.max(1, limit * (share != null ? share : 100) / 100);
+        int current;
+        do {
+            current = inflight.get();
+            if (current >= allowed) {
+                Counter.builder("agentguard.proxy.shed")
+                        .description("网关过载拒绝的请求数")
+                        .tag("environment", environment != null ? environment.getCode() : "UNKNOWN")
+                        .register(meterRegistry)
+                        .increment();
+                return null;
+            }
+        } while (!inflight.compareAndSet(current, current + 1));
+
+        TimedPermit permit = new TimedPermit(current + 1);
+        currentPermit.set(permit);
+        return permit;
+    }
+
+    @Override
+    public Pause pause() {
+        TimedPermit permit = currentPermit.get();
+        if (permit == null) {
+            return () -> {
+            };
+        }
+        if (permit.pauseDepth++ == 0) {
+            permit.pausedAt = System.nanoTime();
+        }
+        AtomicBoolean resumed = new AtomicBoolean();
+        return () -> {
+            if (resumed.compareAndSet(false, true) && --permit.pauseDepth == 0) {
+                permit.excludedNanos += System.nanoTime() - permit.pausedAt;
+            }
+        };
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    /**
+     * 记录一个耗时样本，窗口结束时调整上限
+     *
+     * @param rttNanos 处理耗时（纳秒）
+     * @param inflightAtStart 开始处理时的并发数
+     */
+    private synchronized void sample(long rttNanos, int inflightAtStart) {
+        ProxyProperties.LoadShedding config = proxyProperties.getLoadShedding();
+        long now = System.nanoTime();
+        if (windowCount == 0) {
+            windowStart = now;
+        }
+        windowRttSum += rttNanos;
+        windowCount++;
+        windowMaxInflight = Math.max(windowMaxInflight, inflightAtStart);
+        if (now - windowStart < TimeUnit.MILLISECONDS.toNanos(config.getWindowMs())
+                || windowCount < config.getMinWindowSamples()) {
+            return;
+        }
+
+        double shortRtt = (double) windowRttSum / windowCount;
+        int maxInflight = windowMaxInflight;
+        windowRttSum = 0;
+        windowCount = 0;
+        windowMaxInflight = 0;
+        updateLimit(shortRtt, maxInflight, config);
+    }
+
+    private void updateLimit(double shortRtt, int maxInflight, ProxyProperties.LoadShedding config) {
+        if (longRtt == 0) {
+            longRtt = shortRtt;
+        } else {
+            longRtt += (shortRtt - longRtt) / Math.max(1, config.getLongWindow());
+        }
+        // 负载下降后基线远高于当前耗时，加速回落，避免之后的延迟上升迟迟不被发现
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+        // 并发远未用满时耗时不反映容量，不调整
+        if (maxInflight < estimatedLimit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, config.getTolerance() * longRtt / shortRtt));
+        double newLimit = estimatedLimit * gradient + config.getQueueSize();
+        newLimit = estimatedLimit * (1 - config.getSmoothing()) + newLimit * config.getSmoothing();
+        newLimit = Math.max(config.getMinLimit(), Math.min(config.getMaxLimit(), newLimit));
+
+        int previous = limit;
+        estimatedLimit = newLimit;
+        limit = (int) newLimit;
+        if (limit < previous) {
+            log.info("网关并发上限下调: {} -> {}（短期耗时 {}ms，基线 {}ms）", previous, limit,
+                    Math.round(shortRtt / 1_000_000), Math.round(longRtt / 1_000_000));
+        } else if (limit != previous) {
+            log.debug("网关并发上限上调: {} -> {}", previous, limit);
+        }
+    }
+
+    /**
+     * 处理许可：记录开始时间和暂停期间的耗时（暂停计数只在请求线程上读写）
+     */
+    private final class TimedPermit implements Permit {
+
+        private final int inflightAtStart;
+
+        private final long start = System.nanoTime();
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private int pauseDepth;
+
+        private long pausedAt;
+
+        private long excludedNanos;
+
+        private TimedPermit(int inflightAtStart) {
+            this.inflightAtStart = inflightAtStart;
+        }
+
+        @Override
+        public void release() {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            if (currentPermit.get() == this) {
+                currentPermit.remove();
+            }
+            inflight.decrementAndGet();
+            long now = System.nanoTime();
+            long excluded = excludedNanos + (pauseDepth > 0 ? now - pausedAt : 0);
+            sample(Math.max(0, now - start - excluded), inflightAtStart);
+        }
+    }
+}
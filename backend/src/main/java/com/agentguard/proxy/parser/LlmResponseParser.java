@@ -0,0 +1,29 @@
+package com.agentguard.proxy.parser;
+
+import com.agentguard.proxy.dto.LlmResponseSummaryDTO;
+
+/**
+ * LLM 响应解析器接口
+ *
+ * @author zhuhx
+ */
+public interface LlmResponseParser {
+
+    /**
+     * 流式解析非流式 LLM 响应体，只提取 usage、结束原因和工具名称，不构建对象树
+     *
+     * @param body 响应体原始字节（UTF-8 JSON）
+     * @param provider LLM提供商
+     * @return 响应摘要；响应体不是完整的 JSON 对象时返回 null
+     */
+    LlmResponseSummaryDTO parse(byte[] body, String provider);
+
+    /**
+     * 将流式数据块中 choices[].delta 的输出文本（content、reasoning_content、工具调用的函数名和参数）追加到缓冲区，
+     * 用于上游未返回 usage 时按本地分词估算输出 Token 数
+     *
+     * @param chunk 流式数据块（可带 "data: " 前缀），非 JSON 对象时忽略
+     * @param out 输出文本缓冲区
+     */
+    void appendDeltaText(String chunk, StringBuilder out);
+}
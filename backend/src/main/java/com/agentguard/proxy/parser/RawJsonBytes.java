@@ -0,0 +1,118 @@
+package com.agentguard.proxy.parser;
+
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 原始 JSON 字节
+ * <p>
+ * 包装 {@link com.fasterxml.jackson.databind.util.RawValue} 使用：按 UTF-8 写出时直接拷贝原始字节，
+ * 不先解码为 String；只有写入字符流或按字符串读取时才解码一次并缓存。
+ * 调用方需保证字节是完整、合法的 UTF-8 JSON 值，且之后不再修改。
+ *
+ * @author zhuhx
+ */
+public final class RawJsonBytes implements SerializableString {
+
+    private final byte[] bytes;
+
+    /** 按需解码的字符串形式 */
+    private volatile SerializedString decoded;
+
+    public RawJsonBytes(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    @Override
+    public String getValue() {
+        return decoded().getValue();
+    }
+
+    @Override
+    public int charLength() {
+        return decoded().charLength();
+    }
+
+    @Override
+    public char[] asQuotedChars() {
+        return decoded().asQuotedChars();
+    }
+
+    @Override
+    public byte[] asUnquotedUTF8() {
+        return bytes;
+    }
+
+    @Override
+    public byte[] asQuotedUTF8() {
+        return decoded().asQuotedUTF8();
+    }
+
+    @Override
+    public int appendQuotedUTF8(byte[] buffer, int offset) {
+        return decoded().appendQuotedUTF8(buffer, offset);
+    }
+
+    @Override
+    public int appendQuoted(char[] buffer, int offset) {
+        return decoded().appendQuoted(buffer, offset);
+    }
+
+    @Override
+    public int appendUnquotedUTF8(byte[] buffer, int offset) {
+        if (offset + bytes.length > buffer.length) {
+            return -1;
+        }
+        System.arraycopy(bytes, 0, buffer, offset, bytes.length);
+        return bytes.length;
+    }
+
+    @Override
+    public int appendUnquoted(char[] buffer, int offset) {
+        return decoded().appendUnquoted(buffer, offset);
+    }
+
+    @Override
+    public int writeQuotedUTF8(OutputStream out) throws IOException {
+        return decoded().writeQuotedUTF8(out);
+    }
+
+    @Override
+    public int writeUnquotedUTF8(OutputStream out) throws IOException {
+        out.write(bytes);
+        return bytes.length;
+    }
+
+    @Override
+    public int putQuotedUTF8(ByteBuffer buffer) throws IOException {
+        return decoded().putQuotedUTF8(buffer);
+    }
+
+    @Override
+    public int putUnquotedUTF8(ByteBuffer buffer) {
+        if (bytes.length > buffer.remaining()) {
+            return -1;
+        }
+        buffer.put(bytes);
+        return bytes.length;
+    }
+
+    @Override
+    public String toString() {
+        return getValue();
+    }
+
+    private SerializedString decoded() {
+        SerializedString value = decoded;
+        if (value == null) {
+            value = new SerializedString(new String(bytes, StandardCharsets.UTF_8));
+            decoded = value;
+        }
+        return value;
+    }
+}
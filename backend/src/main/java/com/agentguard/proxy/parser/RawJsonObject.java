@@ -0,0 +1,331 @@
+package com.agentguard.proxy.parser;
+
+import com.agentguard.common.exception.BusinessException;
+import com.agentguard.common.exception.ErrorCode;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 原始 JSON 对象
+ * <p>
+ * 保留请求体原始字节，构造时只做一次结构扫描，记录每个顶层字段值的字节区间，不解析字段内容。
+ * 作为 {@link Map} 使用时按字段延迟解析并缓存，策略只引用 model、temperature 等字段时不会解析 messages；
+ * 转发前通过 {@link #rewrite(Map, Map)} 按字节区间替换或追加顶层字段，其余字节原样拷贝。
+ * <p>
+ * 只读视图，修改操作会抛出 {@link UnsupportedOperationException}。
+ *
+ * @author zhuhx
+ */
+public final class RawJsonObject extends AbstractMap<String, Object> {
+
+    /** 字段值解析器，只产生 Map/List/String/Number/Boolean，与 Spring 默认反序列化结果一致 */
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final JsonFactory FACTORY = MAPPER.getFactory();
+
+    /** 原始字节 */
+    private final byte[] raw;
+
+    /** 顶层字段值的字节区间 [start, end)，重复字段以最后一次出现为准 */
+    private final Map<String, int[]> index;
+
+    /** 根对象结束符 '}' 的位置 */
+    private final int closeOffset;
+
+    /** 已解析的字段值 */
+    private final Map<String, Object> parsed = new HashMap<>();
+
+    private Set<Entry<String, Object>> entrySet;
+
+    private RawJsonObject(byte[] raw, Map<String, int[]> index, int closeOffset) {
+        this.raw = raw;
+        this.index = index;
+        this.closeOffset = closeOffset;
+    }
+
+    /**
+     * 扫描原始字节构建 JSON 对象视图
+     *
+     * @param raw 原始字节（UTF-8）
+     * @return JSON 对象视图
+     * @throws BusinessException 不是完整的 JSON 对象
+     */
+    public static RawJsonObject of(byte[] raw) {
+        if (raw == null || raw.length == 0) {
+            throw new BusinessException(ErrorCode.BAD_REQUEST, "请求体为空");
+        }
+        try (JsonParser parser = FACTORY.createParser(raw)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new BusinessException(ErrorCode.BAD_REQUEST, "请求体必须是JSON对象");
+            }
+            Map<String, int[]> index = new LinkedHashMap<>();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                int start = (int) parser.currentTokenLocation().getByteOffset();
+                if (value.isStructStart()) {
+                    parser.skipChildren();
+                } else {
+                    // 字符串内容是延迟读取的，读完后当前位置才在结束引号之后
+                    parser.finishToken();
+                }
+                int end = (int) parser.currentLocation().getByteOffset();
+                index.remove(name);
+                index.put(name, new int[]{start, end});
+            }
+            int closeOffset = (int) parser.currentTokenLocation().getByteOffset();
+            if (parser.nextToken() != null) {
+                throw new BusinessException(ErrorCode.BAD_REQUEST, "请求体JSON对象之后存在多余内容");
+            }
+            return new RawJsonObject(raw, index, closeOffset);
+        } catch (JsonProcessingException e) {
+            throw new BusinessException(ErrorCode.BAD_REQUEST, "请求体不是有效的JSON: " + e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new BusinessException(ErrorCode.BAD_REQUEST, "请求体读取失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 将普通 Map 序列化后构建 JSON 对象视图
+     *
+     * @param map 对象
+     * @return JSON 对象视图
+     */
+    public static RawJsonObject of(Map<String, Object> map) {
+        if (map instanceof RawJsonObject rawJsonObject) {
+            return rawJsonObject;
+        }
+        try {
+            return of(MAPPER.writeValueAsBytes(map));
+        } catch (IOException e) {
+            throw new BusinessException(ErrorCode.BAD_REQUEST, "请求体序列化失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 原始字节
+     */
+    public byte[] raw() {
+        return raw;
+    }
+
+    /**
+     * 顶层字段值的原始 JSON 文本，字段不存在时返回 null
+     *
+     * @param key 字段名
+     * @return 原始 JSON 文本
+     */
+    public String rawValue(String key) {
+        int[] range = index.get(key);
+        return range == null ? null : new String(raw, range[0], range[1] - range[0], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 顶层字段的 SHA-256 摘要：字段按名称排序后依次写入字段名和字段值的原始字节，不解析字段内容。
+     * 顶层字段顺序不影响结果，字段值内部的空白或键顺序不同时摘要不同
+     *
+     * @param excluded 不参与计算的字段
+     * @return 十六进制摘要
+     */
+    public String digest(Set<String> excluded) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        List<String> fields = new ArrayList<>(index.keySet());
+        fields.removeAll(excluded);
+        Collections.sort(fields);
+        ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+        for (String field : fields) {
+            // 字段名和字段值带长度前缀，避免不同的字段拼接出相同的字节序列
+            byte[] name = field.getBytes(StandardCharsets.UTF_8);
+            int[] range = index.get(field);
+            digest.update(length.clear().putInt(name.length).flip());
+            digest.update(name);
+            digest.update(length.clear().putInt(range[1] - range[0]).flip());
+            digest.update(raw, range[0], range[1] - range[0]);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * 创建定位在顶层字段值起始处之前的流式解析器，调用方读取第一个 token 即为字段值
+     *
+     * @param key 字段名
+     * @return 解析器，字段不存在时返回 null
+     * @throws IOException 创建失败
+     */
+    public JsonParser valueParser(String key) throws IOException {
+        int[] range = index.get(key);
+        return range == null ? null : FACTORY.createParser(raw, range[0], range[1] - range[0]);
+    }
+
+    /**
+     * 按字节区间改写顶层字段：replacements 中的字段存在则替换值、不存在则追加，
+     * additionsIfAbsent 中的字段仅在不存在时追加，其余字节原样保留
+     *
+     * @param replacements 替换或追加的字段
+     * @param additionsIfAbsent 不存在时追加的字段
+     * @return 改写后的字节；无需改写时返回原始字节
+     */
+    public byte[] rewrite(Map<String, Object> replacements, Map<String, Object> additionsIfAbsent) {
+        List<int[]> ranges = new ArrayList<>();
+        List<byte[]> values = new ArrayList<>();
+        List<byte[]> appended = new ArrayList<>();
+        try {
+            for (Entry<String, Object> entry : replacements.entrySet()) {
+                byte[] value = MAPPER.writeValueAsBytes(entry.getValue());
+                int[] range = index.get(entry.getKey());
+                if (range != null) {
+                    ranges.add(range);
+                    values.add(value);
+                } else {
+                    appended.add(field(entry.getKey(), value));
+                }
+            }
+            for (Entry<String, Object> entry : additionsIfAbsent.entrySet()) {
+                if (!index.containsKey(entry.getKey()) && !replacements.containsKey(entry.getKey())) {
+                    appended.add(field(entry.getKey(), MAPPER.writeValueAsBytes(entry.getValue())));
+                }
+            }
+        } catch (IOException e) {
+            throw new BusinessException(ErrorCode.BAD_REQUEST, "请求体改写失败: " + e.getMessage());
+        }
+        if (ranges.isEmpty() && appended.isEmpty()) {
+            return raw;
+        }
+
+        // 按位置排序后一次性计算输出长度并拷贝
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < ranges.size(); i++) {
+            order.add(i);
+        }
+        order.sort((a, b) -> Integer.compare(ranges.get(a)[0], ranges.get(b)[0]));
+
+        int length = raw.length;
+        for (int i = 0; i < ranges.size(); i++) {
+            length += values.get(i).length - (ranges.get(i)[1] - ranges.get(i)[0]);
+        }
+        boolean needComma = !index.isEmpty();
+        for (byte[] field : appended) {
+            length += field.length + (needComma ? 1 : 0);
+            needComma = true;
+        }
+
+        byte[] out = new byte[length];
+        int src = 0;
+        int dst = 0;
+        for (int i : order) {
+            int[] range = ranges.get(i);
+            byte[] value = values.get(i);
+            System.arraycopy(raw, src, out, dst, range[0] - src);
+            dst += range[0] - src;
+            System.arraycopy(value, 0, out, dst, value.length);
+            dst += value.length;
+            src = range[1];
+        }
+        System.arraycopy(raw, src, out, dst, closeOffset - src);
+        dst += closeOffset - src;
+        needComma = !index.isEmpty();
+        for (byte[] field : appended) {
+            if (needComma) {
+                out[dst++] = ',';
+            }
+            System.arraycopy(field, 0, out, dst, field.length);
+            dst += field.length;
+            needComma = true;
+        }
+        System.arraycopy(raw, closeOffset, out, dst, raw.length - closeOffset);
+        return out;
+    }
+
+    @Override
+    public synchronized Object get(Object key) {
+        if (!(key instanceof String name) || !index.containsKey(name)) {
+            return null;
+        }
+        if (parsed.containsKey(name)) {
+            return parsed.get(name);
+        }
+        int[] range = index.get(name);
+        Object value;
+        try {
+            value = MAPPER.readValue(raw, range[0], range[1] - range[0], Object.class);
+        } catch (IOException e) {
+            // 构造时已校验结构，这里只可能是字段值本身无法转换
+            throw new IllegalStateException("解析请求体字段失败: " + name, e);
+        }
+        parsed.put(name, value);
+        return value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return index.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return index.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return index.isEmpty();
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return Collections.unmodifiableSet(index.keySet());
+    }
+
+    /**
+     * 遍历所有字段会解析全部字段值，仅用于需要完整对象的场景
+     */
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        if (entrySet == null) {
+            Set<Entry<String, Object>> entries = new LinkedHashSet<>();
+            for (String key : index.keySet()) {
+                entries.add(new SimpleImmutableEntry<>(key, get(key)));
+            }
+            entrySet = Collections.unmodifiableSet(entries);
+        }
+        return entrySet;
+    }
+
+    @Override
+    public String toString() {
+        return new String(raw, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] field(String key, byte[] value) throws IOException {
+        byte[] name = MAPPER.writeValueAsBytes(key);
+        byte[] field = new byte[name.length + 1 + value.length];
+        System.arraycopy(name, 0, field, 0, name.length);
+        field[name.length] = ':';
+        System.arraycopy(value, 0, field, name.length + 1, value.length);
+        return field;
+    }
+}
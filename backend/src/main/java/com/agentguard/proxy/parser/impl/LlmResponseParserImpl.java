@@ -0,0 +1,339 @@
+package com.agentguard.proxy.parser.impl;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.StrUtil;
+import com.agentguard.proxy.dto.LlmResponseSummaryDTO;
+import com.agentguard.proxy.parser.LlmResponseParser;
+import com.agentguard.stats.dto.TokenUsageDTO;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * LLM 响应解析器实现类
+ * <p>
+ * 基于 Jackson 流式解析器逐个读取 token，只在 usage、choices[0]（OpenAI）和 stop_reason、content（Anthropic）
+ * 处读取字段值，其余内容（消息正文、工具参数等）直接跳过，分配量与响应体大小基本无关。
+ * 解析会走完整个文档，因此同时校验了响应体是完整的 JSON 对象，可以原样透传给调用方。
+ *
+ * @author zhuhx
+ */
+@Slf4j
+@Component
+public class LlmResponseParserImpl implements LlmResponseParser {
+
+    private final JsonFactory jsonFactory;
+
+    public LlmResponseParserImpl(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    @Override
+    public LlmResponseSummaryDTO parse(byte[] body, String provider) {
+        if (body == null || body.length == 0) {
+            return null;
+        }
+
+        ParseState state = new ParseState();
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "usage" -> readUsage(parser, value, state);
+                    case "choices" -> readChoices(parser, value, state);
+                    case "stop_reason" -> state.stopReason = readString(parser, value);
+                    case "content" -> readAnthropicContent(parser, value, state);
+                    default -> parser.skipChildren();
+                }
+            }
+            // 根对象之后不允许再有内容
+            if (parser.nextToken() != null) {
+                return null;
+            }
+        } catch (IOException e) {
+            log.debug("LLM响应体不是有效的JSON: {}", e.getMessage());
+            return null;
+        }
+
+        return LlmResponseSummaryDTO.builder()
+                .tokenUsage(state.toTokenUsage(provider))
+                .finishReason(state.choiceFinishReason != null ? state.choiceFinishReason : state.stopReason)
+                .toolNames(CollUtil.isEmpty(state.toolNames) ? null : String.join(", ", state.toolNames))
+                .build();
+    }
+
+    @Override
+    public void appendDeltaText(String chunk, StringBuilder out) {
+        if (StrUtil.isBlank(chunk)) {
+            return;
+        }
+        String json = chunk.startsWith("data: ") ? chunk.substring(6).trim() : chunk;
+        if (!json.startsWith("{")) {
+            return;
+        }
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            parser.nextToken();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (!"choices".equals(field) || value != JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                    continue;
+                }
+                JsonToken token;
+                while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    if (token != JsonToken.START_OBJECT) {
+                        parser.skipChildren();
+                        continue;
+                    }
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String choiceField = parser.currentName();
+                        JsonToken choiceValue = parser.nextToken();
+                        if ("delta".equals(choiceField) && choiceValue == JsonToken.START_OBJECT) {
+                            readDeltaText(parser, out);
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.debug("流式数据块不是有效的JSON: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 读取 delta 对象中的输出文本：content、reasoning_content 以及 tool_calls[].function 的 name、arguments
+     */
+    private void readDeltaText(JsonParser parser, StringBuilder out) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (("content".equals(field) || "reasoning_content".equals(field)) && value == JsonToken.VALUE_STRING) {
+                out.append(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+            } else if ("tool_calls".equals(field) && value == JsonToken.START_ARRAY) {
+                JsonToken token;
+                while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    if (token != JsonToken.START_OBJECT) {
+                        parser.skipChildren();
+                        continue;
+                    }
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String toolField = parser.currentName();
+                        JsonToken toolValue = parser.nextToken();
+                        if (!"function".equals(toolField) || toolValue != JsonToken.START_OBJECT) {
+                            parser.skipChildren();
+                            continue;
+                        }
+                        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                            String functionField = parser.currentName();
+                            JsonToken functionValue = parser.nextToken();
+                            if (("name".equals(functionField) || "arguments".equals(functionField))
+                                    && functionValue == JsonToken.VALUE_STRING) {
+                                out.append(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                            } else {
+                                parser.skipChildren();
+                            }
+                        }
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * 读取 usage 对象中的 Token 字段，嵌套的明细对象跳过
+     */
+    private void readUsage(JsonParser parser, JsonToken value, ParseState state) throws IOException {
+        if (value != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+            if (token != JsonToken.VALUE_NUMBER_INT) {
+                parser.skipChildren();
+                continue;
+            }
+            int count = parser.getIntValue();
+            switch (field) {
+                case "prompt_tokens" -> state.promptTokens = count;
+                case "completion_tokens" -> state.completionTokens = count;
+                case "total_tokens" -> state.totalTokens = count;
+                case "input_tokens" -> state.inputTokens = count;
+                case "output_tokens" -> state.outputTokens = count;
+                default -> {
+                }
+            }
+        }
+    }
+
+    /**
+     * 读取 choices 数组，只解析第一个 choice 的 finish_reason 和 message.tool_calls
+     */
+    private void readChoices(JsonParser parser, JsonToken value, ParseState state) throws IOException {
+        if (value != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        boolean first = true;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (!first || token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            first = false;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken fieldValue = parser.nextToken();
+                if ("finish_reason".equals(field)) {
+                    state.choiceFinishReason = readString(parser, fieldValue);
+                } else if ("message".equals(field) && fieldValue == JsonToken.START_OBJECT) {
+                    readMessage(parser, state);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+    }
+
+    /**
+     * 读取 message 对象中的 tool_calls[].function.name
+     */
+    private void readMessage(JsonParser parser, ParseState state) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (!"tool_calls".equals(field) || value != JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                continue;
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String toolField = parser.currentName();
+                    JsonToken toolValue = parser.nextToken();
+                    if (!"function".equals(toolField) || toolValue != JsonToken.START_OBJECT) {
+                        parser.skipChildren();
+                        continue;
+                    }
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String functionField = parser.currentName();
+                        JsonToken functionValue = parser.nextToken();
+                        if ("name".equals(functionField) && functionValue == JsonToken.VALUE_STRING) {
+                            state.toolNames.add(parser.getText());
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 读取 Anthropic content 数组中 type 为 tool_use 的工具名称
+     */
+    private void readAnthropicContent(JsonParser parser, JsonToken value, ParseState state) throws IOException {
+        if (value != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            String type = null;
+            String name = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken fieldValue = parser.nextToken();
+                if ("type".equals(field)) {
+                    type = readString(parser, fieldValue);
+                } else if ("name".equals(field)) {
+                    name = readString(parser, fieldValue);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if ("tool_use".equals(type) && StrUtil.isNotBlank(name)) {
+                state.toolNames.add(name);
+            }
+        }
+    }
+
+    private String readString(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (value.isScalarValue()) {
+            return parser.getText();
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    /**
+     * 解析过程中收集的字段
+     */
+    private static final class ParseState {
+
+        private Integer promptTokens;
+        private Integer completionTokens;
+        private Integer totalTokens;
+        private Integer inputTokens;
+        private Integer outputTokens;
+        private String choiceFinishReason;
+        private String stopReason;
+        private final List<String> toolNames = new ArrayList<>();
+
+        /**
+         * 按提供商的 usage 格式组装 Token 使用量，与 TokenParser 的规则一致
+         */
+        TokenUsageDTO toTokenUsage(String provider) {
+            Integer input;
+            Integer output;
+            Integer total;
+            if ("anthropic".equalsIgnoreCase(provider)) {
+                input = inputTokens;
+                output = outputTokens;
+                total = null;
+            } else {
+                input = promptTokens;
+                output = completionTokens;
+                total = totalTokens;
+            }
+            if (input == null || output == null) {
+                return null;
+            }
+            return TokenUsageDTO.builder()
+                    .inputTokens(input)
+                    .outputTokens(output)
+                    .totalTokens(total != null ? total : input + output)
+                    .estimated(false)
+                    .source("response")
+                    .build();
+        }
+    }
+}
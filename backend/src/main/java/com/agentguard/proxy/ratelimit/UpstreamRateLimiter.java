@@ -0,0 +1,58 @@
+package com.agentguard.proxy.ratelimit;
+
+import org.springframework.http.HttpHeaders;
+
+/**
+ * 上游限流感知接口
+ * <p>
+ * 按供应商密钥（上游主机 + API Key）维护从响应头学习到的额度（x-ratelimit-* / anthropic-ratelimit-*），
+ * 转发前申请许可：额度充足时立即发送；额度偏低时按剩余额度均匀间隔；额度耗尽或收到 429 后在重置前排队。
+ * 预计等待超过允许时间时直接拒绝，不把请求送进上游的 429。
+ *
+ * @author zhuhx
+ */
+public interface UpstreamRateLimiter {
+
+    /**
+     * 申请发送许可，并为本次请求预留额度
+     *
+     * @param baseUrl 上游地址
+     * @param apiKey 上游 API Key
+     * @param estimatedTokens 预计消耗的 Token 数（提示词 + 最大输出），未知时为 0
+     * @param maxWaitMs 允许等待的最长时间（毫秒）
+     * @return 许可，调用方等待 {@link Permit#getWaitMs()} 后发送
+     * @throws com.agentguard.common.exception.UpstreamRateLimitedException 预计等待超过允许时间（UPSTREAM_RATE_LIMITED，携带建议等待秒数）
+     */
+    Permit acquire(String baseUrl, String apiKey, int estimatedTokens, long maxWaitMs);
+
+    /**
+     * 发送许可，收到响应或放弃请求时必须结束，重复结束无效
+     */
+    interface Permit {
+
+        /**
+         * 发送前需要等待的时间（毫秒）
+         */
+        long getWaitMs();
+
+        /**
+         * 收到响应（包括错误响应）：归还预留额度，按响应头更新额度
+         * 429 时在服务端要求的时间内暂停该密钥的所有请求
+         *
+         * @param statusCode 响应状态码
+         * @param headers 响应头（可为空）
+         * @return 429 时返回服务端要求的等待时间（毫秒），否则返回 -1
+         */
+        long complete(int statusCode, HttpHeaders headers);
+
+        /**
+         * 未收到响应（连接失败、取消）：只归还预留额度
+         */
+        void cancel();
+
+        /**
+         * 最近一次 {@link #complete} 得到的 429 等待时间（毫秒），未收到 429 时为 -1
+         */
+        long getRetryAfterMs();
+    }
+}
@@ -0,0 +1,428 @@
+package com.agentguard.proxy.ratelimit.impl;
+
+import cn.hutool.core.util.NumberUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.agentguard.common.exception.UpstreamRateLimitedException;
+import com.agentguard.proxy.config.ProxyProperties;
+import com.agentguard.proxy.ratelimit.UpstreamRateLimiter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 上游限流感知实现类
+ * <p>
+ * 每个供应商密钥一份状态（对象锁保护）：请求数和 Token 数各自的上限、剩余额度、重置时间，
+ * 以及本节点已预留但尚未收到响应的请求数和 Token 数。申请许可时按预约方式计算最早发送时间并立即占位，
+ * 并发请求依次排在后面，不会在额度恢复的同一时刻集中发出：
+ * <ul>
+ *     <li>暂停期（收到 429）内：排到暂停结束</li>
+ *     <li>剩余额度扣除已预留后不足：排到重置时间</li>
+ *     <li>剩余额度低于上限的 pacePercent%：按（距重置时间 / 剩余额度）的间隔依次发送</li>
+ * </ul>
+ * 额度由每个响应的响应头校正，重置时间过后恢复为上限。供应商密钥数量有限，状态不做清理。
+ *
+ * @author zhuhx
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UpstreamRateLimiterImpl implements UpstreamRateLimiter {
+
+    /** OpenAI 重置时间格式：6m0s、1s、20ms、1h2m3.5s */
+    private static final Pattern DURATION_PART = Pattern.compile("(\\d+(?:\\.\\d+)?)(ms|h|m|s)");
+
+    private static final Permit NO_OP_PERMIT = new Permit() {
+        @Override
+        public long getWaitMs() {
+            return 0;
+        }
+
+        @Override
+        public long complete(int statusCode, HttpHeaders headers) {
+            return -1;
+        }
+
+        @Override
+        public void cancel() {
+        }
+
+        @Override
+        public long getRetryAfterMs() {
+            return -1;
+        }
+    };
+
+    private final ProxyProperties proxyProperties;
+
+    /** 供应商密钥 -> 额度状态 */
+    private final Map<String, QuotaState> states = new ConcurrentHashMap<>();
+
+    @Override
+    public Permit acquire(String baseUrl, String apiKey, int estimatedTokens, long maxWaitMs) {
+        ProxyProperties.RateLimit config = proxyProperties.getRateLimit();
+        if (!config.isEnabled() || StrUtil.isBlank(baseUrl)) {
+            return NO_OP_PERMIT;
+        }
+        String key = quotaKey(baseUrl, apiKey);
+        QuotaState state = states.computeIfAbsent(key, QuotaState::new);
+        int tokens = Math.max(0, estimatedTokens);
+        long waitNanos = state.reserve(tokens, TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxWaitMs)), config.getPacePercent());
+        if (waitNanos < 0) {
+            long expectedMs = TimeUnit.NANOSECONDS.toMillis(-waitNanos);
+            log.warn("上游 {} 限流额度不足，预计需等待 {}ms，超过允许的 {}ms，直接拒绝", state.name, expectedMs, maxWaitMs);
+            throw new UpstreamRateLimitedException(expectedMs);
+        }
+        if (waitNanos > 0) {
+            log.debug("上游 {} 额度偏低，请求排队 {}ms", state.name, TimeUnit.NANOSECONDS.toMillis(waitNanos));
+        }
+        return new QuotaPermit(state, tokens, TimeUnit.NANOSECONDS.toMillis(waitNanos), config.getDefaultRetryAfterMs());
+    }
+
+    /**
+     * 供应商密钥：上游主机 + API Key 摘要（不在内存中保留明文密钥作为键）
+     */
+    private String quotaKey(String baseUrl, String apiKey) {
+        String host;
+        try {
+            host = StrUtil.blankToDefault(URI.create(StrUtil.removeSuffix(baseUrl, "#")).getHost(), baseUrl);
+        } catch (IllegalArgumentException e) {
+            host = baseUrl;
+        }
+        String keyDigest = StrUtil.isBlank(apiKey) ? "-" : DigestUtil.sha256Hex(apiKey).substring(0, 16);
+        return host.toLowerCase(Locale.ROOT) + "#" + keyDigest;
+    }
+
+    /**
+     * 发送许可
+     */
+    private static final class QuotaPermit implements Permit {
+
+        private final QuotaState state;
+
+        private final int tokens;
+
+        private final long waitMs;
+
+        private final long defaultRetryAfterMs;
+
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        private volatile long retryAfterMs = -1;
+
+        private QuotaPermit(QuotaState state, int tokens, long waitMs, long defaultRetryAfterMs) {
+            this.state = state;
+            this.tokens = tokens;
+            this.waitMs = waitMs;
+            this.defaultRetryAfterMs = defaultRetryAfterMs;
+        }
+
+        @Override
+        public long getWaitMs() {
+            return waitMs;
+        }
+
+        @Override
+        public long complete(int statusCode, HttpHeaders headers) {
+            if (!finished.compareAndSet(false, true)) {
+                return retryAfterMs;
+            }
+            long result = state.update(tokens, statusCode, headers, defaultRetryAfterMs);
+            retryAfterMs = result;
+            return result;
+        }
+
+        @Override
+        public void cancel() {
+            if (finished.compareAndSet(false, true)) {
+                state.release(tokens);
+            }
+        }
+
+        @Override
+        public long getRetryAfterMs() {
+            return retryAfterMs;
+        }
+    }
+
+    /**
+     * 单个供应商密钥的额度状态，时间均为 {@link System#nanoTime()}
+     */
+    private static final class QuotaState {
+
+        private final String name;
+
+        private final Quota requests = new Quota();
+
+        private final Quota tokens = new Quota();
+
+        private int reservedRequests;
+
+        private long reservedTokens;
+
+        /** 暂停截止时间（收到 429 后设置） */
+        private long blockedUntil;
+
+        private boolean hasBlock;
+
+        private QuotaState(String name) {
+            this.name = name;
+        }
+
+        /**
+         * 预约发送时间
+         *
+         * @return 需要等待的纳秒数；超过 maxWaitNanos 时返回预计等待时间的相反数（不预约）
+         */
+        synchronized long reserve(int tokenCount, long maxWaitNanos, int pacePercent) {
+            long now = System.nanoTime();
+            requests.refresh(now);
+            tokens.refresh(now);
+
+            long start = now;
+            if (hasBlock && blockedUntil - now > 0) {
+                start = blockedUntil;
+            }
+            start = requests.earliestStart(start, now, 1, reservedRequests, pacePercent);
+            if (tokenCount > 0) {
+                start = tokens.earliestStart(start, now, tokenCount, reservedTokens, pacePercent);
+            }
+
+            long waitNanos = start - now;
+            if (waitNanos > maxWaitNanos) {
+                return -Math.max(1, waitNanos);
+            }
+            requests.commit(start, now, 1, reservedRequests, pacePercent);
+            if (tokenCount > 0) {
+                tokens.commit(start, now, tokenCount, reservedTokens, pacePercent);
+            }
+            reservedRequests++;
+            reservedTokens += tokenCount;
+            return waitNanos;
+        }
+
+        synchronized void release(int tokenCount) {
+            reservedRequests = Math.max(0, reservedRequests - 1);
+            reservedTokens = Math.max(0, reservedTokens - tokenCount);
+        }
+
+        /**
+         * 归还预留并按响应头更新额度
+         *
+         * @return 429 时返回等待时间（毫秒），否则返回 -1
+         */
+        synchronized long update(int tokenCount, int statusCode, HttpHeaders headers, long defaultRetryAfterMs) {
+            release(tokenCount);
+            long now = System.nanoTime();
+            if (headers != null) {
+                // OpenAI 格式
+                requests.update(now, headerLong(headers, "x-ratelimit-limit-requests"),
+                        headerLong(headers, "x-ratelimit-remaining-requests"),
+                        parseResetDuration(headers.getFirst("x-ratelimit-reset-requests")));
+                tokens.update(now, headerLong(headers, "x-ratelimit-limit-tokens"),
+                        headerLong(headers, "x-ratelimit-remaining-tokens"),
+                        parseResetDuration(headers.getFirst("x-ratelimit-reset-tokens")));
+                // Anthropic 格式
+                requests.update(now, headerLong(headers, "anthropic-ratelimit-requests-limit"),
+                        headerLong(headers, "anthropic-ratelimit-requests-remaining"),
+                        parseResetInstant(headers.getFirst("anthropic-ratelimit-requests-reset")));
+                tokens.update(now, headerLong(headers, "anthropic-ratelimit-tokens-limit"),
+                        headerLong(headers, "anthropic-ratelimit-tokens-remaining"),
+                        parseResetInstant(headers.getFirst("anthropic-ratelimit-tokens-reset")));
+            }
+            if (statusCode != 429) {
+                return -1;
+            }
+
+            long retryAfterMs = headers != null ? parseRetryAfter(headers) : -1;
+            if (retryAfterMs < 0) {
+                // 没有 retry-after 时取已耗尽额度的重置时间
+                retryAfterMs = Math.max(requests.exhaustedResetMs(now), tokens.exhaustedResetMs(now));
+            }
+            if (retryAfterMs <= 0) {
+                retryAfterMs = defaultRetryAfterMs;
+            }
+            long until = now + TimeUnit.MILLISECONDS.toNanos(retryAfterMs);
+            if (!hasBlock || until - blockedUntil > 0) {
+                blockedUntil = until;
+                hasBlock = true;
+            }
+            log.info("上游 {} 返回 429，暂停该密钥的请求 {}ms", name, retryAfterMs);
+            return retryAfterMs;
+        }
+    }
+
+    /**
+     * 单一维度（请求数或 Token 数）的额度
+     */
+    private static final class Quota {
+
+        /** 上限，-1 表示未知 */
+        private long limit = -1;
+
+        /** 剩余额度，-1 表示未知（不限制） */
+        private long remaining = -1;
+
+        private long resetAt;
+
+        /** 均匀间隔模式下下一个可用的发送时间 */
+        private long nextSlot;
+
+        /**
+         * 重置时间已过：恢复为上限（上限未知时视为不限制）
+         */
+        void refresh(long now) {
+            if (remaining >= 0 && now - resetAt >= 0) {
+                remaining = limit;
+            }
+        }
+
+        long earliestStart(long start, long now, long amount, long reserved, int pacePercent) {
+            if (remaining < 0) {
+                return start;
+            }
+            long available = remaining - reserved;
+            if (available < amount) {
+                return Math.max(start, resetAt);
+            }
+            if (isPacing(available, pacePercent)) {
+                return Math.max(start, nextSlot);
+            }
+            return start;
+        }
+
+        void commit(long start, long now, long amount, long reserved, int pacePercent) {
+            if (remaining < 0) {
+                return;
+            }
+            long available = remaining - reserved;
+            if (available >= amount && isPacing(available, pacePercent) && resetAt - start > 0) {
+                // 把剩余额度均匀分布到重置前
+                long interval = (resetAt - start) * amount / available;
+                nextSlot = Math.max(nextSlot, start) + interval;
+            }
+        }
+
+        private boolean isPacing(long available, int pacePercent) {
+            return limit > 0 && available * 100 < limit * pacePercent;
+        }
+
+        void update(long now, Long newLimit, Long newRemaining, Long resetMs) {
+            if (newLimit != null) {
+                limit = newLimit;
+            }
+            if (newRemaining != null) {
+                remaining = newRemaining;
+                resetAt = now + TimeUnit.MILLISECONDS.toNanos(resetMs != null ? resetMs : 1000);
+            }
+        }
+
+        /**
+         * 额度已耗尽时距重置的毫秒数，否则返回 0
+         */
+        long exhaustedResetMs(long now) {
+            if (remaining == 0 && resetAt - now > 0) {
+                return TimeUnit.NANOSECONDS.toMillis(resetAt - now);
+            }
+            return 0;
+        }
+    }
+
+    private static Long headerLong(HttpHeaders headers, String name) {
+        String value = headers.getFirst(name);
+        if (StrUtil.isBlank(value)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 解析 OpenAI 重置时间（"6m0s"、"1s"、"20ms"，或纯数字秒数）
+     *
+     * @return 毫秒数，无法解析时返回 null
+     */
+    static Long parseResetDuration(String value) {
+        if (StrUtil.isBlank(value)) {
+            return null;
+        }
+        String text = value.trim();
+        if (NumberUtil.isNumber(text)) {
+            return Math.round(Double.parseDouble(text) * 1000);
+        }
+        Matcher matcher = DURATION_PART.matcher(text);
+        double totalMs = 0;
+        boolean matched = false;
+        while (matcher.find()) {
+            matched = true;
+            double amount = Double.parseDouble(matcher.group(1));
+            totalMs += switch (matcher.group(2)) {
+                case "h" -> amount * 3_600_000;
+                case "m" -> amount * 60_000;
+                case "s" -> amount * 1000;
+                default -> amount;
+            };
+        }
+        return matched ? Math.round(totalMs) : null;
+    }
+
+    /**
+     * 解析 Anthropic 重置时间（RFC 3339 时间点）
+     *
+     * @return 距现在的毫秒数，无法解析时返回 null
+     */
+    static Long parseResetInstant(String value) {
+        if (StrUtil.isBlank(value)) {
+            return null;
+        }
+        try {
+            long resetAt = OffsetDateTime.parse(value.trim()).toInstant().toEpochMilli();
+            return Math.max(0, resetAt - System.currentTimeMillis());
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 解析 429 等待时间：retry-after-ms 优先，其次 retry-after（秒数或 HTTP 日期）
+     *
+     * @return 毫秒数，未给出时返回 -1
+     */
+    static long parseRetryAfter(HttpHeaders headers) {
+        String retryAfterMs = headers.getFirst("retry-after-ms");
+        if (StrUtil.isNotBlank(retryAfterMs) && NumberUtil.isNumber(retryAfterMs.trim())) {
+            return Math.round(Double.parseDouble(retryAfterMs.trim()));
+        }
+        String retryAfter = headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (StrUtil.isBlank(retryAfter)) {
+            return -1;
+        }
+        String text = retryAfter.trim();
+        if (NumberUtil.isNumber(text)) {
+            return Math.round(Double.parseDouble(text) * 1000);
+        }
+        try {
+            long at = ZonedDateTime.parse(text, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            return Math.max(0, at - System.currentTimeMillis());
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+}
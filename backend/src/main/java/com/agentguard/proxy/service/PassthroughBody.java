@@ -0,0 +1,51 @@
+package com.agentguard.proxy.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 透传响应体
+ * <p>
+ * 目标服务的响应头已收到、响应体尚未读取。写出和丢弃只会执行其中一个：
+ * 写出任务被线程池拒绝、开始写出前超时或客户端断开时，由调用方调用 {@link #discardIfNotStarted()} 释放目标服务的连接。
+ *
+ * @author zhuhx
+ */
+public final class PassthroughBody implements StreamingResponseBody {
+
+    private final StreamingResponseBody writer;
+
+    private final Runnable discard;
+
+    /** 是否已开始写出或已丢弃 */
+    private final AtomicBoolean claimed = new AtomicBoolean();
+
+    /**
+     * @param writer 按块写出响应体
+     * @param discard 取消未读取的响应体
+     */
+    public PassthroughBody(StreamingResponseBody writer, Runnable discard) {
+        this.writer = writer;
+        this.discard = discard;
+    }
+
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        if (!claimed.compareAndSet(false, true)) {
+            throw new IOException("透传响应体已丢弃");
+        }
+        writer.writeTo(outputStream);
+    }
+
+    /**
+     * 尚未开始写出时丢弃响应体
+     */
+    public void discardIfNotStarted() {
+        if (claimed.compareAndSet(false, true)) {
+            discard.run();
+        }
+    }
+}
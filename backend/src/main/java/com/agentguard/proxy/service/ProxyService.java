@@ -1,9 +1,12 @@
 package com.agentguard.proxy.service;
 
 import com.agentguard.proxy.dto.LlmProxyRequestDTO;
+import com.agentguard.proxy.dto.PassthroughRequestDTO;
 import com.agentguard.proxy.dto.ProxyRequestDTO;
 import com.agentguard.proxy.dto.ProxyResponseDTO;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * 代理服务接口
@@ -39,4 +42,14 @@ public interface ProxyService {
      * @return 代理响应
      */
     ProxyResponseDTO handleRequest(ProxyRequestDTO request);
+
+    /**
+     * 处理业务API流式透传请求
+     * 请求体和响应体按块转发，保留目标服务的状态码和响应头（包括 Content-Encoding）
+     *
+     * @param request 透传请求
+     * @return 目标服务的响应（响应体为 {@link PassthroughBody}，由调用方在专用写出线程池中写出或丢弃）；
+     *         被拦截、待审批或转发失败时为 JSON 格式的代理响应（{@code Result<ProxyResponseDTO>}）
+     */
+    ResponseEntity<?> handlePassthroughRequest(PassthroughRequestDTO request);
 }
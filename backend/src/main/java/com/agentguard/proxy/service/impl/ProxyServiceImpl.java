@@ -1,6 +1,7 @@
 package com.agentguard.proxy.service.impl;
 
 import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.exceptions.ExceptionUtil;
 import cn.hutool.core.map.MapUtil;
 import cn.hutool.core.util.ObjectUtil;
 import cn.hutool.core.util.StrUtil;
@@ -12,6 +13,9 @@ import com.agentguard.approval.dto.ApprovalDTO;
 import com.agentguard.approval.service.ApprovalService;
 import com.agentguard.common.exception.BusinessException;
 import com.agentguard.common.exception.ErrorCode;
+import com.agentguard.common.exception.UpstreamRateLimitedException;
+import com.agentguard.common.response.Result;
+import com.agentguard.common.util.UpstreamErrorUtil;
 import com.agentguard.log.dto.AgentLogCreateDTO;
 import com.agentguard.log.dto.PolicySnapshotDTO;
 import com.agentguard.log.enums.RequestType;
@@ -19,38 +23,100 @@ import com.agentguard.log.enums.ResponseStatus;
 import com.agentguard.log.service.AgentLogService;
 import com.agentguard.policy.dto.PolicyResult;
 import com.agentguard.policy.engine.PolicyEngine;
+import com.agentguard.proxy.admission.LlmAdmissionScheduler;
+import com.agentguard.proxy.cache.HttpResponseCache;
+import com.agentguard.proxy.cache.NearDuplicateCache;
+import com.agentguard.proxy.coalesce.RequestCoalescer;
+import com.agentguard.proxy.circuit.UpstreamCircuitBreakers;
+import com.agentguard.proxy.config.PassthroughAsyncConfig;
 import com.agentguard.proxy.config.ProxyProperties;
 import com.agentguard.proxy.dto.LlmProxyRequestDTO;
+import com.agentguard.proxy.dto.LlmResponseSummaryDTO;
+import com.agentguard.proxy.dto.PassthroughRequestDTO;
 import com.agentguard.proxy.dto.ProxyRequestDTO;
 import com.agentguard.proxy.dto.ProxyResponseDTO;
+import com.agentguard.proxy.hedge.HedgeAttempt;
+import com.agentguard.proxy.hedge.RequestHedger;
+import com.agentguard.proxy.limit.AdaptiveConcurrencyLimiter;
+import com.agentguard.proxy.parser.LlmResponseParser;
+import com.agentguard.proxy.parser.RawJsonBytes;
+import com.agentguard.proxy.parser.RawJsonObject;
+import com.agentguard.proxy.ratelimit.UpstreamRateLimiter;
+import com.agentguard.proxy.service.PassthroughBody;
 import com.agentguard.proxy.service.ProxyService;
 import com.agentguard.stats.cost.CostCalculator;
 import com.agentguard.stats.dto.TokenUsageDTO;
+import com.agentguard.stats.token.TokenEstimator;
 import com.agentguard.stats.token.TokenParser;
+import com.agentguard.upstream.balancer.UpstreamBalancer;
+import com.agentguard.upstream.balancer.UpstreamEndpoint;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.util.RawValue;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
-
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
 import java.math.BigDecimal;
 import java.net.InetAddress;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * 代理服务实现类
@@ -61,6 +127,19 @@ import java.util.Optional;
 @Service
 public class ProxyServiceImpl implements ProxyService {
 
+    /** 安全方法，其余方法透传成功后使目标地址的响应缓存失效 */
+    private static final Set<String> SAFE_HTTP_METHODS = Set.of("GET", "HEAD", "OPTIONS", "TRACE");
+
+    /** 逐跳请求头/响应头，透传时不转发 */
+    private static final Set<String> HOP_BY_HOP_HEADERS = Set.of("connection", "keep-alive", "proxy-connection",
+            "proxy-authenticate", "proxy-authorization", "te", "trailer", "transfer-encoding", "upgrade");
+
+    /** 透传请求体每次读取的字节数 */
+    private static final int PASSTHROUGH_BUFFER_SIZE = 16 * 1024;
+
+    /** 透传响应体预取的数据块数，限制写回客户端较慢时缓冲的数据量 */
+    private static final int PASSTHROUGH_PREFETCH = 8;
+
     private final RestTemplate restTemplate;
     private final WebClient webClient;
     private final AgentService agentService;
@@ -70,6 +149,18 @@ public class ProxyServiceImpl implements ProxyService {
     private final ProxyProperties proxyProperties;
     private final TokenParser tokenParser;
     private final CostCalculator costCalculator;
+    private final LlmResponseParser llmResponseParser;
+    private final TokenEstimator tokenEstimator;
+    private final UpstreamBalancer upstreamBalancer;
+    private final RequestHedger requestHedger;
+    private final UpstreamCircuitBreakers upstreamCircuitBreakers;
+    private final UpstreamRateLimiter upstreamRateLimiter;
+    private final LlmAdmissionScheduler llmAdmissionScheduler;
+    private final RequestCoalescer requestCoalescer;
+    private final NearDuplicateCache nearDuplicateCache;
+    private final HttpResponseCache httpResponseCache;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final ThreadPoolTaskExecutor passthroughStreamExecutor;
 
     public ProxyServiceImpl(
             RestTemplate restTemplate,
@@ -80,7 +171,19 @@ public class ProxyServiceImpl implements ProxyService {
             @Lazy ApprovalService approvalService,
             ProxyProperties proxyProperties,
             TokenParser tokenParser,
-            CostCalculator costCalculator) {
+            CostCalculator costCalculator,
+            LlmResponseParser llmResponseParser,
+            TokenEstimator tokenEstimator,
+            UpstreamBalancer upstreamBalancer,
+            RequestHedger requestHedger,
+            UpstreamCircuitBreakers upstreamCircuitBreakers,
+            UpstreamRateLimiter upstreamRateLimiter,
+            LlmAdmissionScheduler llmAdmissionScheduler,
+            RequestCoalescer requestCoalescer,
+            NearDuplicateCache nearDuplicateCache,
+            HttpResponseCache httpResponseCache,
+            AdaptiveConcurrencyLimiter concurrencyLimiter,
+            @Qualifier(PassthroughAsyncConfig.PASSTHROUGH_STREAM_EXECUTOR) ThreadPoolTaskExecutor passthroughStreamExecutor) {
         this.restTemplate = restTemplate;
         this.webClient = webClient;
         this.agentService = agentService;
@@ -90,6 +193,18 @@ public class ProxyServiceImpl implements ProxyService {
         this.proxyProperties = proxyProperties;
         this.tokenParser = tokenParser;
         this.costCalculator = costCalculator;
+        this.llmResponseParser = llmResponseParser;
+        this.tokenEstimator = tokenEstimator;
+        this.upstreamBalancer = upstreamBalancer;
+        this.requestHedger = requestHedger;
+        this.upstreamCircuitBreakers = upstreamCircuitBreakers;
+        this.upstreamRateLimiter = upstreamRateLimiter;
+        this.llmAdmissionScheduler = llmAdmissionScheduler;
+        this.requestCoalescer = requestCoalescer;
+        this.nearDuplicateCache = nearDuplicateCache;
+        this.httpResponseCache = httpResponseCache;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.passthroughStreamExecutor = passthroughStreamExecutor;
     }
 
     @Override
@@ -105,7 +220,13 @@ public class ProxyServiceImpl implements ProxyService {
             throw new BusinessException(ErrorCode.AGENT_LLM_CONFIG_INCOMPLETE);
         }
 
-        // 3. 策略评估（针对 LLM 调用）
+        // 提示词 Token 预检（本地分词，超限直接拒绝，不请求上游）
+        Integer promptTokens = admitPrompt(agent, request, startTime);
+        // 上游限流额度按预计 Token 数预留，排队和 429 重试不超过延迟预算
+        int estimatedTokens = estimateRequestTokens(request, promptTokens);
+        long deadline = startTime + proxyProperties.getRateLimit().getLatencyBudgetMs();
+
+        // 3. 策略评估（针对 LLM 调用，按 Agent 主端点地址评估，与实际选中的上游端点无关）
         String llmUrl = buildLlmUrl(agent.getLlmBaseUrl());
         PolicyResult policyResult = policyEngine.evaluate(
                 llmUrl,
@@ -119,40 +240,131 @@ public class ProxyServiceImpl implements ProxyService {
 
         // 4. 根据策略结果处理请求
         ProxyResponseDTO response;
+        LlmResponseSummaryDTO summary = null;
         ResponseStatus responseStatus;
         String approvalRequestId = null;
+        UpstreamEndpoint upstream = null;
+        List<HedgeAttempt> hedgeAttempts = null;
+
+        // 开启相似提示词缓存的 Agent（或匹配策略开启）：与近期请求高度相似时直接返回缓存的响应，不再请求上游
+        NearDuplicateCache.Signature cacheSignature = null;
+        if (!policyResult.isBlocked()) {
+            cacheSignature = nearDuplicateCache.sign(agent, request.getBody(), policyResult.getPromptCacheOverride());
+            NearDuplicateCache.Hit cacheHit = cacheSignature != null ? nearDuplicateCache.get(cacheSignature) : null;
+            if (cacheHit != null) {
+                log.debug("Agent {} 的请求命中相似提示词缓存，相似度 {}", agent.getId(), cacheHit.similarity());
+                recordLlmLog(agent, null, request, cacheHit.response(), cacheHit.summary(), ResponseStatus.SUCCESS,
+                        System.currentTimeMillis() - startTime, policyResult, true, null, null, null, cacheHit);
+                return cacheHit.response();
+            }
+        }
 
-        if (policyResult.isBlocked()) {
-            // TODO: LLM 审批功能暂时注释，后期再详细设计
-            // if (policyResult.isRequireApproval()) {
-            //     // 需要审批
-            //     approvalRequestId = createLlmApprovalRequest(agent.getId(), policyResult, request);
-            //     response = ProxyResponseDTO.pendingApproval(policyResult.getReason(), approvalRequestId);
-            //     responseStatus = ResponseStatus.PENDING_APPROVAL;
-            // } else {
-            //     // 请求被拦截
-            //     response = ProxyResponseDTO.blocked(policyResult.getReason());
-            //     responseStatus = ResponseStatus.BLOCKED;
-            // }
-
-            // 暂时统一拦截，不创建审批请求
-            response = ProxyResponseDTO.blocked(policyResult.getReason());
-            responseStatus = ResponseStatus.BLOCKED;
-        } else {
-            // 请求允许通过，转发到 LLM API
+        // 相同请求进行中时加入该请求，等待并共享其响应，不再排队准入和请求上游
+        RequestCoalescer.Flight<LlmOutcome> flight = null;
+        if (!policyResult.isBlocked()) {
+            flight = requestCoalescer.join(requestCoalescer.key(agent, request.getBody(), false));
+            if (!flight.isLeader()) {
+                return followLlmRequest(agent, request, flight, startTime, policyResult);
+            }
+        }
+
+        // 请求允许通过时按 Agent 并发上限和调度权重排队准入，排队已满或超时返回 429
+        LlmAdmissionScheduler.Ticket ticket = null;
+        BusinessException admissionError = null;
+        if (!policyResult.isBlocked()) {
+            AdaptiveConcurrencyLimiter.Pause pause = concurrencyLimiter.pause();
             try {
-                response = forwardLlmRequest(agent, request);
-                responseStatus = ResponseStatus.SUCCESS;
-            } catch (Exception e) {
-                response = handleLlmForwardingError(e, llmUrl);
+                ticket = llmAdmissionScheduler.admit(agent, deadline);
+            } catch (BusinessException e) {
+                admissionError = e;
+            } finally {
+                pause.resume();
+            }
+        }
+
+        try {
+            if (policyResult.isBlocked()) {
+                // TODO: LLM 审批功能暂时注释，后期再详细设计
+                // if (policyResult.isRequireApproval()) {
+                //     // 需要审批
+                //     approvalRequestId = createLlmApprovalRequest(agent.getId(), policyResult, request);
+                //     response = ProxyResponseDTO.pendingApproval(policyResult.getReason(), approvalRequestId);
+                //     responseStatus = ResponseStatus.PENDING_APPROVAL;
+                // } else {
+                //     // 请求被拦截
+                //     response = ProxyResponseDTO.blocked(policyResult.getReason());
+                //     responseStatus = ResponseStatus.BLOCKED;
+                // }
+
+                // 暂时统一拦截，不创建审批请求
+                response = ProxyResponseDTO.blocked(policyResult.getReason());
+                responseStatus = ResponseStatus.BLOCKED;
+            } else if (admissionError != null) {
+                response = handleLlmForwardingError(admissionError, llmUrl);
                 responseStatus = ResponseStatus.FAILED;
+            } else if (isHedgingEnabled(agent)) {
+                // 请求允许通过且 Agent 开启了对冲：主请求超过阈值未响应时向另一个端点发送对冲请求
+                hedgeAttempts = new ArrayList<>(2);
+                UpstreamEndpoint[] endpoints = new UpstreamEndpoint[2];
+                AdaptiveConcurrencyLimiter.Pause pause = concurrencyLimiter.pause();
+                try {
+                    RequestHedger.HedgeResult<LlmForwardResult> result =
+                            forwardLlmRequestHedged(agent, request, hedgeAttempts, endpoints,
+                                    estimatedTokens, deadline);
+                    upstream = endpoints[result.winner().getIndex()];
+                    response = result.value().response();
+                    summary = result.value().summary();
+                    responseStatus = ResponseStatus.SUCCESS;
+                } catch (Exception e) {
+                    upstream = endpoints[0];
+                    response = handleLlmForwardingError(e,
+                            buildLlmUrl(upstream != null ? upstream.getBaseUrl() : agent.getLlmBaseUrl()));
+                    responseStatus = ResponseStatus.FAILED;
+                } finally {
+                    pause.resume();
+                }
+            } else {
+                // 请求允许通过，按负载均衡选择上游端点后转发到 LLM API
+                upstream = upstreamBalancer.select(agent);
+                long forwardStart = System.currentTimeMillis();
+                Exception forwardError = null;
+                AdaptiveConcurrencyLimiter.Pause pause = concurrencyLimiter.pause();
+                try {
+                    LlmForwardResult result = forwardLlmRequest(upstream, agent, request, estimatedTokens);
+                    response = result.response();
+                    summary = result.summary();
+                    responseStatus = ResponseStatus.SUCCESS;
+                } catch (Exception e) {
+                    forwardError = e;
+                    response = handleLlmForwardingError(e, buildLlmUrl(upstream.getBaseUrl()));
+                    responseStatus = ResponseStatus.FAILED;
+                } finally {
+                    pause.resume();
+                    upstreamBalancer.release(upstream, System.currentTimeMillis() - forwardStart, forwardError);
+                }
+            }
+        } catch (RuntimeException e) {
+            if (flight != null) {
+                flight.fail(e);
             }
+            throw e;
+        } finally {
+            if (ticket != null) {
+                ticket.release();
+            }
+        }
+        if (flight != null) {
+            flight.complete(new LlmOutcome(upstream, response, summary, responseStatus));
+        }
+        if (cacheSignature != null && responseStatus == ResponseStatus.SUCCESS) {
+            nearDuplicateCache.put(cacheSignature, response, summary);
         }
 
         // 5. 记录日志（简化版，不记录完整对话内容）
         long responseTimeMs = System.currentTimeMillis() - startTime;
         boolean success = (responseStatus == ResponseStatus.SUCCESS);
-        recordLlmLog(agent, request, response, responseStatus, responseTimeMs, policyResult, success, approvalRequestId);
+        recordLlmLog(agent, upstream, request, response, summary, responseStatus, responseTimeMs, policyResult, success,
+                approvalRequestId, hedgeAttempts, flight, null);
 
         return response;
     }
@@ -170,7 +382,10 @@ public class ProxyServiceImpl implements ProxyService {
             throw new BusinessException(ErrorCode.AGENT_LLM_CONFIG_INCOMPLETE);
         }
 
-        // 3. 策略评估（针对 LLM 调用）
+        // 提示词 Token 预检（本地分词，超限直接拒绝，不请求上游）
+        Integer promptTokens = admitPrompt(agent, request, startTime);
+
+        // 3. 策略评估（针对 LLM 调用，按 Agent 主端点地址评估，与实际选中的上游端点无关）
         String llmUrl = buildLlmUrl(agent.getLlmBaseUrl());
         PolicyResult policyResult = policyEngine.evaluate(
                 llmUrl,
@@ -303,15 +518,19 @@ public class ProxyServiceImpl implements ProxyService {
 
                 // 记录日志
                 long responseTimeMs = System.currentTimeMillis() - startTime;
-                recordLlmLog(agent, request,
+                recordLlmLog(agent, null, request,
                         ProxyResponseDTO.builder()
                                 .status(ResponseStatus.BLOCKED)
                                 .message(errorMessage)
                                 .build(),
+                        null,
                         ResponseStatus.BLOCKED,
                         responseTimeMs,
                         policyResult,
                         false,
+                        null,
+                        null,
+                        null,
                         null);
                 // } // 注释掉的 else 结束
 
@@ -333,33 +552,60 @@ public class ProxyServiceImpl implements ProxyService {
         final long[] firstTokenTime = {0L}; // 记录首token时间
         final String[] finishReason = {null}; // 记录完成原因
         final List<Map<String, Object>> accumulatedToolCalls = new java.util.ArrayList<>(); // 累积的tool_calls
+        final StringBuilder outputText = new StringBuilder(); // 累积的输出文本，上游未返回usage时用于估算输出Token
 
-        // 修改请求体，添加 stream_options 以获取 token 使用统计
-        Map<String, Object> modifiedBody = new LinkedHashMap<>(request.getBody());
-
-        // 使用 Agent 配置的模型
+        // 改写请求体：使用 Agent 配置的模型，并添加 stream_options 以获取 token 使用统计
+        // 按字节区间改写，其余内容原样转发
+        Map<String, Object> replacements = new LinkedHashMap<>();
         if (StrUtil.isNotBlank(agent.getLlmModel())) {
-            modifiedBody.put("model", agent.getLlmModel());
+            replacements.put("model", agent.getLlmModel());
             log.debug("使用Agent配置的模型: {}", agent.getLlmModel());
         }
+        Map<String, Object> streamOptions = Map.of("stream_options", Map.of("include_usage", true));
+        byte[] modifiedBody = RawJsonObject.of(request.getBody()).rewrite(replacements, streamOptions);
+
+        // 相同请求的流进行中时加入该流（从第一个数据块开始重放），不再排队准入和请求上游
+        final long deadline = startTime + proxyProperties.getRateLimit().getLatencyBudgetMs();
+        final RequestCoalescer.Flight<LlmStream> flight =
+                requestCoalescer.join(requestCoalescer.key(agent, request.getBody(), true));
+        final boolean leader = flight.isLeader();
+        final LlmStream stream;
+        // 排队准入被拒绝（排队已满或超时）、等待相同请求超时：未请求上游，按流式错误返回并记录日志
+        if (leader) {
+            AdaptiveConcurrencyLimiter.Pause pause = concurrencyLimiter.pause();
+            try {
+                stream = openLlmStream(agent, request, promptTokens, modifiedBody, deadline, flight);
+            } catch (BusinessException e) {
+                flight.fail(e);
+                log.warn("Agent {} 的流式请求未准入: {}", agent.getId(), e.getMessage());
+                sendLlmStreamError(emitter, agent, null, request, policyResult, startTime, flight, e);
+                return emitter;
+            } catch (RuntimeException e) {
+                flight.fail(e);
+                throw e;
+            } finally {
+                pause.resume();
+            }
+            flight.complete(stream);
+        } else {
+            AdaptiveConcurrencyLimiter.Pause pause = concurrencyLimiter.pause();
+            try {
+                stream = flight.await(startTime + proxyProperties.getCoalescing().getMaxWaitMs());
+            } catch (TimeoutException e) {
+                log.warn("Agent {} 的流式请求等待相同请求超时", agent.getId());
+                sendLlmStreamError(emitter, agent, null, request, policyResult, startTime, flight,
+                        new BusinessException(ErrorCode.SERVICE_OVERLOADED));
+                return emitter;
+            } finally {
+                pause.resume();
+            }
+        }
+        final UpstreamEndpoint upstream = stream.upstream();
+        final String upstreamUrl = buildLlmUrl(upstream.getBaseUrl());
+        final long forwardStart = stream.forwardStart();
 
-        // 添加 stream_options
-        if (!modifiedBody.containsKey("stream_options")) {
-            Map<String, Object> streamOptions = MapUtil.builder(new LinkedHashMap<String, Object>())
-                    .put("include_usage", true)
-                    .build();
-            modifiedBody.put("stream_options", streamOptions);
-            log.debug("已添加stream_options到请求体以追踪Token使用量");
-        }
-
-        // 使用 WebClient 订阅流式响应
-        webClient.post()
-                .uri(llmUrl)
-                .header("Authorization", "Bearer " + agent.getLlmApiKey())
-                .header("Content-Type", "application/json")
-                .bodyValue(modifiedBody)
-                .retrieve()
-                .bodyToFlux(String.class)
+        // 订阅流式响应（领导者的订阅触发上游请求，上游主机熔断时直接进入错误处理）
+        stream.chunks()
                 .subscribe(
                         chunk -> {
                             // 转发每个 SSE 数据块
@@ -372,6 +618,7 @@ public class ProxyServiceImpl implements ProxyService {
 
                                 log.debug("接收到流式数据块: {}", chunk);
                                 emitter.send(SseEmitter.event().data(chunk));
+                                llmResponseParser.appendDeltaText(chunk, outputText);
 
                                 // 检查 chunk 是否包含 tool_calls（在 delta 中）
                                 if (chunk.contains("\"tool_calls\"")) {
@@ -464,72 +711,29 @@ public class ProxyServiceImpl implements ProxyService {
                         error -> {
                             // 流式响应错误 - 返回标准的 OpenAI chunk 格式（作为正常回复）
                             log.error("Agent {} 的流式请求失败: {}", agent.getId(), error.getMessage());
-                            try {
-                                // 构建错误消息
-                                String errorMessage = "LLM API 请求失败: " + error.getMessage();
-
-                                // 使用Agent配置的模型
-                                String model = agent.getLlmModel();
-
-                                // 构建符合 OpenAI chat.completion.chunk 格式的响应
-                                Map<String, Object> deltaMap = MapUtil.builder(new LinkedHashMap<String, Object>())
-                                        .put("role", "assistant")
-                                        .put("content", "[AgentGuard 错误] " + errorMessage)
-                                        .build();
-
-                                Map<String, Object> choiceMap = MapUtil.builder(new LinkedHashMap<String, Object>())
-                                        .put("index", 0)
-                                        .put("delta", deltaMap)
-                                        .put("finish_reason", "stop")
-                                        .build();
-
-                                Map<String, Object> chunkResponse = MapUtil.builder(new LinkedHashMap<String, Object>())
-                                        .put("id", "chatcmpl-ag-error-" + java.util.UUID.randomUUID().toString())
-                                        .put("object", "chat.completion.chunk")
-                                        .put("created", System.currentTimeMillis() / 1000)
-                                        .put("model", model)
-                                        .put("choices", CollUtil.newArrayList(choiceMap))
-                                        .build();
-
-                                // 发送标准的 OpenAI chunk 格式
-                                emitter.send(SseEmitter.event().data(JSONUtil.toJsonStr(chunkResponse)));
-
-                                // 发送 [DONE] 标记结束
-                                emitter.send(SseEmitter.event().data("[DONE]"));
-
-                                // 记录失败日志
-                                long responseTimeMs = System.currentTimeMillis() - startTime;
-                                recordLlmLog(agent, request,
-                                        ProxyResponseDTO.builder()
-                                                .status(ResponseStatus.FAILED)
-                                                .message(errorMessage)
-                                                .build(),
-                                        ResponseStatus.FAILED,
-                                        responseTimeMs,
-                                        policyResult,
-                                        false,
-                                        null);
-
-                                // 正常完成（而不是 completeWithError）
-                                emitter.complete();
-                            } catch (IOException ioEx) {
-                                log.error("发送错误消息失败", ioEx);
-                                emitter.completeWithError(ioEx);
+                            if (leader) {
+                                upstreamBalancer.release(upstream, System.currentTimeMillis() - forwardStart, error);
                             }
+                            sendLlmStreamError(emitter, agent, upstream, request, policyResult, startTime, flight, error);
                         },
                         () -> {
                             // 流式响应完成
                             long responseTimeMs = System.currentTimeMillis() - startTime;
                             log.info("Agent {} 的流式请求完成，耗时 {}ms", agent.getId(), responseTimeMs);
+                            if (leader) {
+                                long upstreamLatencyMs = (firstTokenTime[0] > 0 ? firstTokenTime[0] : System.currentTimeMillis()) - forwardStart;
+                                upstreamBalancer.release(upstream, upstreamLatencyMs, null);
+                            }
 
                             // 记录日志（包含 token 统计）
                             try {
                                 AgentLogCreateDTO logDto = new AgentLogCreateDTO();
                                 logDto.setAgentId(agent.getId());
                                 logDto.setRequestType(RequestType.LLM_CALL);
-                                logDto.setEndpoint(llmUrl);
+                                logDto.setEndpoint(upstreamUrl);
+                                logDto.setUpstreamId(upstream.getUpstreamId());
                                 logDto.setMethod("POST");
-                                logDto.setRequestSummary(createLlmRequestSummary(request));
+                                logDto.setRequestSummary(createLlmRequestSummary(request, null, flight, null));
                                 logDto.setResponseStatus(ResponseStatus.SUCCESS);
                                 logDto.setResponseTimeMs((int) responseTimeMs);
 
@@ -571,50 +775,65 @@ public class ProxyServiceImpl implements ProxyService {
                                     log.warn("流式响应完成，但未捕获到finish_reason");
                                 }
 
-                                // 尝试从最后的 chunk 中解析 token 统计
-                                String lastChunk = lastChunkBuilder.toString();
-                                if (StrUtil.isNotBlank(lastChunk) && lastChunk.contains("\"usage\"")) {
-                                    try {
-                                        log.debug("尝试从包含usage字段的数据块解析Token使用量: {}", lastChunk);
+                                if (!leader) {
+                                    // 合并到相同请求，未请求上游：Token 和成本记为 0
+                                    logDto.setTokenInput(0);
+                                    logDto.setTokenOutput(0);
+                                    logDto.setCost(BigDecimal.ZERO);
+                                } else {
+                                    // 尝试从最后的 chunk 中解析 token 统计
+                                    String provider = StrUtil.isNotBlank(agent.getLlmProvider()) ? agent.getLlmProvider() : "openai";
+                                    TokenUsageDTO tokenUsage = null;
+                                    String lastChunk = lastChunkBuilder.toString();
+                                    if (StrUtil.isNotBlank(lastChunk) && lastChunk.contains("\"usage\"")) {
+                                        try {
+                                            log.debug("尝试从包含usage字段的数据块解析Token使用量: {}", lastChunk);
 
-                                        // 如果 chunk 以 "data: " 开头，去掉前缀
-                                        String jsonStr = lastChunk;
-                                        if (jsonStr.startsWith("data: ")) {
-                                            jsonStr = jsonStr.substring(6).trim();
-                                        }
+                                            // 如果 chunk 以 "data: " 开头，去掉前缀
+                                            String jsonStr = lastChunk;
+                                            if (jsonStr.startsWith("data: ")) {
+                                                jsonStr = jsonStr.substring(6).trim();
+                                            }
 
-                                        // 确保是有效的 JSON
-                                        if (jsonStr.startsWith("{")) {
-                                            String provider = StrUtil.isNotBlank(agent.getLlmProvider()) ? agent.getLlmProvider() : "openai";
-                                            TokenUsageDTO tokenUsage = tokenParser.parseFromResponse(jsonStr, provider);
-
-                                            if (tokenUsage != null) {
-                                                log.info("成功从流式响应解析Token使用量: input={}, output={}, total={}",
-                                                        tokenUsage.getInputTokens(), tokenUsage.getOutputTokens(), tokenUsage.getTotalTokens());
-
-                                                logDto.setTokenInput(tokenUsage.getInputTokens());
-                                                logDto.setTokenOutput(tokenUsage.getOutputTokens());
-
-                                                // 计算成本
-                                                if (model != null) {
-                                                    BigDecimal cost = costCalculator.calculateCost(
-                                                            provider,
-                                                            model,
-                                                            tokenUsage.getInputTokens(),
-                                                            tokenUsage.getOutputTokens()
-                                                    );
-                                                    logDto.setCost(cost);
-                                                    log.info("流式请求成本计算完成: {}", cost);
+                                            // 确保是有效的 JSON
+                                            if (jsonStr.startsWith("{")) {
+                                                tokenUsage = tokenParser.parseFromResponse(jsonStr, provider);
+                                                if (tokenUsage == null) {
+                                                    log.warn("无法从流式响应解析Token使用量");
                                                 }
-                                            } else {
-                                                log.warn("无法从流式响应解析Token使用量");
                                             }
+                                        } catch (Exception e) {
+                                            log.warn("从流式响应解析Token使用量失败: {}", e.getMessage());
                                         }
-                                    } catch (Exception e) {
-                                        log.warn("从流式响应解析Token使用量失败: {}", e.getMessage());
+                                    } else {
+                                        log.warn("流式响应中未找到包含usage信息的数据块。请确保启用了stream_options.include_usage");
+                                    }
+
+                                    // 上游未返回 usage 时按本地分词估算，避免流式请求零成本入账
+                                    if (tokenUsage == null) {
+                                        tokenUsage = estimateStreamUsage(request, model, promptTokens, outputText);
+                                        log.info("流式响应未返回usage，按本地分词估算Token使用量: input={}, output={}",
+                                                tokenUsage.getInputTokens(), tokenUsage.getOutputTokens());
+                                    } else {
+                                        log.info("成功从流式响应解析Token使用量: input={}, output={}, total={}",
+                                                tokenUsage.getInputTokens(), tokenUsage.getOutputTokens(), tokenUsage.getTotalTokens());
+                                    }
+
+                                    logDto.setTokenInput(tokenUsage.getInputTokens());
+                                    logDto.setTokenOutput(tokenUsage.getOutputTokens());
+                                    logDto.setTokenEstimated(Boolean.TRUE.equals(tokenUsage.getEstimated()));
+
+                                    // 计算成本
+                                    if (model != null) {
+                                        BigDecimal cost = costCalculator.calculateCost(
+                                                provider,
+                                                model,
+                                                tokenUsage.getInputTokens(),
+                                                tokenUsage.getOutputTokens()
+                                        );
+                                        logDto.setCost(cost);
+                                        log.info("流式请求成本计算完成: {}", cost);
                                     }
-                                } else {
-                                    log.warn("流式响应中未找到包含usage信息的数据块。请确保启用了stream_options.include_usage");
                                 }
 
                                 agentLogService.create(logDto);
@@ -651,6 +870,8 @@ public class ProxyServiceImpl implements ProxyService {
         ProxyResponseDTO response;
         ResponseStatus responseStatus;
         String approvalRequestId = null;
+        List<HedgeAttempt> hedgeAttempts = null;
+        HttpResponseCache.CacheStatus cacheStatus = null;
 
         if (policyResult.isBlocked()) {
             if (policyResult.isRequireApproval()) {
@@ -664,10 +885,35 @@ public class ProxyServiceImpl implements ProxyService {
                 responseStatus = ResponseStatus.BLOCKED;
             }
         } else {
-            // 请求允许通过，转发到目标服务
+            // 请求允许通过，经响应缓存转发到目标服务；Agent 开启对冲时 GET 请求按对冲方式转发
             try {
-                response = forwardRequest(request);
-                responseStatus = ResponseStatus.SUCCESS;
+                validateTargetUrl(request.getTargetUrl());
+                boolean hedged = isHedgingEnabled(agent) && isHedgeableApiRequest(request);
+                List<HedgeAttempt> attempts = hedged ? new ArrayList<>(2) : null;
+                HttpResponseCache.CacheResult result = httpResponseCache.exchange(agent.getId(), request,
+                        policyResult.getCacheOverride(), extraHeaders -> {
+                            AdaptiveConcurrencyLimiter.Pause pause = concurrencyLimiter.pause();
+                            try {
+                                return hedged
+                                        ? forwardRequestHedged(agent, request, attempts, extraHeaders)
+                                        : forwardRequest(request, extraHeaders);
+                            } finally {
+                                pause.resume();
+                            }
+                        });
+                hedgeAttempts = CollUtil.isNotEmpty(attempts) ? attempts : null;
+                cacheStatus = result.status();
+                if (cacheStatus == HttpResponseCache.CacheStatus.UNAVAILABLE) {
+                    response = ProxyResponseDTO.builder()
+                            .status(ResponseStatus.FAILED)
+                            .statusCode(result.response().getStatusCode().value())
+                            .message("没有可用的缓存响应（only-if-cached）")
+                            .build();
+                    responseStatus = ResponseStatus.FAILED;
+                } else {
+                    response = buildSuccessResponse(result.response());
+                    responseStatus = ResponseStatus.SUCCESS;
+                }
             } catch (Exception e) {
                 response = handleForwardingError(e, request);
                 responseStatus = ResponseStatus.FAILED;
@@ -677,11 +923,373 @@ public class ProxyServiceImpl implements ProxyService {
         // 4. 记录日志
         long responseTimeMs = System.currentTimeMillis() - startTime;
         boolean success = (responseStatus == ResponseStatus.SUCCESS);
-        recordLog(agent.getId(), request, response, responseStatus, responseTimeMs, policyResult, success, approvalRequestId);
+        recordLog(agent.getId(), request, response, responseStatus, responseTimeMs, policyResult, success,
+                approvalRequestId, hedgeAttempts, cacheStatus);
 
         return response;
     }
 
+    @Override
+    public ResponseEntity<?> handlePassthroughRequest(PassthroughRequestDTO request) {
+        long startTime = System.currentTimeMillis();
+        ProxyProperties.Passthrough config = proxyProperties.getPassthrough();
+        if (!config.isEnabled()) {
+            throw new BusinessException(ErrorCode.PASSTHROUGH_DISABLED);
+        }
+
+        // 1. 验证 AG 密钥和请求体大小
+        AgentDTO agent = validateApiKey(extractBearerToken(request.getAuthorization()));
+        if (request.getContentLength() > config.getMaxRequestBytes()) {
+            throw new BusinessException(ErrorCode.REQUEST_BODY_TOO_LARGE);
+        }
+        String method = request.getMethod().toUpperCase();
+        boolean hasBody = request.getContentLength() > 0 || request.getHeaders().containsKey(HttpHeaders.TRANSFER_ENCODING);
+        HttpHeaders forwardHeaders = withoutHopByHopHeaders(request.getHeaders());
+        if (request.getContentLength() > 0) {
+            forwardHeaders.setContentLength(request.getContentLength());
+        }
+
+        // 2. 读取请求体开头：完整读入且为 JSON 时解析后参与策略评估，之后与剩余部分一起转发
+        byte[] head;
+        try {
+            head = hasBody ? request.getBody().readNBytes(config.getInspectBytes() + 1) : new byte[0];
+        } catch (IOException e) {
+            throw new BusinessException(ErrorCode.BAD_REQUEST, "读取请求体失败: " + e.getMessage());
+        }
+        boolean complete = head.length <= config.getInspectBytes();
+        Map<String, Object> body = complete ? parseJsonBody(head, forwardHeaders) : null;
+        ProxyRequestDTO view = ProxyRequestDTO.builder()
+                .targetUrl(request.getTargetUrl())
+                .method(method)
+                .headers(forwardHeaders.toSingleValueMap())
+                .body(body)
+                .build();
+        PassthroughTrace trace = new PassthroughTrace(Arrays.copyOf(head, Math.min(head.length, config.getCaptureBytes())),
+                complete && (head.length == 0 || body != null));
+
+        // 3. 策略评估；请求体未完整检查时只按地址、方法和请求头匹配
+        PolicyResult policyResult = policyEngine.evaluate(view.getTargetUrl(), method, view.getHeaders(), body,
+                agent.getId(), null, RequestType.API_CALL);
+        if (policyResult.isBlocked()) {
+            ProxyResponseDTO response;
+            ResponseStatus responseStatus;
+            String approvalRequestId = null;
+            if (policyResult.isRequireApproval() && trace.bodyInspected) {
+                approvalRequestId = createApprovalRequest(agent.getId(), policyResult, view);
+                response = ProxyResponseDTO.pendingApproval(policyResult.getReason(), approvalRequestId);
+                responseStatus = ResponseStatus.PENDING_APPROVAL;
+            } else if (policyResult.isRequireApproval()) {
+                // 审批通过后按保存的请求重放，请求体未完整读取时无法保存，直接拦截
+                response = ProxyResponseDTO.blocked(policyResult.getReason() + "（请求体过大或不是 JSON，无法提交审批）");
+                responseStatus = ResponseStatus.BLOCKED;
+            } else {
+                response = ProxyResponseDTO.blocked(policyResult.getReason());
+                responseStatus = ResponseStatus.BLOCKED;
+            }
+            recordPassthroughLog(agent.getId(), view, trace, response, responseStatus,
+                    System.currentTimeMillis() - startTime, policyResult, approvalRequestId);
+            return passthroughJson(responseStatus == ResponseStatus.PENDING_APPROVAL ? 202 : 403, response);
+        }
+
+        // 4. 透传响应体写出线程和排队容量都已用满时不请求目标服务，直接返回 503
+        if (isPassthroughSaturated()) {
+            ProxyResponseDTO response = handleForwardingError(new BusinessException(ErrorCode.SERVICE_OVERLOADED), view);
+            recordPassthroughLog(agent.getId(), view, trace, response, ResponseStatus.FAILED,
+                    System.currentTimeMillis() - startTime, policyResult, null);
+            return passthroughJson(response.getStatusCode(), response);
+        }
+
+        // 5. 转发到目标服务，收到响应头后按块写回响应体
+        ResponseEntity<Flux<DataBuffer>> upstream;
+        try {
+            validateTargetUrl(request.getTargetUrl());
+            AdaptiveConcurrencyLimiter.Pause pause = concurrencyLimiter.pause();
+            try {
+                upstream = openPassthrough(request, method, forwardHeaders, hasBody ? head : null, trace);
+            } finally {
+                pause.resume();
+            }
+            long contentLength = upstream.getHeaders().getContentLength();
+            if (contentLength > config.getMaxResponseBytes()) {
+                discard(upstream.getBody());
+                throw new BusinessException(ErrorCode.RESPONSE_BODY_TOO_LARGE);
+            }
+        } catch (Exception e) {
+            ProxyResponseDTO response = handleForwardingError(e, view);
+            recordPassthroughLog(agent.getId(), view, trace, response, ResponseStatus.FAILED,
+                    System.currentTimeMillis() - startTime, policyResult, null);
+            return passthroughJson(response.getStatusCode(), response);
+        }
+
+        trace.statusCode = upstream.getStatusCode().value();
+        HttpHeaders responseHeaders = withoutHopByHopHeaders(upstream.getHeaders());
+        trace.responseContentType = responseHeaders.getFirst(HttpHeaders.CONTENT_TYPE);
+        trace.responseContentEncoding = responseHeaders.getFirst(HttpHeaders.CONTENT_ENCODING);
+        if (!SAFE_HTTP_METHODS.contains(method) && !upstream.getStatusCode().isError()) {
+            httpResponseCache.invalidate(request.getTargetUrl());
+        }
+        Flux<DataBuffer> responseBody = upstream.getBody();
+        PassthroughBody passthroughBody = new PassthroughBody(
+                out -> writePassthroughBody(out, responseBody, agent.getId(), view, trace, policyResult, startTime),
+                () -> {
+                    // 未写出即结束（写出线程池拒绝、排队超时或客户端断开），释放目标服务连接并记录日志
+                    discard(responseBody);
+                    trace.error = "响应体未写出";
+                    recordPassthroughLog(agent.getId(), view, trace, null, ResponseStatus.FAILED,
+                            System.currentTimeMillis() - startTime, policyResult, null);
+                });
+        return ResponseEntity.status(upstream.getStatusCode())
+                .headers(responseHeaders)
+                .body(passthroughBody);
+    }
+
+    /**
+     * 发起透传请求，返回目标服务的响应头和尚未读取的响应体
+     *
+     * @param request 透传请求
+     * @param method HTTP方法
+     * @param headers 转发的请求头
+     * @param head 已读取的请求体开头（无请求体时为空）
+     * @param trace 透传记录
+     * @return 目标服务的响应，响应体需要订阅读取或取消
+     */
+    private ResponseEntity<Flux<DataBuffer>> openPassthrough(PassthroughRequestDTO request, String method, HttpHeaders headers,
+                                                             byte[] head, PassthroughTrace trace) {
+        String url = request.getTargetUrl();
+        WebClient.RequestBodySpec spec = webClient.method(HttpMethod.valueOf(method))
+                .uri(URI.create(url))
+                .headers(h -> h.addAll(headers));
+        if (head != null) {
+            long remaining = proxyProperties.getPassthrough().getMaxRequestBytes() - head.length;
+            // 读取客户端请求体是阻塞操作，不能在 Netty 事件循环线程中执行
+            Flux<DataBuffer> body = DataBufferUtils.readInputStream(
+                            () -> new SequenceInputStream(new ByteArrayInputStream(head), new BoundedInputStream(request.getBody(), remaining)),
+                            DefaultDataBufferFactory.sharedInstance, PASSTHROUGH_BUFFER_SIZE)
+                    .doOnNext(buffer -> trace.requestBytes.addAndGet(buffer.readableByteCount()))
+                    .subscribeOn(Schedulers.boundedElastic());
+            spec.body(BodyInserters.fromDataBuffers(body));
+        }
+
+        // 目标服务的错误状态码原样透传，5xx 仍计入熔断统计
+        Mono<ResponseEntity<Flux<DataBuffer>>> call = spec.retrieve()
+                .onStatus(HttpStatusCode::isError, clientResponse -> Mono.empty())
+                .toEntityFlux(DataBuffer.class)
+                .flatMap(entity -> entity.getStatusCode().is5xxServerError()
+                        ? Mono.error(new PassthroughServerError(entity))
+                        : Mono.just(entity))
+                .onErrorMap(e -> ExceptionUtil.getThrowableList(e).stream().anyMatch(RequestBodyTooLargeException.class::isInstance),
+                        e -> new BusinessException(ErrorCode.REQUEST_BODY_TOO_LARGE));
+        return upstreamCircuitBreakers.guard(url, call)
+                .onErrorResume(PassthroughServerError.class, e -> Mono.just(e.entity))
+                .onErrorMap(WebClientRequestException.class, e -> new ResourceAccessException("I/O error on " + method
+                        + " request for \"" + url + "\": " + e.getMessage(), e.getCause() instanceof IOException ioError
+                        ? ioError : new IOException(e)))
+                .block();
+    }
+
+    /**
+     * 按块写回透传响应体，超出上限或任一端断开时中断，结束后记录日志
+     */
+    private void writePassthroughBody(OutputStream out, Flux<DataBuffer> body, String agentId, ProxyRequestDTO view,
+                                      PassthroughTrace trace, PolicyResult policyResult, long startTime) throws IOException {
+        ProxyProperties.Passthrough config = proxyProperties.getPassthrough();
+        boolean completed = false;
+        try (Stream<DataBuffer> chunks = body.doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                .toStream(PASSTHROUGH_PREFETCH)) {
+            Iterator<DataBuffer> iterator = chunks.iterator();
+            while (iterator.hasNext()) {
+                DataBuffer buffer = iterator.next();
+                try {
+                    byte[] chunk = new byte[buffer.readableByteCount()];
+                    buffer.read(chunk);
+                    if (trace.addResponseChunk(chunk, config.getCaptureBytes()) > config.getMaxResponseBytes()) {
+                        throw new IOException(ErrorCode.RESPONSE_BODY_TOO_LARGE.getMessage());
+                    }
+                    out.write(chunk);
+                    out.flush();
+                } finally {
+                    DataBufferUtils.release(buffer);
+                }
+            }
+            completed = true;
+        } catch (IOException | RuntimeException e) {
+            trace.error = e.getMessage();
+            log.warn("透传响应中断: {}, 已写出 {} 字节, error: {}", view.getTargetUrl(), trace.responseBytes, e.getMessage());
+            throw e;
+        } finally {
+            boolean success = completed && trace.statusCode < 400;
+            recordPassthroughLog(agentId, view, trace, null, success ? ResponseStatus.SUCCESS : ResponseStatus.FAILED,
+                    System.currentTimeMillis() - startTime, policyResult, null);
+        }
+    }
+
+    /**
+     * 取消未读取的响应体，释放连接
+     */
+    private void discard(Flux<DataBuffer> body) {
+        body.subscribe(new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                cancel();
+            }
+        });
+    }
+
+    /**
+     * 透传响应体写出线程池的线程和排队容量是否都已用满
+     */
+    private boolean isPassthroughSaturated() {
+        ProxyProperties.Passthrough config = proxyProperties.getPassthrough();
+        return passthroughStreamExecutor.getActiveCount() + passthroughStreamExecutor.getQueueSize()
+                >= config.getStreamThreads() + config.getStreamQueueCapacity();
+    }
+
+    /**
+     * 透传接口返回的 JSON 代理响应（被拦截、待审批或转发失败时），由控制器在请求线程中直接写出，不占用异步线程
+     */
+    private ResponseEntity<Result<ProxyResponseDTO>> passthroughJson(int status, ProxyResponseDTO response) {
+        return ResponseEntity.status(status).body(Result.success(response));
+    }
+
+    /**
+     * 去掉逐跳请求头/响应头（RFC 9110 7.6.1），包括 Connection 中列出的字段
+     */
+    private HttpHeaders withoutHopByHopHeaders(HttpHeaders headers) {
+        HttpHeaders result = new HttpHeaders();
+        List<String> connectionFields = headers.getConnection().stream().map(String::toLowerCase).toList();
+        headers.forEach((name, values) -> {
+            String key = name.toLowerCase();
+            if (!HOP_BY_HOP_HEADERS.contains(key) && !connectionFields.contains(key)) {
+                result.addAll(name, values);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 解析完整读入的请求体：未压缩的 JSON 对象返回 Map，其余返回 null
+     */
+    private Map<String, Object> parseJsonBody(byte[] body, HttpHeaders headers) {
+        if (body.length == 0 || headers.containsKey(HttpHeaders.CONTENT_ENCODING)) {
+            return null;
+        }
+        String text = new String(body, StandardCharsets.UTF_8);
+        if (!JSONUtil.isTypeJSONObject(text)) {
+            return null;
+        }
+        try {
+            return JSONUtil.parseObj(text);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 记录透传请求日志：请求体、响应体只记录前 captureBytes 字节的文本内容
+     */
+    private void recordPassthroughLog(String agentId, ProxyRequestDTO view, PassthroughTrace trace, ProxyResponseDTO response,
+                                      ResponseStatus responseStatus, long responseTimeMs, PolicyResult policyResult,
+                                      String approvalRequestId) {
+        try {
+            AgentLogCreateDTO logDto = new AgentLogCreateDTO();
+            logDto.setAgentId(agentId);
+            logDto.setRequestType(RequestType.API_CALL);
+            logDto.setEndpoint(view.getTargetUrl());
+            logDto.setMethod(view.getMethod());
+            logDto.setResponseStatus(responseStatus);
+            logDto.setResponseTimeMs((int) responseTimeMs);
+            if (responseStatus == ResponseStatus.PENDING_APPROVAL && StrUtil.isNotBlank(approvalRequestId)) {
+                logDto.setApprovalRequestId(approvalRequestId);
+            }
+
+            Map<String, Object> summary = MapUtil.builder(new LinkedHashMap<String, Object>())
+                    .put("method", view.getMethod())
+                    .put("url", view.getTargetUrl())
+                    .put("passthrough", true)
+                    .put("requestBytes", trace.requestBytes.get())
+                    .build();
+            String maskedHeaders = maskSensitiveHeaders(view.getHeaders());
+            if (StrUtil.isNotBlank(maskedHeaders)) {
+                summary.put("headers", JSONUtil.parse(maskedHeaders));
+            }
+            if (!trace.bodyInspected) {
+                summary.put("bodyInspected", false);
+            }
+            if (trace.statusCode > 0) {
+                summary.put("statusCode", trace.statusCode);
+                summary.put("responseBytes", trace.responseBytes);
+            }
+            if (trace.error != null) {
+                summary.put("error", trace.error);
+            }
+            logDto.setRequestSummary(JSONUtil.toJsonStr(summary));
+
+            if (CollUtil.isNotEmpty(view.getHeaders())) {
+                logDto.setRequestHeaders(JSONUtil.toJsonStr(view.getHeaders()));
+            }
+            String contentType = view.getHeaders() != null ? view.getHeaders().get(HttpHeaders.CONTENT_TYPE) : null;
+            String contentEncoding = view.getHeaders() != null ? view.getHeaders().get(HttpHeaders.CONTENT_ENCODING) : null;
+            logDto.setRequestBody(captureText(trace.requestCapture, Math.max(trace.requestBytes.get(), trace.requestCapture.length),
+                    contentType, contentEncoding));
+            if (response != null) {
+                if (response.getResponse() != null) {
+                    logDto.setResponseBody(JSONUtil.toJsonStr(response.getResponse()));
+                }
+            } else {
+                logDto.setResponseBody(captureText(trace.responseCapture.toByteArray(), trace.responseBytes,
+                        trace.responseContentType, trace.responseContentEncoding));
+            }
+
+            if (policyResult != null && policyResult.getPolicyId() != null) {
+                PolicySnapshotDTO policySnapshot = PolicySnapshotDTO.builder()
+                        .id(policyResult.getPolicyId())
+                        .name(policyResult.getPolicyName())
+                        .type(policyResult.getPolicyType() != null ? policyResult.getPolicyType().getCode() : null)
+                        .action(policyResult.getAction() != null ? policyResult.getAction().getCode() : null)
+                        .conditions(policyResult.getPolicyConditions())
+                        .reason(policyResult.getReason())
+                        .build();
+                logDto.setPolicySnapshot(policySnapshot);
+            }
+
+            agentLogService.create(logDto);
+        } catch (Exception e) {
+            log.error("记录Agent日志失败", e);
+        }
+    }
+
+    /**
+     * 截取的请求体/响应体转为日志文本：压缩或二进制内容只记录类型和长度，超出截取长度时标注总长度
+     *
+     * @param captured 截取的字节
+     * @param totalBytes 总字节数
+     * @param contentType Content-Type（可选）
+     * @param contentEncoding Content-Encoding（可选）
+     * @return 日志文本，无内容时返回 null
+     */
+    private String captureText(byte[] captured, long totalBytes, String contentType, String contentEncoding) {
+        if (totalBytes <= 0) {
+            return null;
+        }
+        if (StrUtil.isNotBlank(contentEncoding) && !"identity".equalsIgnoreCase(contentEncoding.trim())) {
+            return "[" + contentEncoding.trim() + " 编码内容，" + totalBytes + " 字节]";
+        }
+        MediaType mediaType = null;
+        try {
+            mediaType = contentType != null ? MediaType.parseMediaType(contentType) : null;
+        } catch (Exception e) {
+            log.debug("忽略无效的 Content-Type: {}", contentType);
+        }
+        boolean textual = mediaType == null || "text".equals(mediaType.getType())
+                || StrUtil.containsAnyIgnoreCase(mediaType.getSubtype(), "json", "xml", "x-www-form-urlencoded", "javascript");
+        if (!textual) {
+            return "[" + mediaType + " 内容，" + totalBytes + " 字节]";
+        }
+        Charset charset = mediaType != null && mediaType.getCharset() != null ? mediaType.getCharset() : StandardCharsets.UTF_8;
+        String text = new String(captured, charset);
+        return totalBytes > captured.length ? text + "...[已截断，共 " + totalBytes + " 字节]" : text;
+    }
+
     /**
      * 验证 API Key 有效性（用于代理服务，返回未脱敏的真实密钥）
      *
@@ -747,15 +1355,13 @@ public class ProxyServiceImpl implements ProxyService {
      * 转发请求到目标服务
      *
      * @param request 代理请求
-     * @return 代理响应
-     * @throws BusinessException 如果URL验证失败
+     * @param extraHeaders 附加的请求头（如缓存重新验证的条件请求头）
+     * @return 目标服务的响应
      */
-    private ProxyResponseDTO forwardRequest(ProxyRequestDTO request) {
-        // URL 验证
-        validateTargetUrl(request.getTargetUrl());
-        
+    private ResponseEntity<String> forwardRequest(ProxyRequestDTO request, HttpHeaders extraHeaders) {
         // 构建请求头
         HttpHeaders headers = buildHeaders(request.getHeaders());
+        headers.putAll(extraHeaders);
         
         // 构建请求体（将 Map<String, Object> 转换为 JSON 字符串）
         String requestBody = null;
@@ -766,16 +1372,133 @@ public class ProxyServiceImpl implements ProxyService {
         // 创建 HttpEntity
         HttpEntity<String> entity = new HttpEntity<>(requestBody, headers);
         
-        // 发起请求
-        ResponseEntity<String> response = restTemplate.exchange(
+        // 发起请求（目标主机熔断时直接失败），响应体超出上限时不再继续读取
+        ResponseEntity<String> response = upstreamCircuitBreakers.execute(request.getTargetUrl(), () -> restTemplate.execute(
             request.getTargetUrl(),
             HttpMethod.valueOf(request.getMethod().toUpperCase()),
-            entity,
-            String.class
-        );
+            restTemplate.httpEntityCallback(entity, String.class),
+            this::readBoundedResponse
+        ));
         
-        // 构建响应
-        return buildSuccessResponse(response);
+        return response;
+    }
+
+    /**
+     * 读取目标服务响应，响应体超过 maxBufferedResponseBytes 时抛出异常（大响应请使用透传接口）
+     *
+     * @param response 目标服务响应
+     * @return 响应实体
+     * @throws BusinessException 如果响应体超出上限
+     */
+    private ResponseEntity<String> readBoundedResponse(ClientHttpResponse response) throws IOException {
+        int limit = proxyProperties.getPassthrough().getMaxBufferedResponseBytes();
+        HttpHeaders headers = response.getHeaders();
+        if (headers.getContentLength() > limit) {
+            throw new BusinessException(ErrorCode.RESPONSE_BODY_TOO_LARGE);
+        }
+        byte[] body = response.getBody().readNBytes(limit + 1);
+        if (body.length > limit) {
+            throw new BusinessException(ErrorCode.RESPONSE_BODY_TOO_LARGE);
+        }
+        MediaType contentType = headers.getContentType();
+        Charset charset = contentType != null && contentType.getCharset() != null
+                ? contentType.getCharset() : StandardCharsets.UTF_8;
+        return new ResponseEntity<>(new String(body, charset), headers, response.getStatusCode());
+    }
+
+    /**
+     * 对冲转发 GET 请求到目标服务，两次尝试都请求同一目标地址（使用不同连接）
+     *
+     * @param agent Agent信息
+     * @param request 代理请求
+     * @param attempts 收集各次尝试，用于记录日志
+     * @param extraHeaders 附加的请求头（如缓存重新验证的条件请求头）
+     * @return 目标服务的响应
+     */
+    private ResponseEntity<String> forwardRequestHedged(AgentDTO agent, ProxyRequestDTO request, List<HedgeAttempt> attempts,
+                                                        HttpHeaders extraHeaders) {
+        HttpHeaders headers = buildHeaders(request.getHeaders());
+        headers.putAll(extraHeaders);
+
+        RequestHedger.HedgeResult<ResponseEntity<byte[]>> result = requestHedger.execute(
+                agent.getId() + ":" + RequestType.API_CALL.getCode(), true, attempt -> {
+                    attempts.add(attempt);
+                    attempt.setTarget(request.getTargetUrl());
+                    return exchangeForEntity(webClient.get()
+                            .uri(URI.create(request.getTargetUrl()))
+                            .headers(h -> h.addAll(headers)), HttpMethod.GET, request.getTargetUrl(), attempt, null, false);
+                });
+
+        ResponseEntity<byte[]> response = result.value();
+        MediaType contentType = response.getHeaders().getContentType();
+        Charset charset = contentType != null && contentType.getCharset() != null
+                ? contentType.getCharset() : StandardCharsets.UTF_8;
+        String body = response.getBody() != null ? new String(response.getBody(), charset) : null;
+        return new ResponseEntity<>(body, response.getHeaders(), response.getStatusCode());
+    }
+
+    /**
+     * 是否为可对冲的 API 请求：只对冲无请求体的 GET 请求（幂等，重复发送无副作用）
+     *
+     * @param request 代理请求
+     * @return 是否可对冲
+     */
+    private boolean isHedgeableApiRequest(ProxyRequestDTO request) {
+        return "GET".equalsIgnoreCase(request.getMethod()) && CollUtil.isEmpty(request.getBody());
+    }
+
+    /**
+     * Agent 是否开启了请求对冲
+     *
+     * @param agent Agent信息
+     * @return 全局开关和 Agent 开关都开启时返回 true
+     */
+    private boolean isHedgingEnabled(AgentDTO agent) {
+        return proxyProperties.getHedging().isEnabled() && Boolean.TRUE.equals(agent.getHedgingEnabled());
+    }
+
+    /**
+     * 通过 WebClient 发送请求并整体读取响应体，收到响应头时标记尝试已响应；目标主机熔断时直接失败
+     * 错误转换为与 RestTemplate 一致的异常（4xx、5xx、不可达或超时），以便沿用相同的错误处理
+     *
+     * @param spec 请求
+     * @param method 请求方法（用于错误信息）
+     * @param url 请求地址（用于错误信息）
+     * @param attempt 当前尝试
+     * @param permit 上游限流许可（收到响应头时按响应头更新额度），不限流时为空
+     * @param longRunning 耗时取决于生成长度的非流式 LLM 调用，不计入熔断慢调用统计
+     * @return 响应
+     */
+    private Mono<ResponseEntity<byte[]>> exchangeForEntity(WebClient.RequestHeadersSpec<?> spec, HttpMethod method,
+                                                           String url, HedgeAttempt attempt,
+                                                           UpstreamRateLimiter.Permit permit, boolean longRunning) {
+        Mono<ResponseEntity<byte[]>> exchange = spec.exchangeToMono(clientResponse -> {
+            attempt.markResponded();
+            HttpStatusCode status = clientResponse.statusCode();
+            HttpHeaders responseHeaders = clientResponse.headers().asHttpHeaders();
+            if (permit != null) {
+                permit.complete(status.value(), responseHeaders);
+            }
+            return clientResponse.bodyToMono(byte[].class)
+                    .defaultIfEmpty(new byte[0])
+                    .flatMap(body -> {
+                        MediaType contentType = responseHeaders.getContentType();
+                        Charset charset = contentType != null ? contentType.getCharset() : null;
+                        String statusText = status instanceof HttpStatus httpStatus ? httpStatus.getReasonPhrase() : "";
+                        if (status.is4xxClientError()) {
+                            return Mono.error(HttpClientErrorException.create(status, statusText, responseHeaders, body, charset));
+                        }
+                        if (status.is5xxServerError()) {
+                            return Mono.error(HttpServerErrorException.create(status, statusText, responseHeaders, body, charset));
+                        }
+                        return Mono.just(new ResponseEntity<>(body, responseHeaders, status));
+                    });
+        });
+        return (longRunning ? upstreamCircuitBreakers.guardLongRunning(url, exchange) : upstreamCircuitBreakers.guard(url, exchange))
+                .timeout(Duration.ofMillis(proxyProperties.getHedging().getAttemptTimeoutMs()))
+                .onErrorMap(e -> e instanceof TimeoutException || e instanceof WebClientRequestException,
+                        e -> new ResourceAccessException("I/O error on " + method + " request for \"" + url + "\": "
+                                + e.getMessage(), e instanceof IOException ioError ? ioError : new IOException(e)));
     }
 
     /**
@@ -875,18 +1598,22 @@ public class ProxyServiceImpl implements ProxyService {
      * @param policyResult 策略评估结果
      * @param success 是否成功
      * @param approvalRequestId 审批请求ID（可选）
+     * @param hedgeAttempts 对冲请求的各次尝试（可选，未对冲时为空）
+     * @param cacheStatus 响应缓存状态（可选，未转发时为空）
      */
     private void recordLog(String agentId, ProxyRequestDTO request, ProxyResponseDTO response,
                            ResponseStatus responseStatus, long responseTimeMs,
-                           PolicyResult policyResult, boolean success, String approvalRequestId) {
+                           PolicyResult policyResult, boolean success, String approvalRequestId,
+                           List<HedgeAttempt> hedgeAttempts, HttpResponseCache.CacheStatus cacheStatus) {
         try {
             AgentLogCreateDTO logDto = new AgentLogCreateDTO();
             logDto.setAgentId(agentId);
             logDto.setRequestType(RequestType.API_CALL);
             logDto.setEndpoint(request.getTargetUrl());
             logDto.setMethod(request.getMethod());
-            logDto.setRequestSummary(createRequestSummary(request, policyResult));
+            logDto.setRequestSummary(createRequestSummary(request, policyResult, hedgeAttempts, cacheStatus));
             logDto.setResponseStatus(responseStatus);
+            logDto.setCacheHit(cacheStatus == HttpResponseCache.CacheStatus.HIT);
             logDto.setResponseTimeMs((int) responseTimeMs);
 
             // 如果是待审批状态，保存审批请求ID
@@ -935,9 +1662,12 @@ public class ProxyServiceImpl implements ProxyService {
      *
      * @param request 代理请求
      * @param policyResult 策略评估结果
+     * @param hedgeAttempts 对冲请求的各次尝试（可选）
+     * @param cacheStatus 响应缓存状态（可选）
      * @return JSON格式的请求摘要
      */
-    private String createRequestSummary(ProxyRequestDTO request, PolicyResult policyResult) {
+    private String createRequestSummary(ProxyRequestDTO request, PolicyResult policyResult, List<HedgeAttempt> hedgeAttempts,
+                                        HttpResponseCache.CacheStatus cacheStatus) {
         try {
             Map<String, Object> summary = MapUtil.builder(new LinkedHashMap<String, Object>())
                     .put("method", request.getMethod())
@@ -959,6 +1689,10 @@ public class ProxyServiceImpl implements ProxyService {
             if (CollUtil.isNotEmpty(request.getMetadata())) {
                 summary.put("metadata", request.getMetadata());
             }
+            putHedgeSummary(summary, hedgeAttempts);
+            if (cacheStatus != null && cacheStatus != HttpResponseCache.CacheStatus.BYPASS) {
+                summary.put("cache", cacheStatus.name());
+            }
             return JSONUtil.toJsonStr(summary);
         } catch (Exception e) {
             log.warn("创建请求摘要失败", e);
@@ -1032,6 +1766,18 @@ public class ProxyServiceImpl implements ProxyService {
                     .statusCode(serverError.getStatusCode().value())
                     .message("目标服务返回服务器错误")
                     .response(responseData);
+        } else if (e instanceof CallNotPermittedException) {
+            // 上游主机熔断中，未发出请求；响应体使用 OpenAI 错误格式，兼容 SDK 的错误解析
+            Map<String, Object> error = MapUtil.builder(new LinkedHashMap<String, Object>())
+                    .put("message", "上游服务暂时不可用（已熔断），请稍后重试")
+                    .put("type", "upstream_unavailable")
+                    .put("code", "circuit_open")
+                    .put("targetUrl", request.getTargetUrl())
+                    .build();
+            responseBuilder
+                    .statusCode(503)
+                    .message("上游服务熔断中")
+                    .response(Map.of("error", error));
         } else if (e instanceof BusinessException) {
             // 业务异常（如 URL 验证失败）
             BusinessException bizError = (BusinessException) e;
@@ -1041,10 +1787,15 @@ public class ProxyServiceImpl implements ProxyService {
                     "errorCode", bizError.getCode(),
                     "timestamp", LocalDateTime.now().toString()
             );
+            // 上游限流额度不足、Agent 并发排队已满或超时（未请求上游）按 429 返回，请求体过大按 413 返回，
+            // 目标服务响应体过大按 502 返回，其余业务异常按 400 返回
             responseBuilder
-                    .statusCode(400)
+                    .statusCode(isTooManyRequests(bizError) ? 429 : bodyTooLargeStatus(bizError))
                     .message(bizError.getMessage())
                     .response(errorDetail);
+            if (bizError instanceof UpstreamRateLimitedException rateLimited) {
+                responseBuilder.retryAfterSeconds(rateLimited.getRetryAfterSeconds());
+            }
         } else {
             // 其他未知异常
             Map<String, Object> errorDetail = Map.of(
@@ -1109,50 +1860,404 @@ public class ProxyServiceImpl implements ProxyService {
     }
 
     /**
-     * 转发 LLM 请求
+     * 作为跟随者处理 LLM 请求：等待进行中的相同请求完成并共享其响应
+     * 日志记录自己的响应时间，Token 和成本记为 0
      *
      * @param agent Agent信息
      * @param request LLM请求
+     * @param flight 进行中的相同请求
+     * @param startTime 请求开始时间（毫秒时间戳）
+     * @param policyResult 策略评估结果
      * @return 代理响应
      */
-    private ProxyResponseDTO forwardLlmRequest(AgentDTO agent, LlmProxyRequestDTO request) {
-        // 构建请求头，替换为真实的 LLM API Key
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("Authorization", "Bearer " + agent.getLlmApiKey());
-        headers.set("Content-Type", "application/json");
+    private ProxyResponseDTO followLlmRequest(AgentDTO agent, LlmProxyRequestDTO request, RequestCoalescer.Flight<LlmOutcome> flight,
+                                              long startTime, PolicyResult policyResult) {
+        UpstreamEndpoint upstream = null;
+        ProxyResponseDTO response;
+        LlmResponseSummaryDTO summary = null;
+        ResponseStatus responseStatus;
+        AdaptiveConcurrencyLimiter.Pause pause = concurrencyLimiter.pause();
+        try {
+            LlmOutcome outcome = flight.await(startTime + proxyProperties.getCoalescing().getMaxWaitMs());
+            upstream = outcome.upstream();
+            response = outcome.response();
+            summary = outcome.summary();
+            responseStatus = outcome.responseStatus();
+        } catch (TimeoutException e) {
+            response = handleLlmForwardingError(new ResourceAccessException("等待相同请求的上游响应超时"),
+                    buildLlmUrl(agent.getLlmBaseUrl()));
+            responseStatus = ResponseStatus.FAILED;
+        } catch (Exception e) {
+            response = handleLlmForwardingError(e, buildLlmUrl(agent.getLlmBaseUrl()));
+            responseStatus = ResponseStatus.FAILED;
+        } finally {
+            pause.resume();
+        }
 
-        // 使用 Agent 配置的模型覆盖请求体中的模型
-        Map<String, Object> modifiedBody = new LinkedHashMap<>(request.getBody());
-        if (StrUtil.isNotBlank(agent.getLlmModel())) {
-            modifiedBody.put("model", agent.getLlmModel());
-            log.debug("使用Agent配置的模型: {}", agent.getLlmModel());
+        long responseTimeMs = System.currentTimeMillis() - startTime;
+        recordLlmLog(agent, upstream, request, response, summary, responseStatus, responseTimeMs, policyResult,
+                responseStatus == ResponseStatus.SUCCESS, null, null, flight, null);
+        return response;
+    }
+
+    /**
+     * 以标准的 OpenAI chunk 格式返回流式请求的错误（作为正常回复），并记录失败日志
+     *
+     * @param emitter SSE 发送器
+     * @param agent Agent信息
+     * @param upstream 上游端点，未请求上游时为 null
+     * @param request LLM请求
+     * @param policyResult 策略评估结果
+     * @param startTime 请求开始时间
+     * @param flight 相同请求合并
+     * @param error 错误
+     */
+    private void sendLlmStreamError(SseEmitter emitter, AgentDTO agent, UpstreamEndpoint upstream, LlmProxyRequestDTO request,
+                                    PolicyResult policyResult, long startTime, RequestCoalescer.Flight<?> flight,
+                                    Throwable error) {
+        // 构建错误消息
+        String errorMessage = error instanceof CallNotPermittedException
+                ? "上游服务暂时不可用（已熔断），请稍后重试"
+                : error instanceof BusinessException
+                ? error.getMessage()
+                : "LLM API 请求失败: " + error.getMessage();
+
+        // 记录失败日志
+        long responseTimeMs = System.currentTimeMillis() - startTime;
+        recordLlmLog(agent, upstream, request,
+                ProxyResponseDTO.builder()
+                        .status(ResponseStatus.FAILED)
+                        .message(errorMessage)
+                        .build(),
+                null,
+                ResponseStatus.FAILED,
+                responseTimeMs,
+                policyResult,
+                false,
+                null,
+                null,
+                flight,
+                null);
+
+        try {
+            // 使用Agent配置的模型
+            String model = agent.getLlmModel();
+
+            // 构建符合 OpenAI chat.completion.chunk 格式的响应
+            Map<String, Object> deltaMap = MapUtil.builder(new LinkedHashMap<String, Object>())
+                    .put("role", "assistant")
+                    .put("content", "[AgentGuard 错误] " + errorMessage)
+                    .build();
+
+            Map<String, Object> choiceMap = MapUtil.builder(new LinkedHashMap<String, Object>())
+                    .put("index", 0)
+                    .put("delta", deltaMap)
+                    .put("finish_reason", "stop")
+                    .build();
+
+            Map<String, Object> chunkResponse = MapUtil.builder(new LinkedHashMap<String, Object>())
+                    .put("id", "chatcmpl-ag-error-" + java.util.UUID.randomUUID().toString())
+                    .put("object", "chat.completion.chunk")
+                    .put("created", System.currentTimeMillis() / 1000)
+                    .put("model", model)
+                    .put("choices", CollUtil.newArrayList(choiceMap))
+                    .build();
+
+            // 发送标准的 OpenAI chunk 格式
+            emitter.send(SseEmitter.event().data(JSONUtil.toJsonStr(chunkResponse)));
+
+            // 发送 [DONE] 标记结束
+            emitter.send(SseEmitter.event().data("[DONE]"));
+
+            // 正常完成（而不是 completeWithError）
+            emitter.complete();
+        } catch (IOException ioEx) {
+            log.error("发送错误消息失败", ioEx);
+            emitter.completeWithError(ioEx);
+        }
+    }
+
+    /**
+     * 打开流式 LLM 请求（领导者）
+     * 按 Agent 并发上限和调度权重排队准入（阻塞到放行，排队已满或超时直接拒绝），按负载均衡选择上游端点，
+     * 上游流结束时释放准入凭证；流由相同请求的跟随者共享，首次订阅时才发出请求
+     *
+     * @param agent Agent信息
+     * @param request LLM请求
+     * @param promptTokens 提示词 Token 数（可选）
+     * @param body 改写后的请求体
+     * @param deadline 延迟预算截止时间（毫秒时间戳）
+     * @param flight 相同请求合并
+     * @return 共享的上游流
+     */
+    private LlmStream openLlmStream(AgentDTO agent, LlmProxyRequestDTO request, Integer promptTokens, byte[] body,
+                                   long deadline, RequestCoalescer.Flight<LlmStream> flight) {
+        LlmAdmissionScheduler.Ticket ticket = llmAdmissionScheduler.admit(agent, deadline);
+
+        // 流结束（完成或失败）时归还端点，首 token 时间作为延迟样本
+        UpstreamEndpoint upstream;
+        try {
+            upstream = upstreamBalancer.select(agent);
+        } catch (RuntimeException e) {
+            ticket.release();
+            throw e;
         }
+        String upstreamUrl = buildLlmUrl(upstream.getBaseUrl());
+
+        // 使用 WebClient 订阅流式响应（等待上游限流额度；上游主机熔断时直接进入错误处理）
+        Flux<String> chunks = rateLimited(upstream, estimateRequestTokens(request, promptTokens), deadline,
+                permit -> upstreamCircuitBreakers.guardStream(upstreamUrl, webClient.post()
+                        .uri(upstreamUrl)
+                        .header("Authorization", "Bearer " + upstream.getApiKey())
+                        .header("Content-Type", "application/json")
+                        .bodyValue(body)
+                        .exchangeToFlux(clientResponse -> {
+                            permit.complete(clientResponse.statusCode().value(), clientResponse.headers().asHttpHeaders());
+                            return clientResponse.statusCode().isError()
+                                    ? clientResponse.createException().flatMapMany(Flux::error)
+                                    : clientResponse.bodyToFlux(String.class);
+                        })))
+                .doFinally(signal -> ticket.release());
+        return new LlmStream(upstream, System.currentTimeMillis(), flight.share(chunks));
+    }
 
-        // 构建请求体
-        String requestBody = JSONUtil.toJsonStr(modifiedBody);
-        log.debug("转发LLM请求体: {}", requestBody);
-        log.debug("请求体长度: {}", requestBody != null ? requestBody.length() : 0);
+    /**
+     * 转发 LLM 请求
+     *
+     * 在请求线程上同步发送，不在线程上等待限流额度：额度不足或上游返回 429 时直接拒绝，
+     * 由调用方按 429 + Retry-After 返回客户端
+     *
+     * @param upstream 选中的上游端点
+     * @param agent Agent信息
+     * @param request LLM请求
+     * @param estimatedTokens 预计消耗的 Token 数
+     * @return 代理响应及响应摘要
+     */
+    private LlmForwardResult forwardLlmRequest(UpstreamEndpoint upstream, AgentDTO agent, LlmProxyRequestDTO request,
+                                               int estimatedTokens) {
+        // 构建请求头，替换为选中端点的真实 LLM API Key
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + upstream.getApiKey());
+        headers.set("Content-Type", "application/json");
+
+        byte[] requestBody = buildLlmRequestBody(agent, request);
 
         // 创建 HttpEntity
-        HttpEntity<String> entity = new HttpEntity<>(requestBody, headers);
+        HttpEntity<byte[]> entity = new HttpEntity<>(requestBody, headers);
 
         // 发起请求
-        String llmUrl = buildLlmUrl(agent.getLlmBaseUrl());
+        String llmUrl = buildLlmUrl(upstream.getBaseUrl());
         log.debug("转发到LLM URL: {}", llmUrl);
-        ResponseEntity<String> response = restTemplate.exchange(
-                llmUrl,
-                HttpMethod.POST,
-                entity,
-                String.class
-        );
+        UpstreamRateLimiter.Permit permit = acquireUpstreamPermit(upstream, estimatedTokens);
+        try {
+            ResponseEntity<byte[]> response = upstreamCircuitBreakers.executeLongRunning(llmUrl, () -> restTemplate.exchange(
+                    llmUrl,
+                    HttpMethod.POST,
+                    entity,
+                    byte[].class
+            ));
+            permit.complete(response.getStatusCode().value(), response.getHeaders());
+            return buildLlmForwardResult(agent, response);
+        } catch (HttpStatusCodeException e) {
+            long retryAfterMs = permit.complete(e.getStatusCode().value(), e.getResponseHeaders());
+            if (retryAfterMs >= 0) {
+                log.info("LLM URL {} 返回 429，{}ms 后恢复，直接拒绝", llmUrl, retryAfterMs);
+                throw new UpstreamRateLimitedException(retryAfterMs);
+            }
+            throw e;
+        } finally {
+            permit.cancel();
+        }
+    }
+
+    /**
+     * 是否为需要客户端稍后重试的拒绝（上游限流额度不足、Agent 并发排队已满或超时）
+     *
+     * @param e 业务异常
+     * @return 是否按 429 返回
+     */
+    private boolean isTooManyRequests(BusinessException e) {
+        return e.getCode() == ErrorCode.UPSTREAM_RATE_LIMITED.getCode()
+                || e.getCode() == ErrorCode.AGENT_CONCURRENCY_LIMITED.getCode();
+    }
+
+    /**
+     * 请求体、响应体超出大小上限或网关繁忙时的 HTTP 状态码，其他业务异常返回 400
+     *
+     * @param e 业务异常
+     * @return HTTP 状态码
+     */
+    private int bodyTooLargeStatus(BusinessException e) {
+        if (e.getCode() == ErrorCode.SERVICE_OVERLOADED.getCode()) {
+            return 503;
+        }
+        if (e.getCode() == ErrorCode.REQUEST_BODY_TOO_LARGE.getCode()) {
+            return 413;
+        }
+        return e.getCode() == ErrorCode.RESPONSE_BODY_TOO_LARGE.getCode() ? 502 : 400;
+    }
+
+    /**
+     * 申请上游限流许可，不等待：需要排队时直接拒绝，避免阻塞请求线程
+     *
+     * @param upstream 上游端点
+     * @param estimatedTokens 预计消耗的 Token 数
+     * @return 许可（可立即发送）
+     * @throws UpstreamRateLimitedException 额度不足，需要等待（携带建议等待秒数）
+     */
+    private UpstreamRateLimiter.Permit acquireUpstreamPermit(UpstreamEndpoint upstream, int estimatedTokens) {
+        return upstreamRateLimiter.acquire(upstream.getBaseUrl(), upstream.getApiKey(), estimatedTokens, 0);
+    }
+
+    /**
+     * 按上游限流额度发送请求（非阻塞）：订阅时申请许可并延迟到可发送时间，
+     * 收到 429 时按服务端要求的等待时间在延迟预算内重新申请许可并重发
+     *
+     * @param upstream 上游端点
+     * @param estimatedTokens 预计消耗的 Token 数
+     * @param deadline 延迟预算截止时间（毫秒时间戳）
+     * @param call 发送请求，收到响应头时应调用 {@link UpstreamRateLimiter.Permit#complete}
+     * @return 响应
+     */
+    private <T> Flux<T> rateLimited(UpstreamEndpoint upstream, int estimatedTokens, long deadline,
+                                    Function<UpstreamRateLimiter.Permit, Publisher<T>> call) {
+        AtomicInteger sends = new AtomicInteger();
+        AtomicReference<UpstreamRateLimiter.Permit> lastPermit = new AtomicReference<>();
+        return Flux.defer(() -> {
+                    UpstreamRateLimiter.Permit permit = upstreamRateLimiter.acquire(upstream.getBaseUrl(),
+                            upstream.getApiKey(), estimatedTokens, maxRateLimitWaitMs(deadline, sends.getAndIncrement() == 0));
+                    lastPermit.set(permit);
+                    Flux<T> response = Flux.defer(() -> call.apply(permit));
+                    return (permit.getWaitMs() > 0
+                            ? Mono.delay(Duration.ofMillis(permit.getWaitMs())).thenMany(response)
+                            : response)
+                            .doFinally(signal -> permit.cancel());
+                })
+                .retryWhen(Retry.max(proxyProperties.getRateLimit().getMaxRetries())
+                        .filter(e -> UpstreamErrorUtil.isTooManyRequests(e)
+                                && isRateLimitRetryable(lastPermit.get().getRetryAfterMs(), deadline))
+                        .doBeforeRetry(signal -> log.info("上游 {} 返回 429，{}ms 后重试（第 {} 次）", upstream.getName(),
+                                lastPermit.get().getRetryAfterMs(), signal.totalRetries() + 1))
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
 
-        // ===== 临时添加：输出完整响应体用于调试 =====
-        log.info("===== LLM API 响应体（用于调试）=====");
-        log.info("{}", response.getBody());
-        log.info("===== 响应体结束 =====");
+    /**
+     * 申请上游限流许可时允许等待的最长时间
+     *
+     * @param deadline 延迟预算截止时间（毫秒时间戳）
+     * @param firstAttempt 是否首次发送
+     * @return 最长等待时间（毫秒）
+     */
+    private long maxRateLimitWaitMs(long deadline, boolean firstAttempt) {
+        long remainingMs = Math.max(0, deadline - System.currentTimeMillis());
+        return firstAttempt ? Math.min(proxyProperties.getRateLimit().getMaxQueueWaitMs(), remainingMs) : remainingMs;
+    }
+
+    /**
+     * 429 是否可以重试：服务端要求的等待时间在延迟预算内
+     *
+     * @param retryAfterMs 服务端要求的等待时间（毫秒），非 429 时为 -1
+     * @param deadline 延迟预算截止时间（毫秒时间戳）
+     * @return 是否可以重试
+     */
+    private boolean isRateLimitRetryable(long retryAfterMs, long deadline) {
+        return proxyProperties.getRateLimit().isEnabled() && retryAfterMs >= 0
+                && System.currentTimeMillis() + retryAfterMs < deadline;
+    }
+
+    /**
+     * 对冲转发 LLM 请求：主请求按负载均衡选择端点，对冲请求选择另一个端点，没有其他健康端点时不对冲
+     *
+     * @param agent Agent信息
+     * @param request LLM请求
+     * @param attempts 收集各次尝试，用于记录日志
+     * @param endpoints 各次尝试选中的端点（按尝试序号）
+     * @param estimatedTokens 预计消耗的 Token 数
+     * @param deadline 延迟预算截止时间（毫秒时间戳）
+     * @return 对冲执行结果
+     */
+    private RequestHedger.HedgeResult<LlmForwardResult> forwardLlmRequestHedged(AgentDTO agent, LlmProxyRequestDTO request,
+                                                                                List<HedgeAttempt> attempts,
+                                                                                UpstreamEndpoint[] endpoints,
+                                                                                int estimatedTokens, long deadline) {
+        byte[] requestBody = buildLlmRequestBody(agent, request);
+        return requestHedger.execute(agent.getId() + ":" + RequestType.LLM_CALL.getCode(), true, attempt -> {
+            UpstreamEndpoint upstream = attempt.isHedge()
+                    ? upstreamBalancer.selectAlternate(agent, endpoints[0])
+                    : upstreamBalancer.select(agent);
+            if (upstream == null) {
+                // 没有其他健康端点，不发送对冲请求
+                return null;
+            }
+            attempts.add(attempt);
+            endpoints[attempt.getIndex()] = upstream;
+            attempt.setTarget(upstream.getName());
+
+            String llmUrl = buildLlmUrl(upstream.getBaseUrl());
+            long forwardStart = System.currentTimeMillis();
+            return rateLimited(upstream, estimatedTokens, deadline, permit -> exchangeForEntity(webClient.post()
+                            .uri(llmUrl)
+                            .header("Authorization", "Bearer " + upstream.getApiKey())
+                            .header("Content-Type", "application/json")
+                            .bodyValue(requestBody), HttpMethod.POST, llmUrl, attempt, permit, true))
+                    .single()
+                    .map(response -> buildLlmForwardResult(agent, response))
+                    .doOnSuccess(result -> upstreamBalancer.release(upstream, System.currentTimeMillis() - forwardStart, null))
+                    .doOnError(e -> upstreamBalancer.release(upstream, System.currentTimeMillis() - forwardStart, e))
+                    .doOnCancel(() -> upstreamBalancer.release(upstream, System.currentTimeMillis() - forwardStart,
+                            new CancellationException("对冲请求已由其他端点完成")));
+        });
+    }
+
+    /**
+     * 构建转发给 LLM 的请求体
+     * 使用 Agent 配置的模型覆盖请求体中的模型（按字节区间改写，其余内容原样转发）
+     *
+     * @param agent Agent信息
+     * @param request LLM请求
+     * @return 请求体字节
+     */
+    private byte[] buildLlmRequestBody(AgentDTO agent, LlmProxyRequestDTO request) {
+        Map<String, Object> replacements = new LinkedHashMap<>();
+        if (StrUtil.isNotBlank(agent.getLlmModel())) {
+            replacements.put("model", agent.getLlmModel());
+            log.debug("使用Agent配置的模型: {}", agent.getLlmModel());
+        }
+        byte[] requestBody = RawJsonObject.of(request.getBody()).rewrite(replacements, Map.of());
+        log.debug("请求体长度: {}", requestBody.length);
+        return requestBody;
+    }
+
+    /**
+     * 由 LLM 响应构建转发结果
+     *
+     * @param agent Agent信息
+     * @param response LLM响应
+     * @return 代理响应及响应摘要
+     */
+    private LlmForwardResult buildLlmForwardResult(AgentDTO agent, ResponseEntity<byte[]> response) {
+        byte[] body = response.getBody();
+        log.debug("LLM响应体长度: {}", body != null ? body.length : 0);
+
+        // 一次流式解析提取日志所需字段，响应体原样透传，不再构建对象树
+        String provider = StrUtil.isNotBlank(agent.getLlmProvider()) ? agent.getLlmProvider() : "openai";
+        LlmResponseSummaryDTO summary = llmResponseParser.parse(body, provider);
+
+        Object responseData = null;
+        if (body != null && body.length > 0) {
+            // 解析成功说明是完整的 JSON 对象，按原始字节写出，不解码为 String；否则按字符串返回
+            responseData = summary != null
+                    ? new RawValue(new RawJsonBytes(body))
+                    : new String(body, StandardCharsets.UTF_8);
+        }
 
-        // 构建响应
-        return buildSuccessResponse(response);
+        ProxyResponseDTO proxyResponse = ProxyResponseDTO.builder()
+                .status(ResponseStatus.SUCCESS)
+                .statusCode(response.getStatusCode().value())
+                .message("请求转发成功")
+                .response(responseData)
+                .build();
+        return new LlmForwardResult(proxyResponse, summary);
     }
 
     /**
@@ -1201,28 +2306,37 @@ public class ProxyServiceImpl implements ProxyService {
      * 记录 LLM 请求日志（简化版）
      *
      * @param agent Agent信息
+     * @param upstream 选中的上游端点（未转发时为空）
      * @param request LLM请求
      * @param response 代理响应
+     * @param summary 响应摘要（可选，转发成功时由响应解析得到）
      * @param responseStatus 响应状态
      * @param responseTimeMs 响应时间（毫秒）
      * @param policyResult 策略评估结果
      * @param success 是否成功
      * @param approvalRequestId 审批请求ID（可选）
+     * @param hedgeAttempts 对冲请求的各次尝试（可选，未对冲时为空）
+     * @param flight 相同请求合并（可选，跟随者不计 Token 和成本）
+     * @param cacheHit 命中的相似提示词缓存（可选，命中时不计 Token 和成本）
      */
-    private void recordLlmLog(AgentDTO agent, LlmProxyRequestDTO request, ProxyResponseDTO response,
-                              ResponseStatus responseStatus, long responseTimeMs,
-                              PolicyResult policyResult, boolean success, String approvalRequestId) {
+    private void recordLlmLog(AgentDTO agent, UpstreamEndpoint upstream, LlmProxyRequestDTO request, ProxyResponseDTO response,
+                              LlmResponseSummaryDTO summary, ResponseStatus responseStatus, long responseTimeMs,
+                              PolicyResult policyResult, boolean success, String approvalRequestId,
+                              List<HedgeAttempt> hedgeAttempts, RequestCoalescer.Flight<?> flight,
+                              NearDuplicateCache.Hit cacheHit) {
         try {
-            // 构建真实的 LLM URL
-            String llmUrl = buildLlmUrl(agent.getLlmBaseUrl());
+            // 构建真实的 LLM URL（实际转发的端点）
+            String llmUrl = buildLlmUrl(upstream != null ? upstream.getBaseUrl() : agent.getLlmBaseUrl());
 
             AgentLogCreateDTO logDto = new AgentLogCreateDTO();
             logDto.setAgentId(agent.getId());
             logDto.setRequestType(RequestType.LLM_CALL);
             logDto.setEndpoint(llmUrl);
+            logDto.setUpstreamId(upstream != null ? upstream.getUpstreamId() : null);
             logDto.setMethod("POST");
-            logDto.setRequestSummary(createLlmRequestSummary(request));
+            logDto.setRequestSummary(createLlmRequestSummary(request, hedgeAttempts, flight, cacheHit));
             logDto.setResponseStatus(responseStatus);
+            logDto.setCacheHit(cacheHit != null);
             logDto.setResponseTimeMs((int) responseTimeMs);
 
             // 如果是待审批状态，保存审批请求ID
@@ -1239,116 +2353,42 @@ public class ProxyServiceImpl implements ProxyService {
                 logDto.setModel(model);
             }
 
-            // Token 解析和成本计算（仅在成功时）
-            if (success && response != null && response.getResponse() != null) {
-                try {
-                    String responseBody = JSONUtil.toJsonStr(response.getResponse());
-                    log.debug("从响应体解析Token使用量: {}", responseBody);
-
-                    // 如果 llmProvider 为空，使用默认值 "openai"
-                    String provider = StrUtil.isNotBlank(agent.getLlmProvider()) ? agent.getLlmProvider() : "openai";
-                    log.debug("使用提供商 {} 进行Token解析", provider);
-
-                    TokenUsageDTO tokenUsage = tokenParser.parseFromResponse(responseBody, provider);
-
-                    if (tokenUsage != null) {
-                        log.debug("Token使用量解析成功: input={}, output={}, total={}",
-                                tokenUsage.getInputTokens(), tokenUsage.getOutputTokens(), tokenUsage.getTotalTokens());
-
-                        logDto.setTokenInput(tokenUsage.getInputTokens());
-                        logDto.setTokenOutput(tokenUsage.getOutputTokens());
-
-                        // 计算成本
-                        if (model != null) {
-                            BigDecimal cost = costCalculator.calculateCost(
-                                    provider,
-                                    model,
-                                    tokenUsage.getInputTokens(),
-                                    tokenUsage.getOutputTokens()
-                            );
-                            log.debug("成本计算完成: {}", cost);
-                            logDto.setCost(cost);
-                        } else {
-                            log.warn("模型为null，无法计算成本");
-                        }
+            // Token 统计和成本计算（仅在成功时），字段已在转发时一次解析得到
+            if (success && summary != null) {
+                TokenUsageDTO tokenUsage = summary.getTokenUsage();
+                if (cacheHit != null || (flight != null && !flight.isLeader())) {
+                    // 命中缓存或合并到相同请求，未请求上游：Token 和成本记为 0
+                    logDto.setTokenInput(0);
+                    logDto.setTokenOutput(0);
+                    logDto.setCost(BigDecimal.ZERO);
+                } else if (tokenUsage != null) {
+                    log.debug("Token使用量: input={}, output={}, total={}",
+                            tokenUsage.getInputTokens(), tokenUsage.getOutputTokens(), tokenUsage.getTotalTokens());
+
+                    logDto.setTokenInput(tokenUsage.getInputTokens());
+                    logDto.setTokenOutput(tokenUsage.getOutputTokens());
+                    logDto.setTokenEstimated(Boolean.TRUE.equals(tokenUsage.getEstimated()));
+
+                    // 计算成本
+                    if (model != null) {
+                        String provider = StrUtil.isNotBlank(agent.getLlmProvider()) ? agent.getLlmProvider() : "openai";
+                        BigDecimal cost = costCalculator.calculateCost(
+                                provider,
+                                model,
+                                tokenUsage.getInputTokens(),
+                                tokenUsage.getOutputTokens()
+                        );
+                        log.debug("成本计算完成: {}", cost);
+                        logDto.setCost(cost);
                     } else {
-                        log.warn("从响应解析Token使用量失败");
+                        log.warn("模型为null，无法计算成本");
                     }
-
-                    // 解析 finishReason 和 tool_calls - 直接从 response.getResponse() 对象中提取
-                    try {
-                        Object responseObj = response.getResponse();
-                        log.debug("响应对象类型: {}", responseObj.getClass().getName());
-
-                        // 如果是 Map 类型，直接使用
-                        if (responseObj instanceof Map) {
-                            Map<String, Object> responseMap = (Map<String, Object>) responseObj;
-                            if (responseMap.containsKey("choices")) {
-                                List<?> choices = (List<?>) responseMap.get("choices");
-                                if (CollUtil.isNotEmpty(choices) && choices.get(0) instanceof Map) {
-                                    Map<String, Object> firstChoice = (Map<String, Object>) choices.get(0);
-
-                                    // 提取 finish_reason
-                                    if (firstChoice.containsKey("finish_reason")) {
-                                        Object finishReasonObj = firstChoice.get("finish_reason");
-                                        if (finishReasonObj != null) {
-                                            String finishReason = finishReasonObj.toString();
-                                            logDto.setFinishReason(finishReason);
-                                            log.info("提取的finish_reason: {}", finishReason);
-
-                                            // 如果是 tool_calls，提取工具名称
-                                            if ("tool_calls".equals(finishReason)) {
-                                                String toolNames = extractToolNames(firstChoice);
-                                                if (StrUtil.isNotBlank(toolNames)) {
-                                                    log.info("提取的工具名称: {}", toolNames);
-                                                    // 直接设置到 toolCalls 字段
-                                                    logDto.setToolCalls(toolNames);
-                                                }
-                                            }
-                                        } else {
-                                            log.warn("响应中finish_reason为null");
-                                        }
-                                    } else {
-                                        log.warn("第一个choice中未找到finish_reason键。可用键: {}", firstChoice.keySet());
-                                    }
-                                } else {
-                                    log.warn("choices数组为空或第一个choice不是Map");
-                                }
-                            } else {
-                                log.warn("响应中未找到choices键。可用键: {}", responseMap.keySet());
-                            }
-                        } else {
-                            // 如果不是 Map，尝试从 JSON 字符串解析
-                            log.debug("响应不是Map，从JSON字符串解析");
-                            Map<String, Object> responseMap = JSONUtil.toBean(responseBody, Map.class);
-                            if (responseMap.containsKey("choices")) {
-                                List<?> choices = (List<?>) responseMap.get("choices");
-                                if (CollUtil.isNotEmpty(choices)) {
-                                    Map<String, Object> firstChoice = (Map<String, Object>) choices.get(0);
-                                    if (firstChoice.containsKey("finish_reason")) {
-                                        String finishReason = firstChoice.get("finish_reason").toString();
-                                        logDto.setFinishReason(finishReason);
-                                        log.info("从JSON提取的finish_reason: {}", finishReason);
-
-                                        // 如果是 tool_calls，提取工具名称
-                                        if ("tool_calls".equals(finishReason)) {
-                                            String toolNames = extractToolNames(firstChoice);
-                                            if (StrUtil.isNotBlank(toolNames)) {
-                                                log.info("提取的工具名称: {}", toolNames);
-                                                // 直接设置到 toolCalls 字段
-                                                logDto.setToolCalls(toolNames);
-                                            }
-                                        }
-                                    }
-                                }
-                            }
-                        }
-                    } catch (Exception e) {
-                        log.error("从响应解析finish_reason失败: {}", e.getMessage(), e);
-                    }
-                } catch (Exception e) {
-                    log.error("解析Token使用量或计算成本时出错", e);
+                } else {
+                    log.warn("LLM响应中未找到Token使用量");
                 }
+
+                logDto.setFinishReason(summary.getFinishReason());
+                logDto.setToolCalls(summary.getToolNames());
             }
 
             // 记录策略快照
@@ -1372,70 +2412,6 @@ public class ProxyServiceImpl implements ProxyService {
         }
     }
 
-    /**
-     * 从 choice 中提取工具名称
-     *
-     * @param choice choice对象（Map格式）
-     * @return 工具名称列表（逗号分隔），如果没有则返回null
-     */
-    private String extractToolNames(Map<String, Object> choice) {
-        try {
-            // 添加调试日志：打印 choice 的所有键
-            log.info("===== 开始提取工具名称 =====");
-            log.info("choice 对象的键: {}", choice.keySet());
-            log.info("choice 对象内容: {}", JSONUtil.toJsonStr(choice));
-
-            // 非流式响应：tool_calls 在 message 中
-            if (choice.containsKey("message")) {
-                log.info("找到 message 键");
-                Map<String, Object> message = (Map<String, Object>) choice.get("message");
-                log.info("message 对象的键: {}", message.keySet());
-                log.info("message 对象内容: {}", JSONUtil.toJsonStr(message));
-
-                if (message.containsKey("tool_calls")) {
-                    log.info("找到 tool_calls 键");
-                    Object toolCallsObj = message.get("tool_calls");
-                    log.info("tool_calls 类型: {}", toolCallsObj.getClass().getName());
-                    log.info("tool_calls 内容: {}", JSONUtil.toJsonStr(toolCallsObj));
-                    String result = parseToolCallsArray(toolCallsObj);
-                    log.info("解析结果: {}", result);
-                    return result;
-                } else {
-                    log.warn("message 中没有 tool_calls 键");
-                }
-            } else {
-                log.warn("choice 中没有 message 键");
-            }
-
-            // 流式响应：tool_calls 在 delta 中
-            if (choice.containsKey("delta")) {
-                log.info("找到 delta 键");
-                Map<String, Object> delta = (Map<String, Object>) choice.get("delta");
-                log.info("delta 对象的键: {}", delta.keySet());
-                log.info("delta 对象内容: {}", JSONUtil.toJsonStr(delta));
-
-                if (delta.containsKey("tool_calls")) {
-                    log.info("找到 tool_calls 键");
-                    Object toolCallsObj = delta.get("tool_calls");
-                    log.info("tool_calls 类型: {}", toolCallsObj.getClass().getName());
-                    log.info("tool_calls 内容: {}", JSONUtil.toJsonStr(toolCallsObj));
-                    String result = parseToolCallsArray(toolCallsObj);
-                    log.info("解析结果: {}", result);
-                    return result;
-                } else {
-                    log.warn("delta 中没有 tool_calls 键");
-                }
-            } else {
-                log.warn("choice 中没有 delta 键");
-            }
-
-            log.warn("未能从 choice 中提取到工具名称");
-        } catch (Exception e) {
-            log.error("提取工具名称失败: {}", e.getMessage(), e);
-        }
-        return null;
-    }
-
     /**
      * 解析 tool_calls 数组，提取工具名称
      *
@@ -1508,45 +2484,21 @@ public class ProxyServiceImpl implements ProxyService {
      * 记录请求参数的补充信息
      *
      * @param request LLM请求
+     * @param hedgeAttempts 对冲请求的各次尝试（可选）
+     * @param flight 相同请求合并（可选）
+     * @param cacheHit 命中的相似提示词缓存（可选）
      * @return JSON格式的请求摘要
      */
-    private String createLlmRequestSummary(LlmProxyRequestDTO request) {
+    private String createLlmRequestSummary(LlmProxyRequestDTO request, List<HedgeAttempt> hedgeAttempts,
+                                           RequestCoalescer.Flight<?> flight, NearDuplicateCache.Hit cacheHit) {
         try {
-            // 打印完整的请求体内容用于调试
-            if (request.getBody() != null) {
-                // log.debug("LLM请求体内容: {}", JSONUtil.toJsonPrettyStr(request.getBody()));
-            }
-
             Map<String, Object> summary = new LinkedHashMap<>();
 
             if (request.getBody() != null) {
-                Map<String, Object> body = request.getBody();
-
-                // 消息数量和系统提示词长度
-                if (body.containsKey("messages")) {
-                    Object messages = body.get("messages");
-                    if (messages instanceof List) {
-                        List<?> messageList = (List<?>) messages;
-                        summary.put("messageCount", messageList.size());
-
-                        // 计算系统提示词长度
-                        int systemPromptLength = 0;
-                        for (Object msg : messageList) {
-                            if (msg instanceof Map) {
-                                Map<?, ?> message = (Map<?, ?>) msg;
-                                if ("system".equals(message.get("role"))) {
-                                    Object content = message.get("content");
-                                    if (content != null) {
-                                        systemPromptLength += content.toString().length();
-                                    }
-                                }
-                            }
-                        }
-                        if (systemPromptLength > 0) {
-                            summary.put("systemPromptLength", systemPromptLength);
-                        }
-                    }
-                }
+                RawJsonObject body = RawJsonObject.of(request.getBody());
+
+                // 消息数量和系统提示词长度（流式读取，不解析消息内容）
+                summarizeMessages(body, summary);
 
                 // 温度参数
                 if (body.containsKey("temperature")) {
@@ -1564,6 +2516,12 @@ public class ProxyServiceImpl implements ProxyService {
                 }
             }
 
+            putHedgeSummary(summary, hedgeAttempts);
+            putCoalesceSummary(summary, flight);
+            if (cacheHit != null) {
+                summary.put("cacheSimilarity", Math.round(cacheHit.similarity() * 1000) / 1000.0);
+            }
+
             return JSONUtil.toJsonStr(summary);
         } catch (Exception e) {
             log.warn("创建LLM请求摘要失败", e);
@@ -1571,6 +2529,198 @@ public class ProxyServiceImpl implements ProxyService {
         }
     }
 
+    /**
+     * 统计消息数量和系统提示词长度
+     * 逐个 token 读取 messages 数组，只测量 system 消息的文本长度，其余内容跳过
+     *
+     * @param body 请求体
+     * @param summary 请求摘要
+     * @throws IOException 读取失败
+     */
+    private void summarizeMessages(RawJsonObject body, Map<String, Object> summary) throws IOException {
+        try (JsonParser parser = body.valueParser("messages")) {
+            if (parser == null || parser.nextToken() != JsonToken.START_ARRAY) {
+                return;
+            }
+            int messageCount = 0;
+            int systemPromptLength = 0;
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                messageCount++;
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    continue;
+                }
+                boolean system = false;
+                int contentLength = 0;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    JsonToken value = parser.nextToken();
+                    if ("role".equals(field) && value == JsonToken.VALUE_STRING) {
+                        system = "system".equals(parser.getText());
+                    } else if ("content".equals(field)) {
+                        contentLength = measureContent(parser, value);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                if (system) {
+                    systemPromptLength += contentLength;
+                }
+            }
+            summary.put("messageCount", messageCount);
+            if (systemPromptLength > 0) {
+                summary.put("systemPromptLength", systemPromptLength);
+            }
+        }
+    }
+
+    /**
+     * 测量消息内容长度：字符串内容取其长度，多段内容累加各段 text 的长度
+     */
+    private int measureContent(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_STRING) {
+            return parser.getTextLength();
+        }
+        if (value != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return 0;
+        }
+        int length = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken partValue = parser.nextToken();
+                if ("text".equals(field) && partValue == JsonToken.VALUE_STRING) {
+                    length += parser.getTextLength();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return length;
+    }
+
+    /**
+     * 转发前 Token 预检
+     * 本地分词计算提示词 Token 数，超出单次请求上限，或提示词加上 max_tokens 超出模型上下文窗口时直接拒绝
+     *
+     * 拒绝的请求同样记录日志
+     *
+     * @param agent Agent信息
+     * @param request LLM请求
+     * @param startTime 请求开始时间
+     * @return 提示词 Token 数；未启用预检时返回 null
+     * @throws BusinessException 超出 Token 上限或上下文窗口
+     */
+    private Integer admitPrompt(AgentDTO agent, LlmProxyRequestDTO request, long startTime) {
+        ProxyProperties.TokenAdmission admission = proxyProperties.getTokenAdmission();
+        if (!admission.isEnabled() || request.getBody() == null) {
+            return null;
+        }
+        RawJsonObject body = RawJsonObject.of(request.getBody());
+        String model = agent.getLlmModel();
+        int promptTokens = countPromptTokens(body, model);
+
+        if (admission.getMaxPromptTokens() > 0 && promptTokens > admission.getMaxPromptTokens()) {
+            throw rejectPrompt(agent, request, startTime, new BusinessException(ErrorCode.PROMPT_TOKEN_LIMIT_EXCEEDED,
+                    String.format("提示词约 %d 个Token，超出单次请求上限 %d", promptTokens, admission.getMaxPromptTokens())));
+        }
+
+        Integer contextWindow = admission.resolveContextWindow(model);
+        if (contextWindow != null) {
+            int requestedTokens = promptTokens + maxOutputTokens(body);
+            if (requestedTokens > contextWindow) {
+                throw rejectPrompt(agent, request, startTime, new BusinessException(ErrorCode.CONTEXT_WINDOW_EXCEEDED,
+                        String.format("提示词约 %d 个Token（含最大输出共 %d 个），超出模型 %s 的上下文窗口 %d",
+                                promptTokens, requestedTokens, model, contextWindow)));
+            }
+        }
+        return promptTokens;
+    }
+
+    /**
+     * 记录预检拒绝的日志
+     *
+     * @return 拒绝异常，由调用方抛出
+     */
+    private BusinessException rejectPrompt(AgentDTO agent, LlmProxyRequestDTO request, long startTime, BusinessException e) {
+        recordLlmLog(agent, null, request,
+                ProxyResponseDTO.builder().status(ResponseStatus.FAILED).message(e.getMessage()).build(),
+                null, ResponseStatus.FAILED, System.currentTimeMillis() - startTime, null, false, null, null, null, null);
+        return e;
+    }
+
+    /**
+     * 计算提示词 Token 数：messages 按消息格式计数，tools 按原始 JSON 文本计数
+     *
+     * @param body 请求体
+     * @param model 模型名称
+     * @return 提示词 Token 数
+     */
+    private int countPromptTokens(RawJsonObject body, String model) {
+        int tokens = 0;
+        try (JsonParser parser = body.valueParser("messages")) {
+            if (parser != null) {
+                tokens += tokenEstimator.countMessageTokens(parser, model);
+            }
+        } catch (IOException e) {
+            log.warn("计算提示词Token数失败: {}", e.getMessage());
+        }
+        tokens += tokenEstimator.countTokens(body.rawValue("tools"), model);
+        return tokens;
+    }
+
+    /**
+     * 请求的最大输出 Token 数（max_completion_tokens 优先），未指定时返回 0
+     */
+    private int maxOutputTokens(RawJsonObject body) {
+        Object maxTokens = body.containsKey("max_completion_tokens") ? body.get("max_completion_tokens") : body.get("max_tokens");
+        return maxTokens instanceof Number number ? number.intValue() : 0;
+    }
+
+    /**
+     * 预计消耗的 Token 数（提示词 + 最大输出），用于预留上游 Token 限流额度
+     *
+     * @param request LLM请求
+     * @param promptTokens 预检时已计算的提示词 Token 数（未预检时为空）
+     * @return 预计 Token 数；未预检时返回 0（只按请求数限流）
+     */
+    private int estimateRequestTokens(LlmProxyRequestDTO request, Integer promptTokens) {
+        if (promptTokens == null || request.getBody() == null) {
+            return 0;
+        }
+        return promptTokens + maxOutputTokens(RawJsonObject.of(request.getBody()));
+    }
+
+    /**
+     * 估算流式请求的 Token 使用量（上游未返回 usage 时）
+     *
+     * @param request LLM请求
+     * @param model 模型名称
+     * @param promptTokens 预检时已计算的提示词 Token 数（未预检时为空）
+     * @param outputText 累积的输出文本
+     * @return 估算的 Token 使用量
+     */
+    private TokenUsageDTO estimateStreamUsage(LlmProxyRequestDTO request, String model,
+                                              Integer promptTokens, CharSequence outputText) {
+        int inputTokens = promptTokens != null ? promptTokens
+                : request.getBody() != null ? countPromptTokens(RawJsonObject.of(request.getBody()), model) : 0;
+        int outputTokens = tokenEstimator.countTokens(outputText.toString(), model);
+        return TokenUsageDTO.builder()
+                .inputTokens(inputTokens)
+                .outputTokens(outputTokens)
+                .totalTokens(inputTokens + outputTokens)
+                .estimated(true)
+                .source("tiktoken")
+                .build();
+    }
+
     /**
      * 根据规则构建 LLM API URL
      * 规则：
@@ -1599,4 +2749,169 @@ public class ProxyServiceImpl implements ProxyService {
         // 否则，默认拼接 /v1/chat/completions
         return baseUrl + "/v1/chat/completions";
     }
+
+    /**
+     * 将对冲请求的各次尝试写入请求摘要，只发送了主请求时不写入
+     *
+     * @param summary 请求摘要
+     * @param hedgeAttempts 对冲请求的各次尝试（可选）
+     */
+    private void putHedgeSummary(Map<String, Object> summary, List<HedgeAttempt> hedgeAttempts) {
+        if (hedgeAttempts == null || hedgeAttempts.size() < 2) {
+            return;
+        }
+        List<Map<String, Object>> attempts = new ArrayList<>(hedgeAttempts.size());
+        for (HedgeAttempt attempt : hedgeAttempts) {
+            attempts.add(attempt.toSummary());
+        }
+        summary.put("hedge", attempts);
+    }
+
+    /**
+     * 将相同请求合并信息写入请求摘要：跟随者标记为已合并，领导者记录跟随者数量
+     *
+     * @param summary 请求摘要
+     * @param flight 相同请求合并（可选）
+     */
+    private void putCoalesceSummary(Map<String, Object> summary, RequestCoalescer.Flight<?> flight) {
+        if (flight == null) {
+            return;
+        }
+        if (!flight.isLeader()) {
+            summary.put("coalesced", true);
+        } else if (flight.getFollowers() > 0) {
+            summary.put("coalescedFollowers", flight.getFollowers());
+        }
+    }
+
+    /**
+     * LLM 转发结果
+     *
+     * @param response 返回给调用方的代理响应
+     * @param summary 响应摘要（响应体不是 JSON 对象时为空）
+     */
+    private record LlmForwardResult(ProxyResponseDTO response, LlmResponseSummaryDTO summary) {
+    }
+
+    /**
+     * 非流式 LLM 请求的处理结果，由相同请求的跟随者共享
+     *
+     * @param upstream 选中的上游端点（未转发时为空）
+     * @param response 代理响应
+     * @param summary 响应摘要（可选）
+     * @param responseStatus 响应状态
+     */
+    private record LlmOutcome(UpstreamEndpoint upstream, ProxyResponseDTO response, LlmResponseSummaryDTO summary,
+                              ResponseStatus responseStatus) {
+    }
+
+    /**
+     * 流式 LLM 请求的上游流，由相同请求的跟随者共享
+     *
+     * @param upstream 选中的上游端点
+     * @param forwardStart 开始转发的时间（毫秒时间戳）
+     * @param chunks 共享的 SSE 数据块流
+     */
+    private record LlmStream(UpstreamEndpoint upstream, long forwardStart, Flux<String> chunks) {
+    }
+
+    /**
+     * 透传请求的过程记录，用于写日志
+     */
+    private static final class PassthroughTrace {
+
+        /** 请求体开头（不超过 captureBytes） */
+        private final byte[] requestCapture;
+
+        /** 请求体是否完整参与了策略评估 */
+        private final boolean bodyInspected;
+
+        /** 已转发的请求体字节数 */
+        private final AtomicLong requestBytes = new AtomicLong();
+
+        /** 响应体开头（不超过 captureBytes） */
+        private final ByteArrayOutputStream responseCapture = new ByteArrayOutputStream();
+
+        /** 已写出的响应体字节数 */
+        private long responseBytes;
+
+        /** 目标服务返回的状态码，未收到响应时为 0 */
+        private int statusCode;
+
+        private String responseContentType;
+
+        private String responseContentEncoding;
+
+        /** 中断原因 */
+        private String error;
+
+        private PassthroughTrace(byte[] requestCapture, boolean bodyInspected) {
+            this.requestCapture = requestCapture;
+            this.bodyInspected = bodyInspected;
+        }
+
+        /**
+         * 记录一块响应体，返回累计字节数
+         */
+        private long addResponseChunk(byte[] chunk, int captureBytes) {
+            int capture = Math.min(chunk.length, Math.max(0, captureBytes - responseCapture.size()));
+            responseCapture.write(chunk, 0, capture);
+            responseBytes += chunk.length;
+            return responseBytes;
+        }
+    }
+
+    /**
+     * 限制读取字节数的输入流，超出时抛出 {@link RequestBodyTooLargeException}
+     */
+    private static final class BoundedInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        private BoundedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0 && --remaining < 0) {
+                throw new RequestBodyTooLargeException();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0 && (remaining -= n) < 0) {
+                throw new RequestBodyTooLargeException();
+            }
+            return n;
+        }
+    }
+
+    /**
+     * 透传请求体超出大小上限
+     */
+    private static final class RequestBodyTooLargeException extends IOException {
+
+        private RequestBodyTooLargeException() {
+            super(ErrorCode.REQUEST_BODY_TOO_LARGE.getMessage());
+        }
+    }
+
+    /**
+     * 透传时目标服务返回 5xx：在熔断器内以异常形式计入失败，之后恢复为正常响应原样返回
+     */
+    private static final class PassthroughServerError extends HttpServerErrorException {
+
+        private final transient ResponseEntity<Flux<DataBuffer>> entity;
+
+        private PassthroughServerError(ResponseEntity<Flux<DataBuffer>> entity) {
+            super(entity.getStatusCode(), "");
+            this.entity = entity;
+        }
+    }
 }
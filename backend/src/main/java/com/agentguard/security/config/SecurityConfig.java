@@ -42,12 +42,15 @@ public class SecurityConfig {
                 .requestMatchers("/api/v1/auth/register", "/api/v1/auth/login").permitAll()
                 // 公开接口 - API 文档
                 .requestMatchers("/swagger-ui/**", "/api-docs/**", "/swagger-ui.html", "/v3/api-docs/**").permitAll()
+                // 熔断器状态包含上游主机信息，需要认证
+                .requestMatchers("/actuator/circuitbreakers", "/actuator/circuitbreakers/**").authenticated()
                 // 公开接口 - 健康检查
                 .requestMatchers("/actuator/**").permitAll()
                 // Proxy 接口（Agent 通过 API Key 认证，后续实现 API Key 过滤器）
                 .requestMatchers("/proxy/**").permitAll()
                 // 审批接口 - Agent SDK 轮询使用（通过审批 ID 访问，无需 JWT）
                 .requestMatchers("/api/v1/approvals/*/status", "/api/v1/approvals/*/reason").permitAll()
+                .requestMatchers("/api/v1/approvals/*/status/wait", "/api/v1/approvals/*/status/stream").permitAll()
                 // 其他请求需要认证
                 .anyRequest().authenticated()
             )
@@ -3,6 +3,7 @@ package com.agentguard.settings.controller;
 import com.agentguard.common.response.Result;
 import com.agentguard.settings.dto.AlertSettingsDTO;
 import com.agentguard.settings.dto.EmailSettingsDTO;
+import com.agentguard.settings.dto.LogRetentionSettingsDTO;
 import com.agentguard.settings.dto.WebhookSettingsDTO;
 import com.agentguard.settings.service.SystemSettingsService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -75,4 +76,19 @@ public class SystemSettingsController {
         systemSettingsService.updateAlertSettings(dto);
         return Result.success();
     }
+
+    // ==================== 日志保留配置 ====================
+
+    @Operation(summary = "获取日志保留配置")
+    @GetMapping("/log-retention")
+    public Result<LogRetentionSettingsDTO> getLogRetentionSettings() {
+        return Result.success(systemSettingsService.getLogRetentionSettings());
+    }
+
+    @Operation(summary = "更新日志保留配置")
+    @PutMapping("/log-retention")
+    public Result<Void> updateLogRetentionSettings(@Valid @RequestBody LogRetentionSettingsDTO dto) {
+        systemSettingsService.updateLogRetentionSettings(dto);
+        return Result.success();
+    }
 }
@@ -29,6 +29,15 @@ public class AlertSettingsDTO {
     @Schema(description = "错误率统计时间窗口（分钟）")
     private Integer errorRateWindow;
 
+    @Schema(description = "延迟告警是否启用")
+    private Boolean latencyAlertEnabled;
+
+    @Schema(description = "延迟告警P95阈值（毫秒）")
+    private Integer latencyP95Threshold;
+
+    @Schema(description = "延迟统计时间窗口（分钟）")
+    private Integer latencyWindow;
+
     @Schema(description = "审批提醒是否启用")
     private Boolean approvalReminderEnabled;
 
@@ -44,6 +53,9 @@ public class AlertSettingsDTO {
     @Schema(description = "错误率告警通知冷却时间（分钟）")
     private Integer errorRateAlertCooldownMinutes;
 
+    @Schema(description = "延迟告警通知冷却时间（分钟）")
+    private Integer latencyAlertCooldownMinutes;
+
     @Schema(description = "审批提醒通知冷却时间（分钟）")
     private Integer approvalReminderCooldownMinutes;
 }
@@ -0,0 +1,30 @@
+package com.agentguard.settings.dto;
+
+import com.agentguard.log.enums.LogRetentionAction;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+
+/**
+ * 日志保留配置 DTO
+ *
+ * @author zhuhx
+ */
+@Data
+@Schema(description = "日志保留配置")
+public class LogRetentionSettingsDTO {
+
+    @Schema(description = "是否启用过期日志清理")
+    private Boolean enabled;
+
+    @Schema(description = "日志保留月数（不含当月）")
+    @Min(value = 1, message = "日志保留月数不能小于1")
+    private Integer retentionMonths;
+
+    @Schema(description = "预建未来分区的月数")
+    @Min(value = 1, message = "预建分区月数不能小于1")
+    private Integer precreateMonths;
+
+    @Schema(description = "过期处理方式：DROP/ARCHIVE")
+    private LogRetentionAction expireAction;
+}
@@ -2,6 +2,7 @@ package com.agentguard.settings.service;
 
 import com.agentguard.settings.dto.AlertSettingsDTO;
 import com.agentguard.settings.dto.EmailSettingsDTO;
+import com.agentguard.settings.dto.LogRetentionSettingsDTO;
 import com.agentguard.settings.dto.WebhookSettingsDTO;
 
 /**
@@ -41,6 +42,16 @@ public interface SystemSettingsService {
      */
     void updateAlertSettings(AlertSettingsDTO dto);
 
+    /**
+     * 获取日志保留配置
+     */
+    LogRetentionSettingsDTO getLogRetentionSettings();
+
+    /**
+     * 更新日志保留配置
+     */
+    void updateLogRetentionSettings(LogRetentionSettingsDTO dto);
+
     /**
      * 测试邮件配置
      */
@@ -1,10 +1,13 @@
 package com.agentguard.settings.service.impl;
 
+import cn.hutool.core.util.EnumUtil;
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.json.JSONUtil;
 import com.agentguard.common.util.EncryptionUtil;
+import com.agentguard.log.enums.LogRetentionAction;
 import com.agentguard.settings.dto.AlertSettingsDTO;
 import com.agentguard.settings.dto.EmailSettingsDTO;
+import com.agentguard.settings.dto.LogRetentionSettingsDTO;
 import com.agentguard.settings.dto.WebhookSettingsDTO;
 import com.agentguard.settings.entity.SystemSettingsDO;
 import com.agentguard.settings.mapper.SystemSettingsMapper;
@@ -37,6 +40,7 @@ public class SystemSettingsServiceImpl implements SystemSettingsService {
     private static final String CATEGORY_EMAIL = "alert_email";
     private static final String CATEGORY_WEBHOOK = "alert_webhook";
     private static final String CATEGORY_ALERT = "alert_config";
+    private static final String CATEGORY_LOG_RETENTION = "log_retention";
 
     @Override
     public EmailSettingsDTO getEmailSettings() {
@@ -129,6 +133,10 @@ public class SystemSettingsServiceImpl implements SystemSettingsService {
         dto.setErrorRateThreshold(parseInteger(settings.get("error_rate_threshold"), 10));
         dto.setErrorRateWindow(parseInteger(settings.get("error_rate_window"), 60));
         dto.setErrorRateAlertCooldownMinutes(parseInteger(settings.get("error_rate_alert_cooldown_minutes"), 30));
+        dto.setLatencyAlertEnabled(Boolean.parseBoolean(settings.getOrDefault("latency_alert_enabled", "false")));
+        dto.setLatencyP95Threshold(parseInteger(settings.get("latency_p95_threshold"), 10000));
+        dto.setLatencyWindow(parseInteger(settings.get("latency_window"), 15));
+        dto.setLatencyAlertCooldownMinutes(parseInteger(settings.get("latency_alert_cooldown_minutes"), 30));
         dto.setApprovalReminderEnabled(Boolean.parseBoolean(settings.getOrDefault("approval_reminder_enabled", "true")));
         dto.setApprovalReminderMinutes(parseInteger(settings.get("approval_reminder_minutes"), 30));
         dto.setApprovalReminderCooldownMinutes(parseInteger(settings.get("approval_reminder_cooldown_minutes"), 10));
@@ -147,6 +155,10 @@ public class SystemSettingsServiceImpl implements SystemSettingsService {
         settings.put("error_rate_threshold", dto.getErrorRateThreshold());
         settings.put("error_rate_window", dto.getErrorRateWindow());
         settings.put("error_rate_alert_cooldown_minutes", dto.getErrorRateAlertCooldownMinutes());
+        settings.put("latency_alert_enabled", dto.getLatencyAlertEnabled());
+        settings.put("latency_p95_threshold", dto.getLatencyP95Threshold());
+        settings.put("latency_window", dto.getLatencyWindow());
+        settings.put("latency_alert_cooldown_minutes", dto.getLatencyAlertCooldownMinutes());
         settings.put("approval_reminder_enabled", dto.getApprovalReminderEnabled());
         settings.put("approval_reminder_minutes", dto.getApprovalReminderMinutes());
         settings.put("approval_reminder_cooldown_minutes", dto.getApprovalReminderCooldownMinutes());
@@ -155,6 +167,29 @@ public class SystemSettingsServiceImpl implements SystemSettingsService {
         saveSettings(CATEGORY_ALERT, settings);
     }
 
+    @Override
+    public LogRetentionSettingsDTO getLogRetentionSettings() {
+        Map<String, String> settings = getSettingsByCategory(CATEGORY_LOG_RETENTION);
+        LogRetentionSettingsDTO dto = new LogRetentionSettingsDTO();
+        dto.setEnabled(Boolean.parseBoolean(settings.getOrDefault("enabled", "false")));
+        dto.setRetentionMonths(parseInteger(settings.get("retention_months"), 6));
+        dto.setPrecreateMonths(parseInteger(settings.get("precreate_months"), 3));
+        dto.setExpireAction(EnumUtil.fromString(LogRetentionAction.class, settings.get("expire_action"), LogRetentionAction.DROP));
+        return dto;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void updateLogRetentionSettings(LogRetentionSettingsDTO dto) {
+        Map<String, Object> settings = new HashMap<>();
+        settings.put("enabled", dto.getEnabled());
+        settings.put("retention_months", dto.getRetentionMonths());
+        settings.put("precreate_months", dto.getPrecreateMonths());
+        settings.put("expire_action", dto.getExpireAction() != null ? dto.getExpireAction().name() : null);
+
+        saveSettings(CATEGORY_LOG_RETENTION, settings);
+    }
+
     @Override
     public boolean testEmailSettings(EmailSettingsDTO dto) {
         try {
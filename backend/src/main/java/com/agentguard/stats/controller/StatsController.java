@@ -3,7 +3,13 @@ package com.agentguard.stats.controller;
 import com.agentguard.common.response.Result;
 import com.agentguard.stats.dto.AgentCostRankDTO;
 import com.agentguard.stats.dto.CostTrendDTO;
+import com.agentguard.stats.dto.LatencyPercentileDTO;
+import com.agentguard.stats.dto.LatencyQueryDTO;
+import com.agentguard.stats.dto.LatencyTrendDTO;
 import com.agentguard.stats.dto.StatsOverviewDTO;
+import com.agentguard.stats.enums.LatencyGroupBy;
+import com.agentguard.stats.enums.LatencyMetric;
+import com.agentguard.stats.service.LatencyStatsService;
 import com.agentguard.stats.service.StatsService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -13,6 +19,7 @@ import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -27,6 +34,7 @@ import java.util.List;
 public class StatsController {
 
     private final StatsService statsService;
+    private final LatencyStatsService latencyStatsService;
 
     @Operation(summary = "获取成本概览")
     @GetMapping("/overview")
@@ -85,4 +93,61 @@ public class StatsController {
         
         return Result.success(statsService.getTopAgents(limit, startDate, endDate));
     }
+
+    @Operation(summary = "获取延迟分位数", description = "默认查询最近1小时的响应时间，数据最多滞后一个刷新周期")
+    @GetMapping("/latency")
+    public Result<List<LatencyPercentileDTO>> getLatency(
+            @Parameter(description = "指标") @RequestParam(defaultValue = "RESPONSE_TIME") LatencyMetric metric,
+            @Parameter(description = "开始时间") @RequestParam(required = false)
+                @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime startTime,
+            @Parameter(description = "结束时间") @RequestParam(required = false)
+                @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime endTime,
+            @Parameter(description = "Agent ID") @RequestParam(required = false) String agentId,
+            @Parameter(description = "LLM模型") @RequestParam(required = false) String model,
+            @Parameter(description = "LLM提供商") @RequestParam(required = false) String provider,
+            @Parameter(description = "分组维度") @RequestParam(defaultValue = "NONE") LatencyGroupBy groupBy) {
+
+        LatencyQueryDTO query = LatencyQueryDTO.builder()
+                .metric(metric)
+                .startTime(startTime)
+                .endTime(endTime)
+                .agentId(agentId)
+                .model(model)
+                .provider(provider)
+                .groupBy(groupBy)
+                .build();
+        return Result.success(latencyStatsService.getPercentiles(query));
+    }
+
+    @Operation(summary = "获取延迟趋势", description = "默认查询最近24小时的响应时间，每小时一个点")
+    @GetMapping("/latency/trend")
+    public Result<List<LatencyTrendDTO>> getLatencyTrend(
+            @Parameter(description = "指标") @RequestParam(defaultValue = "RESPONSE_TIME") LatencyMetric metric,
+            @Parameter(description = "开始时间") @RequestParam(required = false)
+                @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime startTime,
+            @Parameter(description = "结束时间") @RequestParam(required = false)
+                @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime endTime,
+            @Parameter(description = "时间段长度（分钟）") @RequestParam(defaultValue = "60") Integer intervalMinutes,
+            @Parameter(description = "Agent ID") @RequestParam(required = false) String agentId,
+            @Parameter(description = "LLM模型") @RequestParam(required = false) String model,
+            @Parameter(description = "LLM提供商") @RequestParam(required = false) String provider) {
+
+        // 默认查询最近24小时数据
+        if (endTime == null) {
+            endTime = LocalDateTime.now();
+        }
+        if (startTime == null) {
+            startTime = endTime.minusHours(24);
+        }
+
+        LatencyQueryDTO query = LatencyQueryDTO.builder()
+                .metric(metric)
+                .startTime(startTime)
+                .endTime(endTime)
+                .agentId(agentId)
+                .model(model)
+                .provider(provider)
+                .build();
+        return Result.success(latencyStatsService.getTrend(query, intervalMinutes));
+    }
 }
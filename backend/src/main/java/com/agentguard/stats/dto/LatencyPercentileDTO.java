@@ -0,0 +1,50 @@
+package com.agentguard.stats.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+/**
+ * 延迟分位数数据传输对象
+ *
+ * @author zhuhx
+ */
+@Data
+@Schema(description = "延迟分位数")
+public class LatencyPercentileDTO {
+
+    @Schema(description = "AgentID（按Agent分组时返回）")
+    private String agentId;
+
+    @Schema(description = "Agent名称（按Agent分组时返回）")
+    private String agentName;
+
+    @Schema(description = "LLM模型（按模型分组时返回）")
+    private String model;
+
+    @Schema(description = "样本数")
+    private Long count;
+
+    @Schema(description = "最小值（毫秒）")
+    private Long min;
+
+    @Schema(description = "平均值（毫秒）")
+    private Double mean;
+
+    @Schema(description = "P50（毫秒）")
+    private Long p50;
+
+    @Schema(description = "P90（毫秒）")
+    private Long p90;
+
+    @Schema(description = "P95（毫秒）")
+    private Long p95;
+
+    @Schema(description = "P99（毫秒）")
+    private Long p99;
+
+    @Schema(description = "P99.9（毫秒）")
+    private Long p999;
+
+    @Schema(description = "最大值（毫秒）")
+    private Long max;
+}
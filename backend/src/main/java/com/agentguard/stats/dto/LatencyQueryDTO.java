@@ -0,0 +1,43 @@
+package com.agentguard.stats.dto;
+
+import com.agentguard.stats.enums.LatencyGroupBy;
+import com.agentguard.stats.enums.LatencyMetric;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 延迟分位数查询条件
+ *
+ * @author zhuhx
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LatencyQueryDTO {
+
+    /** 指标 */
+    private LatencyMetric metric;
+
+    /** 开始时间（含，按时间桶对齐） */
+    private LocalDateTime startTime;
+
+    /** 结束时间（不含） */
+    private LocalDateTime endTime;
+
+    /** Agent ID */
+    private String agentId;
+
+    /** LLM模型 */
+    private String model;
+
+    /** LLM提供商 */
+    private String provider;
+
+    /** 分组维度 */
+    private LatencyGroupBy groupBy;
+}
@@ -0,0 +1,36 @@
+package com.agentguard.stats.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 延迟趋势数据传输对象
+ *
+ * @author zhuhx
+ */
+@Data
+@Schema(description = "延迟趋势")
+public class LatencyTrendDTO {
+
+    @Schema(description = "时间段起始时间")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime time;
+
+    @Schema(description = "样本数")
+    private Long count;
+
+    @Schema(description = "P50（毫秒）")
+    private Long p50;
+
+    @Schema(description = "P95（毫秒）")
+    private Long p95;
+
+    @Schema(description = "P99（毫秒）")
+    private Long p99;
+
+    @Schema(description = "最大值（毫秒）")
+    private Long max;
+}
@@ -0,0 +1,48 @@
+package com.agentguard.stats.entity;
+
+import com.agentguard.stats.enums.LatencyMetric;
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 延迟分布直方图数据对象
+ *
+ * @author zhuhx
+ */
+@Data
+@TableName("latency_histogram")
+public class LatencyHistogramDO {
+
+    /** 主键ID */
+    @TableId(type = IdType.ASSIGN_UUID)
+    private String id;
+
+    /** 写入节点ID */
+    private String nodeId;
+
+    /** AgentID */
+    private String agentId;
+
+    /** LLM模型，非LLM请求为空串 */
+    private String model;
+
+    /** 指标 */
+    private LatencyMetric metric;
+
+    /** 时间桶起始时间 */
+    private LocalDateTime bucketStart;
+
+    /** 样本数 */
+    private Long sampleCount;
+
+    /** HdrHistogram 压缩编码 */
+    private byte[] histogram;
+
+    /** 创建时间 */
+    private LocalDateTime createdAt;
+
+    /** 更新时间 */
+    private LocalDateTime updatedAt;
+}
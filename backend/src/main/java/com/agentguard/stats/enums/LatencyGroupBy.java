@@ -0,0 +1,32 @@
+package com.agentguard.stats.enums;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 延迟统计分组维度枚举
+ *
+ * @author zhuhx
+ */
+@Getter
+@AllArgsConstructor
+public enum LatencyGroupBy {
+
+    /** 不分组 */
+    NONE("NONE", "不分组"),
+
+    /** 按Agent分组 */
+    AGENT("AGENT", "按Agent分组"),
+
+    /** 按模型分组 */
+    MODEL("MODEL", "按模型分组"),
+
+    /** 按Agent和模型分组 */
+    AGENT_MODEL("AGENT_MODEL", "按Agent和模型分组");
+
+    @JsonValue
+    private final String code;
+
+    private final String desc;
+}
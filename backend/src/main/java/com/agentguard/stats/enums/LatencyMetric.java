@@ -0,0 +1,28 @@
+package com.agentguard.stats.enums;
+
+import com.baomidou.mybatisplus.annotation.EnumValue;
+import com.fasterxml.jackson.annotation.JsonValue;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 延迟指标枚举
+ *
+ * @author zhuhx
+ */
+@Getter
+@AllArgsConstructor
+public enum LatencyMetric {
+
+    /** 响应时间 */
+    RESPONSE_TIME("RESPONSE_TIME", "响应时间"),
+
+    /** 首Token时间 */
+    FIRST_TOKEN("FIRST_TOKEN", "首Token时间");
+
+    @EnumValue
+    @JsonValue
+    private final String code;
+
+    private final String desc;
+}
@@ -4,10 +4,15 @@ import com.agentguard.stats.dto.AgentCostRankDTO;
 import com.agentguard.stats.dto.CostTrendDTO;
 import com.agentguard.stats.dto.StatsOverviewDTO;
 import com.agentguard.stats.entity.CostRecordDO;
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.toolkit.Constants;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -109,4 +114,15 @@ public interface CostRecordMapper extends BaseMapper<CostRecordDO> {
     CostRecordDO selectByAgentDateModel(@Param("agentId") String agentId,
                                         @Param("date") LocalDate date,
                                         @Param("model") String model);
+
+    /**
+     * 流式查询成本记录
+     * MySQL 驱动逐行返回结果，不在内存中缓存整个结果集；必须在事务内遍历，遍历期间连接不能执行其他查询
+     *
+     * @param wrapper 查询条件
+     * @return 结果游标
+     */
+    @Select("SELECT * FROM cost_record ${ew.customSqlSegment}")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    Cursor<CostRecordDO> selectCursor(@Param(Constants.WRAPPER) Wrapper<CostRecordDO> wrapper);
 }
@@ -0,0 +1,28 @@
+package com.agentguard.stats.mapper;
+
+import com.agentguard.stats.entity.LatencyHistogramDO;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+
+/**
+ * 延迟分布直方图 Mapper
+ *
+ * @author zhuhx
+ */
+@Mapper
+public interface LatencyHistogramMapper extends BaseMapper<LatencyHistogramDO> {
+
+    /**
+     * 分批删除早于指定时间的直方图行
+     *
+     * @param before 时间桶起始时间上界（不含）
+     * @param limit 单批最大删除行数
+     * @return 删除行数
+     */
+    @Delete("DELETE FROM latency_histogram WHERE bucket_start < #{before} LIMIT #{limit}")
+    int deleteBefore(@Param("before") LocalDateTime before, @Param("limit") int limit);
+}
@@ -0,0 +1,50 @@
+package com.agentguard.stats.scheduler;
+
+import com.agentguard.stats.service.LatencyStatsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 延迟直方图刷新定时任务调度器
+ *
+ * @author zhuhx
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "stats.latency.enabled", havingValue = "true", matchIfMissing = true)
+public class LatencyStatsScheduler {
+
+    private final LatencyStatsService latencyStatsService;
+
+    /**
+     * 定时将内存中的延迟直方图写入数据库
+     *
+     * 默认每30秒执行一次
+     */
+    @Scheduled(fixedDelayString = "${stats.latency.flush-interval-ms:30000}")
+    public void flush() {
+        try {
+            latencyStatsService.flush();
+        } catch (Exception e) {
+            log.error("延迟直方图刷新任务执行失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 删除过期的延迟直方图
+     *
+     * 删除操作幂等，各节点都执行；默认每天凌晨3点50分执行
+     */
+    @Scheduled(cron = "${stats.latency.retention-cron:0 50 3 * * ?}")
+    public void purgeExpired() {
+        try {
+            latencyStatsService.purgeExpired();
+        } catch (Exception e) {
+            log.error("延迟直方图清理任务执行失败: {}", e.getMessage(), e);
+        }
+    }
+}
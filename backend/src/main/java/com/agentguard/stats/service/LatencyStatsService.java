@@ -0,0 +1,54 @@
+package com.agentguard.stats.service;
+
+import com.agentguard.log.dto.AgentLogDTO;
+import com.agentguard.stats.dto.LatencyPercentileDTO;
+import com.agentguard.stats.dto.LatencyQueryDTO;
+import com.agentguard.stats.dto.LatencyTrendDTO;
+
+import java.util.List;
+
+/**
+ * 延迟分位数统计服务接口
+ * 各节点在内存中按 (Agent, 模型, 指标, 时间桶) 记录 HdrHistogram 直方图，定期持久化；
+ * 查询时合并所有节点、所有时间桶的直方图计算分位数，结果最多滞后一个刷新周期
+ *
+ * @author zhuhx
+ */
+public interface LatencyStatsService {
+
+    /**
+     * 记录一条日志的响应时间和首Token时间
+     *
+     * @param agentLog 日志
+     */
+    void record(AgentLogDTO agentLog);
+
+    /**
+     * 将内存中有新样本的直方图写入数据库，并释放已关闭的时间桶
+     */
+    void flush();
+
+    /**
+     * 删除超过保留天数的直方图行
+     *
+     * @return 删除行数
+     */
+    int purgeExpired();
+
+    /**
+     * 查询延迟分位数
+     *
+     * @param query 查询条件
+     * @return 分位数列表，按分组维度各一条；不分组时最多一条
+     */
+    List<LatencyPercentileDTO> getPercentiles(LatencyQueryDTO query);
+
+    /**
+     * 查询延迟趋势
+     *
+     * @param query 查询条件（忽略分组维度）
+     * @param intervalMinutes 时间段长度（分钟），向上取整到时间桶长度的整数倍
+     * @return 各时间段的分位数，按时间升序，无样本的时间段不返回
+     */
+    List<LatencyTrendDTO> getTrend(LatencyQueryDTO query, int intervalMinutes);
+}
@@ -0,0 +1,477 @@
+package com.agentguard.stats.service.impl;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.ObjectUtil;
+import cn.hutool.core.util.StrUtil;
+import com.agentguard.agent.entity.AgentDO;
+import com.agentguard.agent.mapper.AgentMapper;
+import com.agentguard.common.exception.BusinessException;
+import com.agentguard.common.exception.ErrorCode;
+import com.agentguard.log.dto.AgentLogDTO;
+import com.agentguard.stats.dto.LatencyPercentileDTO;
+import com.agentguard.stats.dto.LatencyQueryDTO;
+import com.agentguard.stats.dto.LatencyTrendDTO;
+import com.agentguard.stats.entity.LatencyHistogramDO;
+import com.agentguard.stats.enums.LatencyGroupBy;
+import com.agentguard.stats.enums.LatencyMetric;
+import com.agentguard.stats.mapper.LatencyHistogramMapper;
+import com.agentguard.stats.service.LatencyStatsService;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 延迟分位数统计服务实现类
+ * <p>
+ * 写入路径只做一次无锁的 {@link Recorder#recordValue(long)}；刷新时取出区间直方图累加到该时间桶的累计直方图，
+ * 压缩编码后写入本节点自己的行（节点ID随进程生成，重启后写新行，不会覆盖之前的数据）。
+ * HdrHistogram 可以无损合并，查询时把命中的所有行解码相加即可得到任意时间范围、任意分组的分位数。
+ *
+ * @author zhuhx
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LatencyStatsServiceImpl implements LatencyStatsService {
+
+    /** 可记录的最小值（毫秒） */
+    private static final long LOWEST_TRACKABLE_MS = 1;
+
+    /** 可记录的最大值（毫秒），超出按最大值记录 */
+    private static final long HIGHEST_TRACKABLE_MS = Duration.ofHours(1).toMillis();
+
+    /** 有效数字位数，分位数相对误差不超过 1% */
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    /** 过期数据单批删除行数 */
+    private static final int PURGE_BATCH_SIZE = 5000;
+
+    /** 模型名称最大长度 */
+    private static final int MAX_MODEL_LENGTH = 100;
+
+    private final LatencyHistogramMapper latencyHistogramMapper;
+    private final AgentMapper agentMapper;
+
+    /** 本节点ID */
+    private final String nodeId = IdUtil.fastSimpleUUID();
+
+    /** 内存中的时间桶直方图 */
+    private final Map<BucketKey, BucketState> buckets = new ConcurrentHashMap<>();
+
+    @Value("${stats.latency.enabled:true}")
+    private boolean enabled;
+
+    @Value("${stats.latency.bucket-minutes:5}")
+    private int bucketMinutes;
+
+    @Value("${stats.latency.max-query-days:31}")
+    private int maxQueryDays;
+
+    @Value("${stats.latency.retention-days:90}")
+    private int retentionDays;
+
+    @PreDestroy
+    public void destroy() {
+        flush();
+    }
+
+    @Override
+    public void record(AgentLogDTO agentLog) {
+        if (!enabled || StrUtil.isBlank(agentLog.getAgentId())) {
+            return;
+        }
+        LocalDateTime time = ObjectUtil.defaultIfNull(agentLog.getCreatedAt(), LocalDateTime.now());
+        LocalDateTime bucketStart = alignDown(time, bucketMinutes);
+        String model = StrUtil.maxLength(StrUtil.nullToEmpty(agentLog.getModel()), MAX_MODEL_LENGTH - 3);
+
+        if (agentLog.getResponseTimeMs() != null) {
+            recordValue(new BucketKey(agentLog.getAgentId(), model, LatencyMetric.RESPONSE_TIME, bucketStart),
+                    agentLog.getResponseTimeMs());
+        }
+        if (agentLog.getFirstTokenTimeMs() != null) {
+            recordValue(new BucketKey(agentLog.getAgentId(), model, LatencyMetric.FIRST_TOKEN, bucketStart),
+                    agentLog.getFirstTokenTimeMs());
+        }
+    }
+
+    @Override
+    public synchronized void flush() {
+        LocalDateTime closedBefore = alignDown(LocalDateTime.now(), bucketMinutes).minusMinutes(bucketMinutes);
+        int flushed = 0;
+        for (Map.Entry<BucketKey, BucketState> entry : buckets.entrySet()) {
+            BucketKey key = entry.getKey();
+            BucketState state = entry.getValue();
+            if (state.dirty().getAndSet(false)) {
+                try {
+                    drain(state);
+                    persist(key, state);
+                    flushed++;
+                } catch (Exception e) {
+                    state.dirty().set(true);
+                    log.error("延迟直方图写入失败: key={}, error={}", key, e.getMessage(), e);
+                    continue;
+                }
+            }
+            // 上一个及更早的时间桶不会再有新样本（迟到的样本会与已写入的行合并），写入后释放内存
+            if (key.bucketStart().isBefore(closedBefore) && !state.dirty().get()) {
+                release(key, state);
+            }
+        }
+        if (flushed > 0) {
+            log.debug("延迟直方图已刷新: flushed={}, buckets={}", flushed, buckets.size());
+        }
+    }
+
+    @Override
+    public int purgeExpired() {
+        LocalDateTime before = alignDown(LocalDateTime.now().minusDays(retentionDays), bucketMinutes);
+        int total = 0;
+        int deleted;
+        do {
+            deleted = latencyHistogramMapper.deleteBefore(before, PURGE_BATCH_SIZE);
+            total += deleted;
+        } while (deleted == PURGE_BATCH_SIZE);
+        if (total > 0) {
+            log.info("已删除过期延迟直方图: rows={}, before={}", total, before);
+        }
+        return total;
+    }
+
+    @Override
+    public List<LatencyPercentileDTO> getPercentiles(LatencyQueryDTO query) {
+        LatencyGroupBy groupBy = ObjectUtil.defaultIfNull(query.getGroupBy(), LatencyGroupBy.NONE);
+        Function<LatencyHistogramDO, String> groupKey = switch (groupBy) {
+            case NONE -> row -> "";
+            case AGENT -> LatencyHistogramDO::getAgentId;
+            case MODEL -> LatencyHistogramDO::getModel;
+            case AGENT_MODEL -> row -> row.getAgentId() + "\n" + row.getModel();
+        };
+
+        Map<String, Histogram> merged = new LinkedHashMap<>();
+        for (LatencyHistogramDO row : selectRows(query)) {
+            merged.computeIfAbsent(groupKey.apply(row), k -> newHistogram()).add(decode(row.getHistogram()));
+        }
+        if (merged.isEmpty()) {
+            return List.of();
+        }
+
+        Map<String, String> agentNames = Map.of();
+        if (groupBy == LatencyGroupBy.AGENT || groupBy == LatencyGroupBy.AGENT_MODEL) {
+            Set<String> agentIds = merged.keySet().stream()
+                    .map(key -> StrUtil.subBefore(key, "\n", false))
+                    .collect(Collectors.toSet());
+            agentNames = agentMapper.selectBatchIds(agentIds).stream()
+                    .collect(Collectors.toMap(AgentDO::getId, AgentDO::getName, (a, b) -> a));
+        }
+
+        List<LatencyPercentileDTO> result = new ArrayList<>(merged.size());
+        for (Map.Entry<String, Histogram> entry : merged.entrySet()) {
+            LatencyPercentileDTO dto = toPercentileDTO(entry.getValue());
+            switch (groupBy) {
+                case AGENT -> dto.setAgentId(entry.getKey());
+                case MODEL -> dto.setModel(entry.getKey());
+                case AGENT_MODEL -> {
+                    dto.setAgentId(StrUtil.subBefore(entry.getKey(), "\n", false));
+                    dto.setModel(StrUtil.subAfter(entry.getKey(), "\n", false));
+                }
+                default -> {
+                }
+            }
+            if (dto.getAgentId() != null) {
+                dto.setAgentName(agentNames.get(dto.getAgentId()));
+            }
+            result.add(dto);
+        }
+        // 最慢的排在前面
+        result.sort(Comparator.comparing(LatencyPercentileDTO::getP95).reversed());
+        return result;
+    }
+
+    @Override
+    public List<LatencyTrendDTO> getTrend(LatencyQueryDTO query, int intervalMinutes) {
+        int interval = Math.max(1, (intervalMinutes + bucketMinutes - 1) / bucketMinutes) * bucketMinutes;
+
+        Map<LocalDateTime, Histogram> merged = new TreeMap<>();
+        for (LatencyHistogramDO row : selectRows(query)) {
+            merged.computeIfAbsent(alignDown(row.getBucketStart(), interval), k -> newHistogram())
+                    .add(decode(row.getHistogram()));
+        }
+
+        List<LatencyTrendDTO> result = new ArrayList<>(merged.size());
+        for (Map.Entry<LocalDateTime, Histogram> entry : merged.entrySet()) {
+            Histogram histogram = entry.getValue();
+            LatencyTrendDTO dto = new LatencyTrendDTO();
+            dto.setTime(entry.getKey());
+            dto.setCount(histogram.getTotalCount());
+            dto.setP50(histogram.getValueAtPercentile(50));
+            dto.setP95(histogram.getValueAtPercentile(95));
+            dto.setP99(histogram.getValueAtPercentile(99));
+            dto.setMax(histogram.getMaxValue());
+            result.add(dto);
+        }
+        return result;
+    }
+
+    /**
+     * 查询命中的直方图行
+     */
+    private List<LatencyHistogramDO> selectRows(LatencyQueryDTO query) {
+        LocalDateTime endTime = ObjectUtil.defaultIfNull(query.getEndTime(), LocalDateTime.now());
+        LocalDateTime startTime = ObjectUtil.defaultIfNull(query.getStartTime(), endTime.minusHours(1));
+        if (!startTime.isBefore(endTime)) {
+            throw new BusinessException(ErrorCode.BAD_REQUEST, "开始时间必须早于结束时间");
+        }
+        if (Duration.between(startTime, endTime).toDays() >= maxQueryDays) {
+            throw new BusinessException(ErrorCode.BAD_REQUEST,
+                    StrUtil.format("延迟统计查询范围不能超过 {} 天", maxQueryDays));
+        }
+
+        Set<String> agentIds = null;
+        if (StrUtil.isNotBlank(query.getProvider())) {
+            LambdaQueryWrapper<AgentDO> agentWrapper = new LambdaQueryWrapper<>();
+            agentWrapper.select(AgentDO::getId).eq(AgentDO::getLlmProvider, query.getProvider());
+            agentIds = agentMapper.selectList(agentWrapper).stream()
+                    .map(AgentDO::getId)
+                    .collect(Collectors.toCollection(HashSet::new));
+            if (StrUtil.isNotBlank(query.getAgentId())) {
+                agentIds.retainAll(Set.of(query.getAgentId()));
+            }
+            if (agentIds.isEmpty()) {
+                return List.of();
+            }
+        } else if (StrUtil.isNotBlank(query.getAgentId())) {
+            agentIds = Set.of(query.getAgentId());
+        }
+
+        LambdaQueryWrapper<LatencyHistogramDO> wrapper = new LambdaQueryWrapper<>();
+        wrapper.select(LatencyHistogramDO::getAgentId, LatencyHistogramDO::getModel,
+                        LatencyHistogramDO::getBucketStart, LatencyHistogramDO::getHistogram)
+                .eq(LatencyHistogramDO::getMetric, ObjectUtil.defaultIfNull(query.getMetric(), LatencyMetric.RESPONSE_TIME))
+                .ge(LatencyHistogramDO::getBucketStart, alignDown(startTime, bucketMinutes))
+                .lt(LatencyHistogramDO::getBucketStart, endTime)
+                .in(CollUtil.isNotEmpty(agentIds), LatencyHistogramDO::getAgentId, agentIds)
+                .eq(query.getModel() != null, LatencyHistogramDO::getModel, query.getModel());
+        return latencyHistogramMapper.selectList(wrapper);
+    }
+
+    private void recordValue(BucketKey key, long valueMs) {
+        BucketState state = buckets.computeIfAbsent(key, k -> new BucketState(
+                new Recorder(LOWEST_TRACKABLE_MS, HIGHEST_TRACKABLE_MS, SIGNIFICANT_DIGITS),
+                newHistogram(), new AtomicBoolean()));
+        state.recorder().recordValue(Math.min(Math.max(valueMs, 0), HIGHEST_TRACKABLE_MS));
+        state.dirty().set(true);
+    }
+
+    /**
+     * 将区间直方图累加到累计直方图
+     */
+    private void drain(BucketState state) {
+        state.setInterval(state.recorder().getIntervalHistogram(state.interval()));
+        state.histogram().add(state.interval());
+    }
+
+    /**
+     * 写入已关闭时间桶的剩余样本后释放；写入失败时保留在内存中，下次刷新重试
+     */
+    private void release(BucketKey key, BucketState state) {
+        try {
+            persistRemaining(key, state);
+            if (buckets.remove(key, state)) {
+                // 移除前的瞬间可能还有迟到样本写入该状态
+                persistRemaining(key, state);
+            }
+        } catch (Exception e) {
+            state.dirty().set(true);
+            BucketState current = buckets.putIfAbsent(key, state);
+            if (current != null && current != state) {
+                // 移除后又收到迟到样本并建了新状态：累计直方图和已写入的行并入新状态，随下次刷新整体覆盖写入
+                current.histogram().add(state.histogram());
+                if (current.rowId() == null) {
+                    current.setRowId(state.rowId());
+                }
+                current.dirty().set(true);
+            }
+            log.error("延迟直方图写入失败: key={}, error={}", key, e.getMessage(), e);
+        }
+    }
+
+    private void persistRemaining(BucketKey key, BucketState state) {
+        drain(state);
+        if (state.histogram().getTotalCount() > state.persistedCount()) {
+            persist(key, state);
+        }
+    }
+
+    /**
+     * 写入本节点该时间桶的累计直方图
+     */
+    private void persist(BucketKey key, BucketState state) {
+        LatencyHistogramDO row = new LatencyHistogramDO();
+        row.setSampleCount(state.histogram().getTotalCount());
+        row.setHistogram(encode(state.histogram()));
+        row.setUpdatedAt(LocalDateTime.now());
+
+        if (state.rowId() == null) {
+            row.setNodeId(nodeId);
+            row.setAgentId(key.agentId());
+            row.setModel(key.model());
+            row.setMetric(key.metric());
+            row.setBucketStart(key.bucketStart());
+            try {
+                latencyHistogramMapper.insert(row);
+                state.setRowId(row.getId());
+                state.setPersistedCount(row.getSampleCount());
+                return;
+            } catch (DuplicateKeyException e) {
+                // 时间桶释放后又收到迟到样本：与已写入的行合并
+                LatencyHistogramDO existing = latencyHistogramMapper.selectOne(new LambdaQueryWrapper<LatencyHistogramDO>()
+                        .eq(LatencyHistogramDO::getNodeId, nodeId)
+                        .eq(LatencyHistogramDO::getAgentId, key.agentId())
+                        .eq(LatencyHistogramDO::getModel, key.model())
+                        .eq(LatencyHistogramDO::getMetric, key.metric())
+                        .eq(LatencyHistogramDO::getBucketStart, key.bucketStart()));
+                state.histogram().add(decode(existing.getHistogram()));
+                state.setRowId(existing.getId());
+                row = new LatencyHistogramDO();
+                row.setSampleCount(state.histogram().getTotalCount());
+                row.setHistogram(encode(state.histogram()));
+                row.setUpdatedAt(LocalDateTime.now());
+            }
+        }
+        row.setId(state.rowId());
+        latencyHistogramMapper.updateById(row);
+        state.setPersistedCount(row.getSampleCount());
+    }
+
+    private LatencyPercentileDTO toPercentileDTO(Histogram histogram) {
+        LatencyPercentileDTO dto = new LatencyPercentileDTO();
+        dto.setCount(histogram.getTotalCount());
+        dto.setMin(histogram.getMinValue());
+        dto.setMean(Math.round(histogram.getMean() * 100) / 100.0);
+        dto.setP50(histogram.getValueAtPercentile(50));
+        dto.setP90(histogram.getValueAtPercentile(90));
+        dto.setP95(histogram.getValueAtPercentile(95));
+        dto.setP99(histogram.getValueAtPercentile(99));
+        dto.setP999(histogram.getValueAtPercentile(99.9));
+        dto.setMax(histogram.getMaxValue());
+        return dto;
+    }
+
+    private static Histogram newHistogram() {
+        return new Histogram(LOWEST_TRACKABLE_MS, HIGHEST_TRACKABLE_MS, SIGNIFICANT_DIGITS);
+    }
+
+    private static byte[] encode(Histogram histogram) {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        return Arrays.copyOf(buffer.array(), length);
+    }
+
+    private static Histogram decode(byte[] data) {
+        try {
+            return Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(data), HIGHEST_TRACKABLE_MS);
+        } catch (Exception e) {
+            throw new IllegalStateException("延迟直方图解码失败", e);
+        }
+    }
+
+    /**
+     * 按分钟数向下对齐时间
+     */
+    private static LocalDateTime alignDown(LocalDateTime time, int minutes) {
+        long epochMinute = time.toEpochSecond(ZoneOffset.UTC) / 60;
+        long aligned = epochMinute - Math.floorMod(epochMinute, minutes);
+        return LocalDateTime.ofEpochSecond(aligned * 60, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * 时间桶键
+     *
+     * @param agentId Agent ID
+     * @param model LLM模型
+     * @param metric 指标
+     * @param bucketStart 时间桶起始时间
+     */
+    private record BucketKey(String agentId, String model, LatencyMetric metric, LocalDateTime bucketStart) {
+    }
+
+    /**
+     * 时间桶直方图状态，除 recorder 和 dirty 外只在刷新线程中访问
+     */
+    private static final class BucketState {
+
+        private final Recorder recorder;
+        private final Histogram histogram;
+        private final AtomicBoolean dirty;
+        private Histogram interval;
+        private String rowId;
+        private long persistedCount;
+
+        BucketState(Recorder recorder, Histogram histogram, AtomicBoolean dirty) {
+            this.recorder = recorder;
+            this.histogram = histogram;
+            this.dirty = dirty;
+        }
+
+        Recorder recorder() {
+            return recorder;
+        }
+
+        Histogram histogram() {
+            return histogram;
+        }
+
+        AtomicBoolean dirty() {
+            return dirty;
+        }
+
+        Histogram interval() {
+            return interval;
+        }
+
+        void setInterval(Histogram interval) {
+            this.interval = interval;
+        }
+
+        String rowId() {
+            return rowId;
+        }
+
+        void setRowId(String rowId) {
+            this.rowId = rowId;
+        }
+
+        long persistedCount() {
+            return persistedCount;
+        }
+
+        void setPersistedCount(long persistedCount) {
+            this.persistedCount = persistedCount;
+        }
+    }
+}
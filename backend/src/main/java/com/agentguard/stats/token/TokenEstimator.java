@@ -0,0 +1,35 @@
+package com.agentguard.stats.token;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.IOException;
+
+/**
+ * Token 估算器接口
+ * <p>
+ * 使用本地 BPE 分词器（OpenAI 兼容编码，词表随依赖打包）计算 Token 数，
+ * 用于转发前的提示词预检，以及上游未返回 usage 时的流式输出计费。
+ *
+ * @author zhuhx
+ */
+public interface TokenEstimator {
+
+    /**
+     * 计算文本的 Token 数，特殊 token 文本按普通文本处理
+     *
+     * @param text 文本内容
+     * @param model 模型名称（用于选择编码，未知模型使用 cl100k_base）
+     * @return Token数
+     */
+    int countTokens(String text, String model);
+
+    /**
+     * 计算对话消息数组的提示词 Token 数，包含每条消息的格式开销和回复引导开销
+     *
+     * @param parser 定位在 messages 数组之前的流式解析器，读取的第一个 token 应为数组开始
+     * @param model 模型名称
+     * @return Token数；不是数组时返回 0
+     * @throws IOException 读取失败
+     */
+    int countMessageTokens(JsonParser parser, String model) throws IOException;
+}
@@ -0,0 +1,133 @@
+package com.agentguard.stats.token.impl;
+
+import cn.hutool.core.util.StrUtil;
+import com.agentguard.stats.token.TokenEstimator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingRegistry;
+import com.knuddels.jtokkit.api.EncodingType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Token 估算器实现类
+ * <p>
+ * 基于 JTokkit 的 BPE 实现，词表（cl100k_base、o200k_base）随依赖打包，首次使用某个编码时才加载。
+ * 只计数不输出 token 数组；消息数组通过流式解析器逐个读取字符串值，不构建对象树。
+ * 消息格式开销按 OpenAI 公开的计算方式：每条消息 3 个、带 name 字段再加 1 个、回复引导 3 个。
+ *
+ * @author zhuhx
+ */
+@Component
+public class TokenEstimatorImpl implements TokenEstimator {
+
+    /** 每条消息的格式开销 */
+    private static final int TOKENS_PER_MESSAGE = 3;
+
+    /** name 字段的额外开销 */
+    private static final int TOKENS_PER_NAME = 1;
+
+    /** 回复引导（assistant 起始）开销 */
+    private static final int REPLY_PRIMING_TOKENS = 3;
+
+    /** 图片、音频等多模态片段的固定估算值（低分辨率图片基础开销） */
+    private static final int MEDIA_PART_TOKENS = 85;
+
+    /** 多模态片段字段，内容通常是 base64 数据，不参与分词 */
+    private static final Set<String> MEDIA_FIELDS = Set.of("image_url", "input_audio", "file");
+
+    /** 使用 o200k_base 编码的模型名前缀，其余模型使用 cl100k_base */
+    private static final List<String> O200K_MODEL_PREFIXES = List.of(
+            "gpt-4o", "chatgpt-4o", "gpt-4.1", "gpt-4.5", "gpt-5", "gpt-oss", "o1", "o3", "o4");
+
+    private final EncodingRegistry registry = Encodings.newLazyEncodingRegistry();
+
+    @Override
+    public int countTokens(String text, String model) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        return encodingFor(model).countTokensOrdinary(text);
+    }
+
+    @Override
+    public int countMessageTokens(JsonParser parser, String model) throws IOException {
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return 0;
+        }
+        Encoding encoding = encodingFor(model);
+        int total = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            total += TOKENS_PER_MESSAGE;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("name".equals(field)) {
+                    total += TOKENS_PER_NAME;
+                }
+                total += countValue(parser, value, encoding);
+            }
+        }
+        return total + REPLY_PRIMING_TOKENS;
+    }
+
+    /**
+     * 累加字段值中所有字符串的 Token 数（content 多段内容、tool_calls 参数等），多模态片段按固定值计
+     */
+    private int countValue(JsonParser parser, JsonToken value, Encoding encoding) throws IOException {
+        if (value == JsonToken.VALUE_STRING) {
+            return parser.getTextLength() == 0 ? 0 : encoding.countTokensOrdinary(parser.getText());
+        }
+        int total = 0;
+        if (value == JsonToken.START_ARRAY) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                total += countValue(parser, token, encoding);
+            }
+        } else if (value == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken fieldValue = parser.nextToken();
+                if (MEDIA_FIELDS.contains(field)) {
+                    parser.skipChildren();
+                    total += MEDIA_PART_TOKENS;
+                } else {
+                    total += countValue(parser, fieldValue, encoding);
+                }
+            }
+        }
+        return total;
+    }
+
+    private Encoding encodingFor(String model) {
+        return registry.getEncoding(resolveEncodingType(model));
+    }
+
+    /**
+     * 按模型名选择编码，忽略 "openai/gpt-4o" 形式的提供商前缀
+     */
+    private EncodingType resolveEncodingType(String model) {
+        if (StrUtil.isBlank(model)) {
+            return EncodingType.CL100K_BASE;
+        }
+        String name = model.substring(model.lastIndexOf('/') + 1).toLowerCase(Locale.ROOT);
+        for (String prefix : O200K_MODEL_PREFIXES) {
+            if (name.startsWith(prefix)) {
+                return EncodingType.O200K_BASE;
+            }
+        }
+        return EncodingType.CL100K_BASE;
+    }
+}
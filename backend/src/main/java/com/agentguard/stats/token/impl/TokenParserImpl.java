@@ -3,7 +3,9 @@ package com.agentguard.stats.token.impl;
 import cn.hutool.json.JSONObject;
 import cn.hutool.json.JSONUtil;
 import com.agentguard.stats.dto.TokenUsageDTO;
+import com.agentguard.stats.token.TokenEstimator;
 import com.agentguard.stats.token.TokenParser;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
@@ -14,8 +16,11 @@ import org.springframework.stereotype.Component;
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class TokenParserImpl implements TokenParser {
 
+    private final TokenEstimator tokenEstimator;
+
     @Override
     public TokenUsageDTO parseFromResponse(String responseBody, String provider) {
         if (responseBody == null || responseBody.isEmpty()) {
@@ -128,12 +133,7 @@ public class TokenParserImpl implements TokenParser {
 
     @Override
     public int estimateTokens(String text, String model) {
-        if (text == null || text.isEmpty()) {
-            return 0;
-        }
-
-        // 简单估算：中英文混合，平均每2.5个字符约等于1个token
-        // 这是一个粗略估算，实际应该使用 tiktoken 等专业库
-        return (int) Math.ceil(text.length() / 2.5);
+        // 本地 BPE 分词计数
+        return tokenEstimator.countTokens(text, model);
     }
 }
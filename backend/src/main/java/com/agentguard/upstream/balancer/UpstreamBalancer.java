@@ -0,0 +1,66 @@
+package com.agentguard.upstream.balancer;
+
+import com.agentguard.agent.dto.AgentDTO;
+import com.agentguard.upstream.dto.UpstreamStatusDTO;
+
+import java.util.List;
+
+/**
+ * 上游负载均衡器接口
+ * <p>
+ * Agent 的端点组由主端点（Agent 自身的 LLM 地址和密钥）和启用的附加端点组成，
+ * 每次转发前选出一个端点，转发结束后必须调用 {@link #release} 归还并反馈结果。
+ *
+ * @author zhuhx
+ */
+public interface UpstreamBalancer {
+
+    /**
+     * 为本次请求选择端点，并计入进行中请求数
+     * 优先在健康端点中选择；全部端点都被摘除时在全部端点中选择，不因健康检查拒绝请求
+     *
+     * @param agent Agent信息（包含未脱敏的主端点密钥）
+     * @return 选中的端点
+     */
+    UpstreamEndpoint select(AgentDTO agent);
+
+    /**
+     * 为对冲请求选择另一个端点，并计入进行中请求数
+     * 在除已选端点外的健康端点中选择；没有其他健康端点时不选择（对同一端点重发没有收益）
+     *
+     * @param agent Agent信息
+     * @param excluded 主请求已选的端点
+     * @return 选中的端点，没有其他健康端点时返回 null
+     */
+    UpstreamEndpoint selectAlternate(AgentDTO agent, UpstreamEndpoint excluded);
+
+    /**
+     * 归还端点并反馈结果：记录延迟样本，5xx、超时、连接失败计入连续失败，达到阈值时摘除；
+     * 被取消的请求（{@link java.util.concurrent.CancellationException}）只记录已耗时作为延迟样本
+     *
+     * @param endpoint 选中的端点
+     * @param latencyMs 延迟（毫秒），流式请求为首 token 时间
+     * @param error 失败原因，成功时为 null
+     */
+    void release(UpstreamEndpoint endpoint, long latencyMs, Throwable error);
+
+    /**
+     * 使 Agent 的端点列表缓存失效，下次选择时重新加载
+     *
+     * @param agentId Agent ID
+     */
+    void invalidate(String agentId);
+
+    /**
+     * 主动健康检查：探测近期有流量的 Agent 的全部端点，并移除长时间空闲的端点组
+     */
+    void checkHealth();
+
+    /**
+     * 获取本节点中 Agent 端点组的运行状态
+     *
+     * @param agentId Agent ID
+     * @return 端点运行状态列表，Agent 近期没有流量时为空
+     */
+    List<UpstreamStatusDTO> getStatus(String agentId);
+}
@@ -0,0 +1,170 @@
+package com.agentguard.upstream.balancer;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 上游端点运行状态
+ * <p>
+ * 负载均衡器为每个端点维护一份：进行中请求数（原子计数）、峰值EWMA延迟和健康状态（对象锁保护，更新频率与请求数同级）。
+ * 状态变更方法只由负载均衡器调用。
+ * 峰值EWMA：新样本比当前均值大时直接取新样本，否则按距上次样本的时间指数衰减后加权；
+ * 读取代价时同样按空闲时间衰减，长时间没有流量的慢端点会逐渐重新获得流量。
+ *
+ * @author zhuhx
+ */
+public final class UpstreamEndpoint {
+
+    /** 上游端点ID，为空表示 Agent 主端点 */
+    private final String upstreamId;
+
+    private final String name;
+
+    private final String baseUrl;
+
+    private final String apiKey;
+
+    private volatile int weight;
+
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    /** 峰值EWMA延迟（毫秒） */
+    private double ewmaMs;
+
+    /** 上次更新 EWMA 的时间（纳秒） */
+    private long ewmaStampNanos;
+
+    private int consecutiveFailures;
+
+    /** 累计摘除次数，决定下一次摘除时长；恢复后清零 */
+    private int ejections;
+
+    /** 摘除截止时间（毫秒时间戳），0 表示未摘除 */
+    private long ejectedUntilMillis;
+
+    public UpstreamEndpoint(String upstreamId, String name, String baseUrl, String apiKey, int weight, long initialLatencyMs) {
+        this.upstreamId = upstreamId;
+        this.name = name;
+        this.baseUrl = baseUrl;
+        this.apiKey = apiKey;
+        this.weight = Math.max(1, weight);
+        this.ewmaMs = initialLatencyMs;
+        this.ewmaStampNanos = System.nanoTime();
+    }
+
+    public String getUpstreamId() {
+        return upstreamId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public String getApiKey() {
+        return apiKey;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    public void setWeight(int weight) {
+        this.weight = Math.max(1, weight);
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    public void acquire() {
+        inflight.incrementAndGet();
+    }
+
+    public void release() {
+        inflight.decrementAndGet();
+    }
+
+    /**
+     * 是否指向相同的上游（地址和密钥都相同），端点列表刷新时据此保留运行状态
+     */
+    public boolean sameTarget(String baseUrl, String apiKey) {
+        return Objects.equals(this.baseUrl, baseUrl) && Objects.equals(this.apiKey, apiKey);
+    }
+
+    /**
+     * 按空闲时间衰减后的 EWMA 延迟（毫秒）
+     */
+    public synchronized double decayedLatency(long nowNanos, long decayNanos) {
+        long elapsed = Math.max(0, nowNanos - ewmaStampNanos);
+        return ewmaMs * Math.exp(-(double) elapsed / decayNanos);
+    }
+
+    /**
+     * 记录一次延迟样本
+     */
+    public synchronized void observe(long latencyMs, long nowNanos, long decayNanos) {
+        if (latencyMs > ewmaMs) {
+            ewmaMs = latencyMs;
+        } else {
+            long elapsed = Math.max(0, nowNanos - ewmaStampNanos);
+            double w = Math.exp(-(double) elapsed / decayNanos);
+            ewmaMs = ewmaMs * w + latencyMs * (1 - w);
+        }
+        ewmaStampNanos = nowNanos;
+    }
+
+    public synchronized boolean isHealthy(long nowMillis) {
+        return ejectedUntilMillis <= nowMillis;
+    }
+
+    public synchronized long getEjectedUntilMillis() {
+        return ejectedUntilMillis;
+    }
+
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    /**
+     * 记录成功：清零连续失败，未处于摘除期时清零摘除次数
+     */
+    public synchronized void recordSuccess(long nowMillis) {
+        consecutiveFailures = 0;
+        if (ejectedUntilMillis <= nowMillis) {
+            ejections = 0;
+        }
+    }
+
+    /**
+     * 记录失败，连续失败达到阈值时摘除
+     *
+     * @return 本次触发摘除时返回摘除时长（毫秒），否则返回 0
+     */
+    public synchronized long recordFailure(long nowMillis, int threshold, long baseEjectionMs, long maxEjectionMs) {
+        consecutiveFailures++;
+        if (consecutiveFailures < threshold || ejectedUntilMillis > nowMillis) {
+            return 0;
+        }
+        ejections++;
+        long duration = Math.min(baseEjectionMs * ejections, maxEjectionMs);
+        ejectedUntilMillis = nowMillis + duration;
+        consecutiveFailures = 0;
+        return duration;
+    }
+
+    /**
+     * 主动健康检查通过，立即恢复
+     *
+     * @return 恢复前是否处于摘除期
+     */
+    public synchronized boolean readmit(long nowMillis) {
+        boolean wasEjected = ejectedUntilMillis > nowMillis;
+        ejectedUntilMillis = 0;
+        consecutiveFailures = 0;
+        return wasEjected;
+    }
+}
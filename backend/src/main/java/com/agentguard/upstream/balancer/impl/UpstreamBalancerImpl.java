@@ -0,0 +1,418 @@
+package com.agentguard.upstream.balancer.impl;
+
+import cn.hutool.core.util.StrUtil;
+import com.agentguard.agent.dto.AgentDTO;
+import com.agentguard.common.util.EncryptionUtil;
+import com.agentguard.common.util.UpstreamErrorUtil;
+import com.agentguard.upstream.balancer.UpstreamBalancer;
+import com.agentguard.upstream.balancer.UpstreamEndpoint;
+import com.agentguard.upstream.config.UpstreamProperties;
+import com.agentguard.upstream.dto.UpstreamStatusDTO;
+import com.agentguard.upstream.entity.AgentUpstreamDO;
+import com.agentguard.upstream.enums.LoadBalanceStrategy;
+import com.agentguard.upstream.mapper.AgentUpstreamMapper;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 上游负载均衡器实现类
+ * <p>
+ * 选择算法为按权重随机抽取两个候选端点（P2C），取代价较低者：
+ * PEAK_EWMA 代价为衰减后的峰值EWMA延迟 ×（进行中请求数 + 1），LEAST_REQUESTS 代价为进行中请求数。
+ * 相比轮询，P2C 不需要全局锁，且慢端点、积压端点会自然分到更少的流量。
+ * <p>
+ * 被动健康检查：连续失败达到阈值的端点被摘除一段时间（按摘除次数递增）；
+ * 主动健康检查：定时请求端点的模型列表接口，通过即提前恢复；探测在专用线程池中并行执行，使用独立的短超时，
+ * 不占用调度线程，上一轮未结束时跳过本轮。
+ * 端点运行状态只在本节点内存中维护，端点列表刷新时地址和密钥不变的端点保留原有状态。
+ *
+ * @author zhuhx
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UpstreamBalancerImpl implements UpstreamBalancer {
+
+    private final AgentUpstreamMapper upstreamMapper;
+    private final EncryptionUtil encryptionUtil;
+    private final UpstreamProperties properties;
+
+    /** Agent ID -> 端点组 */
+    private final Map<String, UpstreamGroup> groups = new ConcurrentHashMap<>();
+
+    /** 健康检查进行中 */
+    private final AtomicBoolean probing = new AtomicBoolean();
+
+    /** 健康检查专用客户端（短超时，不占用代理转发的连接池） */
+    private RestTemplate probeRestTemplate;
+
+    /** 健康检查线程池 */
+    private ThreadPoolExecutor probeExecutor;
+
+    @PostConstruct
+    public void init() {
+        UpstreamProperties.HealthCheck healthCheck = properties.getHealthCheck();
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout((int) healthCheck.getTimeoutMs());
+        factory.setReadTimeout((int) healthCheck.getTimeoutMs());
+        probeRestTemplate = new RestTemplate(factory);
+
+        int threads = Math.max(1, healthCheck.getConcurrency());
+        probeExecutor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(healthCheck.getMaxQueuedProbes()),
+                Thread.ofPlatform().name("upstream-health-probe-", 0).daemon().factory());
+        probeExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        probeExecutor.shutdownNow();
+    }
+
+    @Override
+    public UpstreamEndpoint select(AgentDTO agent) {
+        UpstreamGroup group = groupFor(agent);
+        long nowMillis = System.currentTimeMillis();
+        group.lastUsedMillis = nowMillis;
+
+        List<UpstreamEndpoint> endpoints = group.endpoints;
+        UpstreamEndpoint chosen;
+        if (endpoints.size() == 1) {
+            chosen = endpoints.get(0);
+        } else {
+            List<UpstreamEndpoint> candidates = new ArrayList<>(endpoints.size());
+            for (UpstreamEndpoint endpoint : endpoints) {
+                if (endpoint.isHealthy(nowMillis)) {
+                    candidates.add(endpoint);
+                }
+            }
+            if (candidates.isEmpty()) {
+                // 全部被摘除时不拒绝请求，退化为在全部端点中选择
+                log.warn("Agent {} 的上游端点全部被摘除，在全部端点中选择", agent.getId());
+                candidates = endpoints;
+            }
+            chosen = pickTwoChoices(candidates);
+        }
+        chosen.acquire();
+        return chosen;
+    }
+
+    @Override
+    public UpstreamEndpoint selectAlternate(AgentDTO agent, UpstreamEndpoint excluded) {
+        UpstreamGroup group = groupFor(agent);
+        long nowMillis = System.currentTimeMillis();
+        List<UpstreamEndpoint> candidates = new ArrayList<>(group.endpoints.size());
+        for (UpstreamEndpoint endpoint : group.endpoints) {
+            if (endpoint != excluded && endpoint.isHealthy(nowMillis)) {
+                candidates.add(endpoint);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        UpstreamEndpoint chosen = pickTwoChoices(candidates);
+        chosen.acquire();
+        return chosen;
+    }
+
+    @Override
+    public void release(UpstreamEndpoint endpoint, long latencyMs, Throwable error) {
+        if (endpoint == null) {
+            return;
+        }
+        endpoint.release();
+        long nowMillis = System.currentTimeMillis();
+        if (error == null) {
+            endpoint.observe(latencyMs, System.nanoTime(), decayNanos());
+            endpoint.recordSuccess(nowMillis);
+            return;
+        }
+        if (error instanceof CancellationException) {
+            // 被对冲请求取消：实际延迟至少为已耗时，计入样本使慢端点的代价升高，但不算失败
+            endpoint.observe(latencyMs, System.nanoTime(), decayNanos());
+            return;
+        }
+        if (!isEndpointFailure(error)) {
+            // 4xx 等由请求本身导致的错误不代表端点异常
+            return;
+        }
+        // 失败的延迟同样计入，超时端点的代价随之升高
+        endpoint.observe(latencyMs, System.nanoTime(), decayNanos());
+        long ejectedMs = endpoint.recordFailure(nowMillis, properties.getFailureThreshold(),
+                properties.getBaseEjectionMs(), properties.getMaxEjectionMs());
+        if (ejectedMs > 0) {
+            log.warn("上游端点 {}（{}）连续失败 {} 次，摘除 {} 秒，最近错误: {}", endpoint.getName(), endpoint.getBaseUrl(),
+                    properties.getFailureThreshold(), ejectedMs / 1000, error.getMessage());
+        }
+    }
+
+    @Override
+    public void invalidate(String agentId) {
+        UpstreamGroup group = groups.get(agentId);
+        if (group != null) {
+            group.loadedAtMillis = 0;
+        }
+    }
+
+    @Override
+    public void checkHealth() {
+        long nowMillis = System.currentTimeMillis();
+        groups.entrySet().removeIf(entry ->
+                nowMillis - entry.getValue().lastUsedMillis > properties.getHealthCheck().getIdleEvictMs());
+
+        if (!probing.compareAndSet(false, true)) {
+            log.warn("上一轮上游端点健康检查尚未结束，跳过本轮");
+            return;
+        }
+        List<CompletableFuture<Void>> probes = new ArrayList<>();
+        int skipped = 0;
+        for (UpstreamGroup group : groups.values()) {
+            for (UpstreamEndpoint endpoint : group.endpoints) {
+                try {
+                    probes.add(CompletableFuture.runAsync(() -> probe(endpoint), probeExecutor));
+                } catch (RejectedExecutionException e) {
+                    skipped++;
+                }
+            }
+        }
+        if (skipped > 0) {
+            log.warn("上游端点健康检查队列已满，本轮跳过 {} 个端点", skipped);
+        }
+        CompletableFuture.allOf(probes.toArray(CompletableFuture[]::new))
+                .whenComplete((result, error) -> probing.set(false));
+    }
+
+    @Override
+    public List<UpstreamStatusDTO> getStatus(String agentId) {
+        UpstreamGroup group = groups.get(agentId);
+        if (group == null) {
+            return List.of();
+        }
+        long nowMillis = System.currentTimeMillis();
+        long nowNanos = System.nanoTime();
+        List<UpstreamStatusDTO> result = new ArrayList<>(group.endpoints.size());
+        for (UpstreamEndpoint endpoint : group.endpoints) {
+            long ejectedUntil = endpoint.getEjectedUntilMillis();
+            result.add(UpstreamStatusDTO.builder()
+                    .upstreamId(endpoint.getUpstreamId())
+                    .name(endpoint.getName())
+                    .baseUrl(endpoint.getBaseUrl())
+                    .weight(endpoint.getWeight())
+                    .healthy(endpoint.isHealthy(nowMillis))
+                    .ejectedUntil(ejectedUntil > nowMillis
+                            ? LocalDateTime.ofInstant(Instant.ofEpochMilli(ejectedUntil), ZoneId.systemDefault()) : null)
+                    .inflight(endpoint.getInflight())
+                    .ewmaLatencyMs(Math.round(endpoint.decayedLatency(nowNanos, decayNanos())))
+                    .consecutiveFailures(endpoint.getConsecutiveFailures())
+                    .build());
+        }
+        return result;
+    }
+
+    /**
+     * 获取 Agent 的端点组，缓存过期或主端点配置变化时重新加载
+     */
+    private UpstreamGroup groupFor(AgentDTO agent) {
+        long nowMillis = System.currentTimeMillis();
+        UpstreamGroup group = groups.get(agent.getId());
+        if (group != null && nowMillis - group.loadedAtMillis < properties.getGroupRefreshMs()
+                && group.endpoints.get(0).sameTarget(agent.getLlmBaseUrl(), agent.getLlmApiKey())) {
+            return group;
+        }
+
+        // 数据库查询放在 compute 之外，避免持有哈希桶锁访问数据库
+        List<AgentUpstreamDO> rows = upstreamMapper.selectList(new LambdaQueryWrapper<AgentUpstreamDO>()
+                .eq(AgentUpstreamDO::getAgentId, agent.getId())
+                .eq(AgentUpstreamDO::getEnabled, true)
+                .orderByAsc(AgentUpstreamDO::getCreatedAt));
+        return groups.compute(agent.getId(), (agentId, previous) -> buildGroup(agent, rows, previous, nowMillis));
+    }
+
+    /**
+     * 构建端点组，主端点排在第一位；地址和密钥不变的端点沿用原有运行状态
+     */
+    private UpstreamGroup buildGroup(AgentDTO agent, List<AgentUpstreamDO> rows, UpstreamGroup previous, long nowMillis) {
+        Map<String, UpstreamEndpoint> existing = new HashMap<>();
+        if (previous != null) {
+            for (UpstreamEndpoint endpoint : previous.endpoints) {
+                existing.put(StrUtil.nullToEmpty(endpoint.getUpstreamId()), endpoint);
+            }
+        }
+
+        List<UpstreamEndpoint> endpoints = new ArrayList<>(rows.size() + 1);
+        endpoints.add(reuseOrCreate(existing.get(""), null, "primary",
+                agent.getLlmBaseUrl(), agent.getLlmApiKey(), 1));
+        for (AgentUpstreamDO row : rows) {
+            String apiKey;
+            try {
+                apiKey = encryptionUtil.decrypt(row.getApiKey());
+            } catch (Exception e) {
+                log.error("上游端点 {} 的密钥解密失败，跳过该端点", row.getId(), e);
+                continue;
+            }
+            int weight = row.getWeight() != null ? row.getWeight() : 1;
+            endpoints.add(reuseOrCreate(existing.get(row.getId()), row.getId(), row.getName(),
+                    row.getBaseUrl(), apiKey, weight));
+        }
+
+        UpstreamGroup group = new UpstreamGroup(List.copyOf(endpoints), nowMillis);
+        group.lastUsedMillis = previous != null ? previous.lastUsedMillis : nowMillis;
+        return group;
+    }
+
+    private UpstreamEndpoint reuseOrCreate(UpstreamEndpoint existing, String upstreamId, String name,
+                                           String baseUrl, String apiKey, int weight) {
+        if (existing != null && existing.sameTarget(baseUrl, apiKey) && StrUtil.equals(existing.getName(), name)) {
+            existing.setWeight(weight);
+            return existing;
+        }
+        return new UpstreamEndpoint(upstreamId, name, baseUrl, apiKey, weight, properties.getInitialLatencyMs());
+    }
+
+    /**
+     * 按权重随机抽取两个不同的候选端点，返回代价较低者
+     */
+    private UpstreamEndpoint pickTwoChoices(List<UpstreamEndpoint> candidates) {
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+        int totalWeight = 0;
+        for (UpstreamEndpoint endpoint : candidates) {
+            totalWeight += endpoint.getWeight();
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        UpstreamEndpoint first = pickWeighted(candidates, random.nextInt(totalWeight), null);
+        UpstreamEndpoint second = pickWeighted(candidates, random.nextInt(totalWeight - first.getWeight()), first);
+
+        long nowNanos = System.nanoTime();
+        return cost(second, nowNanos) < cost(first, nowNanos) ? second : first;
+    }
+
+    private UpstreamEndpoint pickWeighted(List<UpstreamEndpoint> candidates, int point, UpstreamEndpoint excluded) {
+        int remaining = point;
+        UpstreamEndpoint last = null;
+        for (UpstreamEndpoint endpoint : candidates) {
+            if (endpoint == excluded) {
+                continue;
+            }
+            last = endpoint;
+            remaining -= endpoint.getWeight();
+            if (remaining < 0) {
+                return endpoint;
+            }
+        }
+        return last;
+    }
+
+    private double cost(UpstreamEndpoint endpoint, long nowNanos) {
+        int inflight = endpoint.getInflight();
+        if (properties.getStrategy() == LoadBalanceStrategy.LEAST_REQUESTS) {
+            return inflight;
+        }
+        return endpoint.decayedLatency(nowNanos, decayNanos()) * (inflight + 1);
+    }
+
+    private long decayNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(Math.max(1, properties.getEwmaDecayMs()));
+    }
+
+    /**
+     * 探测端点的模型列表接口，成功即恢复，连接失败、超时、5xx 计入连续失败
+     */
+    private void probe(UpstreamEndpoint endpoint) {
+        String url = buildModelsUrl(endpoint.getBaseUrl());
+        if (url == null) {
+            return;
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + endpoint.getApiKey());
+        long nowMillis = System.currentTimeMillis();
+        try {
+            probeRestTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+            if (endpoint.readmit(nowMillis)) {
+                log.info("上游端点 {}（{}）主动健康检查通过，恢复流量", endpoint.getName(), endpoint.getBaseUrl());
+            }
+        } catch (Exception e) {
+            if (isEndpointFailure(e)) {
+                long ejectedMs = endpoint.recordFailure(nowMillis, properties.getFailureThreshold(),
+                        properties.getBaseEjectionMs(), properties.getMaxEjectionMs());
+                if (ejectedMs > 0) {
+                    log.warn("上游端点 {}（{}）主动健康检查连续失败，摘除 {} 秒: {}", endpoint.getName(),
+                            endpoint.getBaseUrl(), ejectedMs / 1000, e.getMessage());
+                }
+            } else {
+                log.debug("上游端点 {} 健康检查返回非故障错误: {}", endpoint.getName(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 由 LLM 地址推导模型列表地址，规则与对话接口地址一致：
+     * 以 # 结尾时为完整的对话接口地址，仅支持 .../chat/completions 形式；以 / 结尾时直接拼接；否则拼接 /v1/models
+     */
+    private String buildModelsUrl(String baseUrl) {
+        if (StrUtil.isBlank(baseUrl)) {
+            return null;
+        }
+        if (baseUrl.endsWith("#")) {
+            String url = baseUrl.substring(0, baseUrl.length() - 1);
+            return url.endsWith("/chat/completions")
+                    ? url.substring(0, url.length() - "chat/completions".length()) + "models" : null;
+        }
+        if (baseUrl.endsWith("/")) {
+            return baseUrl + "models";
+        }
+        return baseUrl + "/v1/models";
+    }
+
+    /**
+     * 是否为端点故障：连接失败、超时、5xx，以及端点所在主机的熔断器处于打开状态；4xx（包括 429）由请求或配额导致，不计入
+     */
+    private boolean isEndpointFailure(Throwable error) {
+        return error instanceof CallNotPermittedException || UpstreamErrorUtil.isUpstreamFailure(error);
+    }
+
+    /**
+     * Agent 端点组，第一个端点固定为主端点
+     */
+    private static final class UpstreamGroup {
+
+        private final List<UpstreamEndpoint> endpoints;
+
+        private volatile long loadedAtMillis;
+
+        private volatile long lastUsedMillis;
+
+        private UpstreamGroup(List<UpstreamEndpoint> endpoints, long loadedAtMillis) {
+            this.endpoints = endpoints;
+            this.loadedAtMillis = loadedAtMillis;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.agentguard.upstream.config;
+
+import com.agentguard.upstream.enums.LoadBalanceStrategy;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 上游端点组配置属性
+ *
+ * @author zhuhx
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "agentguard.upstream")
+public class UpstreamProperties {
+
+    /**
+     * 负载均衡策略
+     */
+    private LoadBalanceStrategy strategy = LoadBalanceStrategy.PEAK_EWMA;
+
+    /**
+     * 端点列表缓存时间（毫秒），通过管理接口修改端点时立即失效
+     */
+    private long groupRefreshMs = 30000;
+
+    /**
+     * 峰值EWMA衰减时间常数（毫秒），越小越快忘记历史延迟
+     */
+    private long ewmaDecayMs = 10000;
+
+    /**
+     * 尚无延迟样本的端点的初始延迟（毫秒）
+     */
+    private long initialLatencyMs = 1000;
+
+    /**
+     * 连续失败多少次后摘除端点（5xx、超时、连接失败计为失败，4xx 不计）
+     */
+    private int failureThreshold = 5;
+
+    /**
+     * 首次摘除时长（毫秒），再次摘除按次数线性增加
+     */
+    private long baseEjectionMs = 30000;
+
+    /**
+     * 最长摘除时长（毫秒）
+     */
+    private long maxEjectionMs = 300000;
+
+    /**
+     * 主动健康检查
+     */
+    private HealthCheck healthCheck = new HealthCheck();
+
+    /**
+     * 主动健康检查配置
+     */
+    @Data
+    public static class HealthCheck {
+
+        /** 是否启用主动健康检查 */
+        private boolean enabled = true;
+
+        /** 检查间隔（毫秒） */
+        private long intervalMs = 30000;
+
+        /** 超过该时长（毫秒）没有流量的 Agent 不再检查，端点状态从内存中移除 */
+        private long idleEvictMs = 600000;
+
+        /** 单次探测的连接超时和读取超时（毫秒） */
+        private long timeoutMs = 3000;
+
+        /** 并行探测的线程数 */
+        private int concurrency = 8;
+
+        /** 等待探测的端点数上限，超出的端点本轮跳过 */
+        private int maxQueuedProbes = 1000;
+    }
+}
@@ -0,0 +1,63 @@
+package com.agentguard.upstream.controller;
+
+import com.agentguard.common.response.Result;
+import com.agentguard.upstream.dto.AgentUpstreamCreateDTO;
+import com.agentguard.upstream.dto.AgentUpstreamDTO;
+import com.agentguard.upstream.dto.AgentUpstreamUpdateDTO;
+import com.agentguard.upstream.dto.UpstreamStatusDTO;
+import com.agentguard.upstream.service.AgentUpstreamService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Agent 上游端点管理控制器
+ *
+ * @author zhuhx
+ */
+@Tag(name = "上游端点管理", description = "Agent多端点负载均衡配置接口")
+@RestController
+@RequestMapping("/api/v1/agents/{agentId}/upstreams")
+@RequiredArgsConstructor
+public class AgentUpstreamController {
+
+    private final AgentUpstreamService upstreamService;
+
+    @Operation(summary = "获取Agent的上游端点列表", description = "不含Agent自身配置的主端点")
+    @GetMapping
+    public Result<List<AgentUpstreamDTO>> list(@PathVariable String agentId) {
+        return Result.success(upstreamService.listByAgentId(agentId));
+    }
+
+    @Operation(summary = "添加上游端点")
+    @PostMapping
+    public Result<AgentUpstreamDTO> create(@PathVariable String agentId,
+                                           @Valid @RequestBody AgentUpstreamCreateDTO dto) {
+        return Result.success(upstreamService.create(agentId, dto));
+    }
+
+    @Operation(summary = "更新上游端点")
+    @PutMapping("/{upstreamId}")
+    public Result<AgentUpstreamDTO> update(@PathVariable String agentId,
+                                           @PathVariable String upstreamId,
+                                           @Valid @RequestBody AgentUpstreamUpdateDTO dto) {
+        return Result.success(upstreamService.update(agentId, upstreamId, dto));
+    }
+
+    @Operation(summary = "删除上游端点")
+    @DeleteMapping("/{upstreamId}")
+    public Result<Void> delete(@PathVariable String agentId, @PathVariable String upstreamId) {
+        upstreamService.delete(agentId, upstreamId);
+        return Result.success();
+    }
+
+    @Operation(summary = "获取端点组运行状态", description = "本节点负载均衡器中的健康状态、进行中请求数和峰值EWMA延迟，包含主端点")
+    @GetMapping("/status")
+    public Result<List<UpstreamStatusDTO>> status(@PathVariable String agentId) {
+        return Result.success(upstreamService.getStatus(agentId));
+    }
+}
@@ -0,0 +1,40 @@
+package com.agentguard.upstream.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+/**
+ * Agent 上游端点创建请求 DTO
+ *
+ * @author zhuhx
+ */
+@Data
+@Schema(description = "创建上游端点请求")
+public class AgentUpstreamCreateDTO {
+
+    @Schema(description = "端点名称", requiredMode = Schema.RequiredMode.REQUIRED, example = "azure-eastus")
+    @NotBlank(message = "端点名称不能为空")
+    @Size(max = 100, message = "端点名称不能超过100个字符")
+    private String name;
+
+    @Schema(description = "LLM API地址", requiredMode = Schema.RequiredMode.REQUIRED, example = "https://api.openai.com/v1")
+    @NotBlank(message = "LLM API地址不能为空")
+    @Size(max = 500, message = "LLM API地址不能超过500个字符")
+    private String baseUrl;
+
+    @Schema(description = "LLM API密钥", requiredMode = Schema.RequiredMode.REQUIRED, example = "sk-xxx")
+    @NotBlank(message = "LLM API密钥不能为空")
+    private String apiKey;
+
+    @Schema(description = "权重，默认 1", example = "1")
+    @Min(value = 1, message = "权重不能小于1")
+    @Max(value = 100, message = "权重不能大于100")
+    private Integer weight;
+
+    @Schema(description = "是否启用，默认启用")
+    private Boolean enabled;
+}
@@ -0,0 +1,46 @@
+package com.agentguard.upstream.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Agent 上游端点数据传输对象
+ *
+ * @author zhuhx
+ */
+@Data
+@Schema(description = "上游端点信息")
+public class AgentUpstreamDTO {
+
+    @Schema(description = "端点ID")
+    private String id;
+
+    @Schema(description = "Agent ID")
+    private String agentId;
+
+    @Schema(description = "端点名称")
+    private String name;
+
+    @Schema(description = "LLM API地址")
+    private String baseUrl;
+
+    @Schema(description = "LLM API密钥（脱敏）")
+    private String apiKey;
+
+    @Schema(description = "权重")
+    private Integer weight;
+
+    @Schema(description = "是否启用")
+    private Boolean enabled;
+
+    @Schema(description = "创建时间")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime createdAt;
+
+    @Schema(description = "更新时间")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime updatedAt;
+}
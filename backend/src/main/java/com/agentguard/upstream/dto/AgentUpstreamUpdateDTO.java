@@ -0,0 +1,36 @@
+package com.agentguard.upstream.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+/**
+ * Agent 上游端点更新请求 DTO
+ *
+ * @author zhuhx
+ */
+@Data
+@Schema(description = "更新上游端点请求")
+public class AgentUpstreamUpdateDTO {
+
+    @Schema(description = "端点名称", example = "azure-westus")
+    @Size(max = 100, message = "端点名称不能超过100个字符")
+    private String name;
+
+    @Schema(description = "LLM API地址", example = "https://api.openai.com/v1")
+    @Size(max = 500, message = "LLM API地址不能超过500个字符")
+    private String baseUrl;
+
+    @Schema(description = "LLM API密钥（脱敏值表示不修改）", example = "sk-xxx")
+    private String apiKey;
+
+    @Schema(description = "权重", example = "2")
+    @Min(value = 1, message = "权重不能小于1")
+    @Max(value = 100, message = "权重不能大于100")
+    private Integer weight;
+
+    @Schema(description = "是否启用")
+    private Boolean enabled;
+}
@@ -0,0 +1,48 @@
+package com.agentguard.upstream.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 上游端点运行状态 DTO
+ * 本节点负载均衡器中的实时状态，多节点部署时各节点独立统计
+ *
+ * @author zhuhx
+ */
+@Data
+@Builder
+@Schema(description = "上游端点运行状态")
+public class UpstreamStatusDTO {
+
+    @Schema(description = "端点ID，为空表示Agent主端点")
+    private String upstreamId;
+
+    @Schema(description = "端点名称")
+    private String name;
+
+    @Schema(description = "LLM API地址")
+    private String baseUrl;
+
+    @Schema(description = "权重")
+    private Integer weight;
+
+    @Schema(description = "是否健康（未被摘除）")
+    private Boolean healthy;
+
+    @Schema(description = "摘除截止时间")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime ejectedUntil;
+
+    @Schema(description = "进行中的请求数")
+    private Integer inflight;
+
+    @Schema(description = "峰值EWMA延迟（毫秒）")
+    private Long ewmaLatencyMs;
+
+    @Schema(description = "连续失败次数")
+    private Integer consecutiveFailures;
+}
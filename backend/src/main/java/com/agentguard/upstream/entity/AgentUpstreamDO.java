@@ -0,0 +1,46 @@
+package com.agentguard.upstream.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Agent 上游端点数据对象
+ *
+ * @author zhuhx
+ */
+@Data
+@TableName("agent_upstream")
+public class AgentUpstreamDO {
+
+    /** 主键ID */
+    @TableId(type = IdType.ASSIGN_UUID)
+    private String id;
+
+    /** Agent ID */
+    private String agentId;
+
+    /** 端点名称 */
+    private String name;
+
+    /** LLM API地址 */
+    private String baseUrl;
+
+    /** LLM API密钥（加密存储） */
+    private String apiKey;
+
+    /** 权重 */
+    private Integer weight;
+
+    /** 是否启用 */
+    private Boolean enabled;
+
+    /** 创建时间 */
+    private LocalDateTime createdAt;
+
+    /** 更新时间 */
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,24 @@
+package com.agentguard.upstream.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 上游负载均衡策略枚举
+ *
+ * @author zhuhx
+ */
+@Getter
+@AllArgsConstructor
+public enum LoadBalanceStrategy {
+
+    /** 峰值EWMA：延迟指数加权均值（遇到更慢的请求立即抬升）乘以进行中请求数，选代价更低的端点 */
+    PEAK_EWMA("PEAK_EWMA", "峰值EWMA"),
+
+    /** 最少进行中请求 */
+    LEAST_REQUESTS("LEAST_REQUESTS", "最少进行中请求");
+
+    private final String code;
+
+    private final String desc;
+}
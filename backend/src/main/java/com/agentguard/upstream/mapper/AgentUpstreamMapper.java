@@ -0,0 +1,14 @@
+package com.agentguard.upstream.mapper;
+
+import com.agentguard.upstream.entity.AgentUpstreamDO;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * Agent上游端点数据访问层
+ *
+ * @author zhuhx
+ */
+@Mapper
+public interface AgentUpstreamMapper extends BaseMapper<AgentUpstreamDO> {
+}
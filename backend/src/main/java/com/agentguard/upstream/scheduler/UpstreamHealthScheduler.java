@@ -0,0 +1,36 @@
+package com.agentguard.upstream.scheduler;
+
+import com.agentguard.upstream.balancer.UpstreamBalancer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 上游端点主动健康检查定时任务调度器
+ *
+ * @author zhuhx
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "agentguard.upstream.health-check.enabled", havingValue = "true", matchIfMissing = true)
+public class UpstreamHealthScheduler {
+
+    private final UpstreamBalancer upstreamBalancer;
+
+    /**
+     * 定时探测近期有流量的端点组
+     *
+     * 默认每30秒执行一次
+     */
+    @Scheduled(fixedDelayString = "${agentguard.upstream.health-check.interval-ms:30000}")
+    public void checkHealth() {
+        try {
+            upstreamBalancer.checkHealth();
+        } catch (Exception e) {
+            log.error("上游端点健康检查任务执行失败: {}", e.getMessage(), e);
+        }
+    }
+}
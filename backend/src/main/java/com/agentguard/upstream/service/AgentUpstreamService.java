@@ -0,0 +1,59 @@
+package com.agentguard.upstream.service;
+
+import com.agentguard.upstream.dto.AgentUpstreamCreateDTO;
+import com.agentguard.upstream.dto.AgentUpstreamDTO;
+import com.agentguard.upstream.dto.AgentUpstreamUpdateDTO;
+import com.agentguard.upstream.dto.UpstreamStatusDTO;
+
+import java.util.List;
+
+/**
+ * Agent 上游端点服务接口
+ *
+ * @author zhuhx
+ */
+public interface AgentUpstreamService {
+
+    /**
+     * 添加上游端点
+     *
+     * @param agentId Agent ID
+     * @param dto 创建请求
+     * @return 端点信息（密钥脱敏）
+     */
+    AgentUpstreamDTO create(String agentId, AgentUpstreamCreateDTO dto);
+
+    /**
+     * 更新上游端点
+     *
+     * @param agentId Agent ID
+     * @param upstreamId 端点ID
+     * @param dto 更新请求
+     * @return 端点信息（密钥脱敏）
+     */
+    AgentUpstreamDTO update(String agentId, String upstreamId, AgentUpstreamUpdateDTO dto);
+
+    /**
+     * 删除上游端点
+     *
+     * @param agentId Agent ID
+     * @param upstreamId 端点ID
+     */
+    void delete(String agentId, String upstreamId);
+
+    /**
+     * 获取 Agent 的上游端点列表
+     *
+     * @param agentId Agent ID
+     * @return 端点列表（密钥脱敏）
+     */
+    List<AgentUpstreamDTO> listByAgentId(String agentId);
+
+    /**
+     * 获取 Agent 端点组在本节点的运行状态
+     *
+     * @param agentId Agent ID
+     * @return 端点运行状态列表
+     */
+    List<UpstreamStatusDTO> getStatus(String agentId);
+}
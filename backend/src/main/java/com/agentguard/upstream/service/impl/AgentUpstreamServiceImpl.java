@@ -0,0 +1,149 @@
+package com.agentguard.upstream.service.impl;
+
+import cn.hutool.core.bean.BeanUtil;
+import cn.hutool.core.bean.copier.CopyOptions;
+import cn.hutool.core.util.ObjectUtil;
+import cn.hutool.core.util.StrUtil;
+import com.agentguard.agent.mapper.AgentMapper;
+import com.agentguard.common.exception.BusinessException;
+import com.agentguard.common.exception.ErrorCode;
+import com.agentguard.common.util.EncryptionUtil;
+import com.agentguard.upstream.balancer.UpstreamBalancer;
+import com.agentguard.upstream.dto.AgentUpstreamCreateDTO;
+import com.agentguard.upstream.dto.AgentUpstreamDTO;
+import com.agentguard.upstream.dto.AgentUpstreamUpdateDTO;
+import com.agentguard.upstream.dto.UpstreamStatusDTO;
+import com.agentguard.upstream.entity.AgentUpstreamDO;
+import com.agentguard.upstream.mapper.AgentUpstreamMapper;
+import com.agentguard.upstream.service.AgentUpstreamService;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Agent 上游端点服务实现类
+ *
+ * @author zhuhx
+ */
+@Service
+@RequiredArgsConstructor
+public class AgentUpstreamServiceImpl implements AgentUpstreamService {
+
+    private final AgentUpstreamMapper upstreamMapper;
+    private final AgentMapper agentMapper;
+    private final EncryptionUtil encryptionUtil;
+    private final UpstreamBalancer upstreamBalancer;
+
+    @Override
+    @Transactional
+    public AgentUpstreamDTO create(String agentId, AgentUpstreamCreateDTO dto) {
+        checkAgentExists(agentId);
+        checkNameUnique(agentId, dto.getName(), null);
+
+        AgentUpstreamDO upstreamDO = BeanUtil.copyProperties(dto, AgentUpstreamDO.class);
+        upstreamDO.setAgentId(agentId);
+        upstreamDO.setApiKey(encryptionUtil.encrypt(dto.getApiKey()));
+        upstreamDO.setWeight(ObjectUtil.defaultIfNull(dto.getWeight(), 1));
+        upstreamDO.setEnabled(ObjectUtil.defaultIfNull(dto.getEnabled(), true));
+        upstreamMapper.insert(upstreamDO);
+
+        upstreamBalancer.invalidate(agentId);
+        return toDTO(upstreamDO);
+    }
+
+    @Override
+    @Transactional
+    public AgentUpstreamDTO update(String agentId, String upstreamId, AgentUpstreamUpdateDTO dto) {
+        AgentUpstreamDO upstreamDO = getUpstream(agentId, upstreamId);
+        if (StrUtil.isNotBlank(dto.getName()) && !dto.getName().equals(upstreamDO.getName())) {
+            checkNameUnique(agentId, dto.getName(), upstreamId);
+        }
+
+        // 脱敏密钥表示不修改，真实密钥加密后更新
+        if (StrUtil.isNotBlank(dto.getApiKey())) {
+            dto.setApiKey(dto.getApiKey().contains("***") ? null : encryptionUtil.encrypt(dto.getApiKey()));
+        }
+
+        BeanUtil.copyProperties(dto, upstreamDO, CopyOptions.create().ignoreNullValue());
+        upstreamDO.setUpdatedAt(LocalDateTime.now());
+        upstreamMapper.updateById(upstreamDO);
+
+        upstreamBalancer.invalidate(agentId);
+        return toDTO(upstreamDO);
+    }
+
+    @Override
+    @Transactional
+    public void delete(String agentId, String upstreamId) {
+        AgentUpstreamDO upstreamDO = getUpstream(agentId, upstreamId);
+        upstreamMapper.deleteById(upstreamDO.getId());
+        upstreamBalancer.invalidate(agentId);
+    }
+
+    @Override
+    public List<AgentUpstreamDTO> listByAgentId(String agentId) {
+        checkAgentExists(agentId);
+        return upstreamMapper.selectList(new LambdaQueryWrapper<AgentUpstreamDO>()
+                        .eq(AgentUpstreamDO::getAgentId, agentId)
+                        .orderByAsc(AgentUpstreamDO::getCreatedAt))
+                .stream()
+                .map(this::toDTO)
+                .toList();
+    }
+
+    @Override
+    public List<UpstreamStatusDTO> getStatus(String agentId) {
+        checkAgentExists(agentId);
+        return upstreamBalancer.getStatus(agentId);
+    }
+
+    private void checkAgentExists(String agentId) {
+        if (ObjectUtil.isNull(agentMapper.selectById(agentId))) {
+            throw new BusinessException(ErrorCode.AGENT_NOT_FOUND);
+        }
+    }
+
+    private void checkNameUnique(String agentId, String name, String excludeId) {
+        boolean exists = upstreamMapper.exists(new LambdaQueryWrapper<AgentUpstreamDO>()
+                .eq(AgentUpstreamDO::getAgentId, agentId)
+                .eq(AgentUpstreamDO::getName, name)
+                .ne(StrUtil.isNotBlank(excludeId), AgentUpstreamDO::getId, excludeId));
+        if (exists) {
+            throw new BusinessException(ErrorCode.UPSTREAM_NAME_DUPLICATE);
+        }
+    }
+
+    private AgentUpstreamDO getUpstream(String agentId, String upstreamId) {
+        AgentUpstreamDO upstreamDO = upstreamMapper.selectById(upstreamId);
+        if (ObjectUtil.isNull(upstreamDO) || !agentId.equals(upstreamDO.getAgentId())) {
+            throw new BusinessException(ErrorCode.UPSTREAM_NOT_FOUND);
+        }
+        return upstreamDO;
+    }
+
+    /**
+     * 转换为 DTO，解密后脱敏密钥
+     */
+    private AgentUpstreamDTO toDTO(AgentUpstreamDO upstreamDO) {
+        AgentUpstreamDTO dto = BeanUtil.copyProperties(upstreamDO, AgentUpstreamDTO.class);
+        if (StrUtil.isNotBlank(upstreamDO.getApiKey())) {
+            dto.setApiKey(maskApiKey(encryptionUtil.decrypt(upstreamDO.getApiKey())));
+        }
+        return dto;
+    }
+
+    /**
+     * 脱敏 API Key，规则与 Agent 密钥一致
+     * 例如：sk-1234567890abcdef -> sk-***abcdef
+     */
+    private String maskApiKey(String apiKey) {
+        if (StrUtil.isBlank(apiKey) || apiKey.length() <= 10) {
+            return "***";
+        }
+        return apiKey.substring(0, 3) + "***" + apiKey.substring(apiKey.length() - 6);
+    }
+}
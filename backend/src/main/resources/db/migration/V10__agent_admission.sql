@@ -0,0 +1,8 @@
+-- Agent LLM 调用调度参数
+-- 运行环境决定默认调度权重（见 agentguard.proxy.admission.environment-weights），scheduling_weight 可单独覆盖；
+-- max_concurrency 为该 Agent 全局（跨节点）同时进行的 LLM 调用上限，为空时使用默认值。
+
+ALTER TABLE `agent`
+    ADD COLUMN `environment` VARCHAR(20) NOT NULL DEFAULT 'PRODUCTION' COMMENT '运行环境：TEST/STAGING/PRODUCTION' AFTER `hedging_enabled`,
+    ADD COLUMN `scheduling_weight` INT DEFAULT NULL COMMENT '调度权重，为空时按运行环境取默认权重' AFTER `environment`,
+    ADD COLUMN `max_concurrency` INT DEFAULT NULL COMMENT '同时进行的LLM调用上限，为空时使用默认值' AFTER `scheduling_weight`;
@@ -0,0 +1,9 @@
+-- 相似提示词响应缓存
+-- Agent 开启后，非流式 LLM 调用与近期请求的消息内容高度相似（MinHash 估算的 Jaccard 相似度不低于阈值，
+-- 且模型、工具等其余请求参数完全一致）时直接返回缓存的响应，不请求上游；命中的调用在 agent_log 中标记。
+
+ALTER TABLE `agent`
+    ADD COLUMN `prompt_cache_enabled` TINYINT(1) NOT NULL DEFAULT 0 COMMENT '是否启用相似提示词响应缓存' AFTER `max_concurrency`;
+
+ALTER TABLE `agent_log`
+    ADD COLUMN `cache_hit` TINYINT(1) NOT NULL DEFAULT 0 COMMENT '是否命中相似提示词响应缓存' AFTER `token_estimated`;
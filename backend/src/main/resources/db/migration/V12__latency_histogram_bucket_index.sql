@@ -0,0 +1,2 @@
+-- 延迟直方图按时间桶删除过期数据（不区分指标），需要以 bucket_start 开头的索引
+ALTER TABLE `latency_histogram` ADD KEY `idx_bucket_start` (`bucket_start`);
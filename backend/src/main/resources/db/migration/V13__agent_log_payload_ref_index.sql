@@ -0,0 +1,6 @@
+-- Agent日志载荷引用索引
+-- 过期分区删除或归档时按引用分批清理载荷文件，需要按引用查找仍在使用的记录。
+-- 归档表通过 CREATE TABLE ... LIKE agent_log 创建，会继承这两个索引。
+ALTER TABLE `agent_log`
+    ADD KEY `idx_request_body_ref` (`request_body_ref`),
+    ADD KEY `idx_response_body_ref` (`response_body_ref`);
@@ -0,0 +1,18 @@
+-- 冷数据归档文件清单
+-- 原先登记在节点本地的 manifest.json 和内存中，多节点部署时各节点互不可见；改为数据库表，所有节点共享。
+-- 归档根目录下的 manifest.json 仍在每次导出后按此表重写，供分析服务直接读取。
+
+CREATE TABLE IF NOT EXISTS `archive_file` (
+    `id` VARCHAR(36) NOT NULL PRIMARY KEY,
+    `dataset` VARCHAR(32) NOT NULL COMMENT '数据集：agent_log/cost_record',
+    `data_date` DATE NOT NULL COMMENT '数据日期（自然日）',
+    `file` VARCHAR(255) NOT NULL COMMENT '相对归档根目录的文件路径',
+    `format` VARCHAR(32) NOT NULL COMMENT '文件格式',
+    `compression` VARCHAR(16) NOT NULL COMMENT '压缩算法',
+    `row_count` BIGINT NOT NULL DEFAULT 0 COMMENT '行数',
+    `size_bytes` BIGINT NOT NULL DEFAULT 0 COMMENT '文件大小（字节）',
+    `sha256` CHAR(64) CHARACTER SET ascii COMMENT '文件 SHA-256',
+    `column_names` JSON COMMENT '列名',
+    `exported_at` DATETIME NOT NULL COMMENT '导出时间',
+    UNIQUE KEY `uk_dataset_date` (`dataset`, `data_date`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='冷数据归档文件表';
@@ -0,0 +1,14 @@
+-- 高频写入表主键压缩
+-- 新记录主键由时间有序ID生成器生成（32位十六进制，前缀随时间递增），
+-- 主键改为 ASCII 编码的定长上限字段，二级索引中携带的主键也随之变小。
+--
+-- 已有数据无需改写：历史主键（随机UUID / 审批格式ID）均不超过32位，原样保留，
+-- 新主键按时间顺序集中追加，不再散落到随机页。
+-- 数据量较大的环境建议先用 pt-online-schema-change 或 gh-ost 在线执行以下变更，
+-- 再执行本迁移（MODIFY 为幂等操作）。
+
+ALTER TABLE `agent_log`
+    MODIFY `id` VARCHAR(32) CHARACTER SET ascii COLLATE ascii_bin NOT NULL;
+
+ALTER TABLE `cost_record`
+    MODIFY `id` VARCHAR(32) CHARACTER SET ascii COLLATE ascii_bin NOT NULL;
@@ -0,0 +1,40 @@
+-- Agent日志表按月分区
+-- 分区键为 created_at，过期数据通过删除/交换分区清理，不再执行大批量 DELETE。
+-- MySQL 要求分区键包含在所有唯一索引中，主键调整为 (id, created_at)。
+--
+-- p_history 存放 2026 年以前的数据；2026-01 起按月建分区，一直建到迁移当月之后 3 个月（与默认预建月数一致），
+-- p_future 兜底且保持为空。后续月分区由日志保留任务（LogRetentionService）从空的 p_future 中拆分预建，只改元数据；
+-- 若初始只建 p_future，已有数据都会落在 p_future 中，每次拆分都要重写这些数据。
+-- 过期分区按系统设置删除或归档到 agent_log_archive_<分区名> 表。
+
+ALTER TABLE `agent_log`
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (`id`, `created_at`);
+
+SET SESSION group_concat_max_len = 65536;
+
+SET @month_partitions = (
+    WITH RECURSIVE months (month_start) AS (
+        SELECT DATE('2026-01-01')
+        UNION ALL
+        SELECT month_start + INTERVAL 1 MONTH
+        FROM months
+        WHERE month_start < DATE_FORMAT(CURDATE(), '%Y-%m-01') + INTERVAL 3 MONTH
+    )
+    SELECT GROUP_CONCAT(
+               CONCAT('PARTITION p', DATE_FORMAT(month_start, '%Y%m'),
+                      ' VALUES LESS THAN (''', DATE_FORMAT(month_start + INTERVAL 1 MONTH, '%Y-%m-%d 00:00:00'), ''')')
+               ORDER BY month_start SEPARATOR ', ')
+    FROM months
+);
+
+SET @partition_sql = CONCAT(
+    'ALTER TABLE `agent_log` PARTITION BY RANGE COLUMNS(`created_at`) (',
+    'PARTITION p_history VALUES LESS THAN (''2026-01-01 00:00:00''), ',
+    @month_partitions, ', ',
+    'PARTITION p_future VALUES LESS THAN (MAXVALUE))'
+);
+
+PREPARE partition_stmt FROM @partition_sql;
+EXECUTE partition_stmt;
+DEALLOCATE PREPARE partition_stmt;
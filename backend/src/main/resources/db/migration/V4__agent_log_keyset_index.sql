@@ -0,0 +1,8 @@
+-- Agent日志列表按 Agent 游标分页的索引
+-- (agent_id, created_at) 加上 InnoDB 二级索引自带的主键 id，正好覆盖
+-- WHERE agent_id = ? AND (created_at, id) < (?, ?) ORDER BY created_at DESC, id DESC 的访问路径。
+-- 原 idx_agent_id 是该索引的前缀，一并移除。
+
+ALTER TABLE `agent_log`
+    ADD KEY `idx_agent_created_at` (`agent_id`, `created_at`),
+    DROP KEY `idx_agent_id`;
@@ -0,0 +1,7 @@
+-- Agent日志载荷引用
+-- 大请求体/响应体转存到载荷存储（按 SHA-256 内容寻址、压缩去重），行内只保留引用，
+-- 对应的 request_body / response_body 列为空。已有数据保持内联，读取时两种形式都兼容。
+
+ALTER TABLE `agent_log`
+    ADD COLUMN `request_body_ref` CHAR(64) CHARACTER SET ascii COMMENT '请求体载荷引用（SHA-256）' AFTER `response_body`,
+    ADD COLUMN `response_body_ref` CHAR(64) CHARACTER SET ascii COMMENT '响应体载荷引用（SHA-256）' AFTER `request_body_ref`;
@@ -0,0 +1,26 @@
+-- 延迟分布直方图
+-- 各节点在内存中按 (Agent, 模型, 指标, 时间桶) 维护 HdrHistogram，定期将累计直方图压缩编码后写入本表。
+-- 每个节点进程只写自己的行（node_id 随进程启动生成），查询时按条件取出多行直方图合并后计算分位数，
+-- 多节点、多时间桶的合并结果与全部原始样本直接统计一致（在直方图精度内）。
+
+CREATE TABLE IF NOT EXISTS `latency_histogram` (
+    `id` VARCHAR(32) CHARACTER SET ascii COLLATE ascii_bin NOT NULL PRIMARY KEY,
+    `node_id` VARCHAR(32) CHARACTER SET ascii NOT NULL COMMENT '写入节点ID',
+    `agent_id` VARCHAR(36) NOT NULL COMMENT 'AgentID',
+    `model` VARCHAR(100) NOT NULL DEFAULT '' COMMENT 'LLM模型，非LLM请求为空串',
+    `metric` VARCHAR(20) NOT NULL COMMENT '指标: RESPONSE_TIME/FIRST_TOKEN',
+    `bucket_start` DATETIME NOT NULL COMMENT '时间桶起始时间',
+    `sample_count` BIGINT NOT NULL DEFAULT 0 COMMENT '样本数',
+    `histogram` BLOB NOT NULL COMMENT 'HdrHistogram 压缩编码（毫秒）',
+    `created_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    `updated_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE KEY `uk_node_bucket` (`node_id`, `agent_id`, `model`, `metric`, `bucket_start`),
+    KEY `idx_metric_bucket` (`metric`, `bucket_start`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='延迟分布直方图表';
+
+-- 延迟告警默认配置
+INSERT IGNORE INTO system_settings (id, category, setting_key, setting_value, description, encrypted) VALUES
+(UUID(), 'alert_config', 'latency_alert_enabled', 'false', '延迟告警是否启用', FALSE),
+(UUID(), 'alert_config', 'latency_p95_threshold', '10000', '延迟告警P95阈值（毫秒）', FALSE),
+(UUID(), 'alert_config', 'latency_window', '15', '延迟统计时间窗口（分钟）', FALSE),
+(UUID(), 'alert_config', 'latency_alert_cooldown_minutes', '30', '延迟告警通知冷却时间（分钟）', FALSE);
@@ -0,0 +1,6 @@
+-- Agent日志Token估算标记
+-- 上游未返回 usage 时（如流式响应缺少 usage 数据块），Token 数由本地 BPE 分词估算并据此计费，
+-- 用该列区分估算值与上游返回值。
+
+ALTER TABLE `agent_log`
+    ADD COLUMN `token_estimated` TINYINT(1) NOT NULL DEFAULT 0 COMMENT 'Token数是否为本地估算值' AFTER `token_output`;
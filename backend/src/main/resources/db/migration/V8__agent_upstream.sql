@@ -0,0 +1,21 @@
+-- Agent上游端点组
+-- 每个 Agent 除自身的 llm_base_url / llm_api_key（主端点）外，可以配置多个附加端点（不同区域部署、不同 API Key），
+-- 代理按权重和实时负载在主端点与启用的附加端点之间选择，并对异常端点做被动/主动健康检查。
+-- agent_log.upstream_id 记录实际选中的附加端点，为空表示使用 Agent 主端点。
+
+CREATE TABLE IF NOT EXISTS `agent_upstream` (
+    `id` VARCHAR(36) NOT NULL PRIMARY KEY,
+    `agent_id` VARCHAR(36) NOT NULL COMMENT 'Agent ID',
+    `name` VARCHAR(100) NOT NULL COMMENT '端点名称',
+    `base_url` VARCHAR(500) NOT NULL COMMENT 'LLM API地址',
+    `api_key` VARCHAR(256) NOT NULL COMMENT 'LLM API密钥（加密存储）',
+    `weight` INT NOT NULL DEFAULT 1 COMMENT '权重',
+    `enabled` TINYINT NOT NULL DEFAULT 1 COMMENT '是否启用：0-禁用，1-启用',
+    `created_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    `updated_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE KEY `uk_agent_name` (`agent_id`, `name`),
+    KEY `idx_agent_id` (`agent_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='Agent上游端点表';
+
+ALTER TABLE `agent_log`
+    ADD COLUMN `upstream_id` VARCHAR(36) COMMENT '选中的上游端点ID，为空表示Agent主端点' AFTER `endpoint`;
@@ -0,0 +1,6 @@
+-- Agent 请求对冲开关
+-- 开启后，非流式 LLM 调用和通用 API 代理的 GET 请求在主请求超过该 Agent 的 P95 响应头时间仍未返回时，
+-- 向另一个端点发送一份相同请求，取先返回者；对冲请求数受预算限制。
+
+ALTER TABLE `agent`
+    ADD COLUMN `hedging_enabled` TINYINT(1) NOT NULL DEFAULT 0 COMMENT '是否启用请求对冲' AFTER `llm_model`;
@@ -0,0 +1,155 @@
+package com.agentguard.approval.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 审批ID生成器节点号冲突检测与重启续号测试
+ *
+ * @author zhuhx
+ */
+class ApprovalIdGeneratorTest {
+
+    /** 模拟 Redis 中的租约（键 -> 持有者）与已登记的秒上界 */
+    private final Map<String, String> leases = new ConcurrentHashMap<>();
+
+    /** 模拟 Redis 中的节点号计数器 */
+    private final AtomicLong counter = new AtomicLong();
+
+    @Test
+    void configuredNodeIdHeldByAnotherNodeIsRefused() {
+        ApprovalIdGenerator first = newGenerator(5);
+        first.init();
+        assertEquals(5, first.getNodeId());
+
+        ApprovalIdGenerator second = newGenerator(5);
+        assertThrows(IllegalStateException.class, second::init);
+    }
+
+    @Test
+    void configuredNodeIdIsReusableAfterRelease() {
+        ApprovalIdGenerator first = newGenerator(5);
+        first.init();
+        first.releaseLease();
+
+        ApprovalIdGenerator second = newGenerator(5);
+        second.init();
+        assertEquals(5, second.getNodeId());
+    }
+
+    @Test
+    void assignedNodeIdSkipsOccupiedIds() {
+        leases.put("approval:id:node:1", "other-node");
+        leases.put("approval:id:node:2", "other-node");
+
+        ApprovalIdGenerator generator = newGenerator(-1);
+        generator.init();
+        assertEquals(3, generator.getNodeId());
+    }
+
+    @Test
+    void renewReassignsWhenLeaseTakenByAnotherNode() {
+        ApprovalIdGenerator generator = newGenerator(-1);
+        generator.init();
+        int original = generator.getNodeId();
+
+        // 模拟 Redis 不可用期间租约过期并被其他节点占用
+        leases.put("approval:id:node:" + original, "other-node");
+        generator.renewLease();
+        assertNotEquals(original, generator.getNodeId());
+        assertEquals("other-node", leases.get("approval:id:node:" + original));
+    }
+
+    @Test
+    void allNodeIdsOccupiedIsRefused() {
+        for (int i = 0; i < 100; i++) {
+            leases.put("approval:id:node:" + i, "other-node");
+        }
+        assertThrows(IllegalStateException.class, newGenerator(-1)::init);
+    }
+
+    @Test
+    void restartContinuesAfterReleasedCeiling() {
+        ApprovalIdGenerator first = newGenerator(5);
+        first.init();
+        String last = generate(first, 25000);
+        first.releaseLease();
+
+        ApprovalIdGenerator second = newGenerator(5);
+        second.init();
+        assertTrue(second.nextUUID(null).compareTo(last) > 0);
+    }
+
+    @Test
+    void restartAfterCrashContinuesAfterReservedCeiling() {
+        ApprovalIdGenerator first = newGenerator(5);
+        first.init();
+        String last = generate(first, 25000);
+
+        // 模拟进程崩溃：未回写上界，租约过期
+        leases.remove("approval:id:node:5");
+
+        ApprovalIdGenerator second = newGenerator(5);
+        second.init();
+        assertTrue(second.nextUUID(null).compareTo(last) > 0);
+    }
+
+    private String generate(ApprovalIdGenerator generator, int count) {
+        String last = null;
+        for (int i = 0; i < count; i++) {
+            last = generator.nextUUID(null);
+        }
+        return last;
+    }
+
+    private ApprovalIdGenerator newGenerator(int configuredNodeId) {
+        ApprovalIdGenerator generator = new ApprovalIdGenerator(sharedRedis());
+        ReflectionTestUtils.setField(generator, "configuredNodeId", configuredNodeId);
+        return generator;
+    }
+
+    /**
+     * 多个生成器共享的模拟 Redis：按参数个数区分占用/续期脚本（持有者、有效期）和释放脚本（持有者）
+     */
+    @SuppressWarnings("unchecked")
+    private StringRedisTemplate sharedRedis() {
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> ops = mock(ValueOperations.class);
+        when(redis.opsForValue()).thenReturn(ops);
+        when(ops.increment(anyString())).thenAnswer(invocation -> counter.incrementAndGet());
+        when(ops.get(anyString())).thenAnswer(invocation -> leases.get(invocation.<String>getArgument(0)));
+        doAnswer(invocation -> leases.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(ops).set(anyString(), anyString(), any(Duration.class));
+        when(redis.execute(any(RedisScript.class), anyList(), any(), any())).thenAnswer(invocation -> {
+            String key = invocation.<List<String>>getArgument(1).get(0);
+            String token = invocation.getArgument(2);
+            String owner = leases.putIfAbsent(key, token);
+            return owner == null || owner.equals(token) ? 1L : 0L;
+        });
+        when(redis.execute(any(RedisScript.class), anyList(), any())).thenAnswer(invocation -> {
+            String key = invocation.<List<String>>getArgument(1).get(0);
+            return leases.remove(key, invocation.<String>getArgument(2)) ? 1L : 0L;
+        });
+        return redis;
+    }
+}